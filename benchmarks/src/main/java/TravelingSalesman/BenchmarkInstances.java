@@ -0,0 +1,156 @@
+package TravelingSalesman;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.Random;
+
+import org.jgap.IChromosome;
+
+/**
+ * The problems that the benchmarks are run on: the TSPLIB problems in /data by
+ * name (wi29, att48, eil101, a280, kroA200), and synthetic EUC_2D problems
+ * named "synthetic" and their number of cities, e.g. synthetic10000. A
+ * synthetic problem always has the same cities, so results can be compared
+ * from one run of the benchmarks to the next.
+ *
+ * The /data directory is looked for where the benchmarks are started, unless
+ * the tsp.data property says otherwise. JMH forks a JVM for each benchmark, so
+ * the property has to be handed on with -jvmArgsAppend -Dtsp.data=...
+ *
+ * @author Aaron Foltz
+ */
+public final class BenchmarkInstances {
+
+	public static final String		SYNTHETIC	= "synthetic";
+
+	private static final Charset	ASCII		= Charset.forName("US-ASCII");
+
+	// Seed of the cities of the synthetic problems and of the random tours
+	private static final long		SEED		= 42;
+
+
+	private BenchmarkInstances() {
+
+	}
+
+
+	/**
+	 * @return the directory that the TSPLIB problems are read from
+	 */
+	public static File dataDirectory() {
+
+		return new File(System.getProperty("tsp.data", "data"));
+	}
+
+
+	/**
+	 * @param name
+	 *            the name of the problem
+	 * @return the problem
+	 * @throws IOException
+	 *             if a TSPLIB problem can't be read
+	 */
+	public static TSPInstance load(String name) throws IOException {
+
+		if (name.startsWith(SYNTHETIC)) {
+			return new TSPLIBParser().parse(name, new ByteArrayInputStream(
+					text(name)));
+		}
+		return TSPLIBParser.read(new File(dataDirectory(), name + ".tsp"));
+	}
+
+
+	/**
+	 * Set up a run of the Genetic Algorithm with the given tours as its whole
+	 * population, so that no time is spent on Stochastic Initialization. The
+	 * configuration belongs to the current thread until it is reset.
+	 *
+	 * @param salesman
+	 *            the run, not started yet
+	 * @param tours
+	 *            the tours of the population
+	 * @return the chromosomes of the population
+	 * @throws Exception
+	 */
+	public static IChromosome[] populate(TravelingSalesman salesman,
+			int[][] tours) throws Exception {
+
+		salesman.setSeed(SEED);
+		salesman.setPopulationSize(tours.length);
+		salesman.setInitialTours(tours);
+
+		salesman.createInitialPopulation(null);
+
+		IChromosome[] chromosomes = new IChromosome[tours.length];
+		for (int i = 0; i < tours.length; i++) {
+			chromosomes[i] = salesman.createChromosome(tours[i]);
+		}
+		return chromosomes;
+	}
+
+
+	/**
+	 * @param cities
+	 *            the number of cities
+	 * @param count
+	 *            the number of tours
+	 * @return random tours that start at city 0, like those of the Genetic
+	 *         Algorithm; the same ones on every call
+	 */
+	public static int[][] randomTours(int cities, int count) {
+
+		Random random = new Random(SEED);
+		int[][] tours = new int[count][cities];
+
+		for (int[] tour : tours) {
+			for (int i = 0; i < cities; i++) {
+				tour[i] = i;
+			}
+			for (int i = cities - 1; i > 1; i--) {
+				int j = 1 + random.nextInt(i);
+				int t = tour[i];
+				tour[i] = tour[j];
+				tour[j] = t;
+			}
+		}
+		return tours;
+	}
+
+
+	/**
+	 * @param name
+	 *            the name of the problem
+	 * @return the TSPLIB text of the problem
+	 * @throws IOException
+	 *             if a TSPLIB problem can't be read
+	 */
+	public static byte[] text(String name) throws IOException {
+
+		if (!name.startsWith(SYNTHETIC)) {
+			return Files.readAllBytes(new File(dataDirectory(), name + ".tsp")
+					.toPath());
+		}
+
+		int cities = Integer.parseInt(name.substring(SYNTHETIC.length()));
+		Random random = new Random(SEED);
+
+		StringBuilder text = new StringBuilder(32 * cities + 256);
+		text.append("NAME : ").append(name).append('\n');
+		text.append("COMMENT : random cities for the benchmarks\n");
+		text.append("TYPE : TSP\n");
+		text.append("DIMENSION : ").append(cities).append('\n');
+		text.append("EDGE_WEIGHT_TYPE : EUC_2D\n");
+		text.append("NODE_COORD_SECTION\n");
+		for (int i = 0; i < cities; i++) {
+			text.append(i + 1).append(' ')
+					.append(random.nextInt(100000)).append(' ')
+					.append(random.nextInt(100000)).append('\n');
+		}
+		text.append("EOF\n");
+
+		return text.toString().getBytes(ASCII);
+	}
+}
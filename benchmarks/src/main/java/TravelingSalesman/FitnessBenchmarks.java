@@ -0,0 +1,90 @@
+package TravelingSalesman;
+
+import java.util.concurrent.TimeUnit;
+
+import org.jgap.IChromosome;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The cost of a whole tour, summed up a distance at a time with
+ * TravelingSalesman.distance, and worked out from a chromosome by
+ * TravelingSalesmanFitnessFunction.evaluate. The difference between the two
+ * is what the genes cost over plain city numbers.
+ *
+ * Problems of up to SolveSession.MATRIX_LIMIT cities take their distances from
+ * the distance matrix, larger ones from the DistanceKernel.
+ *
+ * @author Aaron Foltz
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FitnessBenchmarks {
+
+	// Tours looked at in turn, so that no single tour sits in the cache
+	private static final int	TOURS	= 16;
+
+	@Param({ "wi29", "att48", "eil101", "a280", "kroA200", "synthetic1000",
+			"synthetic10000" })
+	public String				instance;
+
+	private IChromosome[]		chromosomes;
+	private TravelingSalesmanFitnessFunction	fitness;
+	private int					next;
+	private TravelingSalesman	salesman;
+	private int[][]				tours;
+
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+
+		TSPInstance problem = BenchmarkInstances.load(instance);
+		tours = BenchmarkInstances.randomTours(problem.getDimension(), TOURS);
+
+		salesman = new SolveSession(problem).createSalesman();
+		chromosomes = BenchmarkInstances.populate(salesman, tours);
+		fitness = new TravelingSalesmanFitnessFunction(salesman);
+	}
+
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+
+		salesman.getConfiguration().reset();
+	}
+
+
+	@Benchmark
+	public double distance() {
+
+		int[] tour = tours[next++ & (TOURS - 1)];
+
+		double cost = salesman.distance(tour[tour.length - 1], tour[0]);
+		for (int i = 0; i < tour.length - 1; i++) {
+			cost += salesman.distance(tour[i], tour[i + 1]);
+		}
+		return cost;
+	}
+
+
+	@Benchmark
+	public double evaluate() {
+
+		return fitness.evaluate(chromosomes[next++ & (TOURS - 1)]);
+	}
+}
@@ -0,0 +1,85 @@
+package TravelingSalesman;
+
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.jgap.Gene;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Stochastic Initialization of a single chromosome, the way
+ * createInitialPopulation makes each one: the city list is copied and
+ * shuffled, and the chromosome is built up from it.
+ *
+ * Stochastic Initialization works out the average edge of the cities that are
+ * left for every city it tries, so it grows much faster than the number of
+ * cities; the largest synthetic problem here is 1000 cities, where a single
+ * chromosome already takes close to half a second.
+ *
+ * @author Aaron Foltz
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InitializationBenchmarks {
+
+	@Param({ "wi29", "att48", "eil101", "a280", "kroA200", "synthetic1000" })
+	public String				instance;
+
+	// Shuffles the city list, as the random generator of the run does in
+	// createInitialPopulation
+	private final Random		random	= new Random(42);
+
+	private Gene[]				sampleGenes;
+	private TravelingSalesman	salesman;
+	private SolveSession		session;
+
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+
+		session = new SolveSession(BenchmarkInstances.load(instance));
+		salesman = session.createSalesman();
+		BenchmarkInstances.populate(salesman, BenchmarkInstances.randomTours(
+				session.getInstance().getDimension(), 1));
+
+		sampleGenes = salesman.getConfiguration().getSampleChromosome()
+				.getGenes();
+	}
+
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+
+		salesman.getConfiguration().reset();
+	}
+
+
+	@Benchmark
+	public Gene[] stochasticInitialization() {
+
+		LinkedList<Integer> cityList = new LinkedList<Integer>(
+				session.getCityList());
+		Collections.shuffle(cityList, random);
+
+		return StochasticInitialization.operate(new Gene[sampleGenes.length],
+				sampleGenes, salesman, cityList);
+	}
+}
@@ -0,0 +1,109 @@
+package TravelingSalesman;
+
+import java.util.concurrent.TimeUnit;
+
+import org.jgap.Gene;
+import org.jgap.IChromosome;
+import org.jgap.RandomGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The genetic operators, on a population of random tours:
+ *
+ * crossover - the heuristic crossover building one child from two parents
+ *
+ * mutateChromosome - SegmentSwappingMutation cloning a chromosome and trying
+ * its 2-opt move on a fifth of its genes, as it does for every chromosome it
+ * picks
+ *
+ * mutateSegment - a single 2-opt move of SegmentSwappingMutation
+ *
+ * @author Aaron Foltz
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OperatorBenchmarks {
+
+	// Parents picked from in turn
+	private static final int	TOURS	= 16;
+
+	@Param({ "wi29", "att48", "eil101", "a280", "kroA200", "synthetic1000",
+			"synthetic10000" })
+	public String				instance;
+
+	private IChromosome[]		chromosomes;
+	private TravelingSalesmanHeuristicCrossover	crossover;
+	private RandomGenerator		generator;
+
+	// The genes that mutateSegment keeps on mutating; they stay a tour
+	private Gene[]				genes;
+
+	private SegmentSwappingMutation	mutation;
+	private int					next;
+	private TravelingSalesman	salesman;
+
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+
+		TSPInstance problem = BenchmarkInstances.load(instance);
+
+		salesman = new SolveSession(problem).createSalesman();
+		chromosomes = BenchmarkInstances.populate(salesman,
+				BenchmarkInstances.randomTours(problem.getDimension(), TOURS));
+
+		crossover = salesman.getCrossover();
+		mutation = salesman.getMutation();
+		generator = salesman.getConfiguration().getRandomGenerator();
+		genes = ((IChromosome) chromosomes[0].clone()).getGenes();
+	}
+
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+
+		salesman.getConfiguration().reset();
+	}
+
+
+	@Benchmark
+	public Gene[] crossover() {
+
+		int first = next++ & (TOURS - 1);
+		int second = (first + 1) & (TOURS - 1);
+		return crossover.operate(chromosomes[first].getGenes(),
+				chromosomes[second].getGenes());
+	}
+
+
+	@Benchmark
+	public IChromosome mutateChromosome() {
+
+		// A rate of 1 always mutates
+		return mutation.operate(chromosomes[next++ & (TOURS - 1)], 1,
+				generator);
+	}
+
+
+	@Benchmark
+	public Gene[] mutateSegment() {
+
+		return mutation.operate(generator, genes);
+	}
+}
@@ -0,0 +1,66 @@
+package TravelingSalesman;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parsing a problem from its TSPLIB text in memory, so that the disk isn't
+ * measured, by Reader (without printing the coordinates) and by the
+ * TSPLIBParser. ParserBenchmark compares the two on much larger files,
+ * including the memory-mapped reader and gzip.
+ *
+ * @author Aaron Foltz
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReaderBenchmarks {
+
+	@Param({ "wi29", "att48", "eil101", "a280", "kroA200", "synthetic1000",
+			"synthetic10000" })
+	public String		instance;
+
+	private byte[]		text;
+
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+
+		text = BenchmarkInstances.text(instance);
+	}
+
+
+	@Benchmark
+	public TSPInstance reader() throws IOException {
+
+		return Reader.read(instance, new BufferedReader(new InputStreamReader(
+				new ByteArrayInputStream(text), "US-ASCII")));
+	}
+
+
+	@Benchmark
+	public TSPInstance tsplibParser() throws IOException {
+
+		return new TSPLIBParser().parse(instance, new ByteArrayInputStream(
+				text));
+	}
+}
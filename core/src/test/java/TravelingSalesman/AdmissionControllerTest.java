@@ -0,0 +1,228 @@
+package TravelingSalesman;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+
+/**
+ * Checks that the AdmissionController keeps solves within its budget: solves
+ * that don't fit are downgraded or wait in line, solves that fit are let in
+ * past them only so often, and solves leave the line when they are cancelled
+ * or have waited too long.
+ *
+ * @author Aaron Foltz
+ */
+public class AdmissionControllerTest {
+
+	// How long to wait for another thread before failing
+	private static final long	PATIENCE	= 10000;
+
+
+	@Test
+	public void admitAndRelease() {
+
+		TravelingSalesman salesman = solve(100, 50);
+		long bytes = FootprintEstimator.estimate(salesman);
+		AdmissionController controller = new AdmissionController(bytes,
+				Long.MAX_VALUE);
+
+		AdmissionController.Admission admission = admitted(controller
+				.admit(salesman));
+		assertFalse(admission.isDowngraded());
+		assertEquals(bytes, admission.getBytes());
+		assertEquals(bytes, controller.getReserved());
+
+		admission.release();
+		admission.release();
+		assertEquals(0, controller.getReserved());
+		assertEquals(0, controller.getWaiting());
+	}
+
+
+	@Test
+	public void solveThatCanNeverFitIsRejected() {
+
+		AdmissionController controller = new AdmissionController(1024,
+				Long.MAX_VALUE);
+		assertFalse(controller.couldAdmit(100, 50));
+		assertRejected(controller.admit(solve(100, 50)));
+		assertEquals(0, controller.getWaiting());
+	}
+
+
+	@Test
+	public void solveIsDowngradedToFit() {
+
+		TravelingSalesman salesman = solve(1000, 100);
+		long budget = FootprintEstimator.estimate(1000, 50, true);
+		assertTrue(FootprintEstimator.estimate(salesman) > budget);
+		AdmissionController controller = new AdmissionController(budget,
+				Long.MAX_VALUE);
+
+		AdmissionController.Admission admission = admitted(controller
+				.admit(salesman));
+		assertTrue(admission.isDowngraded());
+		assertTrue(salesman.getPopulationSize() >= 50);
+		assertTrue(salesman.getPopulationSize() < 100);
+		assertTrue(controller.getReserved() <= budget);
+		admission.release();
+	}
+
+
+	@Test
+	public void largestProblemCouldBeAdmitted() {
+
+		AdmissionController controller = new AdmissionController(
+				FootprintEstimator.estimate(1000, 8, true), Long.MAX_VALUE);
+
+		int largest = controller.largestProblem(0);
+		assertTrue(controller.couldAdmit(largest, 0));
+		assertFalse(controller.couldAdmit(largest + 1, 0));
+	}
+
+
+	@Test
+	public void smallSolvePassesLargeOneWaitingForMemory() {
+
+		TravelingSalesman large = solve(1000, 100);
+		AdmissionController controller = new AdmissionController(
+				FootprintEstimator.estimate(large)
+						+ 2 * FootprintEstimator.estimate(10, 8, true),
+				Long.MAX_VALUE);
+		AdmissionController.Admission first = admitted(controller.admit(large));
+
+		// A second large solve doesn't fit, even downgraded, and waits
+		CompletableFuture<AdmissionController.Admission> second = controller
+				.admit(solve(1000, 100));
+		assertFalse(second.isDone());
+
+		// A small one fits, and is let in past it
+		AdmissionController.Admission small = admitted(controller.admit(solve(
+				10, 8)));
+		assertEquals(1, controller.getWaiting());
+
+		small.release();
+		first.release();
+		admitted(second).release();
+		assertEquals(0, controller.getReserved());
+		assertEquals(0, controller.getWaiting());
+	}
+
+
+	@Test
+	public void solvesWaitForOneThatHasBeenPassedTooOften() {
+
+		TravelingSalesman large = solve(1000, 100);
+		AdmissionController controller = new AdmissionController(
+				FootprintEstimator.estimate(large)
+						+ 2 * FootprintEstimator.estimate(10, 8, true),
+				Long.MAX_VALUE);
+		AdmissionController.Admission first = admitted(controller.admit(large));
+		CompletableFuture<AdmissionController.Admission> second = controller
+				.admit(solve(1000, 100));
+
+		for (int i = 0; i < AdmissionController.MAX_OVERTAKES; i++) {
+			admitted(controller.admit(solve(10, 8))).release();
+		}
+
+		// Now the small one has to wait, though it would fit
+		CompletableFuture<AdmissionController.Admission> small = controller
+				.admit(solve(10, 8));
+		assertFalse(small.isDone());
+		assertEquals(2, controller.getWaiting());
+
+		// And is let in with the large one once there is memory for it
+		first.release();
+		AdmissionController.Admission secondAdmission = admitted(second);
+		admitted(small).release();
+		secondAdmission.release();
+		assertEquals(0, controller.getReserved());
+		assertEquals(0, controller.getWaiting());
+	}
+
+
+	@Test
+	public void cancelledSolveLeavesTheLine() {
+
+		TravelingSalesman large = solve(1000, 100);
+		AdmissionController controller = new AdmissionController(
+				FootprintEstimator.estimate(large), Long.MAX_VALUE);
+		AdmissionController.Admission first = admitted(controller.admit(large));
+
+		CompletableFuture<AdmissionController.Admission> waiting = controller
+				.admit(solve(1000, 100));
+		assertEquals(1, controller.getWaiting());
+
+		assertTrue(waiting.cancel(false));
+		assertEquals(0, controller.getWaiting());
+		assertEquals(first.getBytes(), controller.getReserved());
+
+		first.release();
+		assertEquals(0, controller.getReserved());
+	}
+
+
+	@Test
+	public void solveThatWaitsTooLongIsRejected() {
+
+		TravelingSalesman large = solve(1000, 100);
+		AdmissionController controller = new AdmissionController(
+				FootprintEstimator.estimate(large), 100);
+		AdmissionController.Admission first = admitted(controller.admit(large));
+
+		assertRejected(controller.admit(solve(1000, 100)));
+		assertEquals(0, controller.getWaiting());
+		first.release();
+	}
+
+
+	/**
+	 * @return a solve of a synthetic problem, set up but not started
+	 */
+	private static TravelingSalesman solve(int cities, int populationSize) {
+
+		TravelingSalesman salesman = new TravelingSalesman(TestProblems
+				.synthetic("p" + cities, cities, cities));
+		salesman.setPopulationSize(populationSize);
+		return salesman;
+	}
+
+
+	/**
+	 * @return the admission, once the solve has been let in
+	 */
+	private static AdmissionController.Admission admitted(
+			CompletableFuture<AdmissionController.Admission> admission) {
+
+		try {
+			return admission.get(PATIENCE, TimeUnit.MILLISECONDS);
+		} catch (Exception ex) {
+			throw new AssertionError("The solve wasn't let in", ex);
+		}
+	}
+
+
+	private static void assertRejected(
+			final CompletableFuture<AdmissionController.Admission> admission) {
+
+		ExecutionException ex = assertThrows(ExecutionException.class,
+				new Executable() {
+
+					@Override
+					public void execute() throws Throwable {
+
+						admission.get(PATIENCE, TimeUnit.MILLISECONDS);
+					}
+				});
+		assertTrue(ex.getCause() instanceof RejectedExecutionException);
+	}
+}
@@ -0,0 +1,222 @@
+package TravelingSalesman;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Round trips of problems through their binary files, the stale and damaged
+ * binary files that load must rebuild rather than use, and the preprocessing
+ * that load leaves to whoever asks for it.
+ *
+ * @author Aaron Foltz
+ */
+public class BinaryInstanceTest {
+
+	@TempDir
+	File	directory;
+
+
+	@Test
+	public void roundTrip() throws IOException {
+
+		TSPInstance instance = TestProblems.synthetic("p", 100, 1);
+		BinaryInstance binary = new BinaryInstance(instance,
+				CandidateLists.build(instance, CandidateLists.DEFAULT_K),
+				HilbertOrder.compute(instance), 1234, 5678);
+		File file = new File(directory, "p" + BinaryInstance.EXTENSION);
+		binary.write(file);
+
+		BinaryInstance read = BinaryInstance.read(file);
+		TestProblems.assertSameProblem(instance, read.getInstance());
+		assertEquals(1234, read.getSourceLength());
+		assertEquals(5678, read.getSourceModified());
+		assertArrayEquals(binary.getHilbertOrder(), read.getHilbertOrder());
+		assertEquals(CandidateLists.DEFAULT_K, read.getCandidates().getK());
+		for (int city = 0; city < 100; city++) {
+			for (int rank = 0; rank < CandidateLists.DEFAULT_K; rank++) {
+				assertEquals(binary.getCandidates().getNeighbor(city, rank), read
+						.getCandidates().getNeighbor(city, rank));
+			}
+		}
+		assertEquals(1, directory.list().length);
+	}
+
+
+	@Test
+	public void roundTripWithoutPreprocessing() throws IOException {
+
+		TSPInstance instance = TestProblems.synthetic("p", 7, 2);
+		File file = new File(directory, "p" + BinaryInstance.EXTENSION);
+		new BinaryInstance(instance, null, null).write(file);
+
+		BinaryInstance read = BinaryInstance.read(file);
+		TestProblems.assertSameProblem(instance, read.getInstance());
+		assertNull(read.getCandidates());
+		assertNull(read.getHilbertOrder());
+		assertEquals(-1, read.getSourceLength());
+	}
+
+
+	@Test
+	public void loadWritesAndThenReusesTheBinaryFile() throws IOException {
+
+		File problem = copy("att48.tsp");
+		File binary = BinaryInstance.binaryFile(problem);
+		assertFalse(binary.exists());
+
+		BinaryInstance loaded = BinaryInstance.load(problem);
+		assertTrue(binary.isFile());
+		assertEquals(problem.length(), loaded.getSourceLength());
+
+		// Nothing asks for the preprocessing, so loading doesn't do it
+		assertNull(loaded.getCandidates());
+		assertNull(loaded.getHilbertOrder());
+		TestProblems.assertSameProblem(TSPLIBParser.read(problem), loaded
+				.getInstance());
+
+		long written = binary.lastModified() - 10000;
+		binary.setLastModified(written);
+		TestProblems.assertSameProblem(loaded.getInstance(), BinaryInstance
+				.load(problem).getInstance());
+		assertEquals(written, binary.lastModified());
+	}
+
+
+	@Test
+	public void preprocessingInTheBinaryFileIsKept() throws IOException {
+
+		File problem = copy("att48.tsp");
+		TSPInstance instance = TSPLIBParser.read(problem);
+		new BinaryInstance(instance, CandidateLists.build(instance, 5),
+				HilbertOrder.compute(instance), problem.length(),
+				problem.lastModified()).write(BinaryInstance
+				.binaryFile(problem));
+
+		BinaryInstance loaded = BinaryInstance.load(problem);
+		assertEquals(5, loaded.getCandidates().getK());
+		assertArrayEquals(HilbertOrder.compute(instance), loaded
+				.getHilbertOrder());
+
+		// A session only takes over candidate lists of the default size
+		SolveSession session = new SolveSession(loaded);
+		assertSame(loaded.getHilbertOrder(), session.getHilbertOrder());
+		assertEquals(CandidateLists.DEFAULT_K, session.getCandidates().getK());
+	}
+
+
+	@Test
+	public void changedProblemIsRebuilt() throws IOException {
+
+		File problem = copy("att48.tsp");
+		TSPInstance before = BinaryInstance.load(problem).getInstance();
+
+		// Same length, one coordinate moved, and a new modification time
+		String text = new String(Files.readAllBytes(problem.toPath()), "UTF-8");
+		text = text.replace("\n1 6734 ", "\n1 6735 ");
+		Files.write(problem.toPath(), text.getBytes("UTF-8"));
+		problem.setLastModified(problem.lastModified() + 10000);
+
+		TSPInstance after = BinaryInstance.load(problem).getInstance();
+		assertNotEquals(before.getX(0), after.getX(0));
+		TestProblems.assertSameProblem(TSPLIBParser.read(problem), after);
+		assertEquals(problem.lastModified(), BinaryInstance.read(
+				BinaryInstance.binaryFile(problem)).getSourceModified());
+	}
+
+
+	@Test
+	public void damagedBinaryFileIsRejectedAndRebuilt() throws IOException {
+
+		File problem = copy("eil101.tsp");
+		TSPInstance instance = BinaryInstance.load(problem).getInstance();
+		final File binary = BinaryInstance.binaryFile(problem);
+
+		byte[] bytes = Files.readAllBytes(binary.toPath());
+		bytes[bytes.length / 2] ^= 0x01;
+		Files.write(binary.toPath(), bytes);
+
+		IOException ex = assertThrows(IOException.class, new Executable() {
+
+			@Override
+			public void execute() throws Throwable {
+
+				BinaryInstance.read(binary);
+			}
+		});
+		assertTrue(ex.getMessage().contains("checksum"));
+
+		TestProblems.assertSameProblem(instance, BinaryInstance.load(problem)
+				.getInstance());
+		BinaryInstance.read(binary);
+	}
+
+
+	@Test
+	public void truncatedBinaryFileIsRejected() throws IOException {
+
+		File problem = copy("wi29.tsp");
+		BinaryInstance.load(problem);
+		final File binary = BinaryInstance.binaryFile(problem);
+
+		byte[] bytes = Files.readAllBytes(binary.toPath());
+		Files.write(binary.toPath(), Arrays.copyOf(bytes, bytes.length - 4));
+		assertThrows(IOException.class, new Executable() {
+
+			@Override
+			public void execute() throws Throwable {
+
+				BinaryInstance.read(binary);
+			}
+		});
+	}
+
+
+	@Test
+	public void failedWriteLeavesNoTemporaryFile() throws IOException {
+
+		// A directory that isn't empty can't be replaced by the file
+		final File file = new File(directory, "p" + BinaryInstance.EXTENSION);
+		assertTrue(new File(file, "taken").mkdirs());
+
+		final BinaryInstance binary = new BinaryInstance(
+				TestProblems.synthetic("p", 10, 3), null, null);
+		assertThrows(IOException.class, new Executable() {
+
+			@Override
+			public void execute() throws Throwable {
+
+				binary.write(file);
+			}
+		});
+		for (String name : directory.list()) {
+			assertFalse(name.endsWith(".tmp"), name);
+		}
+	}
+
+
+	/**
+	 * @return a copy of the problem in /data, in the temporary directory
+	 */
+	private File copy(String problem) throws IOException {
+
+		File copy = new File(directory, problem);
+		Files.copy(new File(TestProblems.data(), problem).toPath(),
+				copy.toPath());
+		return copy;
+	}
+}
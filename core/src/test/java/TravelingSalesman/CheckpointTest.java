@@ -0,0 +1,144 @@
+package TravelingSalesman;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Round trips of checkpoints through their files, and the damaged files that
+ * must never be resumed from.
+ *
+ * @author Aaron Foltz
+ */
+public class CheckpointTest {
+
+	@TempDir
+	File	directory;
+
+
+	@Test
+	public void roundTrip() throws IOException {
+
+		Checkpoint checkpoint = checkpoint(true);
+		File file = new File(directory, "att48.tsp.checkpoint");
+		checkpoint.write(file);
+
+		Checkpoint read = Checkpoint.read(file);
+		assertEquals(checkpoint.getCities(), read.getCities());
+		assertEquals(checkpoint.getGeneration(), read.getGeneration());
+		assertEquals(checkpoint.getStagnation(), read.getStagnation());
+		assertEquals(checkpoint.getPreviousBest(), read.getPreviousBest());
+		assertEquals(checkpoint.getElapsedNanos(), read.getElapsedNanos());
+		assertEquals(checkpoint.getRandomState(), read.getRandomState());
+		assertArrayEquals(checkpoint.getFitness(), read.getFitness(), 0);
+		assertArrayEquals(checkpoint.getOperatorQuality(),
+				read.getOperatorQuality(), 0);
+		assertEquals(checkpoint.getBestCost(), read.getBestCost(), 0);
+		assertArrayEquals(checkpoint.getBestTour(), read.getBestTour());
+		for (int i = 0; i < checkpoint.getTours().length; i++) {
+			assertArrayEquals(checkpoint.getTours()[i], read.getTours()[i]);
+		}
+
+		// Replaced by a rename, nothing left behind
+		assertEquals(1, directory.list().length);
+	}
+
+
+	@Test
+	public void roundTripWithoutBestTour() throws IOException {
+
+		File file = new File(directory, "checkpoint");
+		checkpoint(false).write(file);
+
+		Checkpoint read = Checkpoint.read(file);
+		assertNull(read.getBestTour());
+		assertEquals(0, read.getOperatorQuality().length);
+	}
+
+
+	@Test
+	public void everyFlippedByteIsCaught() throws IOException {
+
+		byte[] bytes = checkpoint(true).encode();
+		final File file = new File(directory, "checkpoint");
+
+		for (int i = 0; i < bytes.length; i++) {
+			byte[] damaged = bytes.clone();
+			damaged[i] ^= 0x10;
+			Files.write(file.toPath(), damaged);
+
+			assertThrows(IOException.class, new Executable() {
+
+				@Override
+				public void execute() throws Throwable {
+
+					Checkpoint.read(file);
+				}
+			}, "byte " + i);
+		}
+	}
+
+
+	@Test
+	public void tornFileIsRejected() throws IOException {
+
+		byte[] bytes = checkpoint(true).encode();
+		final File file = new File(directory, "checkpoint");
+		Files.write(file.toPath(), Arrays.copyOf(bytes, bytes.length / 2));
+
+		IOException ex = assertThrows(IOException.class, new Executable() {
+
+			@Override
+			public void execute() throws Throwable {
+
+				Checkpoint.read(file);
+			}
+		});
+		assertTrue(ex.getMessage().contains("corrupted"));
+	}
+
+
+	@Test
+	public void otherFilesAreRejected() throws IOException {
+
+		final File file = new File(directory, "checkpoint");
+		Files.write(file.toPath(), new byte[] { 1, 2, 3 });
+
+		assertThrows(IOException.class, new Executable() {
+
+			@Override
+			public void execute() throws Throwable {
+
+				Checkpoint.read(file);
+			}
+		});
+	}
+
+
+	private static Checkpoint checkpoint(boolean best) {
+
+		int cities = 48;
+		int[][] tours = new int[10][];
+		double[] fitness = new double[tours.length];
+		for (int i = 0; i < tours.length; i++) {
+			tours[i] = TestProblems.shuffled(cities, i);
+			fitness[i] = 30000 + i;
+		}
+
+		return new Checkpoint(cities, 123, 7, 30000, 987654321L,
+				0x5DEECE66DL, tours, fitness, best ? tours[0] : null,
+				best ? fitness[0] : Double.MAX_VALUE,
+				best ? new double[] { .5, .25, .125 } : new double[0]);
+	}
+}
@@ -0,0 +1,112 @@
+package TravelingSalesman;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+
+/**
+ * Checks the DistanceKernel against TSPLIB: a handful of single distances must
+ * come out as worked out by hand from the TSPLIB documentation, and the
+ * optimal tours in /data must cost exactly what TSPLIB says they do, both
+ * through TSPInstance.distance (what the Genetic Algorithm uses) and through
+ * the Reader's distance matrix.
+ *
+ * @author Aaron Foltz
+ */
+public class DistanceKernelTest {
+
+	// Problems in /data with an optimal tour, and the optimal cost from TSPLIB
+	private static final String[]	PROBLEMS	= { "att48", "eil101", "a280" };
+	private static final double[]	OPTIMAL		= { 10628, 629, 2579 };
+
+
+	@Test
+	public void euc2dRounds() {
+
+		assertEquals(5, DistanceKernel.euc2d(3, 4), 0);
+		assertEquals(1, DistanceKernel.euc2d(0.5, 0), 0);
+		assertEquals(1, DistanceKernel.euc2d(1.4, 0), 0);
+	}
+
+
+	@Test
+	public void attRoundsUp() {
+
+		// sqrt(1000 / 10) = 10 exactly, so it is not rounded up
+		assertEquals(10, DistanceKernel.att(30, 10), 0);
+		// sqrt(1010 / 10) = 10.05, rounded to 10 and then up to 11
+		assertEquals(11, DistanceKernel.att(31, 7), 0);
+	}
+
+
+	@Test
+	public void sameCity() {
+
+		assertEquals(0, DistanceKernel.distance(DistanceKernel.ATT, 5, 5, 5, 5),
+				0);
+	}
+
+
+	@Test
+	public void unknownTypeIsRejected() {
+
+		assertThrows(IllegalArgumentException.class, new Executable() {
+
+			@Override
+			public void execute() {
+
+				new TSPInstance("geo", "GEO", new double[1], new double[1]);
+			}
+		});
+		assertThrows(IllegalArgumentException.class, new Executable() {
+
+			@Override
+			public void execute() {
+
+				DistanceKernel.distance(DistanceKernel.UNKNOWN, 0, 0, 3, 4);
+			}
+		});
+	}
+
+
+	@Test
+	public void optimalToursCostWhatTSPLIBSays() throws IOException {
+
+		for (int i = 0; i < PROBLEMS.length; i++) {
+			File data = TestProblems.data();
+			TSPInstance instance = TSPLIBParser.read(new File(data, PROBLEMS[i]
+					+ ".tsp"));
+			int[] tour = TourFile.read(
+					new File(data, PROBLEMS[i] + ".opt.tour")).getTour();
+
+			assertEquals(OPTIMAL[i], cost(instance, tour), 0, PROBLEMS[i]
+					+ " through TSPInstance");
+
+			double[][] matrix = Reader.calculateDistances(instance);
+			double matrixCost = 0;
+			for (int j = 0; j < tour.length; j++) {
+				matrixCost += matrix[tour[j]][tour[(j + 1) % tour.length]];
+			}
+			assertEquals(OPTIMAL[i], matrixCost, 0, PROBLEMS[i]
+					+ " through Reader");
+		}
+	}
+
+
+	/**
+	 * @return the cost of the tour, back to its first city
+	 */
+	private static double cost(TSPInstance instance, int[] tour) {
+
+		double cost = 0;
+		for (int i = 0; i < tour.length - 1; i++) {
+			cost += instance.distance(tour[i], tour[i + 1]);
+		}
+		return cost + instance.distance(tour[tour.length - 1], tour[0]);
+	}
+}
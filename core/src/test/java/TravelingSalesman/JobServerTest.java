@@ -0,0 +1,151 @@
+package TravelingSalesman;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Checks how the JobServer reads what is sent to it: the parameters of the
+ * query, and problems sent as TSPLIB text or in the binary format. Only
+ * uploads that are turned away are sent, so that no solve is ever started.
+ *
+ * @author Aaron Foltz
+ */
+public class JobServerTest {
+
+	@TempDir
+	File				directory;
+
+	private JobServer	server;
+
+
+	@BeforeEach
+	public void startServer() throws IOException {
+
+		server = new JobServer(1, 1);
+		server.start(0);
+	}
+
+
+	@AfterEach
+	public void stopServer() {
+
+		server.stop();
+	}
+
+
+	@Test
+	public void encodedSeparatorsStayInTheirValues() {
+
+		Map<String, String> query = JobServer.parseQuery(URI
+				.create("/jobs?name=a%26b%3Dc&seed=1&x%3Dy=%20z"));
+
+		assertEquals(3, query.size());
+		assertEquals("a&b=c", query.get("name"));
+		assertEquals("1", query.get("seed"));
+		assertEquals(" z", query.get("x=y"));
+	}
+
+
+	@Test
+	public void binaryProblemIsReadByItsMagicNumber() throws IOException {
+
+		// Read, and then turned away for having too few cities
+		byte[] binary = binary(TestProblems.synthetic("tiny", 3, 1));
+		String answer = post(binary, null, 400);
+		assertTrue(answer.contains("3 cities"), answer);
+
+		answer = post(binary, JobServer.BINARY_TYPE, 400);
+		assertTrue(answer.contains("3 cities"), answer);
+	}
+
+
+	@Test
+	public void damagedBinaryProblemIsTurnedAway() throws IOException {
+
+		byte[] binary = binary(TestProblems.synthetic("p", 20, 1));
+		binary[binary.length / 2] ^= 0x01;
+
+		String answer = post(binary, JobServer.BINARY_TYPE, 400);
+		assertTrue(answer.contains("checksum"), answer);
+	}
+
+
+	@Test
+	public void textProblemIsStillRead() throws IOException {
+
+		String text = "NAME : tiny\nTYPE : TSP\nDIMENSION : 2\n"
+				+ "EDGE_WEIGHT_TYPE : EUC_2D\nNODE_COORD_SECTION\n1 0 0\n"
+				+ "2 3 4\nEOF\n";
+		String answer = post(text.getBytes("UTF-8"), "text/plain", 400);
+		assertTrue(answer.contains("2 cities"), answer);
+	}
+
+
+	/**
+	 * @return the problem in the binary format
+	 */
+	private byte[] binary(TSPInstance instance) throws IOException {
+
+		File file = new File(directory, instance.getName()
+				+ BinaryInstance.EXTENSION);
+		new BinaryInstance(instance, null, null).write(file);
+		return Files.readAllBytes(file.toPath());
+	}
+
+
+	/**
+	 * Submit a job, and make sure it is answered with the given code
+	 *
+	 * @return the body of the answer
+	 */
+	private String post(byte[] body, String contentType, int code)
+			throws IOException {
+
+		HttpURLConnection connection = (HttpURLConnection) new URL(
+				"http://127.0.0.1:" + server.getPort() + "/jobs?name=test")
+				.openConnection();
+		connection.setRequestMethod("POST");
+		connection.setDoOutput(true);
+		if (contentType != null) {
+			connection.setRequestProperty("Content-Type", contentType);
+		}
+
+		OutputStream out = connection.getOutputStream();
+		try {
+			out.write(body);
+		} finally {
+			out.close();
+		}
+
+		assertEquals(code, connection.getResponseCode());
+		InputStream in = (code < 400) ? connection.getInputStream()
+				: connection.getErrorStream();
+		ByteArrayOutputStream answer = new ByteArrayOutputStream();
+		try {
+			byte[] buffer = new byte[4096];
+			int read;
+			while ((read = in.read(buffer)) >= 0) {
+				answer.write(buffer, 0, read);
+			}
+		} finally {
+			in.close();
+		}
+		return answer.toString("UTF-8");
+	}
+}
@@ -0,0 +1,82 @@
+package TravelingSalesman;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+
+/**
+ * Round trips of messages of the island model, and payloads from a peer that
+ * must be refused before anything is allocated for them.
+ *
+ * @author Aaron Foltz
+ */
+public class MigrantMessageTest {
+
+	@Test
+	public void roundTrip() throws IOException {
+
+		int[][] tours = { TestProblems.shuffled(48, 1),
+				TestProblems.shuffled(48, 2) };
+		double[] fitness = { 33000, 34000 };
+		byte[] payload = new MigrantMessage(MigrantMessage.MIGRANTS, 3, tours,
+				fitness).encode();
+
+		MigrantMessage message = MigrantMessage.decode(payload);
+		assertEquals(MigrantMessage.MIGRANTS, message.getType());
+		assertEquals(3, message.getIsland());
+		assertEquals(3, MigrantMessage.islandOf(payload));
+		assertEquals(2, MigrantMessage.countOf(payload));
+		assertArrayEquals(fitness, message.getFitness(), 0);
+		assertArrayEquals(tours[0], message.getTours()[0]);
+		assertArrayEquals(tours[1], message.getTours()[1]);
+	}
+
+
+	@Test
+	public void malformedCountsAndLengthsAreRefused() throws IOException {
+
+		// More migrants than the payload holds, a negative count, and a tour
+		// longer than the payload
+		final byte[][] payloads = { migrants(1000000, -1), migrants(-1, -1),
+				migrants(1, 1000000), migrants(1, -5) };
+
+		for (final byte[] payload : payloads) {
+			assertThrows(IOException.class, new Executable() {
+
+				@Override
+				public void execute() throws Throwable {
+
+					MigrantMessage.decode(payload);
+				}
+			});
+		}
+	}
+
+
+	/**
+	 * @return the payload of a MIGRANTS message that claims the given count,
+	 *         and a single migrant of the given length unless that is -1
+	 */
+	private static byte[] migrants(int count, int length) throws IOException {
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeByte(MigrantMessage.MIGRANTS);
+		out.writeInt(1);
+		out.writeLong(0);
+		TourCodec.writeVarInt(out, count);
+		if (length != -1) {
+			out.writeDouble(0);
+			TourCodec.writeVarInt(out, length);
+			out.writeByte(0);
+		}
+		return bytes.toByteArray();
+	}
+}
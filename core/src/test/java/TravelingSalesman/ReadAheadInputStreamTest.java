@@ -0,0 +1,111 @@
+package TravelingSalesman;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+
+/**
+ * Checks that the ReadAheadInputStream hands over the bytes of its stream as
+ * they are, and that closing it stops the read-ahead, closes the stream, and
+ * wakes a reader that is waiting for a block.
+ *
+ * @author Aaron Foltz
+ */
+public class ReadAheadInputStreamTest {
+
+	// How long to wait for another thread before failing
+	private static final long	PATIENCE	= 10000;
+
+
+	@Test
+	public void readsTheStreamAsItIs() throws IOException {
+
+		byte[] bytes = new byte[100000];
+		new Random(1).nextBytes(bytes);
+
+		InputStream in = new ReadAheadInputStream(new ByteArrayInputStream(
+				bytes), 4096, 3);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[1000];
+		int read;
+		while ((read = in.read(buffer, 0, buffer.length)) >= 0) {
+			out.write(buffer, 0, read);
+		}
+		assertEquals(-1, in.read());
+		in.close();
+
+		assertArrayEquals(bytes, out.toByteArray());
+	}
+
+
+	@Test
+	public void closeWakesTheReaderAndClosesTheStream() throws Exception {
+
+		// A stream that never has anything to read
+		final AtomicBoolean streamClosed = new AtomicBoolean(false);
+		PipedOutputStream writer = new PipedOutputStream();
+		InputStream stream = new FilterInputStream(new PipedInputStream(writer)) {
+
+			@Override
+			public void close() throws IOException {
+
+				streamClosed.set(true);
+				super.close();
+			}
+		};
+
+		final ReadAheadInputStream in = new ReadAheadInputStream(stream, 16, 2);
+		ExecutorService pool = Executors.newSingleThreadExecutor();
+		try {
+			Future<Integer> blocked = pool.submit(new Callable<Integer>() {
+
+				@Override
+				public Integer call() throws IOException {
+
+					return in.read();
+				}
+			});
+			Thread.sleep(100);
+
+			in.close();
+			assertTrue(streamClosed.get());
+			try {
+				blocked.get(PATIENCE, TimeUnit.MILLISECONDS);
+				throw new AssertionError("Read from a closed stream");
+			} catch (ExecutionException ex) {
+				assertTrue(ex.getCause() instanceof IOException);
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+
+		assertThrows(IOException.class, new Executable() {
+
+			@Override
+			public void execute() throws Throwable {
+
+				in.read();
+			}
+		});
+	}
+}
@@ -0,0 +1,167 @@
+package TravelingSalesman;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Round trips of the best tours of problems through the SolutionCache, its
+ * eviction of the entries used longest ago, and what it does with damaged
+ * entries.
+ *
+ * @author Aaron Foltz
+ */
+public class SolutionCacheTest {
+
+	@TempDir
+	File	directory;
+
+
+	@Test
+	public void roundTripKeepsTheBestToursBestFirst() throws IOException {
+
+		TSPInstance instance = TestProblems.synthetic("p", 50, 1);
+		SolutionCache cache = new SolutionCache(directory, 4);
+		assertNull(cache.get(instance));
+
+		int[][] tours = new int[SolutionCache.ELITE_SIZE + 4][];
+		for (int i = 0; i < tours.length; i++) {
+			tours[i] = TestProblems.shuffled(50, i);
+		}
+		cache.put(instance, tours);
+
+		SolutionCache.Entry entry = cache.get(instance);
+		assertNotNull(entry);
+		assertEquals(SolutionCache.ELITE_SIZE, entry.getTours().length);
+		for (int i = 0; i < entry.getTours().length; i++) {
+			assertEquals(0, entry.getTours()[i][0]);
+			assertEquals(cost(instance, entry.getTours()[i]),
+					entry.getCosts()[i], 0);
+			if (i > 0) {
+				assertTrue(entry.getCosts()[i - 1] <= entry.getCosts()[i]);
+			}
+		}
+
+		// A new cache on the same directory sees the same entry
+		SolutionCache.Entry again = new SolutionCache(directory, 4)
+				.get(instance);
+		assertArrayEquals(entry.getTour(), again.getTour());
+		assertEquals(entry.getCost(), again.getCost(), 0);
+	}
+
+
+	@Test
+	public void toursAreRotatedAndCheckedAndCostedOnPut() throws IOException {
+
+		TSPInstance instance = TestProblems.synthetic("p", 5, 2);
+		SolutionCache cache = new SolutionCache(directory, 4);
+
+		cache.put(instance, new int[][] { { 2, 3, 4, 0, 1 }, { 0, 1, 1, 2, 3 },
+				{ 0, 1, 2 }, null });
+
+		SolutionCache.Entry entry = cache.get(instance);
+		assertEquals(1, entry.getTours().length);
+		assertArrayEquals(new int[] { 0, 1, 2, 3, 4 }, entry.getTour());
+		assertEquals(cost(instance, entry.getTour()), entry.getCost(), 0);
+	}
+
+
+	@Test
+	public void sameProblemFromAnotherNameIsTheSameEntry() {
+
+		TSPInstance a = TestProblems.synthetic("a", 20, 3);
+		TSPInstance b = TestProblems.synthetic("b", 20, 3);
+		TSPInstance c = TestProblems.synthetic("c", 20, 4);
+
+		assertEquals(SolutionCache.fingerprint(a), SolutionCache.fingerprint(b));
+		assertNotEquals(SolutionCache.fingerprint(a),
+				SolutionCache.fingerprint(c));
+	}
+
+
+	@Test
+	public void entriesUsedLongestAgoAreEvicted() throws IOException {
+
+		SolutionCache cache = new SolutionCache(directory, 2);
+		TSPInstance[] instances = new TSPInstance[3];
+		for (int i = 0; i < instances.length; i++) {
+			instances[i] = TestProblems.synthetic("p" + i, 10, 10 + i);
+			cache.put(instances[i], new int[][] { TestProblems.shuffled(10, i) });
+
+			// Far enough apart for every file system's modification times
+			for (File file : directory.listFiles()) {
+				file.setLastModified(file.lastModified() - 10000);
+			}
+		}
+
+		assertEquals(2, directory.list().length);
+		assertNull(cache.get(instances[0]));
+		assertNotNull(cache.get(instances[1]));
+		assertNotNull(cache.get(instances[2]));
+	}
+
+
+	@Test
+	public void damagedEntryIsDropped() throws IOException {
+
+		TSPInstance instance = TestProblems.synthetic("p", 30, 5);
+		SolutionCache cache = new SolutionCache(directory, 4);
+		cache.put(instance, new int[][] { TestProblems.shuffled(30, 1) });
+
+		File file = directory.listFiles()[0];
+		byte[] bytes = Files.readAllBytes(file.toPath());
+		bytes[bytes.length / 2] ^= 0x01;
+		Files.write(file.toPath(), bytes);
+
+		assertNull(cache.get(instance));
+		assertFalse(file.exists());
+
+		// And the entry can be made again
+		cache.put(instance, new int[][] { TestProblems.shuffled(30, 2) });
+		assertNotNull(cache.get(instance));
+	}
+
+
+	@Test
+	public void entryOfAnotherSizeIsDropped() throws IOException {
+
+		TSPInstance instance = TestProblems.synthetic("p", 30, 6);
+		SolutionCache cache = new SolutionCache(directory, 4);
+		cache.put(instance, new int[][] { TestProblems.shuffled(30, 1) });
+
+		// A problem of another size under the same file name
+		File file = directory.listFiles()[0];
+		TSPInstance other = TestProblems.synthetic("q", 31, 6);
+		new SolutionCache(directory, 4).put(other,
+				new int[][] { TestProblems.shuffled(31, 1) });
+		File otherFile = new File(directory, SolutionCache.fingerprint(other)
+				+ ".sol");
+		Files.copy(otherFile.toPath(), file.toPath(),
+				StandardCopyOption.REPLACE_EXISTING);
+
+		assertNull(cache.get(instance));
+		assertFalse(file.exists());
+	}
+
+
+	private static double cost(TSPInstance instance, int[] tour) {
+
+		double cost = 0;
+		for (int i = 0; i < tour.length; i++) {
+			cost += instance.distance(tour[i], tour[(i + 1) % tour.length]);
+		}
+		return cost;
+	}
+}
@@ -0,0 +1,118 @@
+package TravelingSalesman;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Checks the socket handling of the SolverDaemon - a live daemon is never
+ * pushed off its socket, a stale socket file is taken over - and the quoting
+ * of paths in its requests.
+ *
+ * @author Aaron Foltz
+ */
+public class SolverDaemonTest {
+
+	@TempDir
+	Path	directory;
+
+
+	@Test
+	public void liveSocketIsNotTakenOver() throws IOException {
+
+		final Path socket = directory.resolve("live.sock");
+		ServerSocketChannel live = ServerSocketChannel
+				.open(StandardProtocolFamily.UNIX);
+		try {
+			live.bind(UnixDomainSocketAddress.of(socket));
+
+			IOException ex = assertThrows(IOException.class, new Executable() {
+
+				@Override
+				public void execute() throws Throwable {
+
+					new SolverDaemon(1).serve(socket);
+				}
+			});
+			assertTrue(ex.getMessage().contains("already running"));
+			assertTrue(Files.exists(socket));
+		} finally {
+			live.close();
+		}
+	}
+
+
+	@Test
+	public void staleSocketIsTakenOver() throws Exception {
+
+		final Path socket = directory.resolve("stale.sock");
+		ServerSocketChannel stale = ServerSocketChannel
+				.open(StandardProtocolFamily.UNIX);
+		stale.bind(UnixDomainSocketAddress.of(socket));
+		stale.close();
+		assertTrue(Files.exists(socket));
+
+		// serve never returns, so it runs on a thread that the JVM won't wait
+		// for
+		Thread daemon = new Thread(new Runnable() {
+
+			@Override
+			public void run() {
+
+				try {
+					new SolverDaemon(1).serve(socket);
+				} catch (IOException e) {
+					// Seen by the connect below failing
+				}
+			}
+		});
+		daemon.setDaemon(true);
+		daemon.start();
+
+		long deadline = System.currentTimeMillis() + 10000;
+		while (true) {
+			SocketChannel channel = SocketChannel
+					.open(StandardProtocolFamily.UNIX);
+			try {
+				channel.connect(UnixDomainSocketAddress.of(socket));
+				return;
+			} catch (IOException ex) {
+				assertTrue(System.currentTimeMillis() < deadline,
+						"The daemon never answered: " + ex);
+				Thread.sleep(20);
+			} finally {
+				channel.close();
+			}
+		}
+	}
+
+
+	@Test
+	public void quotedPathsSplitBack() {
+
+		String[] paths = { "/data/att48.tsp", "/my problems/a \"b\".tsp",
+				"C:\\tsp\\a280.tsp" };
+
+		StringBuilder line = new StringBuilder("SOLVE");
+		for (String path : paths) {
+			line.append(' ').append(SolverDaemon.quote(path));
+		}
+		line.append(" seed=1");
+
+		assertEquals(Arrays.asList("SOLVE", paths[0], paths[1], paths[2],
+				"seed=1"), SolverDaemon.split(line.toString()));
+	}
+}
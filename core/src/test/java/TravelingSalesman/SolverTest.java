@@ -0,0 +1,66 @@
+package TravelingSalesman;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.Executor;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+
+/**
+ * Checks that problems the Genetic Algorithm can't solve are turned away up
+ * front, rather than failing deep inside of JGAP.
+ *
+ * @author Aaron Foltz
+ */
+public class SolverTest {
+
+	@Test
+	public void tooFewCitiesAreRejectedBeforeAnythingRuns() {
+
+		// Nothing may be run for a problem that is rejected
+		final Solver solver = new Solver(new Executor() {
+
+			@Override
+			public void execute(Runnable command) {
+
+				throw new AssertionError("The solve was started");
+			}
+		});
+
+		for (int cities = 0; cities < Solver.MIN_CITIES; cities++) {
+			final TSPInstance instance = TestProblems.synthetic("p", cities, 1);
+			IllegalArgumentException ex = assertThrows(
+					IllegalArgumentException.class, new Executable() {
+
+						@Override
+						public void execute() {
+
+							solver.solve(instance);
+						}
+					});
+			assertTrue(ex.getMessage().contains(cities + " cities"));
+		}
+	}
+
+
+	@Test
+	public void emptyProblemIsRejectedByItsHeader() {
+
+		final String text = "NAME : empty\nTYPE : TSP\nDIMENSION : 0\n"
+				+ "EDGE_WEIGHT_TYPE : EUC_2D\nNODE_COORD_SECTION\nEOF\n";
+		IOException ex = assertThrows(IOException.class, new Executable() {
+
+			@Override
+			public void execute() throws Throwable {
+
+				new TSPLIBParser().parse("empty", new ByteArrayInputStream(
+						text.getBytes("UTF-8")));
+			}
+		});
+		assertTrue(ex.getMessage().contains("DIMENSION"), ex.getMessage());
+	}
+}
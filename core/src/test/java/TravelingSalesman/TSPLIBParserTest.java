@@ -0,0 +1,178 @@
+package TravelingSalesman;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Checks the TSPLIBParser and the MappedTSPLIBReader against the Reader they
+ * replaced: every problem in /data must come out the same through all of
+ * them, and problems that the parser turns away must be turned away with an
+ * IOException.
+ *
+ * @author Aaron Foltz
+ */
+public class TSPLIBParserTest {
+
+	@TempDir
+	File	directory;
+
+
+	@Test
+	public void everyBundledProblemReadsLikeTheReader() throws IOException {
+
+		File[] problems = TestProblems.data().listFiles(new FilenameFilter() {
+
+			@Override
+			public boolean accept(File dir, String name) {
+
+				return name.endsWith(".tsp");
+			}
+		});
+		assertTrue(problems.length > 0, "no problems in "
+				+ TestProblems.data());
+
+		for (File problem : problems) {
+			String name = TSPLIBParser.problemName(problem);
+
+			TSPInstance expected;
+			BufferedReader in = new BufferedReader(new InputStreamReader(
+					new FileInputStream(problem), "UTF-8"));
+			try {
+				expected = Reader.read(name, in);
+			} finally {
+				in.close();
+			}
+
+			TestProblems.assertSameProblem(expected, TSPLIBParser
+					.read(problem));
+
+			InputStream stream = new FileInputStream(problem);
+			try {
+				TestProblems.assertSameProblem(expected, new TSPLIBParser()
+						.parse(name, stream));
+			} finally {
+				stream.close();
+			}
+
+			// Large problems are mapped and read by several threads instead
+			TestProblems.assertSameProblem(expected, MappedTSPLIBReader.read(
+					problem, 4));
+		}
+	}
+
+
+	@Test
+	public void mappedReaderReadsNumbersLikeTheParser() throws IOException {
+
+		String text = "NAME : numbers\nTYPE : TSP\nDIMENSION : 4\n"
+				+ "EDGE_WEIGHT_TYPE : EUC_2D\nNODE_COORD_SECTION\n"
+				+ "1 -12.5 +3\n2 1.5e3 2.5E-2\n"
+				+ "3 1234567890123456789012 .125\n"
+				+ "4 0.1000000000000000055511151231257827 7e-30\nEOF\n";
+		File problem = new File(directory, "numbers.tsp");
+		Files.write(problem.toPath(), text.getBytes("UTF-8"));
+
+		TSPInstance parsed = TSPLIBParser.read(problem);
+		TestProblems.assertSameProblem(parsed, MappedTSPLIBReader.read(
+				problem, 1));
+		assertEquals(-12.5, parsed.getX(0), 0);
+		assertEquals(1500, parsed.getX(1), 0);
+		assertEquals(1234567890123456789012.0, parsed.getX(2), 0);
+		assertEquals(7e-30, parsed.getY(3), 0);
+	}
+
+
+	@Test
+	public void gzippedProblemReadsLikeThePlainOne() throws IOException {
+
+		File plain = new File(TestProblems.data(), "a280.tsp");
+		File gzipped = new File(directory, "a280.tsp.gz");
+		OutputStream out = new GZIPOutputStream(new FileOutputStream(gzipped));
+		try {
+			Files.copy(plain.toPath(), out);
+		} finally {
+			out.close();
+		}
+
+		TestProblems.assertSameProblem(TSPLIBParser.read(plain), TSPLIBParser
+				.read(gzipped));
+		assertEquals(gzipped, TSPLIBParser.locate(new File(directory,
+				"a280.tsp")));
+	}
+
+
+	@Test
+	public void tooLargeProblemIsTurnedAwayByItsHeader() {
+
+		final TSPLIBParser parser = new TSPLIBParser();
+		parser.setMaxDimension(100);
+
+		// Only the header, so reading any coordinates would fail differently
+		final String header = "NAME : big\nTYPE : TSP\nDIMENSION : 101\n"
+				+ "EDGE_WEIGHT_TYPE : EUC_2D\nNODE_COORD_SECTION\n";
+		IOException ex = assertThrows(IOException.class, new Executable() {
+
+			@Override
+			public void execute() throws Throwable {
+
+				parser.parse("big", new ByteArrayInputStream(header
+						.getBytes("UTF-8")));
+			}
+		});
+		assertTrue(ex.getMessage().contains("101"), ex.getMessage());
+	}
+
+
+	@Test
+	public void incompleteProblemIsRejected() {
+
+		final String text = "NAME : short\nTYPE : TSP\nDIMENSION : 3\n"
+				+ "EDGE_WEIGHT_TYPE : EUC_2D\nNODE_COORD_SECTION\n"
+				+ "1 0 0\n2 3 4\nEOF\n";
+		IOException ex = assertThrows(IOException.class, new Executable() {
+
+			@Override
+			public void execute() throws Throwable {
+
+				new TSPLIBParser().parse("short", new ByteArrayInputStream(
+						text.getBytes("UTF-8")));
+			}
+		});
+		assertTrue(ex.getMessage().contains("Incomplete"), ex.getMessage());
+	}
+
+
+	@Test
+	public void unsupportedEdgeWeightTypeIsRejected() {
+
+		final String text = "NAME : geo\nTYPE : TSP\nDIMENSION : 1\n"
+				+ "EDGE_WEIGHT_TYPE : GEO\nNODE_COORD_SECTION\n1 0 0\nEOF\n";
+		assertThrows(IOException.class, new Executable() {
+
+			@Override
+			public void execute() throws Throwable {
+
+				new TSPLIBParser().parse("geo", new ByteArrayInputStream(text
+						.getBytes("UTF-8")));
+			}
+		});
+	}
+}
@@ -0,0 +1,82 @@
+package TravelingSalesman;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.File;
+import java.util.Random;
+
+/**
+ * The problems and tours that the tests work on: the TSPLIB problems in /data,
+ * and small synthetic problems and random tours that are the same on every
+ * run.
+ *
+ * @author Aaron Foltz
+ */
+final class TestProblems {
+
+	private TestProblems() {
+
+	}
+
+
+	/**
+	 * @return the directory of the TSPLIB problems, passed in by Maven as the
+	 *         tsp.data property
+	 */
+	static File data() {
+
+		return new File(System.getProperty("tsp.data", "data"));
+	}
+
+
+	/**
+	 * @return a synthetic EUC_2D problem of the given number of cities
+	 */
+	static TSPInstance synthetic(String name, int cities, long seed) {
+
+		Random random = new Random(seed);
+		double[] x = new double[cities];
+		double[] y = new double[cities];
+		for (int i = 0; i < cities; i++) {
+			x[i] = random.nextInt(10000);
+			y[i] = random.nextInt(10000);
+		}
+		return new TSPInstance(name, "EUC_2D", x, y);
+	}
+
+
+	/**
+	 * @return a random tour of the cities that starts at city 0
+	 */
+	static int[] shuffled(int cities, long seed) {
+
+		Random random = new Random(seed);
+		int[] tour = new int[cities];
+		for (int i = 0; i < cities; i++) {
+			tour[i] = i;
+		}
+		for (int i = cities - 1; i > 1; i--) {
+			int j = 1 + random.nextInt(i);
+			int t = tour[i];
+			tour[i] = tour[j];
+			tour[j] = t;
+		}
+		return tour;
+	}
+
+
+	/**
+	 * Fail unless the problems have the same name, edge weight type and
+	 * coordinates
+	 */
+	static void assertSameProblem(TSPInstance expected, TSPInstance actual) {
+
+		assertEquals(expected.getName(), actual.getName());
+		assertEquals(expected.getEdgeWeightType(), actual.getEdgeWeightType());
+		assertEquals(expected.getDimension(), actual.getDimension());
+		for (int i = 0; i < expected.getDimension(); i++) {
+			assertEquals(expected.getX(i), actual.getX(i), 0, "x of " + i);
+			assertEquals(expected.getY(i), actual.getY(i), 0, "y of " + i);
+		}
+	}
+}
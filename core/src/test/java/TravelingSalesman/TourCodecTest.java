@@ -0,0 +1,160 @@
+package TravelingSalesman;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+
+/**
+ * Round trips of tours and variable length integers through the TourCodec,
+ * and what it does with bytes that it didn't write.
+ *
+ * @author Aaron Foltz
+ */
+public class TourCodecTest {
+
+	@Test
+	public void varIntsRoundTrip() throws IOException {
+
+		int[] values = { 0, 1, 127, 128, 16383, 16384, Integer.MAX_VALUE, -1,
+				Integer.MIN_VALUE };
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		for (int value : values) {
+			TourCodec.writeVarInt(out, value);
+		}
+
+		DataInputStream in = input(bytes.toByteArray());
+		for (int value : values) {
+			assertEquals(value, TourCodec.readVarInt(in));
+		}
+	}
+
+
+	@Test
+	public void toursRoundTrip() throws IOException {
+
+		int[][] tours = { {}, { 0 }, { 0, 1, 2, 3, 4 }, { 0, 4, 3, 2, 1 },
+				TestProblems.shuffled(1000, 7), { 0, 1000000, 5, 999999 } };
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		for (int[] tour : tours) {
+			TourCodec.writeTour(out, tour);
+		}
+
+		DataInputStream in = input(bytes.toByteArray());
+		for (int[] tour : tours) {
+			assertArrayEquals(tour, TourCodec.readTour(in, 1000000));
+		}
+	}
+
+
+	@Test
+	public void neighbouringCitiesTakeAByte() throws IOException {
+
+		int[] tour = new int[1000];
+		for (int i = 0; i < tour.length; i++) {
+			tour[i] = i;
+		}
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		TourCodec.writeTour(new DataOutputStream(bytes), tour);
+
+		// Two bytes of length, and one per city
+		assertEquals(2 + tour.length, bytes.size());
+	}
+
+
+	@Test
+	public void overlongVarIntIsRejected() {
+
+		final byte[] bytes = new byte[6];
+		Arrays.fill(bytes, (byte) 0xff);
+
+		IOException ex = assertThrows(IOException.class, new Executable() {
+
+			@Override
+			public void execute() throws Throwable {
+
+				TourCodec.readVarInt(input(bytes));
+			}
+		});
+		assertTrue(ex.getMessage().contains("Malformed"));
+	}
+
+
+	@Test
+	public void truncatedTourIsRejected() throws IOException {
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		TourCodec.writeTour(new DataOutputStream(bytes), new int[] { 0, 3, 1,
+				2 });
+		final byte[] truncated = Arrays.copyOf(bytes.toByteArray(),
+				bytes.size() - 1);
+
+		assertThrows(IOException.class, new Executable() {
+
+			@Override
+			public void execute() throws Throwable {
+
+				TourCodec.readTour(input(truncated), 4);
+			}
+		});
+	}
+
+
+	@Test
+	public void tourLengthIsChecked() throws IOException {
+
+		// A negative length, and one longer than the problem
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		TourCodec.writeVarInt(out, -1);
+		TourCodec.writeTour(out, new int[] { 0, 1, 2 });
+		final DataInputStream in = input(bytes.toByteArray());
+
+		for (int i = 0; i < 2; i++) {
+			IOException ex = assertThrows(IOException.class, new Executable() {
+
+				@Override
+				public void execute() throws Throwable {
+
+					TourCodec.readTour(in, 2);
+				}
+			});
+			assertTrue(ex.getMessage().contains("Malformed"));
+		}
+	}
+
+
+	@Test
+	public void isTour() {
+
+		assertTrue(TourCodec.isTour(new int[] { 2, 0, 1 }, 3));
+		assertTrue(TourCodec.isTour(TestProblems.shuffled(100, 1), 100));
+		assertFalse(TourCodec.isTour(new int[] { 0, 1 }, 3));
+		assertFalse(TourCodec.isTour(new int[] { 0, 1, 1 }, 3));
+		assertFalse(TourCodec.isTour(new int[] { 0, 1, 3 }, 3));
+		assertFalse(TourCodec.isTour(new int[] { 0, -1, 2 }, 3));
+		assertFalse(TourCodec.isTour(null, 3));
+	}
+
+
+	private static DataInputStream input(byte[] bytes) {
+
+		return new DataInputStream(new ByteArrayInputStream(bytes));
+	}
+}
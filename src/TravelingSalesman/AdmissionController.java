@@ -0,0 +1,408 @@
+package TravelingSalesman;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the solves of a multi-tenant process within a heap budget, so that
+ * one large problem can't run the whole JVM out of memory.
+ *
+ * Before a solve starts, its footprint is estimated with the
+ * FootprintEstimator and reserved against the budget until the solve is done.
+ * When the solve doesn't fit into what is left of the budget, it is
+ * downgraded - first to the steady-state engine, which keeps a single
+ * population, and then to a smaller population, down to a quarter of the one
+ * asked for. If even that doesn't fit, the solve waits in line for the running
+ * solves to give their memory back. A solve that could never fit into the
+ * budget, or waits too long, is rejected with a RejectedExecutionException.
+ *
+ * No thread waits in the line: admit hands back a future that is completed
+ * once the solve has been let in, so the solve only needs a thread from then
+ * on. Cancelling the future takes the solve out of the line.
+ *
+ * The line is first come, first served, but a solve that fits may be let in
+ * past the ones ahead of it that don't, so a small solve isn't held up by a
+ * large one waiting for memory. To keep a stream of small solves from
+ * starving the large one, a solve may only be passed MAX_OVERTAKES times -
+ * after that, the solves behind it wait until it has been let in.
+ *
+ * @author Aaron Foltz
+ */
+public class AdmissionController {
+
+	// How often a solve that doesn't fit may be passed by the solves behind
+	// it before they have to wait for it
+	public static final int					MAX_OVERTAKES			= 16;
+
+	// The smallest part of the asked for population a downgrade may leave
+	private static final double				MIN_POPULATION_SHARE	= .25;
+
+	// Populations smaller than this are not worth running
+	private static final int				MIN_POPULATION			= 8;
+
+	private final long						budget;
+	private long							reserved				= 0;
+	private final long						timeout;
+
+	// The solves waiting for memory, in the order they arrived
+	private final List<Request>				waiting					= new LinkedList<Request>();
+
+
+	/**
+	 * A solve that has been let in, holding its share of the budget until it
+	 * is released
+	 */
+	public class Admission {
+
+		private final long		bytes;
+		private final boolean	downgraded;
+		private boolean			released	= false;
+
+
+		Admission(long bytes, boolean downgraded) {
+
+			this.bytes = bytes;
+			this.downgraded = downgraded;
+		}
+
+
+		public long getBytes() {
+
+			return bytes;
+		}
+
+
+		/**
+		 * @return true if the solve was downgraded to fit
+		 */
+		public boolean isDowngraded() {
+
+			return downgraded;
+		}
+
+
+		/**
+		 * Give the memory of the solve back, and let in the solves waiting
+		 * for it. Safe to call more than once.
+		 */
+		public void release() {
+
+			List<Request> granted;
+			synchronized (AdmissionController.this) {
+				if (released) {
+					return;
+				}
+				released = true;
+				reserved -= bytes;
+				granted = grant();
+			}
+			hand(granted);
+		}
+	}
+
+
+	/**
+	 * A solve waiting in line, and the future of its admission
+	 */
+	private class Request extends CompletableFuture<Admission> {
+
+		private final TravelingSalesman	salesman;
+
+		// Set once the solve has been let in, before the future completes
+		private Admission				admission;
+
+		// The solves behind this one that have been let in before it
+		private int						overtaken	= 0;
+
+
+		Request(TravelingSalesman salesman) {
+
+			this.salesman = salesman;
+		}
+
+
+		@Override
+		public boolean cancel(boolean mayInterruptIfRunning) {
+
+			boolean cancelled = super.cancel(mayInterruptIfRunning);
+			if (cancelled) {
+				leave(this, null);
+			}
+			return cancelled;
+		}
+	}
+
+
+	/**
+	 * @param budget
+	 *            the heap that the solves may use together, in bytes
+	 * @param timeout
+	 *            how long a solve may wait for memory, in milliseconds,
+	 *            Long.MAX_VALUE to wait for as long as it takes
+	 */
+	public AdmissionController(long budget, long timeout) {
+
+		this.budget = budget;
+		this.timeout = timeout;
+	}
+
+
+	/**
+	 * @return three quarters of the maximum heap, leaving the rest for
+	 *         everything that isn't a solve
+	 */
+	public static long defaultBudget() {
+
+		return (long) (Runtime.getRuntime().maxMemory() * .75);
+	}
+
+
+	/**
+	 * Let the solve in, downgrading it or putting it in line for memory if
+	 * need be. The admission must be released once the solve is done.
+	 *
+	 * @param salesman
+	 *            a solve that is set up, but not yet started
+	 * @return the future admission of the solve, which is completed with a
+	 *         RejectedExecutionException if the solve can't fit into the
+	 *         budget or waits too long, and can be cancelled while it waits
+	 */
+	public CompletableFuture<Admission> admit(TravelingSalesman salesman) {
+
+		if (!couldAdmit(salesman.getInstance().getDimension(),
+				salesman.getPopulationSize())) {
+			CompletableFuture<Admission> rejected = new CompletableFuture<Admission>();
+			rejected.completeExceptionally(new RejectedExecutionException(
+					"A solve of " + salesman.getInstance().getName()
+							+ " needs more than the " + (budget >> 20)
+							+ " MB heap budget"));
+			return rejected;
+		}
+
+		final Request request = new Request(salesman);
+		List<Request> granted;
+		synchronized (this) {
+			waiting.add(request);
+			granted = grant();
+		}
+		hand(granted);
+
+		if (!request.isDone() && timeout != Long.MAX_VALUE) {
+			CompletableFuture.delayedExecutor(timeout, TimeUnit.MILLISECONDS)
+					.execute(new Runnable() {
+
+						@Override
+						public void run() {
+
+							leave(request, new RejectedExecutionException(
+									"Timed out waiting for heap for a solve of "
+											+ request.salesman.getInstance()
+													.getName()));
+						}
+					});
+		}
+
+		return request;
+	}
+
+
+	/**
+	 * @param cities
+	 *            the number of cities of the problem
+	 * @param populationSize
+	 *            the population size asked for, 0 if it is not known yet
+	 * @return true if a solve of the problem could fit into the budget once
+	 *         the other solves are done, downgraded as far as it may be
+	 */
+	public boolean couldAdmit(int cities, int populationSize) {
+
+		return FootprintEstimator.estimate(cities,
+				smallestPopulation(populationSize), true) <= budget;
+	}
+
+
+	/**
+	 * The largest problem that could fit into the budget, so that a problem
+	 * can be turned away from its header before its cities are read
+	 *
+	 * @param populationSize
+	 *            the population size asked for, 0 if it is not known yet
+	 * @return the most cities a problem may have, at most
+	 *         TSPLIBParser.MAX_DIMENSION
+	 */
+	public int largestProblem(int populationSize) {
+
+		// The footprint grows with the number of cities, but for the drop
+		// where problems get too large for a distance matrix
+		if (couldAdmit(SolveSession.MATRIX_LIMIT + 1, populationSize)) {
+			return largestProblem(populationSize,
+					SolveSession.MATRIX_LIMIT + 1, TSPLIBParser.MAX_DIMENSION);
+		}
+		return largestProblem(populationSize, 0, SolveSession.MATRIX_LIMIT);
+	}
+
+
+	/**
+	 * @return the most cities between low and high that could fit into the
+	 *         budget, low if none do
+	 */
+	private int largestProblem(int populationSize, int low, int high) {
+
+		while (low < high) {
+			int middle = (int) (((long) low + high + 1) / 2);
+			if (couldAdmit(middle, populationSize)) {
+				low = middle;
+			} else {
+				high = middle - 1;
+			}
+		}
+		return low;
+	}
+
+
+	/**
+	 * @return the number of solves waiting in line for memory
+	 */
+	public synchronized int getWaiting() {
+
+		return waiting.size();
+	}
+
+
+	/**
+	 * @return the bytes of the budget that are reserved right now
+	 */
+	public synchronized long getReserved() {
+
+		return reserved;
+	}
+
+
+	/**
+	 * @return the smallest population a downgrade may leave, of the given one
+	 *         or of MIN_POPULATION when it is not known
+	 */
+	private static int smallestPopulation(int population) {
+
+		if (population <= 0) {
+			return MIN_POPULATION;
+		}
+		return Math.min(population, Math.max(MIN_POPULATION,
+				(int) (population * MIN_POPULATION_SHARE)));
+	}
+
+
+	/**
+	 * Let in the waiting solves that fit, in the order they arrived, past the
+	 * ones that don't until one of those has been passed MAX_OVERTAKES times.
+	 * The futures of the solves let in are completed by hand, outside the
+	 * lock.
+	 *
+	 * @return the solves that have been let in
+	 */
+	private List<Request> grant() {
+
+		List<Request> granted = new ArrayList<Request>();
+		List<Request> passed = new ArrayList<Request>();
+
+		for (Iterator<Request> line = waiting.iterator(); line.hasNext();) {
+			Request request = line.next();
+
+			request.admission = reserve(request.salesman);
+			if (request.admission != null) {
+				line.remove();
+				granted.add(request);
+				for (Request ahead : passed) {
+					ahead.overtaken++;
+				}
+			} else if (request.overtaken >= MAX_OVERTAKES) {
+				// The solves behind wait for this one
+				break;
+			} else {
+				passed.add(request);
+			}
+		}
+
+		return granted;
+	}
+
+
+	/**
+	 * Complete the futures of the solves that have been let in, giving the
+	 * memory back for those that were cancelled in the meantime
+	 */
+	private static void hand(List<Request> granted) {
+
+		for (Request request : granted) {
+			if (!request.complete(request.admission)) {
+				request.admission.release();
+			}
+		}
+	}
+
+
+	/**
+	 * Take a solve out of the line, because it was cancelled or has waited
+	 * too long, and let in the solves it was holding up
+	 *
+	 * @param reason
+	 *            what to complete the future of the solve with, null if it
+	 *            has been cancelled
+	 */
+	private void leave(Request request, Throwable reason) {
+
+		List<Request> granted;
+		synchronized (this) {
+			if (!waiting.remove(request)) {
+				return;
+			}
+			granted = grant();
+		}
+
+		if (reason != null) {
+			request.completeExceptionally(reason);
+		}
+		hand(granted);
+	}
+
+
+	/**
+	 * Reserve the memory of the solve as it was asked for, or downgraded to a
+	 * single population and if need be a smaller one
+	 *
+	 * @return the admission of the solve, or null if it doesn't fit yet
+	 */
+	private Admission reserve(TravelingSalesman salesman) {
+
+		long free = budget - reserved;
+
+		long bytes = FootprintEstimator.estimate(salesman);
+		if (bytes <= free) {
+			reserved += bytes;
+			return new Admission(bytes, false);
+		}
+
+		int population = salesman.getPopulationSize();
+		int fits = Math.min(population, FootprintEstimator.largestPopulation(
+				salesman.getInstance().getDimension(), true, free));
+		if (fits < smallestPopulation(population)) {
+			return null;
+		}
+
+		salesman.setSteadyState(true);
+		salesman.setPopulationSize(fits);
+		System.out.println("Downgraded the solve of "
+				+ salesman.getInstance().getName()
+				+ " to the steady-state engine with a population of " + fits
+				+ " to fit into the heap budget");
+
+		bytes = FootprintEstimator.estimate(salesman);
+		reserved += bytes;
+		return new Admission(bytes, true);
+	}
+}
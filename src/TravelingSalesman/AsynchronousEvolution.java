@@ -0,0 +1,370 @@
+package TravelingSalesman;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.jgap.Chromosome;
+import org.jgap.Configuration;
+import org.jgap.FitnessEvaluator;
+import org.jgap.Gene;
+import org.jgap.Genotype;
+import org.jgap.IChromosome;
+import org.jgap.InvalidConfigurationException;
+import org.jgap.Population;
+import org.jgap.RandomGenerator;
+
+/**
+ * An asynchronous, barrier-free Genetic Algorithm. A number of worker threads
+ * share a single population, held in an array of slots. Each worker keeps on
+ * picking two parents by tournament, building a child with the heuristic
+ * crossover (and sometimes the segment swapping mutation), and putting the
+ * child in place of a tournament-selected loser with a compare-and-set on the
+ * loser's slot. There is no generation, so no worker ever waits for a slow
+ * crossover of another worker.
+ *
+ * If two workers race for the same slot, the one that loses the
+ * compare-and-set holds another tournament and tries again.
+ *
+ * This program can be run as a standalone entity to measure how the engine
+ * scales across core counts: java AsynchronousEvolution <problem name>
+ * [seconds per run]
+ *
+ * @author Aaron Foltz
+ */
+public class AsynchronousEvolution {
+
+	// Attempts to put a child into the population before giving it up
+	private static final int							MAX_ATTEMPTS		= 3;
+
+	private final AtomicReference<IChromosome>			m_best;
+	private final Configuration							m_config;
+	private final TravelingSalesmanHeuristicCrossover	m_crossover;
+	private long										m_elapsedNanos		= 0;
+	private final FitnessEvaluator						m_evaluator;
+	private final Genotype								m_genotype;
+	private final AtomicLong							m_lastImprovement	= new AtomicLong();
+	private final SegmentSwappingMutation				m_mutation;
+	private final AtomicLong							m_offspring			= new AtomicLong();
+	private final AtomicLong							m_produced			= new AtomicLong();
+	private final TravelingSalesman						m_salesman;
+	private final AtomicReferenceArray<IChromosome>		m_slots;
+	private final int									m_threads;
+	private final int									m_tournamentSize;
+
+
+	/**
+	 * @param salesman
+	 *            the TSP instance whose operators are used
+	 * @param genotype
+	 *            the genotype holding the initial population
+	 * @param threads
+	 *            the number of worker threads
+	 * @param tournamentSize
+	 *            number of chromosomes competing in every tournament
+	 */
+	public AsynchronousEvolution(TravelingSalesman salesman, Genotype genotype,
+			int threads, int tournamentSize) {
+
+		m_salesman = salesman;
+		m_genotype = genotype;
+		m_config = genotype.getConfiguration();
+		m_crossover = salesman.getCrossover();
+		m_mutation = salesman.getMutation();
+		m_evaluator = m_config.getFitnessEvaluator();
+		m_threads = threads;
+		m_tournamentSize = tournamentSize;
+
+		Population population = genotype.getPopulation();
+		m_slots = new AtomicReferenceArray<IChromosome>(population.size());
+		for (int i = 0; i < population.size(); i++) {
+			m_slots.set(i, population.getChromosome(i));
+		}
+		m_best = new AtomicReference<IChromosome>(
+				genotype.getFittestChromosome());
+	}
+
+
+	/**
+	 * Measure the offspring per second of the engine for 1, 2, 4, ... up to
+	 * the number of available cores
+	 */
+	public static void main(String[] args) throws Exception {
+
+		if (args.length < 1) {
+			System.out.println("Usage: java AsynchronousEvolution "
+					+ "<problem name> [seconds per run]");
+			System.exit(1);
+		}
+
+		long millis = (args.length > 1) ? Long.parseLong(args[1]) * 1000
+				: 10000;
+
+		SolveSession session = new SolveSession(BinaryInstance.load(new File(
+				"data", args[0].concat(".tsp"))));
+
+		int cores = Runtime.getRuntime().availableProcessors();
+		List<Integer> threadCounts = new ArrayList<Integer>();
+		for (int threads = 1; threads < cores; threads *= 2) {
+			threadCounts.add(threads);
+		}
+		threadCounts.add(cores);
+
+		double single = 0;
+		StringBuilder table = new StringBuilder();
+		table.append("THREADS\tOFFSPRING/S\tSPEEDUP\tBEST\n");
+
+		for (int threads : threadCounts) {
+			TravelingSalesman t = session.createSalesman();
+			Genotype genotype = t.createInitialPopulation(null);
+
+			AsynchronousEvolution async = new AsynchronousEvolution(t,
+					genotype, threads, 3);
+			IChromosome best = async.evolve(Long.MAX_VALUE, System.nanoTime()
+					+ millis * 1000000L);
+
+			double rate = async.getOffspringPerSecond();
+			if (threads == 1) {
+				single = rate;
+			}
+
+			table.append(threads + "\t" + (int) rate + "\t"
+					+ String.format("%.2f", rate / single) + "\t"
+					+ (int) best.getFitnessValue() + "\n");
+
+			// Reset the configuration so that we can run another TSP
+			// instance on the same data
+			t.getConfiguration().reset();
+		}
+
+		System.out.println("\n" + table);
+		System.exit(0);
+	}
+
+
+	/**
+	 * Let the workers produce children until the given number of children
+	 * have been produced, or the best chromosome hasn't improved for 30% of
+	 * that number of children.
+	 *
+	 * @param a_offspring
+	 *            the number of children to produce
+	 * @return the best chromosome found
+	 * @throws Exception
+	 */
+	public IChromosome evolve(long a_offspring) throws Exception {
+
+		return evolve(a_offspring, Long.MAX_VALUE);
+	}
+
+
+	/**
+	 * Let the workers produce children until the given number of children
+	 * have been produced, the best chromosome hasn't improved for 30% of that
+	 * number of children, the deadline has passed or the TSP instance has been
+	 * cancelled. Afterwards the slots are written back to the population of
+	 * the genotype.
+	 *
+	 * @param a_offspring
+	 *            the number of children to produce
+	 * @param a_deadline
+	 *            System.nanoTime at which to stop, Long.MAX_VALUE for none
+	 * @return the best chromosome found
+	 * @throws Exception
+	 */
+	public IChromosome evolve(final long a_offspring, final long a_deadline)
+			throws Exception {
+
+		final long stagnation = Math.max(1, (long) (a_offspring * .3));
+
+		ExecutorService workers = Executors.newFixedThreadPool(m_threads);
+		List<Future<Void>> results = new ArrayList<Future<Void>>();
+
+		long start = System.nanoTime();
+		try {
+			for (int i = 0; i < m_threads; i++) {
+				results.add(workers.submit(new Callable<Void>() {
+
+					@Override
+					public Void call() throws Exception {
+
+						work(a_offspring, stagnation, a_deadline);
+						return null;
+					}
+				}));
+			}
+
+			for (Future<Void> result : results) {
+				result.get();
+			}
+		} catch (ExecutionException e) {
+			throw (e.getCause() instanceof Exception) ? (Exception) e
+					.getCause() : e;
+		} finally {
+			workers.shutdownNow();
+			m_elapsedNanos += System.nanoTime() - start;
+		}
+
+		// Put the evolved chromosomes back into the population
+		Population population = m_genotype.getPopulation();
+		for (int i = 0; i < m_slots.length(); i++) {
+			population.setChromosome(i, m_slots.get(i));
+		}
+
+		return m_best.get();
+	}
+
+
+	/**
+	 * @return the number of children produced so far
+	 */
+	public long getOffspring() {
+
+		return m_produced.get();
+	}
+
+
+	/**
+	 * @return children produced per second of evolution so far
+	 */
+	public double getOffspringPerSecond() {
+
+		if (m_elapsedNanos == 0) {
+			return 0;
+		}
+		return getOffspring() / (m_elapsedNanos / 1e9);
+	}
+
+
+	/**
+	 * Make a child from two tournament-selected parents
+	 */
+	private IChromosome breed(ThreadLocalRandom a_random)
+			throws InvalidConfigurationException {
+
+		Gene[] first = m_slots.get(tournament(a_random, true)).getGenes();
+		Gene[] second = m_slots.get(tournament(a_random, true)).getGenes();
+
+		// The crossover builds a brand new gene array, so the parents are
+		// never modified
+		Gene[] genes = m_crossover.operate(first, second);
+
+		// Mutate 20% of the genes, with the usual mutation rate
+		if (a_random.nextInt(m_mutation.getMutationRate()) == 0) {
+			RandomGenerator generator = m_config.getRandomGenerator();
+			for (int i = 0; i < (int) (.2 * genes.length); i++) {
+				genes = m_mutation.operate(generator, genes);
+			}
+		}
+
+		IChromosome child = new Chromosome(m_config, genes);
+
+		// Evaluate here, on the worker, and not while racing for a slot
+		child.getFitnessValue();
+		return child;
+	}
+
+
+	/**
+	 * Put the child into the population in place of a tournament-selected
+	 * loser, if it is fitter than that loser
+	 */
+	private void insert(IChromosome a_child, ThreadLocalRandom a_random) {
+
+		for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+			int slot = tournament(a_random, false);
+			IChromosome loser = m_slots.get(slot);
+
+			if (!m_evaluator.isFitter(a_child, loser)) {
+				return;
+			}
+			if (m_slots.compareAndSet(slot, loser, a_child)) {
+				updateBest(a_child);
+				return;
+			}
+
+			// Another worker got to this slot first, try another tournament
+		}
+	}
+
+
+	/**
+	 * Hold a tournament between random slots
+	 *
+	 * @param a_fittest
+	 *            true to return the winner, false to return the loser
+	 * @return the index of the winning or losing slot
+	 */
+	private int tournament(ThreadLocalRandom a_random, boolean a_fittest) {
+
+		int size = m_slots.length();
+		int chosen = a_random.nextInt(size);
+
+		for (int i = 1; i < m_tournamentSize; i++) {
+			int other = a_random.nextInt(size);
+
+			boolean otherFitter = m_evaluator.isFitter(m_slots.get(other),
+					m_slots.get(chosen));
+
+			if (otherFitter == a_fittest) {
+				chosen = other;
+			}
+		}
+
+		return chosen;
+	}
+
+
+	/**
+	 * Remember the child if it is the best chromosome so far
+	 */
+	private void updateBest(IChromosome a_child) {
+
+		IChromosome best;
+		do {
+			best = m_best.get();
+			if (!m_evaluator.isFitter(a_child, best)) {
+				return;
+			}
+		} while (!m_best.compareAndSet(best, a_child));
+
+		m_lastImprovement.set(m_produced.get());
+	}
+
+
+	/**
+	 * The loop of a single worker
+	 */
+	private void work(long a_offspring, long a_stagnation, long a_deadline)
+			throws InvalidConfigurationException {
+
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+
+		// Claim a child before making it, so the workers together make
+		// exactly a_offspring children
+		while (m_offspring.getAndIncrement() < a_offspring) {
+			if (m_produced.get() - m_lastImprovement.get() > a_stagnation) {
+				break;
+			}
+			if ((a_deadline != Long.MAX_VALUE)
+					&& (System.nanoTime() - a_deadline > 0)) {
+				break;
+			}
+			if (m_salesman.isCancelled()) {
+				break;
+			}
+
+			insert(breed(random), random);
+			m_produced.incrementAndGet();
+		}
+	}
+}
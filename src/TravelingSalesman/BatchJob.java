@@ -0,0 +1,117 @@
+package TravelingSalesman;
+
+import java.io.File;
+
+/**
+ * A single problem of a batch: where it is, how big it is, the parameters to
+ * solve it with, and - once it has been run - what came of it.
+ *
+ * @author Aaron Foltz
+ */
+public class BatchJob {
+
+	private final int				cities;
+	private final File				file;
+	private final int				index;
+	private final SolverParameters	parameters;
+
+	// Filled in by the BatchSolver
+	private long					completedNanos;
+	private String					error;
+	private SolverResult			result;
+	private long					startedNanos;
+
+
+	/**
+	 * @param index
+	 *            the line of the job in the manifest, counting jobs only
+	 * @param file
+	 *            the TSPLIB problem file
+	 * @param cities
+	 *            the dimension of the problem
+	 * @param parameters
+	 *            the parameters to solve it with
+	 */
+	public BatchJob(int index, File file, int cities,
+			SolverParameters parameters) {
+
+		this.index = index;
+		this.file = file;
+		this.cities = cities;
+		this.parameters = parameters;
+	}
+
+
+	public int getCities() {
+
+		return cities;
+	}
+
+
+	/**
+	 * @return System.nanoTime at which the job finished
+	 */
+	public long getCompletedNanos() {
+
+		return completedNanos;
+	}
+
+
+	/**
+	 * @return why the job failed, null if it didn't
+	 */
+	public String getError() {
+
+		return error;
+	}
+
+
+	public File getFile() {
+
+		return file;
+	}
+
+
+	public int getIndex() {
+
+		return index;
+	}
+
+
+	public SolverParameters getParameters() {
+
+		return parameters;
+	}
+
+
+	/**
+	 * @return the solution, null if the job failed
+	 */
+	public SolverResult getResult() {
+
+		return result;
+	}
+
+
+	/**
+	 * @return System.nanoTime at which a worker took the job
+	 */
+	public long getStartedNanos() {
+
+		return startedNanos;
+	}
+
+
+	void completed(SolverResult result, String error) {
+
+		this.result = result;
+		this.error = error;
+		completedNanos = System.nanoTime();
+	}
+
+
+	void started() {
+
+		startedNanos = System.nanoTime();
+	}
+}
@@ -0,0 +1,393 @@
+package TravelingSalesman;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiConsumer;
+
+/**
+ * Solves a whole batch of problems of mixed sizes, listed in a manifest, on a
+ * number of worker threads. The FairShareScheduler decides which job a free
+ * worker takes next, so the small problems are not stuck behind the large
+ * ones.
+ *
+ * Each line of the manifest is a problem file, relative to the manifest,
+ * followed by the parameters to solve it with (see SolverParameters.set);
+ * timeBudget is the budget of the job. Blank lines and lines starting with #
+ * are skipped:
+ *
+ * wi29.tsp timeBudget=1000
+ *
+ * a280.tsp timeBudget=20000 seed=42
+ *
+ * One tab separated record is written per job, as it finishes: the job
+ * number, file, cities, status, cost, the time it waited, the time it ran and
+ * the time it finished at (all in milliseconds from the start of the batch).
+ * At the end the throughput and the completion times of the small and large
+ * jobs are printed.
+ *
+ * This program can be run as a standalone entity: java BatchSolver <manifest>
+ * [results file] [threads] [cities of a large job]
+ *
+ * @author Aaron Foltz
+ */
+public class BatchSolver {
+
+	// Problems with at least this many cities are large jobs by default
+	public static final int				DEFAULT_LARGE_CITIES	= 1000;
+
+	private long						batchStart;
+	private final List<BatchJob>		jobs;
+	private final int					largeCities;
+	private final FairShareScheduler	scheduler;
+	private final int					threads;
+
+	// Runs the reads and the solves of the jobs
+	private final ExecutorService		workers;
+	private final Solver				solver;
+
+	// Counted down as each job finishes
+	private CountDownLatch				unfinished;
+
+
+	/**
+	 * @param jobs
+	 *            the jobs of the batch
+	 * @param threads
+	 *            the number of worker threads
+	 * @param largeCities
+	 *            problems with at least this many cities are large jobs
+	 */
+	public BatchSolver(List<BatchJob> jobs, int threads, int largeCities) {
+
+		this.jobs = jobs;
+		this.threads = threads;
+		this.largeCities = largeCities;
+
+		// Huge problems wait for the memory of the running ones, without a
+		// worker, and are downgraded if they still don't fit
+		workers = Executors.newFixedThreadPool(threads);
+		solver = new Solver(workers, new AdmissionController(
+				AdmissionController.defaultBudget(), Long.MAX_VALUE));
+
+		scheduler = new FairShareScheduler(threads, largeCities);
+		for (BatchJob job : jobs) {
+			scheduler.add(job);
+		}
+	}
+
+
+	public static void main(String[] args) throws Exception {
+
+		if (args.length < 1) {
+			System.out.println("Usage: java BatchSolver <manifest> "
+					+ "[results file] [threads] [cities of a large job]");
+			System.exit(1);
+		}
+
+		File manifest = new File(args[0]);
+		String results = (args.length > 1) ? args[1] : args[0]
+				.concat(".results");
+		int threads = (args.length > 2) ? Integer.parseInt(args[2]) : Runtime
+				.getRuntime().availableProcessors();
+		int largeCities = (args.length > 3) ? Integer.parseInt(args[3])
+				: DEFAULT_LARGE_CITIES;
+
+		BatchSolver batch = new BatchSolver(readManifest(manifest), threads,
+				largeCities);
+
+		BufferedWriter writer = new BufferedWriter(new FileWriter(results));
+		batch.run(writer);
+		writer.close();
+
+		batch.report();
+		System.exit(0);
+	}
+
+
+	/**
+	 * Read the jobs of the manifest. Only the header of each problem is read
+	 * here, to find out how large it is
+	 *
+	 * @param manifest
+	 *            the manifest file
+	 * @return the jobs, in the order of the manifest
+	 * @throws IOException
+	 *             if the manifest or the header of a problem can't be read
+	 */
+	public static List<BatchJob> readManifest(File manifest)
+			throws IOException {
+
+		List<BatchJob> jobs = new ArrayList<BatchJob>();
+		File directory = manifest.getAbsoluteFile().getParentFile();
+
+		BufferedReader in = new BufferedReader(new FileReader(manifest));
+		try {
+			String line;
+			while ((line = in.readLine()) != null) {
+				line = line.trim();
+				if (line.length() == 0 || line.startsWith("#")) {
+					continue;
+				}
+
+				String[] words = line.split("\\s+");
+				File file = new File(words[0]);
+				if (!file.isAbsolute()) {
+					file = new File(directory, words[0]);
+				}
+
+				SolverParameters parameters = new SolverParameters();
+				for (int i = 1; i < words.length; i++) {
+					int equals = words[i].indexOf('=');
+					if (equals < 0) {
+						throw new IOException("Expected parameter=value in "
+								+ manifest + ", got: " + words[i]);
+					}
+					parameters.set(words[i].substring(0, equals),
+							words[i].substring(equals + 1));
+				}
+
+				jobs.add(new BatchJob(jobs.size() + 1, file,
+						dimensionOf(file), parameters));
+			}
+		} finally {
+			in.close();
+		}
+
+		return jobs;
+	}
+
+
+	/**
+	 * Print the throughput of the batch, and the completion times of its small
+	 * and large jobs
+	 */
+	public void report() {
+
+		long end = batchStart;
+		long cities = 0;
+		int failed = 0;
+		List<Long> small = new ArrayList<Long>();
+		List<Long> large = new ArrayList<Long>();
+
+		for (BatchJob job : jobs) {
+			end = Math.max(end, job.getCompletedNanos());
+			cities += job.getCities();
+			if (job.getResult() == null) {
+				failed++;
+			}
+
+			long completion = job.getCompletedNanos() - batchStart;
+			if (job.getCities() >= largeCities) {
+				large.add(completion);
+			} else {
+				small.add(completion);
+			}
+		}
+
+		double seconds = (end - batchStart) / 1e9;
+
+		System.out.println("\n\n----------------------------------------------");
+		System.out.println("JOBS: " + jobs.size() + " (" + failed + " FAILED)");
+		System.out.println("THREADS: " + threads);
+		System.out.println("TOTAL RUNNINGTIME: " + (float) seconds);
+		System.out.println("THROUGHPUT: "
+				+ String.format("%.2f", jobs.size() / seconds) + " jobs/s, "
+				+ String.format("%.0f", cities / seconds) + " cities/s");
+		System.out.println("SMALL JOBS COMPLETED (ms): " + percentiles(small));
+		System.out.println("LARGE JOBS COMPLETED (ms): " + percentiles(large));
+	}
+
+
+	/**
+	 * Run every job of the batch, writing a record for each as it finishes.
+	 * As many jobs as there are workers are taken at a time, and a job that
+	 * finishes takes the next one, so that a job waiting for heap doesn't tie
+	 * up a worker.
+	 *
+	 * @param writer
+	 *            where the records are written
+	 * @throws Exception
+	 */
+	public void run(final Writer writer) throws Exception {
+
+		writer.write("job\tfile\tcities\tstatus\tcost\twaited\tran\tcompleted\n");
+
+		batchStart = System.nanoTime();
+		unfinished = new CountDownLatch(jobs.size());
+
+		for (int i = 0; i < threads; i++) {
+			next(writer);
+		}
+
+		unfinished.await();
+		workers.shutdown();
+	}
+
+
+	/**
+	 * Take the next job, if there is one, and read and solve its problem
+	 */
+	private void next(final Writer writer) {
+
+		final BatchJob job = scheduler.take();
+		if (job == null) {
+			return;
+		}
+
+		workers.execute(new Runnable() {
+
+			@Override
+			public void run() {
+
+				TSPInstance instance;
+				try {
+					instance = TSPLIBParser.read(job.getFile());
+				} catch (IOException ex) {
+					finish(writer, job, null, ex);
+					return;
+				}
+
+				try {
+					solver.solve(instance, job.getParameters()).whenComplete(
+							new BiConsumer<SolverResult, Throwable>() {
+
+								@Override
+								public void accept(SolverResult result,
+										Throwable ex) {
+
+									finish(writer, job, result, ex);
+								}
+							});
+				} catch (RuntimeException ex) {
+					finish(writer, job, null, ex);
+				}
+			}
+		});
+	}
+
+
+	/**
+	 * Record the outcome of the job, and take the next one in its place
+	 */
+	private void finish(Writer writer, BatchJob job, SolverResult result,
+			Throwable ex) {
+
+		if (ex == null) {
+			job.completed(result, null);
+		} else {
+			Throwable cause = (ex instanceof CompletionException) ? ex
+					.getCause() : ex;
+			job.completed(null, String.valueOf(cause.getMessage()).replace(
+					'\t', ' ').replace('\n', ' '));
+		}
+
+		scheduler.finished(job);
+		record(writer, job);
+		unfinished.countDown();
+		next(writer);
+	}
+
+
+	/**
+	 * Read just enough of the problem to find its DIMENSION, the way the
+	 * TSPLIBParser reads the header - gzipped problems included
+	 */
+	private static int dimensionOf(File file) throws IOException {
+
+		TSPLIBParser.Header header = new TSPLIBParser.Header(
+				TSPLIBParser.problemName(file));
+
+		BufferedReader in = new BufferedReader(new InputStreamReader(
+				TSPLIBParser.open(file), "US-ASCII"));
+		try {
+			String line;
+			while ((line = in.readLine()) != null && !header.read(line)
+					&& header.dimension < 0) {
+				// Up to the DIMENSION
+			}
+		} finally {
+			in.close();
+		}
+
+		if (header.dimension < 0) {
+			throw new IOException("No DIMENSION in " + file);
+		}
+		return header.dimension;
+	}
+
+
+	/**
+	 * @return the 50th, 95th and 99th percentile and the maximum of the times,
+	 *         in milliseconds
+	 */
+	private static String percentiles(List<Long> nanos) {
+
+		if (nanos.isEmpty()) {
+			return "none";
+		}
+
+		long[] sorted = new long[nanos.size()];
+		for (int i = 0; i < sorted.length; i++) {
+			sorted[i] = nanos.get(i);
+		}
+		Arrays.sort(sorted);
+
+		return "P50 " + percentile(sorted, 50) + ", P95 "
+				+ percentile(sorted, 95) + ", P99 " + percentile(sorted, 99)
+				+ ", MAX " + sorted[sorted.length - 1] / 1000000;
+	}
+
+
+	private static long percentile(long[] sorted, int percent) {
+
+		int index = (int) Math.ceil(percent / 100.0 * sorted.length) - 1;
+		return sorted[Math.max(0, index)] / 1000000;
+	}
+
+
+	/**
+	 * Write the record of a finished job
+	 */
+	private void record(Writer writer, BatchJob job) {
+
+		SolverResult result = job.getResult();
+
+		StringBuilder record = new StringBuilder();
+		record.append(job.getIndex()).append('\t');
+		record.append(job.getFile().getPath()).append('\t');
+		record.append(job.getCities()).append('\t');
+		if (result != null) {
+			record.append("DONE\t").append((int) result.getCost());
+		} else {
+			record.append("FAILED\t").append(job.getError());
+		}
+		record.append('\t').append(
+				(job.getStartedNanos() - batchStart) / 1000000);
+		record.append('\t').append(
+				(job.getCompletedNanos() - job.getStartedNanos()) / 1000000);
+		record.append('\t').append(
+				(job.getCompletedNanos() - batchStart) / 1000000);
+
+		synchronized (writer) {
+			try {
+				writer.write(record.append('\n').toString());
+				writer.flush();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+}
@@ -0,0 +1,215 @@
+package TravelingSalesman;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.jgap.Genotype;
+import org.jgap.IChromosome;
+
+/**
+ * Keeps the best tour found so far in a TSPLIB tour file while the Genetic
+ * Algorithm is running, so that other programs can pick up the latest tour
+ * without waiting for the run to finish.
+ *
+ * After every generation the best tour of the population is compared with the
+ * best one so far. An improvement is written out at most once per interval;
+ * one found sooner is kept, and written once the interval has passed or the
+ * writer is closed. The file itself is written on a thread of its own, with
+ * TourFile.write, so it is always replaced whole and the evolution never waits
+ * for the disk. If tours come in faster than they can be written, only the
+ * newest is.
+ *
+ * The same writer can be hooked into any number of runs of the same problem,
+ * one after the other or at the same time; the file always holds the best tour
+ * of all of them.
+ *
+ * @author Aaron Foltz
+ */
+public class BestTourWriter implements GenerationHook {
+
+	public static final long					DEFAULT_INTERVAL_MILLIS	= 1000;
+
+	// Best tour so far, and its length
+	private double								bestCost				= Double.MAX_VALUE;
+	private int[]								bestTour				= null;
+
+	// The first error of the writing thread, thrown by close
+	private volatile IOException				error					= null;
+
+	private final ExecutorService				executor;
+	private final File							file;
+	private final long							intervalMillis;
+	private long								lastWrite				= 0;
+	private final String						name;
+
+	// The newest tour waiting to be written, null once it has been
+	private final AtomicReference<PendingTour>	pending					= new AtomicReference<PendingTour>();
+
+	// Length of the last tour handed over to be written
+	private double								writtenCost				= Double.MAX_VALUE;
+
+
+	/**
+	 * A tour waiting to be written, with its COMMENT
+	 */
+	private static final class PendingTour {
+
+		final String	comment;
+		final TourFile	tour;
+
+
+		PendingTour(TourFile tour, String comment) {
+
+			this.tour = tour;
+			this.comment = comment;
+		}
+	}
+
+	/**
+	 * @param file
+	 *            the tour file to keep up to date
+	 * @param name
+	 *            the NAME written into the tour file
+	 */
+	public BestTourWriter(File file, String name) {
+
+		this(file, name, DEFAULT_INTERVAL_MILLIS);
+	}
+
+
+	/**
+	 * @param file
+	 *            the tour file to keep up to date
+	 * @param name
+	 *            the NAME written into the tour file
+	 * @param intervalMillis
+	 *            the shortest time between two writes, in milliseconds
+	 */
+	public BestTourWriter(File file, String name, long intervalMillis) {
+
+		this.file = file;
+		this.name = name;
+		this.intervalMillis = intervalMillis;
+
+		executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+
+			@Override
+			public Thread newThread(Runnable runnable) {
+
+				Thread thread = new Thread(runnable, "best-tour-writer");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+
+	/**
+	 * Write the best tour if it hasn't been written yet, and wait until it
+	 * has
+	 *
+	 * @throws IOException
+	 *             if any tour couldn't be written
+	 * @throws InterruptedException
+	 */
+	public void close() throws IOException, InterruptedException {
+
+		synchronized (this) {
+			if (bestCost < writtenCost) {
+				submit();
+			}
+		}
+
+		executor.shutdown();
+		executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+
+		if (error != null) {
+			throw error;
+		}
+	}
+
+
+	/**
+	 * Look at the best tour of the population, and write it if it is the best
+	 * so far and the interval has passed. Runs on the evolution thread.
+	 */
+	@Override
+	public void generationCompleted(TravelingSalesman salesman,
+			Genotype population, int generation) {
+
+		offer(population.getFittestChromosome());
+	}
+
+
+	/**
+	 * @return the length of the best tour so far, Double.MAX_VALUE if there is
+	 *         none
+	 */
+	public synchronized double getBestCost() {
+
+		return bestCost;
+	}
+
+
+	/**
+	 * Offer a tour, e.g. the one returned at the end of a run. It is kept if
+	 * it is the best so far, and written once the interval has passed.
+	 *
+	 * @param chromosome
+	 *            the tour, may be null
+	 */
+	public synchronized void offer(IChromosome chromosome) {
+
+		if (chromosome != null && chromosome.getFitnessValue() < bestCost) {
+			bestCost = chromosome.getFitnessValue();
+			bestTour = TravelingSalesman.toTour(chromosome);
+		}
+
+		if (bestCost < writtenCost
+				&& System.currentTimeMillis() - lastWrite >= intervalMillis) {
+			submit();
+		}
+	}
+
+
+	/**
+	 * Hand the best tour over to the writing thread
+	 */
+	private void submit() {
+
+		PendingTour tour = new PendingTour(new TourFile(name, bestTour.length,
+				bestTour), "Length " + (long) bestCost);
+		writtenCost = bestCost;
+		lastWrite = System.currentTimeMillis();
+
+		// Only start a write if none is waiting; a waiting one will pick up
+		// this tour instead of its own
+		if (pending.getAndSet(tour) != null) {
+			return;
+		}
+
+		executor.execute(new Runnable() {
+
+			@Override
+			public void run() {
+
+				PendingTour newest = pending.getAndSet(null);
+				if (newest == null) {
+					return;
+				}
+				try {
+					newest.tour.write(file, newest.comment);
+				} catch (IOException ex) {
+					if (error == null) {
+						error = ex;
+					}
+				}
+			}
+		});
+	}
+}
@@ -0,0 +1,466 @@
+package TravelingSalesman;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * A TSP problem, and optionally what is worked out from it before a solve -
+ * the candidate lists of nearest neighbours and the Hilbert order of the
+ * cities - stored in a compact binary file, so that repeated solves of the
+ * same problem don't parse the TSPLIB text again.
+ *
+ * load() does this transparently: the binary file is kept next to the problem
+ * in /data, as "name.tspb", written the first time the problem is loaded and
+ * memory-mapped on every later load. It is written again when the length or
+ * last modification time of the problem is not the one stored in it.
+ *
+ * load() only stores the problem. The candidate lists and the Hilbert order
+ * are not used by the Genetic Algorithm yet, so they are not worked out on
+ * every load; a SolveSession builds them the first time they are asked for.
+ * A binary file written with them keeps them, and load hands them on.
+ *
+ * The file, all big-endian:
+ *
+ * MAGIC, VERSION, flags (HAS_NEIGHBORS, HAS_ORDER), number of cities, k
+ *
+ * length and last modification time of the TSPLIB file it was made from, each
+ * as a long, -1 if it wasn't made from one
+ *
+ * name, edge weight type - each as a short length and its UTF-8 bytes, padded
+ * to a multiple of eight bytes
+ *
+ * X coordinates, Y coordinates - a double per city
+ *
+ * neighbours - k ints per city, if HAS_NEIGHBORS
+ *
+ * Hilbert order - an int per city, if HAS_ORDER
+ *
+ * CRC-32 of everything before it, as a long
+ *
+ * The cities keep their numbers from the TSPLIB file; the Hilbert order is
+ * stored beside them, not applied to them, so tours stay comparable with the
+ * optimal tours in /data.
+ *
+ * @author Aaron Foltz
+ */
+public class BinaryInstance {
+
+	public static final String		EXTENSION		= ".tspb";
+
+	// "TSPB"
+	public static final int			MAGIC			= 0x54535042;
+
+	public static final int			VERSION			= 2;
+
+	private static final int		HAS_NEIGHBORS	= 1;
+	private static final int		HAS_ORDER		= 2;
+
+	private static final Charset	UTF8			= Charset
+															.forName("UTF-8");
+
+	private final CandidateLists	candidates;
+	private final TSPInstance		instance;
+	private final int[]				order;
+
+	// The TSPLIB file it was made from, -1 if none
+	private final long				sourceLength;
+	private final long				sourceModified;
+
+
+	/**
+	 * @param instance
+	 *            the problem
+	 * @param candidates
+	 *            the candidate lists of the problem, or null
+	 * @param order
+	 *            the Hilbert order of the cities, or null
+	 */
+	public BinaryInstance(TSPInstance instance, CandidateLists candidates,
+			int[] order) {
+
+		this(instance, candidates, order, -1, -1);
+	}
+
+
+	/**
+	 * @param instance
+	 *            the problem
+	 * @param candidates
+	 *            the candidate lists of the problem, or null
+	 * @param order
+	 *            the Hilbert order of the cities, or null
+	 * @param sourceLength
+	 *            the length of the TSPLIB file the problem was read from
+	 * @param sourceModified
+	 *            the last modification time of that file
+	 */
+	public BinaryInstance(TSPInstance instance, CandidateLists candidates,
+			int[] order, long sourceLength, long sourceModified) {
+
+		this.instance = instance;
+		this.candidates = candidates;
+		this.order = order;
+		this.sourceLength = sourceLength;
+		this.sourceModified = sourceModified;
+	}
+
+
+	/**
+	 * Load the problem, from its binary file when that is up to date, and otherwise from the TSPLIB file - in which case the
+	 * binary file is written for the next time
+	 *
+	 * @param problem
+	 *            the TSPLIB file, e.g. data/att48.tsp, or data/att48.tsp.gz
+	 *            if only that exists
+	 * @return the problem, with the candidate lists and Hilbert order if its
+	 *         binary file holds them
+	 * @throws IOException
+	 *             if the TSPLIB file can't be read
+	 */
+	public static BinaryInstance load(File problem) throws IOException {
+
+		problem = TSPLIBParser.locate(problem);
+		File binary = binaryFile(problem);
+
+		// Taken before the problem is read, so a change while it is read
+		// shows up on the next load
+		long length = problem.length();
+		long modified = problem.lastModified();
+
+		if (binary.exists()) {
+			try {
+				BinaryInstance cached = read(binary);
+				if (cached.sourceLength == length
+						&& cached.sourceModified == modified) {
+					return cached;
+				}
+				System.out.println("Rebuilding " + binary
+						+ ": it is out of date");
+			} catch (IOException ex) {
+				System.out.println("Rebuilding " + binary + ": "
+						+ ex.getMessage());
+			}
+		}
+
+		TSPInstance instance = TSPLIBParser.read(problem);
+		BinaryInstance converted = new BinaryInstance(instance, null, null,
+				length, modified);
+
+		// Not being able to write it only costs the next load some time
+		try {
+			converted.write(binary);
+		} catch (IOException ex) {
+			System.out.println("Could not write " + binary + ": "
+					+ ex.getMessage());
+		}
+
+		return converted;
+	}
+
+
+	/**
+	 * Map and read a binary problem file
+	 *
+	 * @param file
+	 *            the binary file
+	 * @return the problem with the preprocessing stored with it
+	 * @throws IOException
+	 *             if the file can't be read, is of another version, or is
+	 *             damaged
+	 */
+	public static BinaryInstance read(File file) throws IOException {
+
+		// The mapping stays valid once the channel is closed
+		MappedByteBuffer buffer;
+		RandomAccessFile in = new RandomAccessFile(file, "r");
+		try {
+			FileChannel channel = in.getChannel();
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new IOException(file + " is too large");
+			}
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+					channel.size());
+		} finally {
+			in.close();
+		}
+
+		return read(buffer, file.toString(), TSPLIBParser.MAX_DIMENSION);
+	}
+
+
+	/**
+	 * Read a binary problem, e.g. one that was sent to the JobServer
+	 *
+	 * @param buffer
+	 *            the whole binary problem, from position 0 to its limit
+	 * @param source
+	 *            where the problem came from, for the error messages
+	 * @param maxDimension
+	 *            the most cities the problem may have, checked before its
+	 *            cities are read
+	 * @return the problem with the preprocessing stored with it
+	 * @throws IOException
+	 *             if the problem is of another version, is damaged, or has
+	 *             too many cities
+	 */
+	public static BinaryInstance read(ByteBuffer buffer, String source,
+			int maxDimension) throws IOException {
+
+		if (buffer.limit() < 48 || buffer.getInt(0) != MAGIC) {
+			throw new IOException(source + " is not a binary TSP problem");
+		}
+		if (buffer.getInt(4) != VERSION) {
+			throw new IOException(source + " is of version "
+					+ buffer.getInt(4) + ", expected " + VERSION);
+		}
+
+		// --------------------------------------------- //
+		// Checksum
+		int end = buffer.limit() - 8;
+		ByteBuffer checked = buffer.duplicate();
+		checked.limit(end);
+		CRC32 crc = new CRC32();
+		crc.update(checked);
+		if (crc.getValue() != buffer.getLong(end)) {
+			throw new IOException(source + " is damaged, its checksum is wrong");
+		}
+		// --------------------------------------------- //
+
+		// --------------------------------------------- //
+		// Header
+		buffer.position(8);
+		int flags = buffer.getInt();
+		int cities = buffer.getInt();
+		int k = buffer.getInt();
+		long sourceLength = buffer.getLong();
+		long sourceModified = buffer.getLong();
+		String name;
+		String edgeWeightType;
+		try {
+			name = readString(buffer);
+			edgeWeightType = readString(buffer);
+			buffer.position((buffer.position() + 7) & ~7);
+		} catch (RuntimeException ex) {
+			// Strings longer than the file
+			throw new IOException(source + " is damaged, its header is cut off");
+		}
+		if (cities > maxDimension) {
+			throw new IOException("TSP problem " + name + " has " + cities
+					+ " cities, more than the " + maxDimension + " allowed");
+		}
+
+		long expected = buffer.position() + 16L * cities + 8;
+		if ((flags & HAS_NEIGHBORS) != 0) {
+			expected += 4L * cities * k;
+		}
+		if ((flags & HAS_ORDER) != 0) {
+			expected += 4L * cities;
+		}
+		if (cities < 0 || k < 0 || expected != buffer.limit()) {
+			throw new IOException(source + " is damaged, it should be "
+					+ expected + " bytes long");
+		}
+		if (DistanceKernel.typeOf(edgeWeightType) == DistanceKernel.UNKNOWN) {
+			throw new IOException(source
+					+ " has the unsupported edge weight type " + edgeWeightType);
+		}
+		// --------------------------------------------- //
+
+		// --------------------------------------------- //
+		// Coordinates and preprocessing
+		double[] x = new double[cities];
+		double[] y = new double[cities];
+		buffer.asDoubleBuffer().get(x);
+		buffer.position(buffer.position() + 8 * cities);
+		buffer.asDoubleBuffer().get(y);
+		buffer.position(buffer.position() + 8 * cities);
+
+		CandidateLists candidates = null;
+		if ((flags & HAS_NEIGHBORS) != 0) {
+			int[] neighbors = new int[cities * k];
+			buffer.asIntBuffer().get(neighbors);
+			buffer.position(buffer.position() + 4 * neighbors.length);
+			candidates = new CandidateLists(k, neighbors);
+		}
+
+		int[] order = null;
+		if ((flags & HAS_ORDER) != 0) {
+			order = new int[cities];
+			buffer.asIntBuffer().get(order);
+		}
+		// --------------------------------------------- //
+
+		return new BinaryInstance(new TSPInstance(name, edgeWeightType, x, y),
+				candidates, order, sourceLength, sourceModified);
+	}
+
+
+	/**
+	 * @return the binary file kept next to the TSPLIB file
+	 */
+	public static File binaryFile(File problem) {
+
+		return new File(problem.getParentFile(),
+				TSPLIBParser.problemName(problem) + EXTENSION);
+	}
+
+
+	/**
+	 * @return the candidate lists, null if there are none
+	 */
+	public CandidateLists getCandidates() {
+
+		return candidates;
+	}
+
+
+	/**
+	 * @return the Hilbert order of the cities, null if there is none; not
+	 *         copied
+	 */
+	public int[] getHilbertOrder() {
+
+		return order;
+	}
+
+
+	public TSPInstance getInstance() {
+
+		return instance;
+	}
+
+
+	/**
+	 * @return the length of the TSPLIB file the problem was read from, -1 if
+	 *         it wasn't read from one
+	 */
+	public long getSourceLength() {
+
+		return sourceLength;
+	}
+
+
+	/**
+	 * @return the last modification time of the TSPLIB file the problem was
+	 *         read from, -1 if it wasn't read from one
+	 */
+	public long getSourceModified() {
+
+		return sourceModified;
+	}
+
+
+	/**
+	 * Write the binary file. It is written to a temporary file first and then
+	 * renamed, so a reader never sees half a file; the temporary file is
+	 * deleted if the write fails.
+	 *
+	 * @param file
+	 *            the binary file
+	 * @throws IOException
+	 */
+	public void write(File file) throws IOException {
+
+		// A temporary file of its own, so that two processes writing the
+		// same binary file don't write into each other's
+		File temporary = File.createTempFile(file.getName(), ".tmp", file
+				.getAbsoluteFile().getParentFile());
+
+		boolean written = false;
+		try {
+			writeTo(temporary);
+			Files.move(temporary.toPath(), file.toPath(),
+					StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+			written = true;
+		} finally {
+			if (!written) {
+				temporary.delete();
+			}
+		}
+	}
+
+
+	/**
+	 * Write the file in place, with the CRC-32 of everything before it at the
+	 * end
+	 */
+	private void writeTo(File file) throws IOException {
+
+		CRC32 crc = new CRC32();
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+				new CheckedOutputStream(new FileOutputStream(file), crc),
+				1 << 16));
+		try {
+			int cities = instance.getDimension();
+			int k = (candidates != null) ? candidates.getK() : 0;
+			int flags = ((candidates != null) ? HAS_NEIGHBORS : 0)
+					| ((order != null) ? HAS_ORDER : 0);
+
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(flags);
+			out.writeInt(cities);
+			out.writeInt(k);
+			out.writeLong(sourceLength);
+			out.writeLong(sourceModified);
+			writeString(out, instance.getName());
+			writeString(out, instance.getEdgeWeightType());
+			while (out.size() % 8 != 0) {
+				out.writeByte(0);
+			}
+
+			for (int i = 0; i < cities; i++) {
+				out.writeDouble(instance.getX(i));
+			}
+			for (int i = 0; i < cities; i++) {
+				out.writeDouble(instance.getY(i));
+			}
+			if (candidates != null) {
+				for (int neighbor : candidates.getNeighbors()) {
+					out.writeInt(neighbor);
+				}
+			}
+			if (order != null) {
+				for (int city : order) {
+					out.writeInt(city);
+				}
+			}
+
+			// The checksum covers everything written so far
+			out.flush();
+			out.writeLong(crc.getValue());
+		} finally {
+			out.close();
+		}
+	}
+
+
+	private static String readString(ByteBuffer buffer) {
+
+		byte[] bytes = new byte[buffer.getShort() & 0xffff];
+		buffer.get(bytes);
+		return new String(bytes, UTF8);
+	}
+
+
+	private static void writeString(DataOutputStream out, String value)
+			throws IOException {
+
+		byte[] bytes = value.getBytes(UTF8);
+		out.writeShort(bytes.length);
+		out.write(bytes);
+	}
+}
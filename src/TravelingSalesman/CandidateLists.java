@@ -0,0 +1,191 @@
+package TravelingSalesman;
+
+/**
+ * The k nearest neighbours of every city of a problem, nearest first. Good
+ * tours almost only use edges to near neighbours, so these are the candidates
+ * that the operators should try first.
+ *
+ * The lists are found with a uniform grid over the cities, about two cities to
+ * a cell, searched in rings of cells around each city until no closer city
+ * can be left. That keeps the build close to linear in the number of cities,
+ * instead of the n * n of comparing every pair.
+ *
+ * Neighbours are ranked by their Euclidean distance, which ranks them the same
+ * as both the ATT and the EUC_2D distance.
+ *
+ * @author Aaron Foltz
+ */
+public class CandidateLists {
+
+	public static final int	DEFAULT_K	= 10;
+
+	private final int		k;
+
+	// Row-major, k neighbours per city
+	private final int[]		neighbors;
+
+
+	CandidateLists(int k, int[] neighbors) {
+
+		this.k = k;
+		this.neighbors = neighbors;
+	}
+
+
+	/**
+	 * Find the nearest neighbours of every city
+	 *
+	 * @param instance
+	 *            the problem
+	 * @param k
+	 *            the number of neighbours per city, at most one less than the
+	 *            number of cities
+	 * @return the candidate lists
+	 */
+	public static CandidateLists build(TSPInstance instance, int k) {
+
+		int cities = instance.getDimension();
+		k = Math.max(0, Math.min(k, cities - 1));
+
+		int[] neighbors = new int[cities * k];
+		if (k == 0) {
+			return new CandidateLists(k, neighbors);
+		}
+
+		// --------------------------------------------- //
+		// Bucket the cities into the grid
+		double minX = Double.MAX_VALUE, maxX = -Double.MAX_VALUE;
+		double minY = Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+		for (int i = 0; i < cities; i++) {
+			minX = Math.min(minX, instance.getX(i));
+			maxX = Math.max(maxX, instance.getX(i));
+			minY = Math.min(minY, instance.getY(i));
+			maxY = Math.max(maxY, instance.getY(i));
+		}
+
+		int side = Math.max(1, (int) Math.sqrt(cities / 2.0));
+		double width = (maxX > minX) ? (maxX - minX) / side : 1;
+		double height = (maxY > minY) ? (maxY - minY) / side : 1;
+		double cell = Math.min(width, height);
+
+		int[] cellOf = new int[cities];
+		int[] cellStart = new int[side * side + 1];
+		for (int i = 0; i < cities; i++) {
+			int column = Math.min(side - 1,
+					(int) ((instance.getX(i) - minX) / width));
+			int row = Math.min(side - 1,
+					(int) ((instance.getY(i) - minY) / height));
+			cellOf[i] = row * side + column;
+			cellStart[cellOf[i] + 1]++;
+		}
+		for (int i = 0; i < side * side; i++) {
+			cellStart[i + 1] += cellStart[i];
+		}
+
+		int[] fill = cellStart.clone();
+		int[] cellCities = new int[cities];
+		for (int i = 0; i < cities; i++) {
+			cellCities[fill[cellOf[i]]++] = i;
+		}
+		// --------------------------------------------- //
+
+		// --------------------------------------------- //
+		// Search the rings of cells around each city
+		double[] best = new double[k];
+		int[] bestCities = new int[k];
+
+		for (int city = 0; city < cities; city++) {
+			double x = instance.getX(city);
+			double y = instance.getY(city);
+			int column = cellOf[city] % side;
+			int row = cellOf[city] / side;
+			int found = 0;
+
+			for (int ring = 0; ring <= side; ring++) {
+				for (int r = row - ring; r <= row + ring; r++) {
+					if (r < 0 || r >= side) {
+						continue;
+					}
+
+					// Only the edge of the ring, the inside has been searched
+					int step = (r == row - ring || r == row + ring) ? 1
+							: 2 * ring;
+					for (int c = column - ring; c <= column + ring; c += Math
+							.max(1, step)) {
+						if (c < 0 || c >= side) {
+							continue;
+						}
+
+						int index = r * side + c;
+						for (int i = cellStart[index]; i < cellStart[index + 1]; i++) {
+							int other = cellCities[i];
+							if (other == city) {
+								continue;
+							}
+
+							double dx = instance.getX(other) - x;
+							double dy = instance.getY(other) - y;
+							double distance = dx * dx + dy * dy;
+							if (found == k && distance >= best[k - 1]) {
+								continue;
+							}
+
+							// Insert into the sorted list of the nearest
+							int j = (found < k) ? found++ : k - 1;
+							while (j > 0 && best[j - 1] > distance) {
+								best[j] = best[j - 1];
+								bestCities[j] = bestCities[j - 1];
+								j--;
+							}
+							best[j] = distance;
+							bestCities[j] = other;
+						}
+					}
+				}
+
+				// Every city outside the rings searched so far is at least
+				// ring cells away
+				double reach = ring * cell;
+				if (found == k && best[k - 1] <= reach * reach) {
+					break;
+				}
+			}
+
+			System.arraycopy(bestCities, 0, neighbors, city * k, k);
+		}
+		// --------------------------------------------- //
+
+		return new CandidateLists(k, neighbors);
+	}
+
+
+	/**
+	 * @return the number of neighbours of each city
+	 */
+	public int getK() {
+
+		return k;
+	}
+
+
+	/**
+	 * @param city
+	 *            the city
+	 * @param rank
+	 *            0 for the nearest neighbour, up to k - 1
+	 * @return the neighbour of the city
+	 */
+	public int getNeighbor(int city, int rank) {
+
+		return neighbors[city * k + rank];
+	}
+
+
+	/**
+	 * @return the lists, row-major with k neighbours per city, not copied
+	 */
+	int[] getNeighbors() {
+
+		return neighbors;
+	}
+}
@@ -0,0 +1,336 @@
+package TravelingSalesman;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * The whole state of a run of the Genetic Algorithm between two generations:
+ * the tours of the population and their fitness values, the state of the
+ * random generator, the number of the next generation, the stagnation counter
+ * and the best tour so far. A run resumed from it carries on exactly where it
+ * was checkpointed, without running Stochastic Initialization again.
+ *
+ * A checkpoint is written as a header (magic number, version, number of
+ * cities, population size), the counters and the random state as variable
+ * length integers, every tour delta encoded with the TourCodec after its
+ * fitness value, and a CRC32 of all of it at the end, so a torn or corrupted
+ * file is never resumed from. Files are replaced with a rename, so there is
+ * always a complete checkpoint on disk.
+ *
+ * @author Aaron Foltz
+ */
+public class Checkpoint {
+
+	// "TSPC"
+	private static final int		MAGIC		= 0x54535043;
+	private static final int		VERSION		= 1;
+
+	private final double			bestCost;
+	private final int[]				bestTour;
+	private final int				cities;
+	private final long				elapsedNanos;
+	private final double[]			fitness;
+	private final int				generation;
+	private final double[]			operatorQuality;
+	private final int				previousBest;
+	private final long				randomState;
+	private final int				stagnation;
+	private final int[][]			tours;
+
+
+	/**
+	 * @param cities
+	 *            the number of cities of the problem
+	 * @param generation
+	 *            the number of the next generation to evolve
+	 * @param stagnation
+	 *            the number of generations in a row the best fitness hasn't
+	 *            changed
+	 * @param previousBest
+	 *            the best fitness of the last generation
+	 * @param elapsedNanos
+	 *            time taken by the run so far
+	 * @param randomState
+	 *            the state of the ResumableRandomGenerator
+	 * @param tours
+	 *            the tours of the population, not copied
+	 * @param fitness
+	 *            the fitness values of the tours, not copied
+	 * @param bestTour
+	 *            the best tour so far, null for none
+	 * @param bestCost
+	 *            the fitness value of the best tour so far
+	 * @param operatorQuality
+	 *            the running averages of the adaptive operators of the
+	 *            steady-state engine, empty for none
+	 */
+	public Checkpoint(int cities, int generation, int stagnation,
+			int previousBest, long elapsedNanos, long randomState,
+			int[][] tours, double[] fitness, int[] bestTour, double bestCost,
+			double[] operatorQuality) {
+
+		this.cities = cities;
+		this.generation = generation;
+		this.stagnation = stagnation;
+		this.previousBest = previousBest;
+		this.elapsedNanos = elapsedNanos;
+		this.randomState = randomState;
+		this.tours = tours;
+		this.fitness = fitness;
+		this.bestTour = bestTour;
+		this.bestCost = bestCost;
+		this.operatorQuality = operatorQuality;
+	}
+
+
+	/**
+	 * Read a checkpoint
+	 *
+	 * @param file
+	 *            the checkpoint file
+	 * @return the checkpoint
+	 * @throws IOException
+	 *             if the file can't be read, or is not a complete checkpoint
+	 */
+	public static Checkpoint read(File file) throws IOException {
+
+		byte[] bytes = Files.readAllBytes(file.toPath());
+		if (bytes.length < 16) {
+			throw new IOException(file + " is not a checkpoint");
+		}
+
+		// The checksum covers everything but itself
+		CRC32 crc = new CRC32();
+		crc.update(bytes, 0, bytes.length - 8);
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(
+				bytes));
+
+		in.skipBytes(bytes.length - 8);
+		if (in.readLong() != crc.getValue()) {
+			throw new IOException(file + " is corrupted");
+		}
+
+		in = new DataInputStream(new ByteArrayInputStream(bytes, 0,
+				bytes.length - 8));
+		if (in.readInt() != MAGIC) {
+			throw new IOException(file + " is not a checkpoint");
+		}
+		int version = in.readInt();
+		if (version != VERSION) {
+			throw new IOException(file + " is a checkpoint of version "
+					+ version + ", not " + VERSION);
+		}
+
+		int cities = TourCodec.readVarInt(in);
+		int size = TourCodec.readVarInt(in);
+		int generation = TourCodec.readVarInt(in);
+		int stagnation = TourCodec.readVarInt(in);
+		int previousBest = in.readInt();
+		long elapsedNanos = in.readLong();
+		long randomState = in.readLong();
+
+		double[] operatorQuality = new double[TourCodec.readVarInt(in)];
+		for (int i = 0; i < operatorQuality.length; i++) {
+			operatorQuality[i] = in.readDouble();
+		}
+
+		int[][] tours = new int[size][];
+		double[] fitness = new double[size];
+		for (int i = 0; i < size; i++) {
+			fitness[i] = in.readDouble();
+			tours[i] = TourCodec.readTour(in, cities);
+		}
+
+		int[] bestTour = null;
+		double bestCost = in.readDouble();
+		if (in.readBoolean()) {
+			bestTour = TourCodec.readTour(in, cities);
+		}
+
+		return new Checkpoint(cities, generation, stagnation, previousBest,
+				elapsedNanos, randomState, tours, fitness, bestTour, bestCost,
+				operatorQuality);
+	}
+
+
+	/**
+	 * @return the checkpoint in its binary format, checksum included
+	 * @throws IOException
+	 */
+	public byte[] encode() throws IOException {
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(
+				64 + tours.length * (10 + 2 * cities));
+		CRC32 crc = new CRC32();
+		DataOutputStream out = new DataOutputStream(new CheckedOutputStream(
+				bytes, crc));
+
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		TourCodec.writeVarInt(out, cities);
+		TourCodec.writeVarInt(out, tours.length);
+		TourCodec.writeVarInt(out, generation);
+		TourCodec.writeVarInt(out, stagnation);
+		out.writeInt(previousBest);
+		out.writeLong(elapsedNanos);
+		out.writeLong(randomState);
+
+		TourCodec.writeVarInt(out, operatorQuality.length);
+		for (double quality : operatorQuality) {
+			out.writeDouble(quality);
+		}
+
+		for (int i = 0; i < tours.length; i++) {
+			out.writeDouble(fitness[i]);
+			TourCodec.writeTour(out, tours[i]);
+		}
+
+		out.writeDouble(bestCost);
+		out.writeBoolean(bestTour != null);
+		if (bestTour != null) {
+			TourCodec.writeTour(out, bestTour);
+		}
+
+		// The checksum covers everything written so far
+		out.flush();
+		out.writeLong(crc.getValue());
+		out.flush();
+
+		return bytes.toByteArray();
+	}
+
+
+	/**
+	 * @return the fitness value of the best tour so far
+	 */
+	public double getBestCost() {
+
+		return bestCost;
+	}
+
+
+	/**
+	 * @return the best tour so far, null for none; not copied
+	 */
+	public int[] getBestTour() {
+
+		return bestTour;
+	}
+
+
+	public int getCities() {
+
+		return cities;
+	}
+
+
+	/**
+	 * @return time taken by the run so far, in nanoseconds
+	 */
+	public long getElapsedNanos() {
+
+		return elapsedNanos;
+	}
+
+
+	/**
+	 * @return the fitness values of the tours of the population; not copied
+	 */
+	public double[] getFitness() {
+
+		return fitness;
+	}
+
+
+	/**
+	 * @return the number of the next generation to evolve
+	 */
+	public int getGeneration() {
+
+		return generation;
+	}
+
+
+	/**
+	 * @return the running averages of the adaptive operators, empty for none;
+	 *         not copied
+	 */
+	public double[] getOperatorQuality() {
+
+		return operatorQuality;
+	}
+
+
+	/**
+	 * @return the best fitness of the last generation
+	 */
+	public int getPreviousBest() {
+
+		return previousBest;
+	}
+
+
+	/**
+	 * @return the state of the ResumableRandomGenerator
+	 */
+	public long getRandomState() {
+
+		return randomState;
+	}
+
+
+	/**
+	 * @return the number of generations in a row the best fitness hasn't
+	 *         changed
+	 */
+	public int getStagnation() {
+
+		return stagnation;
+	}
+
+
+	/**
+	 * @return the tours of the population; not copied
+	 */
+	public int[][] getTours() {
+
+		return tours;
+	}
+
+
+	/**
+	 * Write the checkpoint. It is written to a temporary file next to the
+	 * file first, which is then renamed over it.
+	 *
+	 * @param file
+	 *            the checkpoint file
+	 * @throws IOException
+	 */
+	public void write(File file) throws IOException {
+
+		byte[] bytes = encode();
+
+		File temporary = new File(file.getPath() + ".tmp");
+		BufferedOutputStream out = new BufferedOutputStream(
+				new FileOutputStream(temporary));
+		try {
+			out.write(bytes);
+		} finally {
+			out.close();
+		}
+
+		Files.move(temporary.toPath(), file.toPath(),
+				StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+	}
+}
@@ -0,0 +1,127 @@
+package TravelingSalesman;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Writes the checkpoints of a run to a file on a thread of its own. The run
+ * only takes a snapshot of its population between two generations; encoding
+ * it and writing it to disk happen here, while the run carries on. If
+ * checkpoints are handed over faster than they can be written, only the newest
+ * is.
+ *
+ * @author Aaron Foltz
+ */
+public class CheckpointWriter {
+
+	// The first error of the writing thread, thrown by close
+	private volatile IOException					error		= null;
+
+	private final ExecutorService					executor;
+	private final File								file;
+	private final long								intervalMillis;
+	private volatile long							lastWrite;
+
+	// The newest checkpoint waiting to be written, null once it has been
+	private final AtomicReference<Checkpoint>		pending		= new AtomicReference<Checkpoint>();
+
+
+	/**
+	 * @param file
+	 *            the checkpoint file
+	 * @param intervalMillis
+	 *            the time between two checkpoints, in milliseconds
+	 */
+	public CheckpointWriter(File file, long intervalMillis) {
+
+		this.file = file;
+		this.intervalMillis = intervalMillis;
+		lastWrite = System.currentTimeMillis();
+
+		executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+
+			@Override
+			public Thread newThread(Runnable runnable) {
+
+				Thread thread = new Thread(runnable, "checkpoint-writer");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+
+	/**
+	 * Wait for the last checkpoint to be written
+	 *
+	 * @throws IOException
+	 *             if any checkpoint couldn't be written
+	 * @throws InterruptedException
+	 */
+	public void close() throws IOException, InterruptedException {
+
+		executor.shutdown();
+		executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+
+		if (error != null) {
+			throw error;
+		}
+	}
+
+
+	public File getFile() {
+
+		return file;
+	}
+
+
+	/**
+	 * @return true once the interval has passed since the last checkpoint
+	 */
+	public boolean isDue() {
+
+		return System.currentTimeMillis() - lastWrite >= intervalMillis;
+	}
+
+
+	/**
+	 * Hand a checkpoint over to be written
+	 *
+	 * @param checkpoint
+	 *            the checkpoint, which must not change any more
+	 */
+	public void write(Checkpoint checkpoint) {
+
+		lastWrite = System.currentTimeMillis();
+
+		// Only start a write if none is waiting; a waiting one will pick up
+		// this checkpoint instead of its own
+		if (pending.getAndSet(checkpoint) != null) {
+			return;
+		}
+
+		executor.execute(new Runnable() {
+
+			@Override
+			public void run() {
+
+				Checkpoint newest = pending.getAndSet(null);
+				if (newest == null) {
+					return;
+				}
+				try {
+					newest.write(file);
+				} catch (IOException ex) {
+					if (error == null) {
+						error = ex;
+					}
+				}
+			}
+		});
+	}
+}
@@ -0,0 +1,84 @@
+package TravelingSalesman;
+
+import java.util.Random;
+
+/**
+ * Measures how fast tours are summed up with the DistanceKernel. Random tours
+ * of a synthetic problem of each edge weight type are summed up over and
+ * over, and the time per distance is printed. That the kernel agrees with
+ * TSPLIB is checked by DistanceKernelTest. To see that the JIT inlines the
+ * kernel into the loop, run it with:
+ *
+ * java -XX:+UnlockDiagnosticVMOptions -XX:+PrintInlining
+ * TravelingSalesman.DistanceBenchmark
+ *
+ * and look for DistanceKernel::distance, att and euc2d marked "inline".
+ *
+ * This program can be run as a standalone entity: java DistanceBenchmark
+ * [cities] [seconds per type]
+ *
+ * @author Aaron Foltz
+ */
+public class DistanceBenchmark {
+
+	public static void main(String[] args) {
+
+		int cities = (args.length > 0) ? Integer.parseInt(args[0]) : 100000;
+		int seconds = (args.length > 1) ? Integer.parseInt(args[1]) : 3;
+
+		// --------------------------------------------- //
+		// Benchmark
+		System.out.println("TYPE\tCITIES\tNS PER DISTANCE");
+		for (String type : new String[] { "EUC_2D", "ATT" }) {
+			Random random = new Random(cities);
+			double[] x = new double[cities];
+			double[] y = new double[cities];
+			int[] tour = new int[cities];
+			for (int i = 0; i < cities; i++) {
+				x[i] = random.nextDouble() * 100000;
+				y[i] = random.nextDouble() * 100000;
+				tour[i] = i;
+			}
+			for (int i = cities - 1; i > 0; i--) {
+				int j = random.nextInt(i + 1);
+				int t = tour[i];
+				tour[i] = tour[j];
+				tour[j] = t;
+			}
+			TSPInstance instance = new TSPInstance("synthetic", type, x, y);
+
+			// Warm up, so the loop is compiled before it is timed
+			double sink = 0;
+			for (int i = 0; i < 20; i++) {
+				sink += cost(instance, tour);
+			}
+
+			long distances = 0;
+			long start = System.nanoTime();
+			long end = start + seconds * 1000000000L;
+			while (System.nanoTime() < end) {
+				sink += cost(instance, tour);
+				distances += cities;
+			}
+			long elapsed = System.nanoTime() - start;
+
+			System.out.println(type + "\t" + cities + "\t"
+					+ String.format("%.2f", (double) elapsed / distances)
+					+ ((sink == 0) ? " " : ""));
+		}
+		// --------------------------------------------- //
+	}
+
+
+	/**
+	 * @return the cost of the tour, back to its first city
+	 */
+	private static double cost(TSPInstance instance, int[] tour) {
+
+		double cost = 0;
+		for (int i = 0; i < tour.length - 1; i++) {
+			cost += instance.distance(tour[i], tour[i + 1]);
+		}
+		return cost + instance.distance(tour[tour.length - 1], tour[0]);
+	}
+}
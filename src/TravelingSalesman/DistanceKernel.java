@@ -0,0 +1,101 @@
+package TravelingSalesman;
+
+/**
+ * The distance functions of TSPLIB, in one place, so that every part of the
+ * program - the Genetic Algorithm, the Reader's distance matrix, OptimalPath,
+ * the TourVerifier - measures a tour the same way.
+ *
+ * Everything here is static, final and works on primitives only, and the edge
+ * weight type is an int worked out once per problem instead of a String
+ * compared on every call. That keeps each call site monomorphic and small
+ * enough for the JIT to inline it into the loops that sum up tours.
+ *
+ * Both functions follow the TSPLIB documentation: EUC_2D is the Euclidean
+ * distance rounded to the nearest integer, ATT is the pseudo-Euclidean
+ * distance rounded up. Any other edge weight type is turned away when its
+ * TSPInstance is built.
+ *
+ * @author Aaron Foltz
+ */
+public final class DistanceKernel {
+
+	// Edge weight types
+	public static final int	UNKNOWN	= -1;
+	public static final int	ATT		= 0;
+	public static final int	EUC_2D	= 1;
+
+
+	private DistanceKernel() {
+
+	}
+
+
+	/**
+	 * Pseudo-Euclidean distance
+	 *
+	 * @param xd
+	 *            the difference between the X coordinates of the cities
+	 * @param yd
+	 *            the difference between the Y coordinates of the cities
+	 * @return the ATT distance
+	 */
+	public static double att(double xd, double yd) {
+
+		double rij = Math.sqrt(((xd * xd) + (yd * yd)) / 10.0);
+		double tij = Math.round(rij);
+
+		return (tij < rij) ? tij + 1 : tij;
+	}
+
+
+	/**
+	 * @return the distance between the cities (xa, ya) and (xb, yb) for the
+	 *         edge weight type
+	 * @throws IllegalArgumentException
+	 *             for an unknown edge weight type
+	 */
+	public static double distance(int type, double xa, double ya, double xb,
+			double yb) {
+
+		double xd = xa - xb;
+		double yd = ya - yb;
+
+		if (type == ATT) {
+			return att(xd, yd);
+		} else if (type == EUC_2D) {
+			return euc2d(xd, yd);
+		}
+		throw new IllegalArgumentException("Unknown edge weight type " + type);
+	}
+
+
+	/**
+	 * Euclidean distance, rounded to the nearest integer
+	 *
+	 * @param xd
+	 *            the difference between the X coordinates of the cities
+	 * @param yd
+	 *            the difference between the Y coordinates of the cities
+	 * @return the EUC_2D distance
+	 */
+	public static double euc2d(double xd, double yd) {
+
+		return Math.round(Math.sqrt((xd * xd) + (yd * yd)));
+	}
+
+
+	/**
+	 * @param edgeWeightType
+	 *            the EDGE_WEIGHT_TYPE of a problem
+	 * @return ATT, EUC_2D or UNKNOWN
+	 */
+	public static int typeOf(String edgeWeightType) {
+
+		if ("ATT".equals(edgeWeightType)) {
+			return ATT;
+		} else if ("EUC_2D".equals(edgeWeightType)) {
+			return EUC_2D;
+		}
+		return UNKNOWN;
+	}
+}
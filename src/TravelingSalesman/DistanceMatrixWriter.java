@@ -0,0 +1,217 @@
+package TravelingSalesman;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Writes the distance matrix of a problem row by row, working each row out
+ * from the coordinates as it goes, so that the memory used stays the same
+ * however many cities there are - one row of distances and one output buffer.
+ * The distances come from the DistanceKernel, like everywhere else.
+ *
+ * Two formats:
+ *
+ * text - a line per row, "row:" followed by the distances, separated by tabs
+ *
+ * binary - the distances of each row as big-endian doubles, one row after the
+ * other, with nothing in between
+ *
+ * Either can be limited to a range of rows, e.g. to split a large matrix
+ * between several files.
+ *
+ * This program can be run as a standalone entity: java DistanceMatrixWriter
+ * <problem name> <output file, - for the console> [text|binary] [first row]
+ * [end row]
+ *
+ * java DistanceMatrixWriter a280 a280.matrix binary
+ *
+ * @author Aaron Foltz
+ */
+public class DistanceMatrixWriter {
+
+	private static final int		BUFFER_SIZE	= 1 << 16;
+
+	// Longest text of a single distance
+	private static final int		MAX_TEXT	= 32;
+
+	private final ByteBuffer		buffer		= ByteBuffer
+														.allocateDirect(BUFFER_SIZE);
+	// Digits of a number, written backwards
+	private final byte[]			digits		= new byte[20];
+	private final TSPInstance		instance;
+	private final double[]			row;
+
+
+	public DistanceMatrixWriter(TSPInstance instance) {
+
+		this.instance = instance;
+		row = new double[instance.getDimension()];
+	}
+
+
+	public static void main(String[] args) throws IOException {
+
+		if (args.length < 2) {
+			System.out.println("Usage: java "
+					+ "TravelingSalesman.DistanceMatrixWriter <problem name> "
+					+ "<output file, - for the console> [text|binary] "
+					+ "[first row] [end row]");
+			System.exit(1);
+		}
+
+		TSPInstance instance = TSPLIBParser.read(TSPLIBParser.locate(new File(
+				"data", args[0].concat(".tsp"))));
+		boolean binary = (args.length > 2) && args[2].equals("binary");
+		int from = (args.length > 3) ? Integer.parseInt(args[3]) : 0;
+		int to = (args.length > 4) ? Integer.parseInt(args[4]) : instance
+				.getDimension();
+
+		DistanceMatrixWriter writer = new DistanceMatrixWriter(instance);
+
+		if (args[1].equals("-")) {
+			WritableByteChannel out = Channels.newChannel(System.out);
+			writer.write(out, binary, from, to);
+			System.out.flush();
+			return;
+		}
+
+		FileOutputStream out = new FileOutputStream(args[1]);
+		try {
+			writer.write(out.getChannel(), binary, from, to);
+		} finally {
+			out.close();
+		}
+	}
+
+
+	/**
+	 * Write the rows of the matrix as big-endian doubles
+	 *
+	 * @param out
+	 *            the channel to write to, not closed
+	 * @param from
+	 *            the first row
+	 * @param to
+	 *            the row after the last one
+	 * @throws IOException
+	 */
+	public void writeBinary(WritableByteChannel out, int from, int to)
+			throws IOException {
+
+		write(out, true, from, to);
+	}
+
+
+	/**
+	 * Write the rows of the matrix as text
+	 *
+	 * @param out
+	 *            the channel to write to, not closed
+	 * @param from
+	 *            the first row
+	 * @param to
+	 *            the row after the last one
+	 * @throws IOException
+	 */
+	public void writeText(WritableByteChannel out, int from, int to)
+			throws IOException {
+
+		write(out, false, from, to);
+	}
+
+
+	/**
+	 * Write the buffer out, making room in it
+	 */
+	private void flush(WritableByteChannel out) throws IOException {
+
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			out.write(buffer);
+		}
+		buffer.clear();
+	}
+
+
+	/**
+	 * Put a distance into the buffer as text, the way a double prints
+	 */
+	private void putText(double distance) {
+
+		// Distances are whole numbers, which are written without a String
+		long whole = (long) distance;
+		if (whole != distance || whole < 0) {
+			for (byte b : Double.toString(distance).getBytes()) {
+				buffer.put(b);
+			}
+			return;
+		}
+
+		putWhole(whole);
+		buffer.put((byte) '.');
+		buffer.put((byte) '0');
+	}
+
+
+	/**
+	 * Put a whole, non-negative number into the buffer as text
+	 */
+	private void putWhole(long whole) {
+
+		int length = 0;
+		do {
+			digits[length++] = (byte) ('0' + whole % 10);
+			whole /= 10;
+		} while (whole > 0);
+		while (length > 0) {
+			buffer.put(digits[--length]);
+		}
+	}
+
+
+	private void write(WritableByteChannel out, boolean binary, int from,
+			int to) throws IOException {
+
+		if (from < 0 || to > row.length || from > to) {
+			throw new IllegalArgumentException("Rows " + from + " to " + to
+					+ " are not in a matrix of " + row.length);
+		}
+
+		buffer.clear();
+		for (int i = from; i < to; i++) {
+			for (int j = 0; j < row.length; j++) {
+				row[j] = instance.distance(i, j);
+			}
+
+			if (binary) {
+				for (double distance : row) {
+					if (buffer.remaining() < 8) {
+						flush(out);
+					}
+					buffer.putDouble(distance);
+				}
+				continue;
+			}
+
+			if (buffer.remaining() < MAX_TEXT) {
+				flush(out);
+			}
+			putWhole(i);
+			buffer.put((byte) ':');
+
+			for (double distance : row) {
+				if (buffer.remaining() < MAX_TEXT) {
+					flush(out);
+				}
+				buffer.put((byte) '\t');
+				putText(distance);
+			}
+			buffer.put((byte) '\n');
+		}
+		flush(out);
+	}
+}
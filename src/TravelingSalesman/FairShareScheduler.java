@@ -0,0 +1,160 @@
+package TravelingSalesman;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Decides which job of a batch a free worker takes next, so that a few huge
+ * problems can't hold up hundreds of small ones the way a FIFO queue would.
+ *
+ * The jobs are split by size into a small and a large class, and the two
+ * classes share the workers fairly: each class is charged for the worker time
+ * its jobs take, and a free worker serves the class that has been charged the
+ * least so far. Within a class the smallest problem goes first, which keeps
+ * the completion times short.
+ *
+ * While small jobs are waiting, large jobs never get the last free worker, so
+ * small jobs always have one to run on and never wait behind a wall of large
+ * ones. Once the small jobs are all taken, the large jobs get every worker -
+ * and as long as there are small jobs, they take worker time from the large
+ * class whenever it is ahead.
+ *
+ * @author Aaron Foltz
+ */
+public class FairShareScheduler {
+
+	private static final int					SMALL			= 0;
+	private static final int					LARGE			= 1;
+
+	// Within a class, the smallest problem first, then manifest order
+	private static final Comparator<BatchJob>	SMALLEST_FIRST	= new SmallestFirst();
+
+	// Worker time charged to each class for its finished jobs, in
+	// nanoseconds
+	private final long[]						charged			= new long[2];
+
+	// Waiting jobs of each class
+	private final List<PriorityQueue<BatchJob>>	queues			= new ArrayList<PriorityQueue<BatchJob>>();
+
+	// Jobs of each class running right now, and the sum of their start times
+	private final int[]							running			= new int[2];
+	private final long[]						runningSince	= new long[2];
+
+	private final int							largeCities;
+	private final int							workers;
+
+
+	/**
+	 * @param workers
+	 *            the number of workers taking jobs
+	 * @param largeCities
+	 *            problems with at least this many cities are large
+	 */
+	public FairShareScheduler(int workers, int largeCities) {
+
+		this.workers = workers;
+		this.largeCities = largeCities;
+
+		queues.add(new PriorityQueue<BatchJob>(11, SMALLEST_FIRST));
+		queues.add(new PriorityQueue<BatchJob>(11, SMALLEST_FIRST));
+	}
+
+
+	/**
+	 * Orders the jobs of a class by size
+	 */
+	private static class SmallestFirst implements Comparator<BatchJob> {
+
+		@Override
+		public int compare(BatchJob a, BatchJob b) {
+
+			if (a.getCities() != b.getCities()) {
+				return (a.getCities() < b.getCities()) ? -1 : 1;
+			}
+			return a.getIndex() - b.getIndex();
+		}
+	}
+
+
+	/**
+	 * Queue a job. Every job is queued before the workers start taking them.
+	 */
+	public synchronized void add(BatchJob job) {
+
+		queues.get(classOf(job)).add(job);
+	}
+
+
+	/**
+	 * Charge the class of the job for the time it took, and free its worker
+	 */
+	public synchronized void finished(BatchJob job) {
+
+		int jobClass = classOf(job);
+		running[jobClass]--;
+		runningSince[jobClass] -= job.getStartedNanos();
+		charged[jobClass] += job.getCompletedNanos() - job.getStartedNanos();
+	}
+
+
+	/**
+	 * Hand the calling worker its next job
+	 *
+	 * @return the next job, or null once every job has been taken
+	 */
+	public synchronized BatchJob take() {
+
+		if (queues.get(SMALL).isEmpty() && queues.get(LARGE).isEmpty()) {
+			return null;
+		}
+
+		int jobClass = choose();
+		BatchJob job = queues.get(jobClass).poll();
+		job.started();
+		running[jobClass]++;
+		runningSince[jobClass] += job.getStartedNanos();
+		return job;
+	}
+
+
+	/**
+	 * @return the class the next job comes from
+	 */
+	private int choose() {
+
+		boolean small = !queues.get(SMALL).isEmpty();
+		boolean large = !queues.get(LARGE).isEmpty();
+
+		// Large jobs may not take the last free worker from waiting small jobs,
+		// counting the worker asking
+		if (large && small) {
+			int free = workers - running[SMALL] - running[LARGE];
+			long now = System.nanoTime();
+			if (free <= 1 || charge(SMALL, now) <= charge(LARGE, now)) {
+				return SMALL;
+			}
+			return LARGE;
+		}
+
+		return small ? SMALL : LARGE;
+	}
+
+
+	/**
+	 * @return the worker time taken by the class so far, including the time
+	 *         of the jobs that are still running
+	 */
+	private long charge(int jobClass, long now) {
+
+		return charged[jobClass] + running[jobClass] * now
+				- runningSince[jobClass];
+	}
+
+
+	private int classOf(BatchJob job) {
+
+		return (job.getCities() >= largeCities) ? LARGE : SMALL;
+	}
+}
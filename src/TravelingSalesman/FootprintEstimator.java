@@ -0,0 +1,94 @@
+package TravelingSalesman;
+
+/**
+ * Estimates how much heap a solve will need before it is started, from the
+ * number of cities, the population size and the engine.
+ *
+ * The population dominates: every chromosome holds an IntegerGene (and its
+ * Integer allele) per city. The generational engine keeps roughly three
+ * populations alive while it evolves - the population, the children of the
+ * crossover and mutation, and the chromosomes picked by the natural selector -
+ * while the steady-state and asynchronous engines only ever keep one, plus the
+ * handful of children being made. The problem itself (two coordinates per
+ * city) and the scratch arrays of the operators are small next to that.
+ *
+ * The distance matrix of the SolveSession is counted as if every solve had
+ * one of its own, although solves of the same problem share it. It is only
+ * built for problems of up to SolveSession.MATRIX_LIMIT cities; larger ones
+ * work their distances out from the coordinates, with no n * n term.
+ *
+ * @author Aaron Foltz
+ */
+public class FootprintEstimator {
+
+	// An IntegerGene, its Integer allele and the reference to it in the gene
+	// array of its chromosome
+	public static final long	GENE_BYTES				= 64;
+
+	// A Chromosome without its genes
+	public static final long	CHROMOSOME_BYTES		= 96;
+
+	// Populations alive at the same time in each engine
+	public static final int		GENERATIONAL_COPIES		= 3;
+	public static final int		STEADY_STATE_COPIES		= 1;
+
+	// Per city: the coordinates of the problem, and the scratch arrays of the
+	// crossover and the stochastic initialization
+	private static final long	PER_CITY_BYTES			= 16 + 64;
+
+	// Configuration, operators, fitness function, and so on
+	private static final long	FIXED_BYTES				= 64 * 1024;
+
+
+	/**
+	 * @param cities
+	 *            the number of cities of the problem
+	 * @param populationSize
+	 *            the number of chromosomes in the population
+	 * @param steadyState
+	 *            true for the steady-state or asynchronous engine, false for
+	 *            the generational engine
+	 * @return the estimated heap needed by the solve, in bytes
+	 */
+	public static long estimate(int cities, int populationSize,
+			boolean steadyState) {
+
+		long chromosome = CHROMOSOME_BYTES + cities * GENE_BYTES;
+		int copies = steadyState ? STEADY_STATE_COPIES : GENERATIONAL_COPIES;
+
+		return FIXED_BYTES + cities * PER_CITY_BYTES
+				+ SolveSession.matrixBytes(cities) + chromosome
+				* populationSize * copies;
+	}
+
+
+	/**
+	 * @param salesman
+	 *            a solve that is set up, but not yet started
+	 * @return the estimated heap needed by the solve, in bytes
+	 */
+	public static long estimate(TravelingSalesman salesman) {
+
+		return estimate(salesman.getInstance().getDimension(),
+				salesman.getPopulationSize(), salesman.usesSinglePopulation());
+	}
+
+
+	/**
+	 * @return the largest population size with which a solve of the problem
+	 *         fits into the given number of bytes, 0 if none does
+	 */
+	public static int largestPopulation(int cities, boolean steadyState,
+			long bytes) {
+
+		long chromosome = CHROMOSOME_BYTES + cities * GENE_BYTES;
+		int copies = steadyState ? STEADY_STATE_COPIES : GENERATIONAL_COPIES;
+		long left = bytes - FIXED_BYTES - cities * PER_CITY_BYTES
+				- SolveSession.matrixBytes(cities);
+
+		if (left <= 0) {
+			return 0;
+		}
+		return (int) Math.min(Integer.MAX_VALUE, left / (chromosome * copies));
+	}
+}
@@ -0,0 +1,91 @@
+package TravelingSalesman;
+
+/**
+ * What happened during a single generation of the evolution, as published by
+ * the GenerationEventStream. Events are immutable, so they can be handed to the
+ * listeners on another thread.
+ *
+ * @author Aaron Foltz
+ */
+public final class GenerationEvent {
+
+	private final double	bestCost;
+	private final double	diversity;
+	private final long		elapsedNanos;
+	private final int		generation;
+	private final long		generationNanos;
+	private final double	meanCost;
+
+
+	/**
+	 * @param generation
+	 *            the number of the generation, starting at 0 for every run
+	 * @param bestCost
+	 *            length of the best tour in the population
+	 * @param meanCost
+	 *            mean length of the tours in the population
+	 * @param diversity
+	 *            the share of distinct tour lengths in the population, from
+	 *            1 / population size (converged) to 1
+	 * @param generationNanos
+	 *            time taken by this generation
+	 * @param elapsedNanos
+	 *            time taken by the run so far
+	 */
+	public GenerationEvent(int generation, double bestCost, double meanCost,
+			double diversity, long generationNanos, long elapsedNanos) {
+
+		this.generation = generation;
+		this.bestCost = bestCost;
+		this.meanCost = meanCost;
+		this.diversity = diversity;
+		this.generationNanos = generationNanos;
+		this.elapsedNanos = elapsedNanos;
+	}
+
+
+	public double getBestCost() {
+
+		return bestCost;
+	}
+
+
+	public double getDiversity() {
+
+		return diversity;
+	}
+
+
+	public long getElapsedNanos() {
+
+		return elapsedNanos;
+	}
+
+
+	public int getGeneration() {
+
+		return generation;
+	}
+
+
+	public long getGenerationNanos() {
+
+		return generationNanos;
+	}
+
+
+	public double getMeanCost() {
+
+		return meanCost;
+	}
+
+
+	@Override
+	public String toString() {
+
+		return generation + "\t" + (int) bestCost + "\t"
+				+ String.format("%.1f", meanCost) + "\t"
+				+ String.format("%.3f", diversity) + "\t"
+				+ (generationNanos / 1000) + "\t" + (elapsedNanos / 1000000);
+	}
+}
@@ -0,0 +1,234 @@
+package TravelingSalesman;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+import org.jgap.Genotype;
+import org.jgap.IChromosome;
+import org.jgap.Population;
+
+/**
+ * Publishes a GenerationEvent for every generation of the runs it is hooked
+ * into, and hands the events to the listeners on a thread of its own.
+ *
+ * The events go through a bounded, lock-free ring buffer. Publishing never
+ * blocks and never takes a lock: if the buffer is full because the listeners
+ * can't keep up, the event is dropped and counted instead, so the evolution
+ * loop can never be stalled by a listener writing to a file or a slow UI.
+ *
+ * Any number of runs, on any number of threads, can publish into the same
+ * stream. Add it to a run with TravelingSalesman.addGenerationHook, start it,
+ * and close it once the runs are done to deliver the remaining events.
+ *
+ * @author Aaron Foltz
+ */
+public class GenerationEventStream implements GenerationHook {
+
+	// How long the consumer sleeps when there are no events
+	private static final long							IDLE_NANOS	= 1000000;
+
+	private volatile boolean							m_closed	= false;
+	private Thread										m_consumer	= null;
+	private final AtomicLong							m_dropped	= new AtomicLong();
+
+	// Next slot to be consumed, only ever moved by the consumer
+	private final AtomicLong							m_head		= new AtomicLong();
+
+	// Time of the last event published by each evolving thread
+	private final ThreadLocal<long[]>					m_last;
+
+	private final List<GenerationListener>				m_listeners	= new CopyOnWriteArrayList<GenerationListener>();
+	private final int									m_mask;
+	private final AtomicReferenceArray<GenerationEvent>	m_slots;
+
+	// Next slot to be claimed by a publisher
+	private final AtomicLong							m_tail		= new AtomicLong();
+
+
+	/**
+	 * @param capacity
+	 *            the number of events the buffer can hold, rounded up to a
+	 *            power of two
+	 */
+	public GenerationEventStream(int capacity) {
+
+		int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+		m_slots = new AtomicReferenceArray<GenerationEvent>(size);
+		m_mask = size - 1;
+
+		m_last = new ThreadLocal<long[]>() {
+
+			@Override
+			protected long[] initialValue() {
+
+				return new long[1];
+			}
+		};
+	}
+
+
+	/**
+	 * @param listener
+	 *            the listener that is handed every event from now on
+	 */
+	public void addListener(GenerationListener listener) {
+
+		m_listeners.add(listener);
+	}
+
+
+	/**
+	 * Stop accepting events, deliver the events that are still in the buffer
+	 * and wait for the consumer thread to finish
+	 *
+	 * @throws InterruptedException
+	 */
+	public void close() throws InterruptedException {
+
+		m_closed = true;
+		if (m_consumer != null) {
+			LockSupport.unpark(m_consumer);
+			m_consumer.join();
+		}
+	}
+
+
+	/**
+	 * Work out the statistics of the population and publish them. Runs on the
+	 * evolving thread, so it only makes a single pass over the population.
+	 */
+	@Override
+	public void generationCompleted(TravelingSalesman salesman,
+			Genotype population, int generation) {
+
+		long now = System.nanoTime();
+		long[] last = m_last.get();
+		if (generation == 0) {
+			last[0] = salesman.getStartNanos();
+		}
+
+		Population chromosomes = population.getPopulation();
+		int size = chromosomes.size();
+
+		double best = Double.MAX_VALUE;
+		double total = 0;
+		Set<Double> distinct = new HashSet<Double>();
+
+		for (int i = 0; i < size; i++) {
+			IChromosome chromosome = chromosomes.getChromosome(i);
+			double fitness = chromosome.getFitnessValue();
+
+			best = Math.min(best, fitness);
+			total += fitness;
+			distinct.add(fitness);
+		}
+
+		publish(new GenerationEvent(generation, best, total / size,
+				(double) distinct.size() / size, now - last[0], now
+						- salesman.getStartNanos()));
+		last[0] = now;
+	}
+
+
+	/**
+	 * @return the number of events dropped because the buffer was full
+	 */
+	public long getDropped() {
+
+		return m_dropped.get();
+	}
+
+
+	/**
+	 * Put the event into the buffer, unless it is full or the stream is
+	 * closed. Never blocks.
+	 *
+	 * @param event
+	 *            the event to publish
+	 * @return false if the event was dropped
+	 */
+	public boolean publish(GenerationEvent event) {
+
+		if (m_closed) {
+			m_dropped.incrementAndGet();
+			return false;
+		}
+
+		// Claim a slot. The slot is free once the consumer has moved past it
+		// on the previous lap
+		long tail;
+		do {
+			tail = m_tail.get();
+			if (tail - m_head.get() >= m_slots.length()) {
+				m_dropped.incrementAndGet();
+				return false;
+			}
+		} while (!m_tail.compareAndSet(tail, tail + 1));
+
+		m_slots.set((int) (tail & m_mask), event);
+		return true;
+	}
+
+
+	/**
+	 * Start the consumer thread, which hands the events to the listeners
+	 */
+	public synchronized void start() {
+
+		if (m_consumer != null) {
+			return;
+		}
+
+		m_consumer = new Thread(new Runnable() {
+
+			@Override
+			public void run() {
+
+				consume();
+			}
+		}, "generation-events");
+		m_consumer.setDaemon(true);
+		m_consumer.start();
+	}
+
+
+	/**
+	 * The loop of the consumer thread
+	 */
+	private void consume() {
+
+		while (true) {
+			long head = m_head.get();
+			int slot = (int) (head & m_mask);
+			GenerationEvent event = m_slots.get(slot);
+
+			if (event == null) {
+				// Either the buffer is empty, or a publisher has claimed the
+				// slot but not filled it yet
+				if (m_closed && head == m_tail.get()) {
+					return;
+				}
+				LockSupport.parkNanos(IDLE_NANOS);
+				continue;
+			}
+
+			// Free the slot before moving on, so publishers never see a slot
+			// that still holds an old event
+			m_slots.set(slot, null);
+			m_head.set(head + 1);
+
+			for (GenerationListener listener : m_listeners) {
+				try {
+					listener.generationCompleted(event);
+				} catch (RuntimeException ex) {
+					ex.printStackTrace();
+				}
+			}
+		}
+	}
+}
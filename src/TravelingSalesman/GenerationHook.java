@@ -0,0 +1,26 @@
+package TravelingSalesman;
+
+import org.jgap.Genotype;
+
+/**
+ * A hook that is called on the evolution thread after every generation of the
+ * Genetic Algorithm. Hooks are allowed to look at and modify the population,
+ * so they should be quick about it, since the next generation waits for them.
+ *
+ * @author Aaron Foltz
+ */
+public interface GenerationHook {
+
+	/**
+	 * Called once a generation has been evolved
+	 *
+	 * @param salesman
+	 *            the TSP instance being solved
+	 * @param population
+	 *            the population right after the generation was evolved
+	 * @param generation
+	 *            the number of the generation that was just evolved
+	 */
+	void generationCompleted(TravelingSalesman salesman, Genotype population,
+			int generation);
+}
@@ -0,0 +1,21 @@
+package TravelingSalesman;
+
+/**
+ * A subscriber to the GenerationEventStream. Listeners are called on the
+ * consumer thread of the stream, never on the thread doing the evolution, so a
+ * slow listener can only make the stream drop events - it can't slow down the
+ * Genetic Algorithm.
+ *
+ * @author Aaron Foltz
+ */
+public interface GenerationListener {
+
+	/**
+	 * Called once for every generation that made it through the stream, in
+	 * the order that they were published
+	 *
+	 * @param event
+	 *            what happened during the generation
+	 */
+	void generationCompleted(GenerationEvent event);
+}
@@ -0,0 +1,43 @@
+package TravelingSalesman;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes every generation event as a tab separated line: generation, best
+ * fitness, mean fitness, diversity, generation time in microseconds and
+ * running time in milliseconds. A blank line separates the runs. This is the
+ * best-so-far data that the Genetic Algorithm used to write straight to its
+ * data file, and can be graphed the same way.
+ *
+ * @author Aaron Foltz
+ */
+public class GenerationLogWriter implements GenerationListener {
+
+	private final Writer	writer;
+
+
+	/**
+	 * @param writer
+	 *            where the lines are written, only ever used by the consumer
+	 *            thread of the stream
+	 */
+	public GenerationLogWriter(Writer writer) {
+
+		this.writer = writer;
+	}
+
+
+	@Override
+	public void generationCompleted(GenerationEvent event) {
+
+		try {
+			if (event.getGeneration() == 0) {
+				writer.write("\n");
+			}
+			writer.write(event + "\n");
+		} catch (IOException ex) {
+			ex.printStackTrace();
+		}
+	}
+}
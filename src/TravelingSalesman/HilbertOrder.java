@@ -0,0 +1,85 @@
+package TravelingSalesman;
+
+import java.util.Arrays;
+
+/**
+ * Orders the cities of a problem along a Hilbert curve over their bounding
+ * box. Cities that are close in this order are close on the plane, so walking
+ * the cities in this order keeps the coordinates (and everything else indexed
+ * by city) that are used together close together in memory. The order is also
+ * a cheap, reasonable tour.
+ *
+ * @author Aaron Foltz
+ */
+public class HilbertOrder {
+
+	// The curve is laid over a grid of 2^15 by 2^15 cells, so the index of a
+	// cell fits into 30 bits
+	private static final int	BITS	= 15;
+	private static final int	SIDE	= 1 << BITS;
+
+
+	/**
+	 * @param instance
+	 *            the problem
+	 * @return the cities in the order of the curve; the city at position i is
+	 *         order[i]
+	 */
+	public static int[] compute(TSPInstance instance) {
+
+		int cities = instance.getDimension();
+
+		double minX = Double.MAX_VALUE, maxX = -Double.MAX_VALUE;
+		double minY = Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+		for (int i = 0; i < cities; i++) {
+			minX = Math.min(minX, instance.getX(i));
+			maxX = Math.max(maxX, instance.getX(i));
+			minY = Math.min(minY, instance.getY(i));
+			maxY = Math.max(maxY, instance.getY(i));
+		}
+		double scale = (SIDE - 1) / Math.max(1e-9, Math.max(maxX - minX,
+				maxY - minY));
+
+		// The index on the curve in the high bits and the city in the low bits,
+		// so that a plain sort orders the cities
+		long[] keys = new long[cities];
+		for (int i = 0; i < cities; i++) {
+			int x = (int) ((instance.getX(i) - minX) * scale);
+			int y = (int) ((instance.getY(i) - minY) * scale);
+			keys[i] = (index(x, y) << 32) | i;
+		}
+		Arrays.sort(keys);
+
+		int[] order = new int[cities];
+		for (int i = 0; i < cities; i++) {
+			order[i] = (int) keys[i];
+		}
+		return order;
+	}
+
+
+	/**
+	 * @return the distance along the curve of the cell (x, y)
+	 */
+	private static long index(int x, int y) {
+
+		long index = 0;
+		for (int s = SIDE / 2; s > 0; s /= 2) {
+			int rx = ((x & s) > 0) ? 1 : 0;
+			int ry = ((y & s) > 0) ? 1 : 0;
+			index += (long) s * s * ((3 * rx) ^ ry);
+
+			// Rotate the quadrant, so the curve inside it runs the right way
+			if (ry == 0) {
+				if (rx == 1) {
+					x = SIDE - 1 - x;
+					y = SIDE - 1 - y;
+				}
+				int t = x;
+				x = y;
+				y = t;
+			}
+		}
+		return index;
+	}
+}
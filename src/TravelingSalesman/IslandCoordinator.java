@@ -0,0 +1,238 @@
+package TravelingSalesman;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The coordinator of the multi-process island model. Every island is its own
+ * JVM (see IslandNode), and connects to the coordinator over a local TCP
+ * socket. The islands are arranged in a ring ordered by their island number,
+ * and the coordinator relays the migrants of each island to the next island in
+ * the ring.
+ *
+ * Islands can come and go at any time - if one crashes, the ring simply closes
+ * around it, and the other islands keep on evolving. An island that says it
+ * has the number of an island that is still connected is turned away. The
+ * coordinator only listens on the loopback interface.
+ *
+ * This program can be run as a standalone entity: java IslandCoordinator
+ * [port] [log interval in seconds]
+ *
+ * @author Aaron Foltz
+ */
+public class IslandCoordinator {
+
+	public static final int							DEFAULT_PORT	= 4747;
+
+	// Connected islands, ordered by their island number
+	private final TreeMap<Integer, DataOutputStream>	m_islands		= new TreeMap<Integer, DataOutputStream>();
+
+	// Statistics of every link that has carried migrants
+	private final Map<String, LinkStatistics>		m_links			= new ConcurrentHashMap<String, LinkStatistics>();
+
+	private final int								m_port;
+
+
+	public IslandCoordinator(int port) {
+
+		m_port = port;
+	}
+
+
+	public static void main(String[] args) throws IOException {
+
+		int port = (args.length > 0) ? Integer.parseInt(args[0])
+				: DEFAULT_PORT;
+		int logInterval = (args.length > 1) ? Integer.parseInt(args[1]) : 10;
+
+		new IslandCoordinator(port).run(logInterval);
+	}
+
+
+	/**
+	 * Accept islands until the process is killed, logging the statistics of
+	 * each link every logInterval seconds
+	 *
+	 * @param logInterval
+	 *            seconds between two statistics logs
+	 * @throws IOException
+	 */
+	public void run(int logInterval) throws IOException {
+
+		ScheduledExecutorService logger = Executors
+				.newSingleThreadScheduledExecutor();
+		logger.scheduleAtFixedRate(new Runnable() {
+
+			@Override
+			public void run() {
+
+				logLinks();
+			}
+		}, logInterval, logInterval, TimeUnit.SECONDS);
+
+		ServerSocket server = new ServerSocket(m_port, 50,
+				InetAddress.getLoopbackAddress());
+		System.out.println("Coordinator listening on "
+				+ server.getLocalSocketAddress());
+
+		try {
+			while (true) {
+				final Socket socket = server.accept();
+				socket.setTcpNoDelay(true);
+
+				Thread thread = new Thread(new Runnable() {
+
+					@Override
+					public void run() {
+
+						handle(socket);
+					}
+				}, "island-link-" + socket.getPort());
+				thread.setDaemon(true);
+				thread.start();
+			}
+		} finally {
+			server.close();
+			logger.shutdownNow();
+		}
+	}
+
+
+	/**
+	 * Relay the frames of a single island until it disconnects
+	 *
+	 * @param socket
+	 *            the socket of the island
+	 */
+	private void handle(Socket socket) {
+
+		int island = -1;
+		boolean joined = false;
+
+		try {
+			DataInputStream in = new DataInputStream(new BufferedInputStream(
+					socket.getInputStream(), 1 << 16));
+			DataOutputStream out = new DataOutputStream(
+					new BufferedOutputStream(socket.getOutputStream(), 1 << 16));
+
+			// The first frame has to tell us who the island is
+			byte[] hello = MigrantMessage.readFrame(in);
+			if (hello[0] != MigrantMessage.HELLO) {
+				throw new IOException("Expected HELLO from "
+						+ socket.getRemoteSocketAddress());
+			}
+			island = MigrantMessage.islandOf(hello);
+
+			synchronized (m_islands) {
+				if (!m_islands.containsKey(island)) {
+					m_islands.put(island, out);
+					joined = true;
+				}
+			}
+			if (!joined) {
+				System.out.println("ISLAND " + island + " from "
+						+ socket.getRemoteSocketAddress()
+						+ " turned away, that number is already connected");
+				return;
+			}
+			System.out.println("ISLAND " + island + " joined from "
+					+ socket.getRemoteSocketAddress());
+
+			while (true) {
+				byte[] payload = MigrantMessage.readFrame(in);
+				long received = MigrantMessage.currentTimeMicros();
+
+				if (payload[0] == MigrantMessage.MIGRANTS) {
+					forward(island, payload, received);
+				}
+			}
+
+		} catch (IOException e) {
+			// The island has gone away, the ring closes around it
+		} finally {
+			if (joined) {
+				synchronized (m_islands) {
+					m_islands.remove(island);
+				}
+				System.out.println("ISLAND " + island + " left");
+			}
+			try {
+				socket.close();
+			} catch (IOException e) {
+				// Nothing left to do with it
+			}
+		}
+	}
+
+
+	/**
+	 * Forward a frame of migrants to the next island in the ring
+	 *
+	 * @param source
+	 *            the island that sent the migrants
+	 * @param payload
+	 *            the frame payload
+	 * @param received
+	 *            the time the frame was received
+	 */
+	private void forward(int source, byte[] payload, long received) {
+
+		int target;
+		DataOutputStream out;
+
+		// Find the next island in the ring
+		synchronized (m_islands) {
+			Integer next = m_islands.higherKey(source);
+			if (next == null) {
+				next = m_islands.firstKey();
+			}
+			if (next == source) {
+				return; // This island is all alone
+			}
+			target = next;
+			out = m_islands.get(next);
+		}
+
+		String name = source + " -> " + target;
+		LinkStatistics link = m_links.get(name);
+		if (link == null) {
+			m_links.putIfAbsent(name, new LinkStatistics(name));
+			link = m_links.get(name);
+		}
+
+		link.record(payload.length, MigrantMessage.countOf(payload),
+				MigrantMessage.sentMicrosOf(payload), received);
+
+		try {
+			synchronized (out) {
+				MigrantMessage.writeFrame(out, payload);
+				out.flush();
+			}
+		} catch (IOException e) {
+			// The target will be removed by its own link thread
+		}
+	}
+
+
+	/**
+	 * Print the statistics of every link
+	 */
+	private void logLinks() {
+
+		for (LinkStatistics link : m_links.values()) {
+			System.out.println(link);
+		}
+	}
+}
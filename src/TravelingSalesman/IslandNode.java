@@ -0,0 +1,391 @@
+package TravelingSalesman;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.jgap.FitnessEvaluator;
+import org.jgap.Genotype;
+import org.jgap.IChromosome;
+import org.jgap.Population;
+
+/**
+ * A single island of the multi-process island model. The island runs the
+ * normal Genetic Algorithm in its own JVM, and every few generations sends a
+ * copy of its best tours to the IslandCoordinator, which passes them on to the
+ * next island in the ring. Migrants arriving from the other islands replace the
+ * worst chromosomes in the population, if they are any better.
+ *
+ * Migrants are sent on a thread of their own, so a slow or stalled link never
+ * holds up the evolution. Only the newest few migrations wait to be sent; if
+ * the link can't keep up, the oldest are dropped. The same goes for arriving
+ * migrations that the evolution hasn't taken in yet. Migrant tours that don't
+ * visit every city of the problem exactly once are dropped.
+ *
+ * If the coordinator goes away, the island keeps on evolving by itself.
+ *
+ * This program can be run as a standalone entity: java IslandNode <problem
+ * name> <island number> [port] [migration interval] [migrants]
+ *
+ * java IslandNode att48 1
+ *
+ * @author Aaron Foltz
+ */
+public class IslandNode implements GenerationHook {
+
+	// Migrations that may wait to be taken in before the oldest is dropped
+	private static final int					ARRIVED_LIMIT	= 16;
+
+	// Migrations that may wait to be sent before the oldest is dropped
+	private static final int					OUTGOING_LIMIT	= 4;
+
+	// Migrants that have arrived, but not yet been put into the population
+	private final BlockingQueue<MigrantMessage>	m_arrived		= new ArrayBlockingQueue<MigrantMessage>(
+																		ARRIVED_LIMIT);
+
+	// Statistics of the links coming into this island, by sending island
+	private final Map<Integer, LinkStatistics>	m_incoming		= new ConcurrentHashMap<Integer, LinkStatistics>();
+
+	private final int							m_interval;
+	private final int							m_island;
+	private final int							m_migrants;
+
+	private volatile DataOutputStream			m_out			= null;
+
+	// Our own migrants, waiting for the sending thread
+	private final BlockingQueue<MigrantMessage>	m_outgoing		= new ArrayBlockingQueue<MigrantMessage>(
+																		OUTGOING_LIMIT);
+
+	private Thread								m_sender		= null;
+	private Socket								m_socket		= null;
+
+
+	/**
+	 * @param island
+	 *            the number of this island, which decides its place in the ring
+	 * @param interval
+	 *            number of generations between two migrations
+	 * @param migrants
+	 *            number of best tours sent in every migration
+	 * @throws IllegalArgumentException
+	 *             if the interval is not positive or the number of migrants
+	 *             is negative
+	 */
+	public IslandNode(int island, int interval, int migrants) {
+
+		if (interval <= 0) {
+			throw new IllegalArgumentException(
+					"The migration interval must be positive, not " + interval);
+		}
+		if (migrants < 0) {
+			throw new IllegalArgumentException(
+					"The number of migrants can't be negative: " + migrants);
+		}
+
+		m_island = island;
+		m_interval = interval;
+		m_migrants = migrants;
+	}
+
+
+	public static void main(String[] args) throws Exception {
+
+		if (args.length < 2) {
+			System.out.println("Usage: java IslandNode <problem name> "
+					+ "<island number> [port] [migration interval] [migrants]");
+			System.exit(1);
+		}
+
+		int island = Integer.parseInt(args[1]);
+		int port = (args.length > 2) ? Integer.parseInt(args[2])
+				: IslandCoordinator.DEFAULT_PORT;
+		int interval = (args.length > 3) ? Integer.parseInt(args[3]) : 10;
+		int migrants = (args.length > 4) ? Integer.parseInt(args[4]) : 2;
+
+		TSPInstance instance = BinaryInstance.load(
+				new File("data", args[0].concat(".tsp"))).getInstance();
+
+		IslandNode node = new IslandNode(island, interval, migrants);
+		node.connect(port);
+
+		// Gather the starting time for the program
+		long startTime = System.currentTimeMillis();
+
+		TravelingSalesman t = new TravelingSalesman(instance);
+		t.addGenerationHook(node);
+		IChromosome best = t.findOptimalPath(null);
+
+		// Gather the ending time of the program
+		long endTime = System.currentTimeMillis();
+
+		node.close();
+
+		System.out.println("Solution: ");
+		System.out.println(best);
+		System.out.println("Score " + (best.getFitnessValue()));
+		System.out.println("RUNNING TIME: " + (endTime - startTime) / 1000F
+				+ " seconds");
+
+		System.exit(0);
+	}
+
+
+	/**
+	 * Close the connection to the coordinator and log the incoming links
+	 */
+	public void close() {
+
+		m_out = null;
+		if (m_sender != null) {
+			m_sender.interrupt();
+		}
+		try {
+			if (m_socket != null) {
+				m_socket.close();
+			}
+		} catch (IOException e) {
+			// Nothing left to do with it
+		}
+
+		for (LinkStatistics link : m_incoming.values()) {
+			System.out.println(link);
+		}
+	}
+
+
+	/**
+	 * Connect to the coordinator on the local machine, and start listening for
+	 * migrants. If the coordinator can not be reached the island will evolve
+	 * by itself.
+	 *
+	 * @param port
+	 *            the port the coordinator listens on
+	 */
+	public void connect(int port) {
+
+		try {
+			m_socket = new Socket(InetAddress.getLoopbackAddress(), port);
+			m_socket.setTcpNoDelay(true);
+
+			DataOutputStream out = new DataOutputStream(
+					new BufferedOutputStream(m_socket.getOutputStream(), 1 << 16));
+			MigrantMessage.writeFrame(out, new MigrantMessage(
+					MigrantMessage.HELLO, m_island, new int[0][],
+					new double[0]).encode());
+			out.flush();
+			m_out = out;
+
+			m_sender = new Thread(new Runnable() {
+
+				@Override
+				public void run() {
+
+					send();
+				}
+			}, "island-" + m_island + "-sender");
+			m_sender.setDaemon(true);
+			m_sender.start();
+
+			final DataInputStream in = new DataInputStream(
+					new BufferedInputStream(m_socket.getInputStream(), 1 << 16));
+
+			Thread receiver = new Thread(new Runnable() {
+
+				@Override
+				public void run() {
+
+					receive(in);
+				}
+			}, "island-" + m_island + "-receiver");
+			receiver.setDaemon(true);
+			receiver.start();
+
+		} catch (IOException e) {
+			System.out.println("ISLAND " + m_island
+					+ " could not reach the coordinator, evolving alone: "
+					+ e.getMessage());
+			m_out = null;
+		}
+	}
+
+
+	/**
+	 * Take in the migrants that have arrived, and every m_interval generations
+	 * hand our own best tours over to the sending thread. Never waits for the
+	 * link.
+	 */
+	@Override
+	public void generationCompleted(TravelingSalesman salesman,
+			Genotype population, int generation) {
+
+		Population chromosomes = population.getPopulation();
+		FitnessEvaluator evaluator = population.getConfiguration()
+				.getFitnessEvaluator();
+
+		// --------------------------------------------- //
+		// Immigration - replace the worst chromosomes with better migrants
+		int cities = salesman.getInstance().getDimension();
+		MigrantMessage message;
+		while ((message = m_arrived.poll()) != null) {
+			for (int[] tour : message.getTours()) {
+				if (!TourCodec.isTour(tour, cities)) {
+					continue;
+				}
+				IChromosome migrant = salesman.createChromosome(tour);
+
+				int worst = worstIndex(chromosomes, evaluator);
+				if (evaluator.isFitter(migrant, chromosomes.getChromosome(worst))) {
+					chromosomes.setChromosome(worst, migrant);
+				}
+			}
+		}
+		// --------------------------------------------- //
+
+		// --------------------------------------------- //
+		// Emigration - send copies of our best tours to the next island
+		if ((m_out == null) || (generation % m_interval != 0)) {
+			return;
+		}
+
+		List<IChromosome> best = fittest(chromosomes, evaluator, m_migrants);
+		int[][] tours = new int[best.size()][];
+		double[] fitness = new double[best.size()];
+		for (int i = 0; i < tours.length; i++) {
+			tours[i] = TravelingSalesman.toTour(best.get(i));
+			fitness[i] = best.get(i).getFitnessValue();
+		}
+
+		// Make room by dropping the oldest migration if the link is behind
+		MigrantMessage migration = new MigrantMessage(MigrantMessage.MIGRANTS,
+				m_island, tours, fitness);
+		while (!m_outgoing.offer(migration)) {
+			m_outgoing.poll();
+		}
+		// --------------------------------------------- //
+	}
+
+
+	/**
+	 * Get the fittest chromosomes of the population
+	 */
+	private List<IChromosome> fittest(Population chromosomes,
+			final FitnessEvaluator evaluator, int count) {
+
+		List<IChromosome> sorted = new ArrayList<IChromosome>(chromosomes.size());
+		for (int i = 0; i < chromosomes.size(); i++) {
+			sorted.add(chromosomes.getChromosome(i));
+		}
+
+		Collections.sort(sorted, new Comparator<IChromosome>() {
+
+			@Override
+			public int compare(IChromosome a, IChromosome b) {
+
+				if (evaluator.isFitter(a, b)) {
+					return -1;
+				} else if (evaluator.isFitter(b, a)) {
+					return 1;
+				}
+				return 0;
+			}
+		});
+
+		return sorted.subList(0, Math.min(count, sorted.size()));
+	}
+
+
+	/**
+	 * Receive migrants from the coordinator until the connection is closed
+	 */
+	private void receive(DataInputStream in) {
+
+		try {
+			while (true) {
+				byte[] payload = MigrantMessage.readFrame(in);
+				long received = MigrantMessage.currentTimeMicros();
+
+				MigrantMessage message = MigrantMessage.decode(payload);
+				if (message.getType() != MigrantMessage.MIGRANTS) {
+					continue;
+				}
+
+				LinkStatistics link = m_incoming.get(message.getIsland());
+				if (link == null) {
+					link = new LinkStatistics(message.getIsland() + " -> "
+							+ m_island);
+					m_incoming.put(message.getIsland(), link);
+				}
+				link.record(payload.length, message.getTours().length,
+						message.getSentMicros(), received);
+
+				// Make room by dropping the oldest migration if the
+				// evolution is behind
+				while (!m_arrived.offer(message)) {
+					m_arrived.poll();
+				}
+			}
+		} catch (IOException e) {
+			if (m_out != null) {
+				System.out.println("ISLAND " + m_island
+						+ " lost the coordinator, evolving alone");
+				m_out = null;
+			}
+		}
+	}
+
+
+	/**
+	 * Send our migrations to the coordinator until the connection is closed
+	 */
+	private void send() {
+
+		try {
+			while (true) {
+				MigrantMessage migration = m_outgoing.take();
+				DataOutputStream out = m_out;
+				if (out == null) {
+					return;
+				}
+				MigrantMessage.writeFrame(out, migration.encode());
+				out.flush();
+			}
+		} catch (InterruptedException e) {
+			// Closed
+		} catch (IOException e) {
+			if (m_out != null) {
+				System.out.println("ISLAND " + m_island
+						+ " lost the coordinator, evolving alone");
+				m_out = null;
+			}
+		}
+	}
+
+
+	/**
+	 * @return the index of the least fit chromosome in the population
+	 */
+	private int worstIndex(Population chromosomes, FitnessEvaluator evaluator) {
+
+		int worst = 0;
+		for (int i = 1; i < chromosomes.size(); i++) {
+			if (evaluator.isFitter(chromosomes.getChromosome(worst),
+					chromosomes.getChromosome(i))) {
+				worst = i;
+			}
+		}
+		return worst;
+	}
+}
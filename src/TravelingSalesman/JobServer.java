@@ -0,0 +1,563 @@
+package TravelingSalesman;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * A long-running job server, so that TSP problems can be solved without
+ * starting a JVM for every solve. Problems are sent over HTTP, as TSPLIB text
+ * or as binary ".tspb" problems (see BinaryInstance), solved by the Solver,
+ * and the results are kept by job id.
+ *
+ * Two separate pools do the work. The HTTP requests - including reading the
+ * uploaded problem - are handled on a thread per request (a virtual thread
+ * where the JDK has them), while the solves run on a fixed pool of solver
+ * threads, one per core by default, with a bounded queue in front of it. A
+ * burst of slow uploads only ties up request threads, and never a solver.
+ * When the queue is full, new jobs are turned away with 503. A job waiting
+ * for heap waits in the AdmissionController, not in the queue, and only
+ * takes its place there once it has been let in.
+ *
+ * A binary problem is told apart from TSPLIB text by its Content-Type,
+ * BINARY_TYPE, or else by its magic number.
+ *
+ * An upload is limited to MAX_BODY_BYTES once it is decompressed, and its
+ * number of cities is checked against the heap budget before any of them are
+ * read, so neither a gzip bomb nor a huge DIMENSION can run the heap out.
+ * Too large an upload is turned away with 413, too large a problem with 400.
+ *
+ * POST /jobs?name=&timeBudget=&seed=&populationSize=&maxEvolution=
+ * &mutationRate=&cullingPercentage=&targetCost= with the problem as the body
+ * submits a job. GET /jobs/<id> returns its status, and the tour and its
+ * cost once it is done. DELETE /jobs/<id> cancels it.
+ *
+ * The best tours of every problem solved are kept in the SolutionCache in its
+ * default directory, so a problem sent again starts from them - or, when they
+ * already meet its targetCost, is done straight away.
+ *
+ * This program can be run as a standalone entity: java JobServer [port]
+ * [solver threads] [queue length]
+ *
+ * @author Aaron Foltz
+ */
+public class JobServer {
+
+	// The Content-Type of a binary problem in the BinaryInstance format
+	public static final String							BINARY_TYPE		= "application/x-tspb";
+
+	public static final int								DEFAULT_PORT	= 8080;
+
+	// How long a job may wait for heap before it fails, in milliseconds
+	private static final long							ADMISSION_WAIT	= 10 * 60 * 1000;
+
+	// Finished jobs that are kept around to be collected
+	private static final int							MAX_FINISHED	= 1000;
+
+	// The largest upload, once decompressed
+	private static final long							MAX_BODY_BYTES	= 256L << 20;
+
+	private static final Charset						ASCII			= Charset
+																				.forName("US-ASCII");
+	private static final Charset						UTF8			= Charset
+																				.forName("UTF-8");
+
+	private final AdmissionController					m_admission;
+	private final AtomicLong							m_ids			= new AtomicLong();
+	private final ConcurrentNavigableMap<Long, Job>		m_jobs			= new ConcurrentSkipListMap<Long, Job>();
+	private HttpServer									m_server;
+	private final ThreadPoolExecutor					m_solvers;
+	private final Solver								m_solver;
+
+
+	/**
+	 * A submitted solve
+	 */
+	private static class Job {
+
+		final int								cities;
+		final CompletableFuture<SolverResult>	future;
+		final long								id;
+		final String							name;
+
+
+		Job(long id, String name, int cities,
+				CompletableFuture<SolverResult> future) {
+
+			this.id = id;
+			this.name = name;
+			this.cities = cities;
+			this.future = future;
+		}
+	}
+
+
+	/**
+	 * An upload that is larger than it may be
+	 */
+	private static class TooLargeException extends IOException {
+
+		private static final long	serialVersionUID	= 1L;
+
+
+		TooLargeException(String message) {
+
+			super(message);
+		}
+	}
+
+
+	/**
+	 * Reads no more than a limited number of bytes of the stream, failing
+	 * with a TooLargeException past them
+	 */
+	private static class BoundedInputStream extends FilterInputStream {
+
+		private long	left;
+
+
+		BoundedInputStream(InputStream in, long limit) {
+
+			super(in);
+			left = limit;
+		}
+
+
+		@Override
+		public int read() throws IOException {
+
+			int c = super.read();
+			if (c >= 0) {
+				count(1);
+			}
+			return c;
+		}
+
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+
+			int read = super.read(b, off, len);
+			if (read > 0) {
+				count(read);
+			}
+			return read;
+		}
+
+
+		private void count(int read) throws TooLargeException {
+
+			left -= read;
+			if (left < 0) {
+				throw new TooLargeException("The problem is larger than "
+						+ (MAX_BODY_BYTES >> 20) + " MB");
+			}
+		}
+	}
+
+
+	/**
+	 * @param threads
+	 *            the number of solver threads
+	 * @param queue
+	 *            the number of jobs that can wait for a solver thread
+	 */
+	public JobServer(int threads, int queue) {
+
+		m_solvers = new ThreadPoolExecutor(threads, threads, 0,
+				TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(queue));
+		m_admission = new AdmissionController(
+				AdmissionController.defaultBudget(), ADMISSION_WAIT);
+		m_solver = new Solver(m_solvers, m_admission, new SolutionCache(
+				SolutionCache.defaultDirectory(), SolutionCache.DEFAULT_ENTRIES));
+	}
+
+
+	public static void main(String[] args) throws IOException {
+
+		int port = (args.length > 0) ? Integer.parseInt(args[0])
+				: DEFAULT_PORT;
+		int threads = (args.length > 1) ? Integer.parseInt(args[1]) : Runtime
+				.getRuntime().availableProcessors();
+		int queue = (args.length > 2) ? Integer.parseInt(args[2]) : 64;
+
+		new JobServer(threads, queue).start(port);
+
+		System.out.println("Job server listening on port " + port + " with "
+				+ threads + " solver threads");
+	}
+
+
+	/**
+	 * A thread per request. Virtual threads are used when the JDK has them,
+	 * looked up by reflection so that the server still runs on older JDKs.
+	 */
+	static ExecutorService newRequestExecutor() {
+
+		try {
+			Method virtual = Executors.class
+					.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService) virtual.invoke(null);
+		} catch (Exception ex) {
+			return Executors.newCachedThreadPool();
+		}
+	}
+
+
+	/**
+	 * Start listening on the loopback interface
+	 *
+	 * @param port
+	 *            the port to listen on
+	 * @throws IOException
+	 */
+	public void start(int port) throws IOException {
+
+		m_server = HttpServer.create(new InetSocketAddress(
+				InetAddress.getLoopbackAddress(), port), 0);
+		m_server.setExecutor(newRequestExecutor());
+		m_server.createContext("/jobs", new HttpHandler() {
+
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+
+				// Errors too, so that the client always gets an answer
+				try {
+					handleJobs(exchange);
+				} catch (IOException ex) {
+					throw ex;
+				} catch (Throwable ex) {
+					respond(exchange, 500, error(String.valueOf(ex)));
+				} finally {
+					exchange.close();
+				}
+			}
+		});
+		m_server.start();
+	}
+
+
+	/**
+	 * @return the port the server listens on, e.g. when it was started on
+	 *         port 0
+	 */
+	public int getPort() {
+
+		return m_server.getAddress().getPort();
+	}
+
+
+	/**
+	 * Stop accepting requests, and cancel the jobs that haven't finished
+	 */
+	public void stop() {
+
+		m_server.stop(0);
+		for (Job job : m_jobs.values()) {
+			job.future.cancel(false);
+		}
+		m_solvers.shutdown();
+	}
+
+
+	/**
+	 * Route a request under /jobs
+	 */
+	private void handleJobs(HttpExchange exchange) throws IOException {
+
+		String method = exchange.getRequestMethod();
+		String path = exchange.getRequestURI().getPath();
+		String id = path.replaceFirst("^/jobs/?", "");
+
+		if (id.length() == 0) {
+			if (method.equals("POST")) {
+				submit(exchange);
+			} else {
+				respond(exchange, 405, error("Use POST to submit a job"));
+			}
+			return;
+		}
+
+		Job job;
+		try {
+			job = m_jobs.get(Long.parseLong(id));
+		} catch (NumberFormatException ex) {
+			job = null;
+		}
+		if (job == null) {
+			respond(exchange, 404, error("No job " + id));
+			return;
+		}
+
+		if (method.equals("GET")) {
+			respond(exchange, 200, status(job));
+		} else if (method.equals("DELETE")) {
+			job.future.cancel(true);
+			respond(exchange, 200, status(job));
+		} else {
+			respond(exchange, 405, error("Use GET or DELETE on a job"));
+		}
+	}
+
+
+	/**
+	 * Read the uploaded problem on the request thread, and only then queue
+	 * the solve. The header of the problem is checked against the heap budget
+	 * before its cities are read.
+	 */
+	private void submit(HttpExchange exchange) throws IOException {
+
+		Map<String, String> query = parseQuery(exchange.getRequestURI());
+		String name = query.containsKey("name") ? query.get("name") : "job";
+
+		TSPInstance instance;
+		SolverParameters parameters = new SolverParameters();
+		try {
+			for (Map.Entry<String, String> parameter : query.entrySet()) {
+				if (!parameter.getKey().equals("name")) {
+					parameters.set(parameter.getKey(), parameter.getValue());
+				}
+			}
+
+			// Big problems may be uploaded gzipped
+			InputStream body = exchange.getRequestBody();
+			if ("gzip".equalsIgnoreCase(exchange.getRequestHeaders().getFirst(
+					"Content-Encoding"))) {
+				body = new GZIPInputStream(body);
+			}
+
+			int maxDimension = m_admission.largestProblem(parameters
+					.getPopulationSize());
+			body = new BufferedInputStream(new BoundedInputStream(body,
+					MAX_BODY_BYTES), 1 << 16);
+
+			if (isBinary(exchange.getRequestHeaders().getFirst(
+					"Content-Type"), body)) {
+				instance = BinaryInstance.read(ByteBuffer.wrap(readAll(body)),
+						name, maxDimension).getInstance();
+			} else {
+				TSPLIBParser parser = new TSPLIBParser();
+				parser.setMaxDimension(maxDimension);
+				instance = parser.parse(name, body);
+			}
+			Solver.checkSolvable(instance);
+		} catch (TooLargeException ex) {
+			respond(exchange, 413, error(ex.getMessage()));
+			return;
+		} catch (IOException ex) {
+			respond(exchange, 400, error(ex.getMessage()));
+			return;
+		} catch (IllegalArgumentException ex) {
+			respond(exchange, 400, error(ex.getMessage()));
+			return;
+		}
+
+		CompletableFuture<SolverResult> future;
+		try {
+			future = m_solver.solve(instance, parameters);
+		} catch (RejectedExecutionException ex) {
+			respond(exchange, 503, error("The job queue is full"));
+			return;
+		}
+
+		Job job = new Job(m_ids.incrementAndGet(), name,
+				instance.getDimension(), future);
+		m_jobs.put(job.id, job);
+		evictFinished();
+
+		exchange.getResponseHeaders().set("Location", "/jobs/" + job.id);
+		respond(exchange, 202, status(job));
+	}
+
+
+	/**
+	 * Forget the oldest finished jobs once there are too many of them
+	 */
+	private void evictFinished() {
+
+		int finished = 0;
+		for (Job job : m_jobs.values()) {
+			if (job.future.isDone()) {
+				finished++;
+			}
+		}
+
+		Iterator<Job> jobs = m_jobs.values().iterator();
+		while (finished > MAX_FINISHED && jobs.hasNext()) {
+			if (jobs.next().future.isDone()) {
+				jobs.remove();
+				finished--;
+			}
+		}
+	}
+
+
+	/**
+	 * @return the job as a JSON object
+	 */
+	private static String status(Job job) {
+
+		StringBuilder json = new StringBuilder();
+		json.append("{\"id\":").append(job.id);
+		json.append(",\"name\":").append(quote(job.name));
+		json.append(",\"cities\":").append(job.cities);
+
+		CompletableFuture<SolverResult> future = job.future;
+		if (!future.isDone()) {
+			json.append(",\"status\":\"PENDING\"");
+		} else if (future.isCancelled()) {
+			json.append(",\"status\":\"CANCELLED\"");
+		} else {
+			try {
+				SolverResult result = future.get();
+
+				json.append(",\"status\":\"DONE\"");
+				json.append(",\"cost\":").append((int) result.getCost());
+				json.append(",\"runningTime\":").append(
+						result.getRunningTime());
+				json.append(",\"cached\":").append(result.isCached());
+				json.append(",\"tour\":[");
+				int[] tour = result.getTour();
+				for (int i = 0; i < tour.length; i++) {
+					json.append((i > 0) ? "," : "").append(tour[i]);
+				}
+				json.append("]");
+
+			} catch (ExecutionException ex) {
+				json.append(",\"status\":\"FAILED\"");
+				json.append(",\"error\":").append(
+						quote(String.valueOf(ex.getCause())));
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		return json.append("}").toString();
+	}
+
+
+	private static String error(String message) {
+
+		return "{\"error\":" + quote(message) + "}";
+	}
+
+
+	/**
+	 * @return true if the body is a binary problem: sent as BINARY_TYPE, or
+	 *         starting with the magic number of one
+	 */
+	private static boolean isBinary(String contentType, InputStream body)
+			throws IOException {
+
+		if (contentType != null
+				&& contentType.trim().toLowerCase().startsWith(BINARY_TYPE)) {
+			return true;
+		}
+
+		body.mark(4);
+		int magic = 0;
+		for (int i = 0; i < 4; i++) {
+			int c = body.read();
+			if (c < 0) {
+				break;
+			}
+			magic = (magic << 8) | c;
+		}
+		body.reset();
+		return magic == BinaryInstance.MAGIC;
+	}
+
+
+	/**
+	 * Split the query into its parameters, each of them decoded only once it
+	 * has been split off, so that an encoded '&' or '=' stays in its value
+	 */
+	static Map<String, String> parseQuery(URI uri) {
+
+		Map<String, String> query = new HashMap<String, String>();
+		if (uri.getRawQuery() == null) {
+			return query;
+		}
+		for (String pair : uri.getRawQuery().split("&")) {
+			int equals = pair.indexOf('=');
+			if (equals > 0) {
+				query.put(URLDecoder.decode(pair.substring(0, equals), UTF8),
+						URLDecoder.decode(pair.substring(equals + 1), UTF8));
+			}
+		}
+		return query;
+	}
+
+
+	/**
+	 * @return the rest of the stream
+	 */
+	private static byte[] readAll(InputStream in) throws IOException {
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(1 << 16);
+		byte[] buffer = new byte[1 << 16];
+		int read;
+		while ((read = in.read(buffer)) >= 0) {
+			bytes.write(buffer, 0, read);
+		}
+		return bytes.toByteArray();
+	}
+
+
+	private static String quote(String text) {
+
+		StringBuilder quoted = new StringBuilder("\"");
+		for (char c : text.toCharArray()) {
+			if (c == '"' || c == '\\') {
+				quoted.append('\\').append(c);
+			} else if (c < ' ') {
+				quoted.append(String.format("\\u%04x", (int) c));
+			} else {
+				quoted.append(c);
+			}
+		}
+		return quoted.append('"').toString();
+	}
+
+
+	private static void respond(HttpExchange exchange, int code, String json)
+			throws IOException {
+
+		byte[] body = (json + "\n").getBytes(ASCII);
+		exchange.getResponseHeaders().set("Content-Type", "application/json");
+		exchange.sendResponseHeaders(code, body.length);
+
+		OutputStream out = exchange.getResponseBody();
+		out.write(body);
+		out.close();
+	}
+}
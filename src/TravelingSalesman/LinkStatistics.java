@@ -0,0 +1,86 @@
+package TravelingSalesman;
+
+/**
+ * Throughput and latency of a single link in the island model, from one
+ * island to another. Updated by the thread reading the link, and read by
+ * whoever logs it.
+ *
+ * @author Aaron Foltz
+ */
+public class LinkStatistics {
+
+	private long			m_bytes			= 0;
+	private long			m_firstMicros	= -1;
+	private long			m_lastMicros	= -1;
+	private long			m_latencySum	= 0;
+	private long			m_maxLatency	= 0;
+	private long			m_messages		= 0;
+	private long			m_tours			= 0;
+
+	private final String	m_name;
+
+
+	/**
+	 * @param name
+	 *            the name of the link used when logging, e.g. "1 -> 2"
+	 */
+	public LinkStatistics(String name) {
+
+		m_name = name;
+	}
+
+
+	/**
+	 * Record a message that arrived over this link
+	 *
+	 * @param bytes
+	 *            size of the message payload
+	 * @param tours
+	 *            number of tours in the message
+	 * @param sentMicros
+	 *            the time the message was sent
+	 * @param receivedMicros
+	 *            the time the message was received
+	 */
+	public synchronized void record(int bytes, int tours, long sentMicros,
+			long receivedMicros) {
+
+		if (m_firstMicros < 0) {
+			m_firstMicros = receivedMicros;
+		}
+		m_lastMicros = receivedMicros;
+
+		// Clocks of two processes can disagree by a tiny bit
+		long latency = Math.max(0, receivedMicros - sentMicros);
+		m_latencySum += latency;
+		m_maxLatency = Math.max(m_maxLatency, latency);
+
+		m_messages++;
+		m_bytes += bytes;
+		m_tours += tours;
+	}
+
+
+	/**
+	 * @return a single log line describing the link
+	 */
+	@Override
+	public synchronized String toString() {
+
+		if (m_messages == 0) {
+			return "LINK " + m_name + ": no messages";
+		}
+
+		// Throughput over the time that the link was actually used
+		double seconds = Math.max(1, m_lastMicros - m_firstMicros) / 1e6;
+
+		return "LINK " + m_name + ": " + m_messages + " messages, " + m_tours
+				+ " tours, " + m_bytes + " bytes, "
+				+ String.format("%.1f", m_messages / seconds) + " msg/s, "
+				+ String.format("%.1f", m_bytes / seconds / 1024) + " KB/s, "
+				+ "latency avg "
+				+ String.format("%.3f", m_latencySum / (double) m_messages / 1000)
+				+ " ms, max " + String.format("%.3f", m_maxLatency / 1000.0)
+				+ " ms";
+	}
+}
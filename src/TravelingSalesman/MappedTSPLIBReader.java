@@ -0,0 +1,363 @@
+package TravelingSalesman;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * A reader for very large TSP problems - a million cities and more, hundreds
+ * of MB of text. The file is memory-mapped instead of read through a stream,
+ * the header is read up to the NODE_COORD_SECTION, and the coordinates are
+ * then parsed straight from the mapped bytes by several threads at once, each
+ * with its own chunk of the section. The chunks are split at line boundaries.
+ *
+ * The coordinates are parsed in two passes over each chunk: the first only
+ * counts the lines of cities, so that each chunk knows where its cities start
+ * in the coordinate arrays, and the second parses them into place. Counting is
+ * a plain scan for line breaks, so the load stays bound by how fast the pages
+ * of the file come in.
+ *
+ * Files of up to MAX_MAPPED_BYTES can be mapped. The mapping is freed by the
+ * garbage collector once the problem has been read.
+ *
+ * @author Aaron Foltz
+ */
+public class MappedTSPLIBReader {
+
+	// The largest file a single mapping can hold
+	public static final long		MAX_MAPPED_BYTES	= Integer.MAX_VALUE;
+
+	// Files smaller than this are read faster by the TSPLIBParser than they
+	// can be mapped and split
+	public static final long		MIN_MAPPED_BYTES	= 16 << 20;
+
+	private static final Charset	ASCII				= Charset
+																.forName("US-ASCII");
+
+	// The smallest chunk of the coordinates worth a thread of its own
+	private static final int		MIN_CHUNK_BYTES		= 1 << 20;
+
+
+	/**
+	 * A part of the NODE_COORD_SECTION, starting and ending at a line boundary
+	 */
+	private static class Chunk implements TSPLIBParser.ByteSource {
+
+		private final MappedByteBuffer	buffer;
+		private int						count		= 0;
+		// True if the section ends in this chunk
+		private boolean					ended		= false;
+		private final int				from;
+		private final String			name;
+		// The characters of a number, for the slow path of readDouble
+		private final char[]			number		= new char[TSPLIBParser.MAX_NUMBER];
+		private int						position;
+		private final int				to;
+
+
+		Chunk(String name, MappedByteBuffer buffer, int from, int to) {
+
+			this.name = name;
+			this.buffer = buffer;
+			this.from = from;
+			this.to = to;
+		}
+
+
+		/**
+		 * Count the lines of cities, up to the end of the chunk or the first
+		 * line that is not a city
+		 */
+		void count() {
+
+			position = from;
+			while (skipWhitespace()) {
+				if (!TSPLIBParser.isNumberStart(peek())) {
+					ended = true;
+					return;
+				}
+				count++;
+				skipLine();
+			}
+		}
+
+
+		/**
+		 * Parse the cities of the chunk into place
+		 *
+		 * @param offset
+		 *            the index of the first city of the chunk
+		 * @param cities
+		 *            the number of cities to parse
+		 */
+		void parse(double[] x, double[] y, int offset, int cities)
+				throws IOException {
+
+			position = from;
+			for (int i = offset; i < offset + cities; i++) {
+				skipWhitespace();
+
+				// The number of the city is not needed, the cities are in
+				// order
+				readDouble();
+				x[i] = readDouble();
+				y[i] = readDouble();
+
+				skipLine();
+			}
+		}
+
+
+		/**
+		 * @return the byte at the position, -1 at the end of the chunk
+		 */
+		@Override
+		public int peek() {
+
+			return (position < to) ? buffer.get(position) : -1;
+		}
+
+
+		@Override
+		public void skip() {
+
+			position++;
+		}
+
+
+		/**
+		 * Read a number straight from the mapped bytes, the same way as the
+		 * TSPLIBParser
+		 */
+		private double readDouble() throws IOException {
+
+			while (peek() == ' ' || peek() == '\t') {
+				position++;
+			}
+			return TSPLIBParser.readDouble(this, number, name);
+		}
+
+
+		/**
+		 * Skip past the next line break
+		 */
+		private void skipLine() {
+
+			while (position < to && buffer.get(position++) != '\n') {
+			}
+		}
+
+
+		/**
+		 * Skip spaces, tabs and line breaks
+		 *
+		 * @return false at the end of the chunk
+		 */
+		private boolean skipWhitespace() {
+
+			while (position < to) {
+				int c = buffer.get(position);
+				if (c != ' ' && c != '\t' && c != '\n' && c != '\r') {
+					return true;
+				}
+				position++;
+			}
+			return false;
+		}
+	}
+
+
+	/**
+	 * Read the problem in the file with a thread per core
+	 *
+	 * @see #read(File, int)
+	 */
+	public static TSPInstance read(File file) throws IOException {
+
+		return read(file, Runtime.getRuntime().availableProcessors());
+	}
+
+
+	/**
+	 * Read the problem in the file, quietly
+	 *
+	 * @param file
+	 *            the TSPLIB file, of at most MAX_MAPPED_BYTES
+	 * @param threads
+	 *            the most threads to parse the coordinates with
+	 * @return the TSP problem instance, named after the file
+	 * @throws IOException
+	 *             if the file can't be read or mapped, or is not a complete
+	 *             TSPLIB problem
+	 */
+	public static TSPInstance read(File file, int threads) throws IOException {
+
+		String name = file.getName().replaceAll("\\.tsp$", "");
+
+		// The mapping stays valid once the channel is closed
+		MappedByteBuffer buffer;
+		RandomAccessFile in = new RandomAccessFile(file, "r");
+		try {
+			FileChannel channel = in.getChannel();
+			if (channel.size() > MAX_MAPPED_BYTES) {
+				throw new IOException(file + " is too large to be mapped, "
+						+ "read it with the TSPLIBParser");
+			}
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+					channel.size());
+		} finally {
+			in.close();
+		}
+
+		// --------------------------------------------- //
+		// Header
+		TSPLIBParser.Header header = new TSPLIBParser.Header(name);
+
+		int start = 0;
+		int end = buffer.limit();
+		while (start < end) {
+			int lineEnd = start;
+			while (lineEnd < end && buffer.get(lineEnd) != '\n') {
+				lineEnd++;
+			}
+
+			byte[] line = new byte[lineEnd - start];
+			for (int i = 0; i < line.length; i++) {
+				line[i] = buffer.get(start + i);
+			}
+			start = Math.min(end, lineEnd + 1);
+
+			if (header.read(new String(line, ASCII))) {
+				break;
+			}
+		}
+		header.check(TSPLIBParser.MAX_DIMENSION);
+
+		int dimension = header.dimension;
+		// --------------------------------------------- //
+
+		// --------------------------------------------- //
+		// Split the coordinates into chunks at line boundaries
+		long length = end - start;
+		int chunks = (int) Math.max(1,
+				Math.min(Math.max(1, threads), length / MIN_CHUNK_BYTES));
+
+		final List<Chunk> parts = new ArrayList<Chunk>();
+		int from = start;
+		for (int i = 1; i <= chunks; i++) {
+			int to = (int) (start + length * i / chunks);
+			while (to < end && buffer.get(to - 1) != '\n') {
+				to++;
+			}
+			if (to > from) {
+				parts.add(new Chunk(name, buffer, from, to));
+				from = to;
+			}
+		}
+		// --------------------------------------------- //
+
+		ExecutorService pool = (parts.size() > 1) ? Executors
+				.newFixedThreadPool(parts.size()) : null;
+		try {
+			// Count the cities of each chunk, to know where they go
+			List<Callable<Void>> counts = new ArrayList<Callable<Void>>();
+			for (final Chunk chunk : parts) {
+				counts.add(new Callable<Void>() {
+
+					@Override
+					public Void call() {
+
+						chunk.count();
+						return null;
+					}
+				});
+			}
+			run(pool, counts);
+
+			// The section ends at the first chunk with a line that is not a
+			// city, and only the first DIMENSION cities are read
+			final double[] x = new double[dimension];
+			final double[] y = new double[dimension];
+
+			List<Callable<Void>> parses = new ArrayList<Callable<Void>>();
+			int offset = 0;
+			for (final Chunk chunk : parts) {
+				final int first = offset;
+				final int cities = Math.min(chunk.count, dimension - offset);
+				if (cities > 0) {
+					parses.add(new Callable<Void>() {
+
+						@Override
+						public Void call() throws IOException {
+
+							chunk.parse(x, y, first, cities);
+							return null;
+						}
+					});
+				}
+				offset += cities;
+
+				if (chunk.ended || offset == dimension) {
+					break;
+				}
+			}
+
+			if (offset < dimension) {
+				throw new IOException("Incomplete TSP problem " + name
+						+ ", expected " + dimension + " cities, got " + offset);
+			}
+
+			run(pool, parses);
+			return new TSPInstance(name, header.edgeWeightType, x, y);
+
+		} finally {
+			if (pool != null) {
+				pool.shutdown();
+			}
+		}
+	}
+
+
+	/**
+	 * Run the tasks on the pool, or on this thread without one, and wait for
+	 * all of them
+	 */
+	private static void run(ExecutorService pool, List<Callable<Void>> tasks)
+			throws IOException {
+
+		try {
+			if (pool == null) {
+				for (Callable<Void> task : tasks) {
+					task.call();
+				}
+				return;
+			}
+
+			for (Future<Void> future : pool.invokeAll(tasks)) {
+				future.get();
+			}
+		} catch (IOException ex) {
+			throw ex;
+		} catch (ExecutionException ex) {
+			if (ex.getCause() instanceof IOException) {
+				throw (IOException) ex.getCause();
+			}
+			throw new IOException(ex.getCause());
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while reading the coordinates");
+		} catch (Exception ex) {
+			throw new IOException(ex);
+		}
+	}
+}
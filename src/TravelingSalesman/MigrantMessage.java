@@ -0,0 +1,268 @@
+package TravelingSalesman;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * A message sent between the islands of the island model and their
+ * coordinator. On the wire every message is a frame: the length of the
+ * payload, followed by the payload itself. The payload starts with a fixed
+ * header (message type, sending island and the time it was sent), so the
+ * coordinator can route a frame without decoding the tours inside of it.
+ *
+ * Migrant tours are written with the TourCodec, each one preceded by its
+ * fitness value.
+ *
+ * @author Aaron Foltz
+ */
+public class MigrantMessage {
+
+	// An island introducing itself to the coordinator
+	public static final byte	HELLO		= 1;
+
+	// An island sending some of its best tours to another island
+	public static final byte	MIGRANTS	= 2;
+
+	// Size of the type, island and sent time fields at the start of a payload
+	static final int			HEADER_SIZE	= 1 + 4 + 8;
+
+	// Upper limit for a frame, anything bigger must be a corrupted stream
+	static final int			MAX_FRAME	= 64 * 1024 * 1024;
+
+	private final double[]		m_fitness;
+	private final int			m_island;
+	private final long			m_sentMicros;
+	private final int[][]		m_tours;
+	private final byte			m_type;
+
+
+	/**
+	 * Create a message that is sent right now
+	 *
+	 * @param type
+	 *            HELLO or MIGRANTS
+	 * @param island
+	 *            the island sending the message
+	 * @param tours
+	 *            the migrant tours, empty for HELLO
+	 * @param fitness
+	 *            the fitness values of the migrant tours
+	 */
+	public MigrantMessage(byte type, int island, int[][] tours,
+			double[] fitness) {
+
+		this(type, island, currentTimeMicros(), tours, fitness);
+	}
+
+
+	private MigrantMessage(byte type, int island, long sentMicros,
+			int[][] tours, double[] fitness) {
+
+		m_type = type;
+		m_island = island;
+		m_sentMicros = sentMicros;
+		m_tours = tours;
+		m_fitness = fitness;
+	}
+
+
+	/**
+	 * The wall clock time in microseconds. This is used instead of
+	 * System.nanoTime because the sender and the receiver are different
+	 * processes, which only share the wall clock.
+	 *
+	 * @return microseconds since the epoch
+	 */
+	public static long currentTimeMicros() {
+
+		return ChronoUnit.MICROS.between(Instant.EPOCH, Instant.now());
+	}
+
+
+	/**
+	 * Read the number of migrants in a payload without decoding the tours
+	 *
+	 * @param payload
+	 *            the payload of a MIGRANTS frame
+	 * @return the number of tours in the frame
+	 */
+	public static int countOf(byte[] payload) {
+
+		try {
+			return TourCodec.readVarInt(new DataInputStream(
+					new ByteArrayInputStream(payload, HEADER_SIZE,
+							payload.length - HEADER_SIZE)));
+		} catch (IOException e) {
+			return 0;
+		}
+	}
+
+
+	/**
+	 * Decode a payload that was read with readFrame
+	 *
+	 * @param payload
+	 *            the payload of the frame
+	 * @return the decoded message
+	 * @throws IOException
+	 *             if the payload is malformed
+	 */
+	public static MigrantMessage decode(byte[] payload) throws IOException {
+
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(
+				payload));
+
+		byte type = in.readByte();
+		int island = in.readInt();
+		long sentMicros = in.readLong();
+
+		// Every migrant takes at least its fitness and a length byte, so
+		// counts and lengths that the payload can't hold are refused before
+		// anything is allocated for them
+		int count = (type == MIGRANTS) ? TourCodec.readVarInt(in) : 0;
+		if (count < 0 || count > in.available() / (8 + 1)) {
+			throw new IOException("Malformed frame of " + count + " migrants");
+		}
+		int[][] tours = new int[count][];
+		double[] fitness = new double[count];
+
+		for (int i = 0; i < count; i++) {
+			fitness[i] = in.readDouble();
+			tours[i] = TourCodec.readTour(in, in.available());
+		}
+
+		return new MigrantMessage(type, island, sentMicros, tours, fitness);
+	}
+
+
+	/**
+	 * Read the island number out of the header of a payload
+	 *
+	 * @param payload
+	 *            the payload of the frame
+	 * @return the island that sent the frame
+	 */
+	public static int islandOf(byte[] payload) {
+
+		return ((payload[1] & 0xFF) << 24) | ((payload[2] & 0xFF) << 16)
+				| ((payload[3] & 0xFF) << 8) | (payload[4] & 0xFF);
+	}
+
+
+	/**
+	 * Read the time the frame was sent out of the header of a payload
+	 *
+	 * @param payload
+	 *            the payload of the frame
+	 * @return the time the frame was sent, in microseconds since the epoch
+	 */
+	public static long sentMicrosOf(byte[] payload) {
+
+		long value = 0;
+		for (int i = 5; i < HEADER_SIZE; i++) {
+			value = (value << 8) | (payload[i] & 0xFF);
+		}
+		return value;
+	}
+
+
+	/**
+	 * Read the payload of the next frame from the stream
+	 *
+	 * @param in
+	 *            the stream to read from
+	 * @return the payload of the frame
+	 * @throws IOException
+	 *             if the frame is malformed or the stream is closed
+	 */
+	public static byte[] readFrame(DataInputStream in) throws IOException {
+
+		int length = in.readInt();
+
+		if ((length < HEADER_SIZE) || (length > MAX_FRAME)) {
+			throw new IOException("Bad frame length " + length);
+		}
+
+		byte[] payload = new byte[length];
+		in.readFully(payload);
+		return payload;
+	}
+
+
+	/**
+	 * Write a payload as a frame to the stream. Does not flush the stream.
+	 *
+	 * @param out
+	 *            the stream to write to
+	 * @param payload
+	 *            the payload of the frame
+	 * @throws IOException
+	 */
+	public static void writeFrame(DataOutputStream out, byte[] payload)
+			throws IOException {
+
+		out.writeInt(payload.length);
+		out.write(payload);
+	}
+
+
+	/**
+	 * @return the payload of this message
+	 * @throws IOException
+	 */
+	public byte[] encode() throws IOException {
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+
+		out.writeByte(m_type);
+		out.writeInt(m_island);
+		out.writeLong(m_sentMicros);
+
+		if (m_type == MIGRANTS) {
+			TourCodec.writeVarInt(out, m_tours.length);
+			for (int i = 0; i < m_tours.length; i++) {
+				out.writeDouble(m_fitness[i]);
+				TourCodec.writeTour(out, m_tours[i]);
+			}
+		}
+
+		out.flush();
+		return bytes.toByteArray();
+	}
+
+
+	public double[] getFitness() {
+
+		return m_fitness;
+	}
+
+
+	public int getIsland() {
+
+		return m_island;
+	}
+
+
+	public long getSentMicros() {
+
+		return m_sentMicros;
+	}
+
+
+	public int[][] getTours() {
+
+		return m_tours;
+	}
+
+
+	public byte getType() {
+
+		return m_type;
+	}
+}
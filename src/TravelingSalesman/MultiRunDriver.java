@@ -0,0 +1,210 @@
+package TravelingSalesman;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Scanner;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.jgap.IChromosome;
+
+/**
+ * Runs the independent iterations of a TSP problem at the same time, on a pool
+ * of threads, instead of one after another like TravelingSalesman.main does.
+ * Every run gets its own TravelingSalesman instance, configuration and seed,
+ * while the distance matrix and the rest of the preprocessing of the problem
+ * are built once, in a SolveSession shared by all of them. The averages are
+ * collected with the same RunStatistics, so the printed results mean exactly
+ * the same thing.
+ *
+ * The running time of a run is still the time that run took by itself, the
+ * total time of the whole study is printed separately.
+ *
+ * This program can be run as a standalone entity, and asks for the same
+ * information as TravelingSalesman, plus the number of threads to use.
+ *
+ * @author Aaron Foltz
+ */
+public class MultiRunDriver {
+
+	private final int			iterations;
+	private final int			optimalTour;
+	private final long			seed;
+	private final SolveSession	session;
+	private final int			threads;
+
+
+	/**
+	 * @param session
+	 *            the TSP problem that every run solves, with its
+	 *            preprocessing
+	 * @param iterations
+	 *            the number of independent runs
+	 * @param optimalTour
+	 *            the optimal tour length of the problem
+	 * @param threads
+	 *            the number of runs to make at the same time
+	 * @param seed
+	 *            the seed that the seeds of the runs are drawn from
+	 */
+	public MultiRunDriver(SolveSession session, int iterations,
+			int optimalTour, int threads, long seed) {
+
+		this.session = session;
+		this.iterations = iterations;
+		this.optimalTour = optimalTour;
+		this.threads = threads;
+		this.seed = seed;
+	}
+
+
+	public static void main(String[] args) throws Exception {
+
+		// --------------------------------------------- //
+		// Gather input from the user
+		System.out.print("Enter the file: ");
+		Scanner scan = new Scanner(System.in);
+		String file = scan.nextLine().concat(".tsp");
+
+		System.out.print("Enter iterations: ");
+		int iterations = scan.nextInt();
+
+		System.out.print("Enter optimal for this problem: ");
+		int optimalTour = scan.nextInt();
+
+		System.out.print("Enter threads (0 for one per core): ");
+		int threads = scan.nextInt();
+		if (threads <= 0) {
+			threads = Runtime.getRuntime().availableProcessors();
+		}
+		// --------------------------------------------- //
+
+		// Get the coordinates and edge weight type of the cities from the file.
+		SolveSession session = new SolveSession(BinaryInstance.load(new File(
+				"data", file)));
+
+		long seed = System.nanoTime();
+		System.out.println("THREADS: " + threads);
+		System.out.println("SEED: " + seed);
+
+		BufferedWriter writer = new BufferedWriter(new FileWriter("data/"
+				+ file.concat(".data")));
+
+		long startTime = System.currentTimeMillis();
+		RunStatistics statistics = new MultiRunDriver(session, iterations,
+				optimalTour, threads, seed).run(writer);
+		long endTime = System.currentTimeMillis();
+
+		statistics.write(writer);
+		writer.close();
+
+		statistics.print();
+		System.out.println("TOTAL RUNNINGTIME: " + (endTime - startTime)
+				/ 1000F);
+
+		System.exit(0);
+	}
+
+
+	/**
+	 * Make all of the runs, and collect their results
+	 *
+	 * @param writer
+	 *            the data file that the result of each run is written to, or
+	 *            null
+	 * @return the statistics over all of the runs
+	 * @throws InterruptedException
+	 */
+	public RunStatistics run(final BufferedWriter writer)
+			throws InterruptedException {
+
+		final RunStatistics statistics = new RunStatistics(iterations,
+				optimalTour);
+
+		// Draw the seeds up front, so the same seed gives the same runs
+		Random seeds = new Random(seed);
+
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		List<Future<Void>> runs = new ArrayList<Future<Void>>();
+
+		for (int i = 0; i < iterations; i++) {
+			final int run = i;
+			final long runSeed = seeds.nextLong();
+
+			runs.add(pool.submit(new Callable<Void>() {
+
+				@Override
+				public Void call() throws Exception {
+
+					runOnce(run, runSeed, statistics, writer);
+					return null;
+				}
+			}));
+		}
+
+		for (Future<Void> run : runs) {
+			try {
+				run.get();
+			} catch (Exception ex) {
+				ex.printStackTrace();
+			}
+		}
+
+		pool.shutdown();
+		return statistics;
+	}
+
+
+	/**
+	 * Make a single run on the current thread
+	 */
+	private void runOnce(int run, long runSeed, RunStatistics statistics,
+			BufferedWriter writer) throws Exception {
+
+		// Gather the starting time for the run
+		long startTime = System.currentTimeMillis();
+
+		TravelingSalesman t = session.createSalesman();
+		t.setSeed(runSeed);
+
+		try {
+			IChromosome optimal = t.findOptimalPath(null);
+			IChromosome bestChromosome = t.getBestChromosome();
+
+			// Gather the ending time of the run
+			long endTime = System.currentTimeMillis();
+			float runningTime = (endTime - startTime) / 1000F;
+
+			statistics.add(bestChromosome.getFitnessValue(),
+					optimal.getFitnessValue(), runningTime);
+
+			// Print the results of the run in one piece, so that runs
+			// finishing at the same time don't get mixed up
+			synchronized (this) {
+				System.out.println("RUN " + run + " (SEED " + runSeed + ")");
+				System.out.println("Solution: ");
+				System.out.println(bestChromosome);
+				System.out.println("Score " + (bestChromosome.getFitnessValue()));
+				System.out.println("RUNNING TIME: " + runningTime + " seconds");
+
+				if (writer != null) {
+					statistics.writeRun(writer, optimal.getFitnessValue(),
+							runningTime);
+				}
+			}
+
+		} finally {
+			// Reset the configuration of this thread so that it can run
+			// another TSP instance on the same data
+			if (t.getConfiguration() != null) {
+				t.getConfiguration().reset();
+			}
+		}
+	}
+}
@@ -24,51 +24,20 @@ import java.util.Scanner;
  */
 public class OptimalPath {
 
-	static ArrayList<Integer>	cities	= new ArrayList<Integer>();
-
-	static double[][]			distances;
-
-	static boolean				isData	= false;
-	static double				total	= 0;
-
-
-	public static void calculate(String file) {
-
-		file = "data/" + file.concat(".opt.tour");
-
-		System.out.println("Getting optimum data from: " + file);
-
-		try {
-			BufferedReader in = new BufferedReader(new FileReader(file));
-
-			String input = null;
-			try {
-				while ((input = in.readLine()) != null) {
-
-					// Set the start of the data section
-					if (input.contains("TOUR_SECTION") && !isData) {
-						// We are now in the data section of the file
-						isData = true;
-					}
-
-					// If we are now in the data section, calculate the cost
-					else if (isData) {
-
-						// If not end of file, then save coordinates to an
-						// ArrayList
-						if (!input.equals("EOF") && !input.equals("-1")) {
-							cities.add(Integer.parseInt(input));
-
-						}
-					}
-
-				}
-			} catch (IOException e) {
-				e.printStackTrace();
-			}
-		} catch (FileNotFoundException e) {
-			e.printStackTrace();
-		}
+	/**
+	 * Calculate the length of the optimal tour of the problem
+	 * 
+	 * @param file
+	 *            the name of the problem, the tour is read from
+	 *            data/<file>.opt.tour
+	 * @param distances
+	 *            the distance matrix between all of the cities of the problem
+	 * @return the length of the optimal tour
+	 */
+	public static double calculate(String file, double[][] distances) {
+
+		ArrayList<Integer> cities = readTour(file);
+		double total = 0;
 
 		// Iterate through the arraylist, tallying up the total tour cost
 		for (int i = 0; i < cities.size(); i++) {
@@ -93,20 +62,58 @@ public class OptimalPath {
 
 		System.out.println("Total: " + total);
 
+		return total;
+	}
+
+
+	/**
+	 * Calculate the length of the optimal tour of the problem, working out
+	 * only the distances along the tour instead of the whole distance matrix
+	 * 
+	 * @param file
+	 *            the name of the problem, the tour is read from
+	 *            data/<file>.opt.tour
+	 * @param instance
+	 *            the TSP problem instance
+	 * @return the length of the optimal tour
+	 */
+	public static double calculate(String file, TSPInstance instance) {
+
+		ArrayList<Integer> cities = readTour(file);
+		double total = 0;
+
+		// Iterate through the arraylist, tallying up the total tour cost
+		for (int i = 0; i < cities.size(); i++) {
+
+			// If on the last city in the tour, calculate the return trip
+			int next = (i == (cities.size() - 1)) ? 1 : cities.get(i + 1);
+			double distance = instance.distance(cities.get(i) - 1, next - 1);
+			total += distance;
+
+			if (i < cities.size() - 1) {
+				System.out.println((cities.get(i) - 1) + " " + (next - 1)
+						+ "\t" + distance + "\t" + total);
+			}
+		}
+
+		System.out.println("Total: " + total);
+
+		return total;
 	}
 
 
-	public static void main(String[] args) {
+	public static void main(String[] args) throws IOException {
 
 		// Get the coordinates from a file given on the command line
 		if (args.length > 0) {
 
-			// Get the distance matrix between all of the cities for this
+			// Print the distance matrix between all of the cities for this
 			// problem
-			distances = Reader.getDistances(args[0].concat(".tsp"));
+			TSPInstance instance = Reader.read(args[0].concat(".tsp"));
+			Reader.printDistances(instance);
 
 			// Calculate the optimal path length given the tour
-			calculate(args[0]);
+			calculate(args[0], instance);
 
 			// If no arguments are given, just print a message.
 		} else {
@@ -116,15 +123,63 @@ public class OptimalPath {
 			// Get the file as input
 			String file = scan.nextLine();
 
-			// Get the distance matrix between all of the cities for this
+			// Print the distance matrix between all of the cities for this
 			// problem
-			distances = Reader.getDistances(file
-					.concat(".tsp"));
+			TSPInstance instance = Reader.read(file.concat(".tsp"));
+			Reader.printDistances(instance);
 
 			// Calculate the optimal path length given the tour
-			calculate(file);
+			calculate(file, instance);
 		}
 
 		System.exit(0);
 	}
+
+
+	/**
+	 * Read the cities of the optimal tour of the problem, numbered from 1
+	 */
+	private static ArrayList<Integer> readTour(String file) {
+
+		ArrayList<Integer> cities = new ArrayList<Integer>();
+		boolean isData = false;
+
+		file = "data/" + file.concat(".opt.tour");
+
+		System.out.println("Getting optimum data from: " + file);
+
+		try {
+			BufferedReader in = new BufferedReader(new FileReader(file));
+
+			String input = null;
+			try {
+				while ((input = in.readLine()) != null) {
+
+					// Set the start of the data section
+					if (input.contains("TOUR_SECTION") && !isData) {
+						// We are now in the data section of the file
+						isData = true;
+					}
+
+					// If we are now in the data section, calculate the cost
+					else if (isData) {
+
+						// If not end of file, then save coordinates to an
+						// ArrayList
+						if (!input.equals("EOF") && !input.equals("-1")) {
+							cities.add(Integer.parseInt(input));
+
+						}
+					}
+
+				}
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		} catch (FileNotFoundException e) {
+			e.printStackTrace();
+		}
+
+		return cities;
+	}
 }
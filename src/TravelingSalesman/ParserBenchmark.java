@@ -0,0 +1,304 @@
+package TravelingSalesman;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compares the load time of the TSPLIBParser with that of Reader on large
+ * synthetic problems. A problem of each size is written to a temporary file,
+ * with coordinates in the plain, decimal and exponent forms that show up in
+ * TSPLIB, and then read a number of times by each of:
+ *
+ * Reader (printing) - Reader as TravelingSalesman uses it, printing every
+ * coordinate (to a stream that throws it away, so the console itself is not
+ * measured)
+ *
+ * Reader (quiet) - the same parsing, without the printing
+ *
+ * TSPLIBParser - the single-pass stream parser
+ *
+ * MappedTSPLIBReader - the memory-mapped, multi-threaded reader
+ *
+ * Gzip - TSPLIBParser reading a gzipped copy of the problem, decompressed on a
+ * second thread as it is parsed
+ *
+ * The best and median times are printed, and the coordinates that the
+ * readers found are checked against each other.
+ *
+ * This program can be run as a standalone entity: java ParserBenchmark [cities
+ * ...] [-runs <runs>]
+ *
+ * java ParserBenchmark 10000 100000 1000000
+ *
+ * @author Aaron Foltz
+ */
+public class ParserBenchmark {
+
+	private interface Load {
+
+		TSPInstance load(File file) throws IOException;
+	}
+
+
+	public static void main(String[] args) throws IOException {
+
+		int runs = 5;
+		int[] sizes = { 10000, 100000, 1000000 };
+
+		int given = 0;
+		int[] requested = new int[args.length];
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("-runs") && i + 1 < args.length) {
+				runs = Integer.parseInt(args[++i]);
+			} else {
+				requested[given++] = Integer.parseInt(args[i]);
+			}
+		}
+		if (given > 0) {
+			sizes = Arrays.copyOf(requested, given);
+		}
+
+		final PrintStream console = System.out;
+		final PrintStream discard = new PrintStream(new OutputStream() {
+
+			@Override
+			public void write(int b) {
+
+			}
+
+
+			@Override
+			public void write(byte[] b, int off, int len) {
+
+			}
+		});
+
+		Load printing = new Load() {
+
+			@Override
+			public TSPInstance load(File file) throws IOException {
+
+				System.setOut(discard);
+				try {
+					return legacy(file, true);
+				} finally {
+					System.setOut(console);
+				}
+			}
+		};
+		Load quiet = new Load() {
+
+			@Override
+			public TSPInstance load(File file) throws IOException {
+
+				return legacy(file, false);
+			}
+		};
+		Load parser = new Load() {
+
+			@Override
+			public TSPInstance load(File file) throws IOException {
+
+				InputStream in = new FileInputStream(file);
+				try {
+					return new TSPLIBParser().parse(file.getName(), in);
+				} finally {
+					in.close();
+				}
+			}
+		};
+		Load gzip = new Load() {
+
+			@Override
+			public TSPInstance load(File file) throws IOException {
+
+				return TSPLIBParser.read(new File(file.getPath() + ".gz"));
+			}
+		};
+		Load mapped = new Load() {
+
+			@Override
+			public TSPInstance load(File file) throws IOException {
+
+				return MappedTSPLIBReader.read(file);
+			}
+		};
+
+		System.out.println("CITIES\tREADER (PRINTING)\tREADER (QUIET)\t"
+				+ "TSPLIBPARSER\tMAPPED\tGZIP\tSPEEDUP");
+
+		for (int cities : sizes) {
+			File file = File.createTempFile("synthetic" + cities, ".tsp");
+			file.deleteOnExit();
+			write(file, cities, new Random(cities));
+			File compressed = compress(file);
+
+			// The readers have to agree on every coordinate
+			TSPInstance expected = quiet.load(file);
+			compare(expected, parser.load(file), file);
+			compare(expected, mapped.load(file), file);
+			compare(expected, gzip.load(file), compressed);
+
+			long[] printingTimes = time(printing, file, runs);
+			long[] quietTimes = time(quiet, file, runs);
+			long[] parserTimes = time(parser, file, runs);
+			long[] mappedTimes = time(mapped, file, runs);
+			long[] gzipTimes = time(gzip, file, runs);
+
+			System.out.println(cities + "\t" + format(printingTimes) + "\t"
+					+ format(quietTimes) + "\t" + format(parserTimes) + "\t"
+					+ format(mappedTimes) + "\t" + format(gzipTimes) + "\t"
+					+ String.format("%.1fx", (double) printingTimes[0]
+							/ Math.min(parserTimes[0], mappedTimes[0])));
+
+			file.delete();
+			compressed.delete();
+		}
+	}
+
+
+	/**
+	 * Write a gzipped copy of the file next to it
+	 *
+	 * @return the copy
+	 */
+	private static File compress(File file) throws IOException {
+
+		File compressed = new File(file.getPath() + ".gz");
+		compressed.deleteOnExit();
+
+		InputStream in = new FileInputStream(file);
+		OutputStream out = new GZIPOutputStream(new FileOutputStream(
+				compressed), 1 << 16);
+		try {
+			byte[] buffer = new byte[1 << 16];
+			int read;
+			while ((read = in.read(buffer)) >= 0) {
+				out.write(buffer, 0, read);
+			}
+		} finally {
+			in.close();
+			out.close();
+		}
+		return compressed;
+	}
+
+
+	/**
+	 * The readers have to agree on every coordinate
+	 */
+	private static void compare(TSPInstance expected, TSPInstance actual,
+			File file) {
+
+		for (int i = 0; i < expected.getDimension(); i++) {
+			if (expected.getX(i) != actual.getX(i)
+					|| expected.getY(i) != actual.getY(i)) {
+				throw new IllegalStateException("The readers disagree on city "
+						+ i + " of " + file);
+			}
+		}
+	}
+
+
+	/**
+	 * @return best and median time, "best / median ms"
+	 */
+	private static String format(long[] times) {
+
+		return times[0] / 1000000 + " / " + times[times.length / 2] / 1000000
+				+ " ms";
+	}
+
+
+	/**
+	 * Read the problem the way Reader does
+	 */
+	private static TSPInstance legacy(File file, boolean print)
+			throws IOException {
+
+		BufferedReader in = new BufferedReader(new FileReader(file));
+		try {
+			if (print) {
+				return Reader.readPrinting(file.getName(), in);
+			}
+			return Reader.read(file.getName(), in);
+		} finally {
+			in.close();
+		}
+	}
+
+
+	/**
+	 * Load the file a number of times, after one untimed load to warm up
+	 *
+	 * @return the sorted times in nanoseconds
+	 */
+	private static long[] time(Load load, File file, int runs)
+			throws IOException {
+
+		load.load(file);
+
+		long[] times = new long[runs];
+		for (int i = 0; i < runs; i++) {
+			long start = System.nanoTime();
+			load.load(file);
+			times[i] = System.nanoTime() - start;
+		}
+
+		Arrays.sort(times);
+		return times;
+	}
+
+
+	/**
+	 * Write a synthetic EUC_2D problem
+	 */
+	private static void write(File file, int cities, Random random)
+			throws IOException {
+
+		BufferedWriter out = new BufferedWriter(new FileWriter(file));
+		try {
+			out.write("NAME : synthetic" + cities + "\n");
+			out.write("COMMENT : random cities for ParserBenchmark\n");
+			out.write("TYPE : TSP\n");
+			out.write("DIMENSION : " + cities + "\n");
+			out.write("EDGE_WEIGHT_TYPE : EUC_2D\n");
+			out.write("NODE_COORD_SECTION\n");
+
+			for (int i = 0; i < cities; i++) {
+				double x = random.nextDouble() * 100000;
+				double y = random.nextDouble() * 100000;
+
+				switch (i % 3) {
+				case 0:
+					out.write((i + 1) + " " + (int) x + " " + (int) y + "\n");
+					break;
+				case 1:
+					out.write(String.format(Locale.ROOT, "%d %.4f %.4f\n",
+							i + 1, x, y));
+					break;
+				default:
+					out.write(String.format(Locale.ROOT, "%d %.6e %.6e\n",
+							i + 1, x, y));
+					break;
+				}
+			}
+			out.write("EOF\n");
+		} finally {
+			out.close();
+		}
+	}
+}
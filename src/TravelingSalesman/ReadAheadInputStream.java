@@ -0,0 +1,231 @@
+package TravelingSalesman;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Reads another stream ahead on a thread of its own, in large blocks, so that
+ * the work of that stream - decompressing a gzip file, say - overlaps with the
+ * work of whoever reads this one, instead of the two taking turns.
+ *
+ * A fixed number of blocks is passed back and forth between the two threads:
+ * the read-ahead thread fills the free blocks, and the reader hands them back
+ * once it has used them up. So the read-ahead never gets more than that many
+ * blocks ahead, and no memory is allocated once the stream is running.
+ *
+ * Like any InputStream, it is meant for one reader at a time.
+ *
+ * @author Aaron Foltz
+ */
+public class ReadAheadInputStream extends InputStream {
+
+	public static final int					DEFAULT_BLOCK_SIZE	= 1 << 20;
+	public static final int					DEFAULT_BLOCKS		= 4;
+
+	// Handed over after the last block
+	private static final Block				END					= new Block(0);
+
+	private volatile boolean				closed				= false;
+	private Block							current				= null;
+	private final BlockingQueue<Block>		filled;
+	private final BlockingQueue<Block>		free;
+	private final InputStream				in;
+	private final Thread					reader;
+
+
+	/**
+	 * A block of the stream, and how much of it is filled
+	 */
+	private static class Block {
+
+		private final byte[]	data;
+		private IOException		error		= null;
+		private int				length		= 0;
+		private int				position	= 0;
+
+
+		Block(int size) {
+
+			data = new byte[size];
+		}
+	}
+
+
+	/**
+	 * Read ahead with DEFAULT_BLOCKS blocks of DEFAULT_BLOCK_SIZE
+	 */
+	public ReadAheadInputStream(InputStream in) {
+
+		this(in, DEFAULT_BLOCK_SIZE, DEFAULT_BLOCKS);
+	}
+
+
+	/**
+	 * @param in
+	 *            the stream to read ahead, closed once it has been read or
+	 *            this stream is closed
+	 * @param blockSize
+	 *            the bytes in each block
+	 * @param blocks
+	 *            the most blocks to read ahead
+	 */
+	public ReadAheadInputStream(final InputStream in, int blockSize, int blocks) {
+
+		this.in = in;
+		free = new ArrayBlockingQueue<Block>(blocks);
+		filled = new ArrayBlockingQueue<Block>(blocks + 1);
+		for (int i = 0; i < blocks; i++) {
+			free.add(new Block(blockSize));
+		}
+
+		reader = new Thread(new Runnable() {
+
+			@Override
+			public void run() {
+
+				readAhead();
+			}
+		}, "read-ahead");
+		reader.setDaemon(true);
+		reader.start();
+	}
+
+
+	/**
+	 * Stop reading ahead and close the stream that is read, which also stops
+	 * a read-ahead that is blocked reading it. Reading this stream afterwards
+	 * throws an IOException.
+	 */
+	@Override
+	public void close() throws IOException {
+
+		if (closed) {
+			return;
+		}
+		closed = true;
+		reader.interrupt();
+		in.close();
+	}
+
+
+	@Override
+	public int read() throws IOException {
+
+		if (!next()) {
+			return -1;
+		}
+		return current.data[current.position++] & 0xff;
+	}
+
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+
+		if (len == 0) {
+			return 0;
+		}
+		if (!next()) {
+			return -1;
+		}
+
+		int n = Math.min(len, current.length - current.position);
+		System.arraycopy(current.data, current.position, b, off, n);
+		current.position += n;
+		return n;
+	}
+
+
+	/**
+	 * Make sure the current block has bytes left, handing the used up block
+	 * back and taking the next filled one
+	 *
+	 * @return false at the end of the stream
+	 */
+	private boolean next() throws IOException {
+
+		while (current == null || current.position == current.length) {
+			if (closed) {
+				throw new IOException("Stream closed");
+			}
+			if (current == END) {
+				return false;
+			}
+			if (current != null) {
+				free.add(current);
+			}
+
+			try {
+				current = filled.take();
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Interrupted while reading ahead");
+			}
+
+			if (current.error != null) {
+				IOException error = current.error;
+				current = END;
+				throw error;
+			}
+		}
+		return true;
+	}
+
+
+	/**
+	 * Fill the free blocks from the stream until it ends, fails, or this
+	 * stream is closed. Whatever ends it, the last block handed over is END
+	 * or the error, so the reader never waits for a block that won't come.
+	 */
+	private void readAhead() {
+
+		Block last = END;
+		try {
+			while (!closed) {
+				Block block = free.take();
+				block.position = 0;
+				block.length = 0;
+
+				int read = 0;
+				while (block.length < block.data.length
+						&& (read = in.read(block.data, block.length,
+								block.data.length - block.length)) >= 0) {
+					block.length += read;
+				}
+
+				if (block.length > 0) {
+					filled.put(block);
+				}
+				if (read < 0) {
+					return;
+				}
+			}
+		} catch (InterruptedException ex) {
+			// Closed
+		} catch (IOException ex) {
+			last = failed(ex);
+		} catch (RuntimeException ex) {
+			// A stream closed under its read may fail any which way
+			last = failed(new IOException(ex));
+		} finally {
+			try {
+				in.close();
+			} catch (IOException ex) {
+				// Nothing left to read from it anyway
+			}
+
+			// There is always room for it, as there are more places in the
+			// filled queue than there are blocks
+			filled.offer(last);
+		}
+	}
+
+
+	private static Block failed(IOException error) {
+
+		Block failed = new Block(0);
+		failed.error = error;
+		return failed;
+	}
+}
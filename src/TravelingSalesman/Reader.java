@@ -2,9 +2,10 @@
 package TravelingSalesman;
 
 import java.io.BufferedReader;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.channels.Channels;
 import java.util.Scanner;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -22,18 +23,6 @@ import java.util.regex.Pattern;
  */
 public class Reader {
 
-	static double[]		coordinateArray;
-
-	static int			counter	= 0;
-
-	static double[][]	data;
-	static double[][]	distances;
-	static String		EdgeWeightType;
-
-	static boolean		isData	= false;
-	static double		xd, yd, rij, tij;
-
-
 	/**
 	 * Simply retrieves the coordinates from the TSP data file and returns it.
 	 * This will be used in my Genetic Algorithm attempt
@@ -41,18 +30,13 @@ public class Reader {
 	 * @param file
 	 *            the file that the data is in
 	 * @return coordinate matrix for each of the cities in the TSP
+	 * @throws IOException
+	 *             if the file can't be read, or is not a complete TSPLIB
+	 *             problem
 	 */
-	public static double[][] getCoordinates(String file) {
-
-		isData = false;
-		counter = 0;
-
-		// Get the coordinates from the file. Store in an array of double
-		stripCoordinates(file);
-
-		System.out.println();
-		return data;
+	public static double[][] getCoordinates(String file) throws IOException {
 
+		return read(file).getCoordinates();
 	}
 
 
@@ -64,20 +48,20 @@ public class Reader {
 	 * @param file
 	 *            the file that the data is in
 	 * @return the distance matrix of the TSP problem
+	 * @throws IOException
+	 *             if the file can't be read, or is not a complete TSPLIB
+	 *             problem
 	 */
-	public static double[][] getDistances(String file) {
-
-		isData = false;
-		counter = 0;
+	public static double[][] getDistances(String file) throws IOException {
 
-		// Get the coordinates from the file. Store in an Arraylist
-		stripCoordinates(file);
+		// Get the coordinates from the file
+		TSPInstance instance = read(file);
 
 		// Calculate distance matrix for all the cities in the problem
-		calculateDistances();
+		double[][] distances = calculateDistances(instance);
 
 		// Print out the distance matrix in prettified format
-		print();
+		print(distances);
 
 		return distances;
 	}
@@ -85,46 +69,33 @@ public class Reader {
 
 	/**
 	 * Standalone function in order to strip the Edge Weight out of the file.
-	 * Does Sequential access of the file, so it's wasting quite a bit of time
+	 * Only reads the header of the file, which may be gzipped.
 	 * 
 	 * @param file
-	 * @return the edge weight type of the TSP
+	 *            the file that the data is in
+	 * @return the edge weight type of the TSP, null if it has none
+	 * @throws IOException
+	 *             if the file can't be read
 	 */
-	public static String getEdgeWeightType(String file) {
+	public static String getEdgeWeightType(String file) throws IOException {
 
-		file = "data/" + file;
+		File problem = TSPLIBParser.locate(new File("data", file));
+		TSPLIBParser.Header header = new TSPLIBParser.Header(
+				TSPLIBParser.problemName(problem));
 
+		BufferedReader in = new BufferedReader(new InputStreamReader(
+				TSPLIBParser.open(problem), "US-ASCII"));
 		try {
-			BufferedReader in = new BufferedReader(new FileReader(file));
-
-			String input = null;
-			try {
-				while ((input = in.readLine()) != null) {
-
-					// Gather the distance function of the problem
-					if (input.contains("EDGE_WEIGHT_TYPE")) {
-						Pattern p = Pattern
-								.compile("EDGE_WEIGHT_TYPE : (.+)");
-						Matcher m = p.matcher(input);
-
-						// Grab the string that matches the edge weight type
-						if (m.matches()) {
-							return m.group(1);
-						} else {
-							return null;
-						}
-
-					}
-				}
-			} catch (IOException e) {
-				e.printStackTrace();
+			String line;
+			while ((line = in.readLine()) != null && !header.read(line)
+					&& header.edgeWeightType == null) {
+				// Up to the EDGE_WEIGHT_TYPE
 			}
-		} catch (FileNotFoundException e) {
-			e.printStackTrace();
+		} finally {
+			in.close();
 		}
 
-		return null;
-
+		return header.edgeWeightType;
 	}
 
 
@@ -135,135 +106,126 @@ public class Reader {
 	 * 
 	 * @param args
 	 */
-	public static void main(String[] args) {
+	public static void main(String[] args) throws IOException {
 
-		isData = false;
-		counter = 0;
+		String file;
 
 		// Get the coordinates from a file given on the command line
 		if (args.length > 0) {
-			// Get the coordinates from the file. Store in an Arraylist
-			stripCoordinates(args[0]);
-
-			// Calculate distance matrix for all the cities in the problem
-			calculateDistances();
-
-			print();
+			file = args[0];
 
 			// If no arguments are given, just print a message.
 		} else {
 			System.out.print("Enter the file as your argument: ");
 			Scanner scan = new Scanner(System.in);
-
-			// Get the coordinates from the file. Store in an Arraylist
-			stripCoordinates(scan.nextLine());
-
-			// Calculate distance matrix for all the cities in the problem
-			calculateDistances();
-
-			print();
+			file = scan.nextLine();
 		}
 
+		// Get the coordinates and distances from the file, and print them
+		printDistances(read(file));
+
 		System.exit(0);
 	}
 
 
 	/**
-	 * Simply print out the distance matrix for the problem
+	 * Retrieves the whole TSP problem from the data file: the coordinates of
+	 * each city and the edge weight type.
+	 * 
+	 * @param file
+	 *            the file that the data is in
+	 * @return the TSP problem instance
+	 * @throws IOException
+	 *             if the file can't be read, or is not a complete TSPLIB
+	 *             problem
 	 */
-	public static void print() {
+	public static TSPInstance read(String file) throws IOException {
 
-		System.out.println("\nCorresponding distance matrix");
-		StringBuilder dataString = new StringBuilder();
-		dataString.append("\t");
-		// Iterate through the array, creating a prettified matrix
-		for (int i = 0; i < distances.length; i++) {
-			dataString.append((i) + ":\t");
-			for (int j = 0; j < distances.length; j++) {
-
-				dataString.append(distances[i][j] + "\t");
-
-				if (j == distances.length - 1) {
-					dataString.append("\n\t");
-				}
+		// Get the coordinates from the file. Store in an array of double
+		TSPInstance instance = stripCoordinates(file);
 
-			}
-		}
-		System.out.println("\n" + dataString.toString());
+		System.out.println();
+		return instance;
 	}
 
 
 	/**
-	 * Calculate the distances depending on the EDGE_WEIGHT_TYPE in the given
-	 * problem
+	 * Print out the coordinates of the problem, the same way they are printed
+	 * as they are read
+	 * 
+	 * @param instance
+	 *            the TSP problem instance
 	 */
-	private static void calculateDistances() {
-
-		// Pseudo-Euclidean measurement calculations
-		if (EdgeWeightType.equals("ATT")) {
-
-			// Iterate through each element in the array
-			for (int i = 0; i < data.length; i++) {
+	public static void printCoordinates(TSPInstance instance) {
 
-				// Iterate through the other elements in the array
-				for (int j = 0; j < data.length; j++) {
+		System.out.println("\nCoordinates of " + instance.getName());
+		for (int i = 0; i < instance.getDimension(); i++) {
+			System.out.println(instance.getX(i) + "\t" + instance.getY(i));
+		}
+		System.out.println();
+	}
 
-					// If we are comparing the same node, just set the distances
-					// to 0
-					if (i == j) {
-						distances[i][j] = 0;
 
-						// If we are on different cities, calculate the
-						// differences
-						// Derived from the TSPLIB documentation
-					} else {
-						xd = data[i][0] - data[j][0];
-						yd = data[i][1] - data[j][1];
+	/**
+	 * Simply print out the distance matrix for the problem, a row at a time
+	 * 
+	 * @param distances
+	 *            the distance matrix
+	 */
+	public static void print(double[][] distances) {
 
-						rij = (float) Math.sqrt(((xd * xd) + (yd * yd)) / 10.0);
-						tij = Math.round(rij);
-
-						if (tij < rij) {
-							distances[i][j] = tij + 1;
-						} else {
-							distances[i][j] = tij;
-						}
-					}
-				}
+		System.out.println("\nCorresponding distance matrix\n");
 
+		// Iterate through the array, creating a prettified matrix
+		StringBuilder dataString = new StringBuilder();
+		for (int i = 0; i < distances.length; i++) {
+			dataString.setLength(0);
+			dataString.append(i).append(':');
+			for (int j = 0; j < distances.length; j++) {
+				dataString.append('\t').append(distances[i][j]);
 			}
+			System.out.println(dataString);
+		}
+		System.out.println();
+	}
 
-			// Euclidean 2D measurement calculation
-		} else if (EdgeWeightType.equals("EUC_2D")) {
 
-			// Iterate through each element in the array
-			for (int i = 0; i < data.length; i++) {
+	/**
+	 * Print out the distance matrix for the problem without building it, so
+	 * that it can be printed for any number of cities
+	 * 
+	 * @param instance
+	 *            the TSP problem instance
+	 * @throws IOException
+	 */
+	public static void printDistances(TSPInstance instance) throws IOException {
 
-				// Iterate through the rest of the elements in the array
-				for (int j = 0; j < data.length; j++) {
+		System.out.println("\nCorresponding distance matrix\n");
+		new DistanceMatrixWriter(instance).writeText(
+				Channels.newChannel(System.out), 0, instance.getDimension());
+		System.out.println();
+	}
 
-					// If we are comparing the same node, just set the distances
-					// to 0
-					if (i == j) {
-						distances[i][j] = 0;
 
-						// If we are on different cities, calculate the
-						// differences
-						// Derived from the TSPLIB documentation
-					} else {
-						xd = data[i][0] - data[j][0];
-						yd = data[i][1] - data[j][1];
+	/**
+	 * Calculate the distances depending on the EDGE_WEIGHT_TYPE in the given
+	 * problem
+	 */
+	static double[][] calculateDistances(TSPInstance instance) {
 
-						distances[i][j] = Math.round(Math.sqrt((xd * xd)
-								+ (yd * yd)));
+		int cities = instance.getDimension();
+		double[][] distances = new double[cities][cities];
 
-					}
-				}
+		// Iterate through each element in the array
+		for (int i = 0; i < cities; i++) {
 
+			// Iterate through the other elements in the array
+			for (int j = 0; j < cities; j++) {
+				distances[i][j] = instance.distance(i, j);
 			}
-
 		}
 
+		return distances;
 	}
 
 
@@ -273,103 +235,176 @@ public class Reader {
 	 * 
 	 * @param file
 	 *            the file that the data is in
+	 * @return the TSP problem instance
+	 * @throws IOException
+	 *             if the file can't be read, or is not a complete TSPLIB
+	 *             problem
 	 */
-	private static void stripCoordinates(String file) {
+	private static TSPInstance stripCoordinates(String file)
+			throws IOException {
 
-		file = "data/" + file;
+		File problem = TSPLIBParser.locate(new File("data", file));
+		String name = TSPLIBParser.problemName(problem);
 
-		System.out.println("\nGrabbing the coordinates from " + file);
+		System.out.println("\nGrabbing the coordinates from " + problem);
 
+		BufferedReader in = new BufferedReader(new InputStreamReader(
+				TSPLIBParser.open(problem)));
 		try {
-			BufferedReader in = new BufferedReader(new FileReader(file));
+			return stripCoordinates(name, in, true);
+		} finally {
+			in.close();
+		}
+	}
+
+
+	/**
+	 * Reads a whole TSP problem in the TSPLIB format, e.g. one that was sent
+	 * to the JobServer, without printing anything.
+	 * 
+	 * @param name
+	 *            the name of the problem
+	 * @param in
+	 *            the TSPLIB text of the problem
+	 * @return the TSP problem instance
+	 * @throws IOException
+	 *             if the problem can't be read, or is not a complete TSPLIB
+	 *             problem
+	 */
+	public static TSPInstance read(String name, BufferedReader in)
+			throws IOException {
+
+		return stripCoordinates(name, in, false);
+	}
+
 
-			String input = null;
-			try {
+	/**
+	 * Reads a whole TSP problem in the TSPLIB format, printing each of the
+	 * coordinates as it is read, the way the Genetic Algorithm reads its
+	 * problems. Used by the ParserBenchmark.
+	 */
+	static TSPInstance readPrinting(String name, BufferedReader in)
+			throws IOException {
 
-				while ((input = in.readLine()) != null) {
+		return stripCoordinates(name, in, true);
+	}
 
-					// Trim whitespace from the beginning of the lines
-					input = input.trim();
 
-					// Replace three spaces with one space
-					input = input.replace("   ", " ");
+	/**
+	 * Strips the coordinates from the TSPLIB text, placing them in an array
+	 * representing a coordinate matrix
+	 * 
+	 * @param print
+	 *            true to print each of the coordinates as it is read
+	 */
+	private static TSPInstance stripCoordinates(String name, BufferedReader in,
+			boolean print) throws IOException {
 
-					// Replace two spaces with one space
-					input = input.replace("  ", " ");
+		double[][] data = null;
+		String EdgeWeightType = null;
+		boolean isData = false;
+		int counter = 0;
 
-					// Gather the dimension of the TSP problem
-					if (input.contains("DIMENSION") && !isData) {
+		String input = null;
+		try {
+			while ((input = in.readLine()) != null) {
 
-						Pattern p = Pattern.compile("(\\d+)");
-						Matcher m = p.matcher(input);
+				// Trim whitespace from the beginning of the lines
+				input = input.trim();
 
-						// Gather the number representing the dimension
-						if (m.find()) {
-							distances = new double[Integer
-									.parseInt(m.group(0))][Integer
-									.parseInt(m.group(0))];
+				// Replace three spaces with one space
+				input = input.replace("   ", " ");
 
-							data = new double[Integer
-									.parseInt(m.group(0))][2];
-						}
-					}
+				// Replace two spaces with one space
+				input = input.replace("  ", " ");
 
-					// Gather the distance function of the problem
-					if (input.contains("EDGE_WEIGHT_TYPE") && !isData) {
-						Pattern p = Pattern
-								.compile("EDGE_WEIGHT_TYPE : (.+)");
-						Matcher m = p.matcher(input);
+				// Gather the dimension of the TSP problem
+				if (input.contains("DIMENSION") && !isData) {
 
-						// Gather the string representing the edge weight type
-						if (m.matches()) {
-							EdgeWeightType = m.group(1);
-						}
+					Pattern p = Pattern.compile("(\\d+)");
+					Matcher m = p.matcher(input);
 
+					// Gather the number representing the dimension
+					if (m.find()) {
+						data = new double[Integer
+								.parseInt(m.group(0))][2];
 					}
+				}
+
+				// Gather the distance function of the problem
+				if (input.contains("EDGE_WEIGHT_TYPE") && !isData) {
+					Pattern p = Pattern
+							.compile("EDGE_WEIGHT_TYPE : (.+)");
+					Matcher m = p.matcher(input);
 
-					// Set the start of the data section
-					if (input.contains("NODE_COORD_SECTION") && !isData) {
-						isData = true; // We are now in the data section of
-										// the file
+					// Gather the string representing the edge weight type
+					if (m.matches()) {
+						EdgeWeightType = m.group(1);
 					}
 
-					// If we are now in the data section, save the
-					// coordinates
-					else if (isData) {
+				}
 
-						// If not end of file, then save coordinates
-						if (!input.equals("EOF")) {
+				// Set the start of the data section
+				if (input.contains("NODE_COORD_SECTION") && !isData) {
+					isData = true; // We are now in the data section of
+									// the file
+				}
+
+				// If we are now in the data section, save the
+				// coordinates
+				else if (isData) {
+
+					// Nothing but whitespace may follow the end of file
+					if (input.equals("EOF")) {
+						break;
+					}
 
-							String[] coordinates = input.split(" ");
+					// Otherwise save the coordinates
+					if (input.length() > 0) {
 
-							coordinateArray = new double[2];
+						String[] coordinates = input.split(" ");
 
-							// Temporary array for the coordinates - primitive
-							// array
-							// Represents the X coordinate for the city
-							coordinateArray[0] = Double
-									.parseDouble(coordinates[1]);
-							// Represents the Y coordinate for the city
-							coordinateArray[1] = Double
-									.parseDouble(coordinates[2]);
+						double[] coordinateArray = new double[2];
 
+						// Temporary array for the coordinates - primitive
+						// array
+						// Represents the X coordinate for the city
+						coordinateArray[0] = Double
+								.parseDouble(coordinates[1]);
+						// Represents the Y coordinate for the city
+						coordinateArray[1] = Double
+								.parseDouble(coordinates[2]);
+
+						if (print) {
 							System.out.println(coordinateArray[0] + "\t"
 									+ coordinateArray[1]);
+						}
 
-							// Add the current city to the distance matrix
-							data[counter++] = coordinateArray;
+						// Add the current city to the distance matrix
+						data[counter++] = coordinateArray;
 
-						}
 					}
-
 				}
-			} catch (IOException e) {
-				e.printStackTrace();
+
 			}
-		} catch (FileNotFoundException e) {
-			//
-			e.printStackTrace();
+		} catch (RuntimeException e) {
+			// A malformed number, or more cities than the dimension
+			throw new IOException("Malformed TSP problem " + name + " near: "
+					+ input, e);
+		}
+
+		if (data == null || EdgeWeightType == null || counter < data.length) {
+			throw new IOException("Incomplete TSP problem " + name
+					+ ", it needs a DIMENSION, an EDGE_WEIGHT_TYPE and a "
+					+ "NODE_COORD_SECTION with every city");
+		}
+
+		// Only these have a distance function
+		if (DistanceKernel.typeOf(EdgeWeightType) == DistanceKernel.UNKNOWN) {
+			throw new IOException("Unsupported EDGE_WEIGHT_TYPE "
+					+ EdgeWeightType);
 		}
 
+		return new TSPInstance(name, EdgeWeightType, data);
 	}
 }
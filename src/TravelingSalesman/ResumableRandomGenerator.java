@@ -0,0 +1,83 @@
+package TravelingSalesman;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jgap.impl.StockRandomGenerator;
+
+/**
+ * The random generator of every TravelingSalesman. It is the same linear
+ * congruential generator as java.util.Random - same seed, same numbers - but
+ * its 48 bits of state can be read and set again, so that a checkpointed run
+ * draws exactly the numbers after it is resumed that it would have drawn had
+ * it never stopped. Neither java.util.Random nor JGAP's StockRandomGenerator
+ * give their state away, and StockRandomGenerator reseeds itself from the clock
+ * when it is deserialized.
+ *
+ * Like java.util.Random it can be shared between threads.
+ *
+ * @author Aaron Foltz
+ */
+public class ResumableRandomGenerator extends StockRandomGenerator {
+
+	// The constants of java.util.Random
+	private static final long	ADDEND				= 0xBL;
+	private static final long	MASK				= (1L << 48) - 1;
+	private static final long	MULTIPLIER			= 0x5DEECE66DL;
+
+	private static final long	serialVersionUID	= 1L;
+
+	// Set by setSeed, which the constructor of java.util.Random already calls,
+	// so it has no initializer of its own
+	private AtomicLong			m_state;
+
+
+	/**
+	 * @return the state of the generator, for setState
+	 */
+	public long getState() {
+
+		return m_state.get();
+	}
+
+
+	/**
+	 * Seed the generator the way java.util.Random does
+	 */
+	@Override
+	public synchronized void setSeed(long a_seed) {
+
+		// Clears the next gaussian that java.util.Random keeps
+		super.setSeed(a_seed);
+
+		if (m_state == null) {
+			m_state = new AtomicLong();
+		}
+		m_state.set((a_seed ^ MULTIPLIER) & MASK);
+	}
+
+
+	/**
+	 * Put the generator back into a state returned by getState
+	 *
+	 * @param a_state
+	 *            sic
+	 */
+	public void setState(long a_state) {
+
+		m_state.set(a_state & MASK);
+	}
+
+
+	@Override
+	protected int next(int a_bits) {
+
+		long state;
+		long next;
+		do {
+			state = m_state.get();
+			next = (state * MULTIPLIER + ADDEND) & MASK;
+		} while (!m_state.compareAndSet(state, next));
+
+		return (int) (next >>> (48 - a_bits));
+	}
+}
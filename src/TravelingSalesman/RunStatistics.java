@@ -0,0 +1,133 @@
+package TravelingSalesman;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Collects the average and best information over a number of runs of the same
+ * TSP problem, and prints it out at the end. Used by both TravelingSalesman and
+ * MultiRunDriver, so the numbers come out the same no matter how the runs were
+ * made.
+ *
+ * @author Aaron Foltz
+ */
+public class RunStatistics {
+
+	// Collect average and best information for the TSP instances
+	private int			average				= 0;
+	private double		averagePercent		= 0;
+	private double		averageRunningTime	= 0;
+	private int			bestOverall			= Integer.MAX_VALUE;
+
+	private final int	iterations;
+	private final int	optimalTour;
+
+
+	/**
+	 * @param iterations
+	 *            the number of runs that the averages are taken over
+	 * @param optimalTour
+	 *            the optimal tour length of the problem
+	 */
+	public RunStatistics(int iterations, int optimalTour) {
+
+		this.iterations = iterations;
+		this.optimalTour = optimalTour;
+	}
+
+
+	/**
+	 * Add the results of a single run
+	 *
+	 * @param bestFitness
+	 *            fitness of the best chromosome found during the run
+	 * @param optimalFitness
+	 *            fitness of the chromosome returned by the run
+	 * @param runningTime
+	 *            running time of the run in seconds
+	 */
+	public synchronized void add(double bestFitness, double optimalFitness,
+			float runningTime) {
+
+		// Save the best overall chromosome - over ALL of the TSP
+		// instances
+		if (bestOverall > bestFitness) {
+			bestOverall = (int) bestFitness;
+		}
+
+		// --------------------------------------------- //
+		// Keep an average fitness value, percentage, and running time
+		average += bestFitness;
+		averagePercent += percentFromOptimal(optimalFitness);
+		averageRunningTime += runningTime;
+		// --------------------------------------------- /
+	}
+
+
+	/**
+	 * @param fitness
+	 *            the fitness of a tour
+	 * @return how far the tour is from the optimal tour, in percent
+	 */
+	public double percentFromOptimal(double fitness) {
+
+		return (100 * ((fitness - optimalTour) / fitness));
+	}
+
+
+	/**
+	 * Print out the results over all of the runs
+	 */
+	public synchronized void print() {
+
+		System.out
+				.println("\n\n----------------------------------------------\nAVERAGE: "
+						+ (average / iterations));
+		System.out.println("AVERAGE PERCENT: " + (averagePercent / iterations));
+		System.out.println("AVERAGE RUNNINGTIME: "
+				+ (averageRunningTime / iterations));
+		System.out.println("BEST: " + bestOverall);
+		System.out.println("PERCENTAGE: "
+				+ ((float) (100 * (bestOverall - optimalTour) / bestOverall)));
+	}
+
+
+	/**
+	 * Write the results of a single run to the data file
+	 *
+	 * @param writer
+	 *            the writer of the data file
+	 * @param optimalFitness
+	 *            fitness of the chromosome returned by the run
+	 * @param runningTime
+	 *            running time of the run in seconds
+	 * @throws IOException
+	 */
+	public void writeRun(Writer writer, double optimalFitness,
+			float runningTime) throws IOException {
+
+		writer.write((int) optimalFitness + "\t" + runningTime + " seconds"
+				+ "\t");
+		writer.write(percentFromOptimal(optimalFitness) + "\n\n");
+	}
+
+
+	/**
+	 * Write out the average and best run to the data file
+	 *
+	 * @param writer
+	 *            the writer of the data file
+	 * @throws IOException
+	 */
+	public synchronized void write(Writer writer) throws IOException {
+
+		writer.write("\n--------------------------------------------------\n");
+		writer.write("AVERAGE: " + (average / iterations) + "\n");
+		writer.write("AVERAGE PERCENT: " + (averagePercent / iterations) + "\n");
+		writer.write("AVERAGE RUNNINGTIME: "
+				+ (averageRunningTime / iterations) + "\n");
+		writer.write("BEST: " + bestOverall + "\n\n");
+		writer.write("PERCENTAGE: "
+				+ ((float) (100 * (bestOverall - optimalTour) / bestOverall)));
+	}
+}
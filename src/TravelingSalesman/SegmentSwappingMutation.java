@@ -281,11 +281,11 @@ public class SegmentSwappingMutation
 
 		// Choose two random genes and their following edges
 		int gene1 = (m_startOffset)
-				+ (int) (Math.random() * (((getConfiguration()
+				+ (int) (a_generator.nextDouble() * (((getConfiguration()
 						.getChromosomeSize() - 2) - (m_startOffset)) + 1));
 		int gene2 = gene1 + 1;
 		int gene3 = (m_startOffset)
-				+ (int) (Math.random() * (((getConfiguration()
+				+ (int) (a_generator.nextDouble() * (((getConfiguration()
 						.getChromosomeSize() - 2) - (m_startOffset)) + 1));
 		int gene4 = gene3 + 1;
 
@@ -0,0 +1,465 @@
+package TravelingSalesman;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * An on-disk store of the best tours found for each problem, so that a problem
+ * that has been solved before can be answered straight away, or solved again
+ * starting from its best tours instead of from scratch.
+ *
+ * Problems are told apart by a fingerprint of their content - a SHA-256 of the
+ * edge weight type and the coordinates of the cities - not by their name or
+ * file, so the same problem read from two different files is the same entry.
+ * Each entry keeps the few best distinct tours ever put into it, the elite, in
+ * a file of its own named after the fingerprint: the tours are delta encoded
+ * with the TourCodec, followed by a CRC32. Their costs are worked out from the
+ * problem when they are put in, and are not taken on trust.
+ *
+ * The store holds at most a given number of entries. Reading an entry marks it
+ * as used; when there are too many, the entries used longest ago are deleted.
+ * Files are replaced with a rename, so several programs can share one store,
+ * although two of them putting tours into the same entry at the same moment
+ * may lose the tours of one of them.
+ *
+ * @author Aaron Foltz
+ */
+public class SolutionCache {
+
+	public static final int						DEFAULT_ENTRIES	= 256;
+
+	// The number of tours kept for each problem
+	public static final int						ELITE_SIZE		= 8;
+
+	private static final String					EXTENSION		= ".sol";
+	private static final char[]					HEX				= "0123456789abcdef"
+																		.toCharArray();
+
+	// "TSPS"
+	private static final int					MAGIC			= 0x54535053;
+	private static final int					VERSION			= 1;
+
+	private final File							directory;
+
+	// Fingerprints that have been worked out, until the problem is let go of
+	private final Map<TSPInstance, String>		fingerprints	= new WeakHashMap<TSPInstance, String>();
+
+	private final int							maxEntries;
+
+
+	/**
+	 * The best tours of a problem, best first
+	 */
+	public static final class Entry {
+
+		private final double[]	costs;
+		private final int[][]	tours;
+
+
+		Entry(int[][] tours, double[] costs) {
+
+			this.tours = tours;
+			this.costs = costs;
+		}
+
+
+		/**
+		 * @return the cost of the best tour
+		 */
+		public double getCost() {
+
+			return costs[0];
+		}
+
+
+		/**
+		 * @return the costs of the tours, best first; not copied
+		 */
+		public double[] getCosts() {
+
+			return costs;
+		}
+
+
+		/**
+		 * @return the best tour; not copied
+		 */
+		public int[] getTour() {
+
+			return tours[0];
+		}
+
+
+		/**
+		 * @return the tours, best first; not copied
+		 */
+		public int[][] getTours() {
+
+			return tours;
+		}
+	}
+
+
+	/**
+	 * @param directory
+	 *            the directory of the store, made if it isn't there
+	 * @param maxEntries
+	 *            the most problems kept at once
+	 */
+	public SolutionCache(File directory, int maxEntries) {
+
+		this.directory = directory;
+		this.maxEntries = Math.max(1, maxEntries);
+	}
+
+
+	/**
+	 * @return the directory of the store used when none is given
+	 */
+	public static File defaultDirectory() {
+
+		return new File(System.getProperty("user.home"), ".tsp-solutions");
+	}
+
+
+	/**
+	 * @return the fingerprint of the problem, a SHA-256 of its edge weight
+	 *         type and coordinates as hex
+	 */
+	public static String fingerprint(TSPInstance instance) {
+
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException(ex);
+		}
+
+		digest.update(String.valueOf(instance.getEdgeWeightType()).getBytes(
+				Charset.forName("UTF-8")));
+
+		ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+		buffer.putInt(instance.getDimension());
+		for (int i = 0; i < instance.getDimension(); i++) {
+			if (buffer.remaining() < 16) {
+				digest.update(buffer.array(), 0, buffer.position());
+				buffer.clear();
+			}
+			buffer.putDouble(instance.getX(i));
+			buffer.putDouble(instance.getY(i));
+		}
+		digest.update(buffer.array(), 0, buffer.position());
+
+		byte[] hash = digest.digest();
+		char[] hex = new char[hash.length * 2];
+		for (int i = 0; i < hash.length; i++) {
+			hex[2 * i] = HEX[(hash[i] >> 4) & 0xf];
+			hex[2 * i + 1] = HEX[hash[i] & 0xf];
+		}
+		return new String(hex);
+	}
+
+
+	/**
+	 * Look up the best tours of the problem, and mark its entry as used
+	 *
+	 * @param instance
+	 *            the problem
+	 * @return the best tours of the problem, null if there are none
+	 */
+	public Entry get(TSPInstance instance) {
+
+		File file = fileOf(instance);
+		if (!file.isFile()) {
+			return null;
+		}
+
+		try {
+			Entry entry = read(file, instance.getDimension());
+			file.setLastModified(System.currentTimeMillis());
+			return entry;
+		} catch (IOException ex) {
+			// A damaged entry is as good as none
+			file.delete();
+			return null;
+		}
+	}
+
+
+	/**
+	 * Put tours of the problem into its entry. They are kept if they are
+	 * among the best distinct tours of the problem so far; tours that don't
+	 * visit every city exactly once are left out.
+	 *
+	 * @param instance
+	 *            the problem
+	 * @param tours
+	 *            the tours, in any order
+	 * @throws IOException
+	 *             if the entry can't be written
+	 */
+	public synchronized void put(TSPInstance instance, int[][] tours)
+			throws IOException {
+
+		List<int[]> candidates = new ArrayList<int[]>();
+		final List<Double> costs = new ArrayList<Double>();
+
+		Entry existing = get(instance);
+		if (existing != null) {
+			for (int i = 0; i < existing.getTours().length; i++) {
+				candidates.add(existing.getTours()[i]);
+				costs.add(existing.getCosts()[i]);
+			}
+		}
+		int old = candidates.size();
+
+		for (int[] tour : tours) {
+			if (TourCodec.isTour(tour, instance.getDimension())) {
+				int[] rotated = rotate(tour);
+				candidates.add(rotated);
+				costs.add(cost(instance, rotated));
+			}
+		}
+		if (candidates.size() == old) {
+			return;
+		}
+
+		// Best first, leaving out the tours that are already kept
+		Integer[] order = new Integer[candidates.size()];
+		for (int i = 0; i < order.length; i++) {
+			order[i] = i;
+		}
+		Arrays.sort(order, new Comparator<Integer>() {
+
+			@Override
+			public int compare(Integer a, Integer b) {
+
+				return Double.compare(costs.get(a), costs.get(b));
+			}
+		});
+
+		List<int[]> elite = new ArrayList<int[]>();
+		List<Double> eliteCosts = new ArrayList<Double>();
+		for (int i = 0; i < order.length && elite.size() < ELITE_SIZE; i++) {
+			int[] tour = candidates.get(order[i]);
+			boolean duplicate = false;
+			for (int j = 0; j < elite.size() && !duplicate; j++) {
+				duplicate = (eliteCosts.get(j).equals(costs.get(order[i])) && Arrays
+						.equals(elite.get(j), tour));
+			}
+			if (!duplicate) {
+				elite.add(tour);
+				eliteCosts.add(costs.get(order[i]));
+			}
+		}
+
+		double[] eliteCost = new double[eliteCosts.size()];
+		for (int i = 0; i < eliteCost.length; i++) {
+			eliteCost[i] = eliteCosts.get(i);
+		}
+
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new IOException("Can't make " + directory);
+		}
+		write(fileOf(instance), instance.getDimension(), new Entry(
+				elite.toArray(new int[elite.size()][]), eliteCost));
+		evict();
+	}
+
+
+	/**
+	 * @return the length of the tour, back to its first city
+	 */
+	private static double cost(TSPInstance instance, int[] tour) {
+
+		double cost = 0;
+		for (int i = 0; i < tour.length - 1; i++) {
+			cost += instance.distance(tour[i], tour[i + 1]);
+		}
+		return cost + instance.distance(tour[tour.length - 1], tour[0]);
+	}
+
+
+	/**
+	 * Delete the entries used longest ago, until there are few enough
+	 */
+	private void evict() {
+
+		File[] files = directory.listFiles();
+		if (files == null) {
+			return;
+		}
+
+		List<File> entries = new ArrayList<File>();
+		for (File file : files) {
+			if (file.getName().endsWith(EXTENSION)) {
+				entries.add(file);
+			}
+		}
+		if (entries.size() <= maxEntries) {
+			return;
+		}
+
+		// Read every time once, as a file may be touched while sorting
+		final Map<File, Long> used = new HashMap<File, Long>();
+		for (File file : entries) {
+			used.put(file, file.lastModified());
+		}
+		Collections.sort(entries, new Comparator<File>() {
+
+			@Override
+			public int compare(File a, File b) {
+
+				return Long.compare(used.get(a), used.get(b));
+			}
+		});
+
+		for (int i = 0; i < entries.size() - maxEntries; i++) {
+			entries.get(i).delete();
+		}
+	}
+
+
+	/**
+	 * @return the file of the entry of the problem
+	 */
+	private File fileOf(TSPInstance instance) {
+
+		String fingerprint;
+		synchronized (fingerprints) {
+			fingerprint = fingerprints.get(instance);
+		}
+		if (fingerprint == null) {
+			fingerprint = fingerprint(instance);
+			synchronized (fingerprints) {
+				fingerprints.put(instance, fingerprint);
+			}
+		}
+		return new File(directory, fingerprint + EXTENSION);
+	}
+
+
+	private static Entry read(File file, int cities) throws IOException {
+
+		byte[] bytes = Files.readAllBytes(file.toPath());
+		if (bytes.length < 16) {
+			throw new IOException(file + " is not a solution");
+		}
+
+		// The checksum covers everything but itself
+		CRC32 crc = new CRC32();
+		crc.update(bytes, 0, bytes.length - 8);
+		if (ByteBuffer.wrap(bytes, bytes.length - 8, 8).getLong() != crc
+				.getValue()) {
+			throw new IOException(file + " is corrupted");
+		}
+
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(
+				bytes, 0, bytes.length - 8));
+		if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+			throw new IOException(file + " is not a solution");
+		}
+		if (TourCodec.readVarInt(in) != cities) {
+			throw new IOException(file + " is of another problem");
+		}
+
+		int count = TourCodec.readVarInt(in);
+		if (count == 0 || count > ELITE_SIZE) {
+			throw new IOException(file + " is not a solution");
+		}
+
+		int[][] tours = new int[count][];
+		double[] costs = new double[count];
+		for (int i = 0; i < count; i++) {
+			costs[i] = in.readDouble();
+			tours[i] = TourCodec.readTour(in, cities);
+			if (!TourCodec.isTour(tours[i], cities)) {
+				throw new IOException(file + " is corrupted");
+			}
+		}
+
+		return new Entry(tours, costs);
+	}
+
+
+	/**
+	 * @return the tour, starting at city 0 like every tour of the Genetic
+	 *         Algorithm
+	 */
+	private static int[] rotate(int[] tour) {
+
+		int start = 0;
+		while (tour[start] != 0) {
+			start++;
+		}
+
+		int[] rotated = new int[tour.length];
+		System.arraycopy(tour, start, rotated, 0, tour.length - start);
+		System.arraycopy(tour, 0, rotated, tour.length - start, start);
+		return rotated;
+	}
+
+
+	private static void write(File file, int cities, Entry entry)
+			throws IOException {
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		CRC32 crc = new CRC32();
+		DataOutputStream out = new DataOutputStream(new CheckedOutputStream(
+				bytes, crc));
+
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		TourCodec.writeVarInt(out, cities);
+		TourCodec.writeVarInt(out, entry.getTours().length);
+		for (int i = 0; i < entry.getTours().length; i++) {
+			out.writeDouble(entry.getCosts()[i]);
+			TourCodec.writeTour(out, entry.getTours()[i]);
+		}
+
+		// The checksum covers everything written so far
+		out.flush();
+		out.writeLong(crc.getValue());
+		out.flush();
+
+		File temporary = File.createTempFile(file.getName(), ".tmp",
+				file.getParentFile());
+		try {
+			BufferedOutputStream stream = new BufferedOutputStream(
+					new FileOutputStream(temporary));
+			try {
+				bytes.writeTo(stream);
+			} finally {
+				stream.close();
+			}
+
+			Files.move(temporary.toPath(), file.toPath(),
+					StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			temporary.delete();
+		}
+	}
+}
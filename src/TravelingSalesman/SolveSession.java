@@ -0,0 +1,219 @@
+package TravelingSalesman;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Everything about a problem that can be worked out once and then shared by
+ * every run of the Genetic Algorithm on it: the distance matrix, the candidate
+ * lists of nearest neighbours (found with their spatial grid), the Hilbert
+ * order of the cities, and the list of cities that Stochastic Initialization
+ * starts every chromosome from. A session is immutable once built - the
+ * candidate lists and Hilbert order are only built the first time they are
+ * asked for - so any number of runs, one after the other or at the same time
+ * on different threads, can share it, and each of them only pays for its own
+ * evolution. No operator of the Genetic Algorithm asks for the candidate lists
+ * or the Hilbert order yet, so a solve doesn't pay for them at all.
+ *
+ * What can't be shared stays with each run: the JGAP Configuration, its
+ * sample chromosome and population, whose genes belong to that
+ * configuration, and the random generator.
+ *
+ * The distance matrix holds the TSPLIB distances, which are whole numbers, as
+ * ints. It is only built for problems of up to MATRIX_LIMIT cities (16 MB);
+ * larger problems work their distances out from the coordinates, as before.
+ *
+ * @author Aaron Foltz
+ */
+public class SolveSession {
+
+	// The largest problem that gets a distance matrix
+	public static final int				MATRIX_LIMIT	= 2048;
+
+	private volatile CandidateLists		candidates;
+	private final int					cities;
+
+	// The cities but the first, where every tour starts, in order
+	private final List<Integer>			cityList;
+
+	private final TSPInstance			instance;
+
+	// Row-major, null for a problem larger than MATRIX_LIMIT
+	private final int[]					matrix;
+
+	private volatile int[]				order;
+
+
+	/**
+	 * Build the session of a problem, with its distance matrix
+	 *
+	 * @param instance
+	 *            the problem
+	 */
+	public SolveSession(TSPInstance instance) {
+
+		this(instance, null, null);
+	}
+
+
+	/**
+	 * Build the session of a problem, taking over the candidate lists of
+	 * CandidateLists.DEFAULT_K neighbours and the Hilbert order if they were
+	 * loaded with it
+	 *
+	 * @param preprocessed
+	 *            the problem, and its preprocessing if it has any
+	 */
+	public SolveSession(BinaryInstance preprocessed) {
+
+		this(preprocessed.getInstance(), defaultCandidates(preprocessed
+				.getCandidates()), preprocessed.getHilbertOrder());
+	}
+
+
+	private SolveSession(TSPInstance instance, CandidateLists candidates,
+			int[] order) {
+
+		this.instance = instance;
+		this.candidates = candidates;
+		this.order = order;
+		cities = instance.getDimension();
+
+		List<Integer> list = new ArrayList<Integer>(Math.max(0, cities - 1));
+		for (int i = 1; i < cities; i++) {
+			list.add(i);
+		}
+		cityList = Collections.unmodifiableList(list);
+
+		if (cities <= MATRIX_LIMIT) {
+			matrix = new int[cities * cities];
+			for (int i = 0; i < cities; i++) {
+				for (int j = i; j < cities; j++) {
+					int distance = (int) instance.distance(i, j);
+					matrix[i * cities + j] = distance;
+					matrix[j * cities + i] = distance;
+				}
+			}
+		} else {
+			matrix = null;
+		}
+	}
+
+
+	/**
+	 * @return the candidate lists if they hold CandidateLists.DEFAULT_K
+	 *         neighbours per city, null otherwise
+	 */
+	private static CandidateLists defaultCandidates(CandidateLists candidates) {
+
+		if (candidates != null && candidates.getK() == CandidateLists.DEFAULT_K) {
+			return candidates;
+		}
+		return null;
+	}
+
+
+	/**
+	 * @return the heap taken by the distance matrix of a problem of the given
+	 *         number of cities, in bytes
+	 */
+	public static long matrixBytes(int cities) {
+
+		return (cities <= MATRIX_LIMIT) ? 4L * cities * cities : 0;
+	}
+
+
+	/**
+	 * @return a new run of the Genetic Algorithm on the problem of this
+	 *         session
+	 */
+	public TravelingSalesman createSalesman() {
+
+		return new TravelingSalesman(this);
+	}
+
+
+	/**
+	 * Return the distance between two cities, from the distance matrix if
+	 * there is one
+	 *
+	 * @param a
+	 *            first city
+	 * @param b
+	 *            second city
+	 * @return the distance between the two cities
+	 */
+	public double distance(int a, int b) {
+
+		if (matrix != null) {
+			return matrix[a * cities + b];
+		}
+		return instance.distance(a, b);
+	}
+
+
+	/**
+	 * @return the candidate lists of the problem, with CandidateLists.DEFAULT_K
+	 *         neighbours per city, built the first time they are asked for
+	 */
+	public CandidateLists getCandidates() {
+
+		CandidateLists lists = candidates;
+		if (lists == null) {
+			synchronized (this) {
+				lists = candidates;
+				if (lists == null) {
+					lists = CandidateLists.build(instance,
+							CandidateLists.DEFAULT_K);
+					candidates = lists;
+				}
+			}
+		}
+		return lists;
+	}
+
+
+	/**
+	 * @return the cities but city 0 in order, unmodifiable
+	 */
+	public List<Integer> getCityList() {
+
+		return cityList;
+	}
+
+
+	/**
+	 * @return the Hilbert order of the cities, worked out the first time it is
+	 *         asked for; not copied
+	 */
+	public int[] getHilbertOrder() {
+
+		int[] cached = order;
+		if (cached == null) {
+			synchronized (this) {
+				cached = order;
+				if (cached == null) {
+					cached = HilbertOrder.compute(instance);
+					order = cached;
+				}
+			}
+		}
+		return cached;
+	}
+
+
+	public TSPInstance getInstance() {
+
+		return instance;
+	}
+
+
+	/**
+	 * @return true if distances come from a distance matrix
+	 */
+	public boolean hasDistanceMatrix() {
+
+		return matrix != null;
+	}
+}
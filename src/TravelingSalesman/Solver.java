@@ -0,0 +1,330 @@
+package TravelingSalesman;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.BiConsumer;
+
+import org.jgap.IChromosome;
+
+/**
+ * A programmatic way to solve TSP instances, for embedding the Genetic
+ * Algorithm in other programs instead of going through the Scanner-driven
+ * TravelingSalesman.main.
+ *
+ * Every call to solve makes a new TravelingSalesman for the instance, and runs
+ * it on the executor that was handed to the Solver, so the caller decides how
+ * many solves run at the same time. The returned future completes with the
+ * best tour and its cost. A caller that solves the same problem again and
+ * again can hand in a SolveSession instead of the instance, so the distance
+ * matrix and the rest of the preprocessing are only built once.
+ *
+ * Cancelling the future cancels the solve cooperatively: the evolution loop
+ * notices it after the generation (or child) that it is working on, and the
+ * thread is handed back to the executor. A solve that hasn't started yet when
+ * it is cancelled never starts at all.
+ *
+ * A problem of fewer than MIN_CITIES cities is rejected up front with an
+ * IllegalArgumentException, as there is nothing to evolve.
+ *
+ * With an AdmissionController, every solve is let in by it before it starts,
+ * and may be downgraded, made to wait for memory, or rejected with a
+ * RejectedExecutionException. A solve waiting for memory holds no thread: it
+ * is handed to the executor once it has been let in, on the thread that gave
+ * the memory back.
+ *
+ * With a SolutionCache, a problem that has been solved before is looked up
+ * first, on the calling thread: if its best tour is at least as short as the
+ * target cost of the parameters, the returned future is already complete.
+ * Otherwise the solve starts from the best tours of the earlier solves, and
+ * its own best tours are put into the cache before its future completes.
+ *
+ * @author Aaron Foltz
+ */
+public class Solver {
+
+	// The fewest cities the Genetic Algorithm can evolve tours of
+	public static final int				MIN_CITIES	= 4;
+
+	private final AdmissionController	admission;
+	private final SolutionCache			cache;
+	private final Executor				executor;
+
+
+	/**
+	 * @param executor
+	 *            runs the solves, one task per solve
+	 */
+	public Solver(Executor executor) {
+
+		this(executor, null);
+	}
+
+
+	/**
+	 * @param executor
+	 *            runs the solves, one task per solve
+	 * @param admission
+	 *            lets the solves in within a heap budget, or null to let every
+	 *            solve in
+	 */
+	public Solver(Executor executor, AdmissionController admission) {
+
+		this(executor, admission, null);
+	}
+
+
+	/**
+	 * @param executor
+	 *            runs the solves, one task per solve
+	 * @param admission
+	 *            lets the solves in within a heap budget, or null to let every
+	 *            solve in
+	 * @param cache
+	 *            the best tours of earlier solves, or null to always solve
+	 *            from scratch
+	 */
+	public Solver(Executor executor, AdmissionController admission,
+			SolutionCache cache) {
+
+		this.executor = executor;
+		this.admission = admission;
+		this.cache = cache;
+	}
+
+
+	/**
+	 * Make sure that the Genetic Algorithm can solve the problem, before any
+	 * memory is reserved or anything is built for it
+	 *
+	 * @param instance
+	 *            the TSP problem to solve
+	 * @throws IllegalArgumentException
+	 *             if the problem has fewer than MIN_CITIES cities
+	 */
+	public static void checkSolvable(TSPInstance instance) {
+
+		if (instance.getDimension() < MIN_CITIES) {
+			throw new IllegalArgumentException("TSP problem "
+					+ instance.getName() + " has " + instance.getDimension()
+					+ " cities, the Genetic Algorithm needs at least "
+					+ MIN_CITIES);
+		}
+	}
+
+
+	/**
+	 * Solve the instance with the default parameters
+	 *
+	 * @param instance
+	 *            the TSP problem to solve
+	 * @return the future best tour of the problem
+	 * @throws IllegalArgumentException
+	 *             if the problem has fewer than MIN_CITIES cities
+	 */
+	public CompletableFuture<SolverResult> solve(TSPInstance instance) {
+
+		return solve(instance, new SolverParameters());
+	}
+
+
+	/**
+	 * Solve the instance on the executor
+	 *
+	 * @param instance
+	 *            the TSP problem to solve
+	 * @param parameters
+	 *            the parameters of the Genetic Algorithm
+	 * @return the future best tour of the problem, which can be cancelled
+	 * @throws IllegalArgumentException
+	 *             if the problem has fewer than MIN_CITIES cities
+	 */
+	public CompletableFuture<SolverResult> solve(TSPInstance instance,
+			SolverParameters parameters) {
+
+		return solve(instance, null, parameters);
+	}
+
+
+	/**
+	 * Solve the problem of a session on the executor, sharing the
+	 * preprocessing of the session with its other solves
+	 *
+	 * @param session
+	 *            the TSP problem to solve, with its preprocessing
+	 * @param parameters
+	 *            the parameters of the Genetic Algorithm
+	 * @return the future best tour of the problem, which can be cancelled
+	 * @throws IllegalArgumentException
+	 *             if the problem has fewer than MIN_CITIES cities
+	 */
+	public CompletableFuture<SolverResult> solve(SolveSession session,
+			SolverParameters parameters) {
+
+		return solve(session.getInstance(), session, parameters);
+	}
+
+
+	/**
+	 * @param session
+	 *            the session of the instance, null to build one on the solver
+	 *            thread once the solve has been admitted
+	 */
+	private CompletableFuture<SolverResult> solve(TSPInstance instance,
+			SolveSession session, SolverParameters parameters) {
+
+		checkSolvable(instance);
+
+		// A good enough tour from an earlier solve is the answer, and
+		// otherwise its best tours are where this solve starts from
+		SolutionCache.Entry cached = null;
+		if (cache != null) {
+			cached = cache.get(instance);
+			if (cached != null && cached.getCost() <= parameters.getTargetCost()) {
+				return CompletableFuture.completedFuture(new SolverResult(
+						cached.getTour(), cached.getCost(), 0, true));
+			}
+		}
+
+		// Without a session, the solve builds its own - with its distance
+		// matrix - on the solver thread once it has been admitted
+		final TravelingSalesman salesman = (session != null) ? session
+				.createSalesman() : new TravelingSalesman(instance);
+		parameters.applyTo(salesman);
+		if (cached != null) {
+			salesman.setInitialTours(cached.getTours());
+		}
+
+		// The solve waits for memory without a thread, and only goes to the
+		// executor once it has been let in
+		final CompletableFuture<AdmissionController.Admission> admitted = (admission != null) ? admission
+				.admit(salesman) : null;
+
+		final CompletableFuture<SolverResult> result = new CompletableFuture<SolverResult>() {
+
+			@Override
+			public boolean cancel(boolean mayInterruptIfRunning) {
+
+				// Let the evolution loop stop by itself, or the solve leave
+				// the line for heap
+				salesman.cancel();
+				if (admitted != null) {
+					admitted.cancel(mayInterruptIfRunning);
+				}
+				return super.cancel(mayInterruptIfRunning);
+			}
+		};
+
+		if (admitted == null) {
+			start(salesman, null, result);
+		} else if (admitted.isDone() && !admitted.isCompletedExceptionally()) {
+			// Let in straight away, so a full executor is the caller's to
+			// handle
+			start(salesman, admitted.join(), result);
+		} else {
+			admitted.whenComplete(
+					new BiConsumer<AdmissionController.Admission, Throwable>() {
+
+						@Override
+						public void accept(
+								AdmissionController.Admission admission,
+								Throwable ex) {
+
+							if (ex != null) {
+								result.completeExceptionally(ex);
+								return;
+							}
+
+							try {
+								start(salesman, admission, result);
+							} catch (RejectedExecutionException rejected) {
+								result.completeExceptionally(rejected);
+							}
+						}
+					});
+		}
+
+		return result;
+	}
+
+
+	/**
+	 * Run the solve on the executor, releasing its admission once it is done
+	 *
+	 * @param admitted
+	 *            the admission of the solve, or null
+	 * @throws RejectedExecutionException
+	 *             if the executor turns the solve away, after releasing its
+	 *             admission
+	 */
+	private void start(final TravelingSalesman salesman,
+			final AdmissionController.Admission admitted,
+			final CompletableFuture<SolverResult> result) {
+
+		try {
+			executor.execute(new Runnable() {
+
+				@Override
+				public void run() {
+
+					try {
+						if (!result.isDone()) {
+							result.complete(solveNow(salesman));
+						}
+					} catch (Throwable ex) {
+						result.completeExceptionally(ex);
+					} finally {
+						if (admitted != null) {
+							admitted.release();
+						}
+
+						// Reset the configuration of this thread so that the
+						// executor can run another solve on it
+						if (salesman.getConfiguration() != null) {
+							salesman.getConfiguration().reset();
+						}
+					}
+				}
+			});
+		} catch (RejectedExecutionException ex) {
+			if (admitted != null) {
+				admitted.release();
+			}
+			throw ex;
+		}
+	}
+
+
+	/**
+	 * Make the solve on the current thread
+	 */
+	private SolverResult solveNow(TravelingSalesman salesman) throws Exception {
+
+		long startTime = System.currentTimeMillis();
+
+		IChromosome best = salesman.findOptimalPath(null);
+
+		// The last generation isn't always the best one
+		IChromosome bestChromosome = salesman.getBestChromosome();
+		if (best == null
+				|| (bestChromosome != null && bestChromosome.getFitnessValue() < best
+						.getFitnessValue())) {
+			best = bestChromosome;
+		}
+
+		// The cache is only there to save time, so a solve never fails
+		// because of it
+		if (cache != null) {
+			try {
+				cache.put(salesman.getInstance(),
+						salesman.getBestTours(SolutionCache.ELITE_SIZE));
+			} catch (IOException ex) {
+				ex.printStackTrace();
+			}
+		}
+
+		return new SolverResult(TravelingSalesman.toTour(best),
+				best.getFitnessValue(), System.currentTimeMillis() - startTime);
+	}
+}
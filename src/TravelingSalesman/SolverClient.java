@@ -0,0 +1,116 @@
+package TravelingSalesman;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The thin command line client of the SolverDaemon. It sends a SOLVE request
+ * for every problem file it is given, all over the same connection, and prints
+ * each result as soon as the daemon streams it back:
+ *
+ * <problem file> OK <cost> <running time in ms> <tour ...>
+ *
+ * The client does no work of its own, so it starts and finishes quickly even
+ * though it is a JVM; the daemon has already paid for warming up.
+ *
+ * This program can be run as a standalone entity: java SolverClient [-socket
+ * <path>] [parameter=value ...] <problem file> ...
+ *
+ * java SolverClient timeBudget=50 data/wi29.tsp data/att48.tsp
+ *
+ * @author Aaron Foltz
+ */
+public class SolverClient {
+
+	private static final Charset	UTF8	= Charset.forName("UTF-8");
+
+
+	public static void main(String[] args) throws IOException {
+
+		Path socket = SolverDaemon.defaultSocket();
+		StringBuilder parameters = new StringBuilder();
+		List<String> files = new ArrayList<String>();
+
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("-socket") && i + 1 < args.length) {
+				socket = Paths.get(args[++i]);
+			} else if (args[i].contains("=")) {
+				parameters.append(' ').append(args[i]);
+			} else {
+				// The daemon doesn't share our working directory
+				files.add(new File(args[i]).getAbsolutePath());
+			}
+		}
+
+		if (files.isEmpty()) {
+			System.out.println("Usage: java SolverClient [-socket <path>] "
+					+ "[parameter=value ...] <problem file> ...");
+			System.exit(1);
+		}
+
+		System.exit(solve(socket, files, parameters.toString()));
+	}
+
+
+	/**
+	 * Send the requests, and print the results as they come back
+	 *
+	 * @return 0 if every problem was solved, 1 otherwise
+	 */
+	private static int solve(Path socket, List<String> files,
+			String parameters) throws IOException {
+
+		SocketChannel channel = SocketChannel.open(StandardProtocolFamily.UNIX);
+		try {
+			channel.connect(UnixDomainSocketAddress.of(socket));
+
+			StringBuilder requests = new StringBuilder();
+			for (String file : files) {
+				requests.append("SOLVE ").append(SolverDaemon.quote(file))
+						.append(parameters).append('\n');
+			}
+
+			OutputStream out = Channels.newOutputStream(channel);
+			out.write(requests.toString().getBytes(UTF8));
+			out.flush();
+
+			// Tell the daemon that there are no more requests
+			channel.shutdownOutput();
+
+			BufferedReader in = new BufferedReader(new InputStreamReader(
+					Channels.newInputStream(channel), UTF8));
+
+			int status = 0;
+			int answered = 0;
+			String line;
+			while ((line = in.readLine()) != null) {
+				int space = line.indexOf(' ');
+				int number = Integer.parseInt(line.substring(0, space));
+				String answer = line.substring(space + 1);
+
+				if (!answer.startsWith("OK")) {
+					status = 1;
+				}
+				System.out.println(files.get(number - 1) + " " + answer);
+				answered++;
+			}
+
+			return (answered == files.size()) ? status : 1;
+
+		} finally {
+			channel.close();
+		}
+	}
+}
@@ -0,0 +1,466 @@
+package TravelingSalesman;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.ConnectException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiFunction;
+
+/**
+ * A resident solver process for scripted pipelines. The daemon listens on a
+ * Unix domain socket, so a SolverClient can hand it a problem without paying
+ * for JVM startup, JIT warm-up or parsing the problem again: the JIT has
+ * already compiled the Genetic Algorithm, and every problem that has been
+ * read is kept in a SolveSession, with its distance matrix, keyed by its path,
+ * until the file changes. Only the MAX_INSTANCES problems used last are kept,
+ * the others are read again when they come back. The best tours of every
+ * problem solved are kept on disk in the SolutionCache, so a problem solved
+ * again starts from them - or, when they already meet its targetCost, is
+ * answered straight away.
+ *
+ * The protocol is line based, in UTF-8. Each request line is
+ *
+ * SOLVE "<absolute path of the .tsp file>" [parameter=value ...]
+ *
+ * The path is quoted, with a backslash before any quote or backslash in it,
+ * so that it may hold spaces; a path without spaces may also be sent
+ * unquoted. The parameters are those of SolverParameters.set, and the results
+ * are streamed back as soon as each solve finishes, in whatever order that
+ * is:
+ *
+ * <request number> OK <cost> <running time in ms> <tour ...>
+ *
+ * <request number> ERROR <message>
+ *
+ * Requests are numbered from 1 on every connection. Once the client shuts
+ * down its side of the connection, the daemon sends the outstanding results
+ * and closes the connection.
+ *
+ * This program can be run as a standalone entity: java SolverDaemon [socket
+ * path] [solver threads] [warm-up problem name]
+ *
+ * @author Aaron Foltz
+ */
+public class SolverDaemon {
+
+	// Solves of the warm-up problem made before accepting connections
+	private static final int					WARM_UP_SOLVES	= 20;
+
+	// Problems kept with their preprocessing; each may hold a distance matrix
+	// of up to 16 MB
+	public static final int						MAX_INSTANCES	= 16;
+
+	private static final Charset				UTF8			= Charset
+																		.forName("UTF-8");
+
+	// Problems that have been read, with their preprocessing, by path
+	private final RecentInstances				m_instances		= new RecentInstances();
+
+	private final ExecutorService				m_solvers;
+	private final Solver						m_solver;
+
+
+	/**
+	 * A problem that has been read, and the state of its file at the time
+	 */
+	private static class CachedInstance {
+
+		final long			lastModified;
+		final long			length;
+		final SolveSession	session;
+
+
+		CachedInstance(SolveSession session, long lastModified, long length) {
+
+			this.session = session;
+			this.lastModified = lastModified;
+			this.length = length;
+		}
+	}
+
+
+	/**
+	 * The MAX_INSTANCES problems used last, the least recently used first
+	 */
+	private static class RecentInstances extends
+			LinkedHashMap<String, CachedInstance> {
+
+		private static final long	serialVersionUID	= 1L;
+
+
+		RecentInstances() {
+
+			super(16, .75f, true);
+		}
+
+
+		@Override
+		protected boolean removeEldestEntry(
+				Map.Entry<String, CachedInstance> eldest) {
+
+			return size() > MAX_INSTANCES;
+		}
+	}
+
+
+	/**
+	 * @param threads
+	 *            the number of solver threads
+	 */
+	public SolverDaemon(int threads) {
+
+		m_solvers = Executors.newFixedThreadPool(threads);
+		m_solver = new Solver(m_solvers, new AdmissionController(
+				AdmissionController.defaultBudget(), Long.MAX_VALUE),
+				new SolutionCache(SolutionCache.defaultDirectory(),
+						SolutionCache.DEFAULT_ENTRIES));
+	}
+
+
+	/**
+	 * @return the path quoted for a SOLVE request
+	 */
+	public static String quote(String path) {
+
+		StringBuilder quoted = new StringBuilder("\"");
+		for (char c : path.toCharArray()) {
+			if (c == '"' || c == '\\') {
+				quoted.append('\\');
+			}
+			quoted.append(c);
+		}
+		return quoted.append('"').toString();
+	}
+
+
+	/**
+	 * @return the socket path used when none is given
+	 */
+	public static Path defaultSocket() {
+
+		return Paths.get(System.getProperty("java.io.tmpdir"),
+				"tsp-solver.sock");
+	}
+
+
+	public static void main(String[] args) throws Exception {
+
+		Path socket = (args.length > 0) ? Paths.get(args[0]) : defaultSocket();
+		int threads = (args.length > 1) ? Integer.parseInt(args[1]) : Runtime
+				.getRuntime().availableProcessors();
+
+		SolverDaemon daemon = new SolverDaemon(threads);
+
+		if (args.length > 2) {
+			daemon.warmUp(new File("data", args[2].concat(".tsp"))
+					.getAbsolutePath());
+		}
+
+		daemon.serve(socket);
+	}
+
+
+	/**
+	 * @return true if something accepts connections on the socket, false if
+	 *         the socket file is stale
+	 */
+	private static boolean isAnswered(Path socket) throws IOException {
+
+		SocketChannel channel = SocketChannel.open(StandardProtocolFamily.UNIX);
+		try {
+			channel.connect(UnixDomainSocketAddress.of(socket));
+			return true;
+		} catch (ConnectException ex) {
+			return false;
+		} finally {
+			channel.close();
+		}
+	}
+
+
+	/**
+	 * Accept connections until the process is killed, serving each of them on
+	 * a thread of its own
+	 *
+	 * @param socket
+	 *            the path of the Unix domain socket
+	 * @throws IOException
+	 *             if the socket can't be bound, or another daemon is already
+	 *             running on it
+	 */
+	public void serve(final Path socket) throws IOException {
+
+		// A socket file left behind by an earlier daemon would stop the bind,
+		// but one that a daemon still answers on is not ours to take
+		if (Files.exists(socket)) {
+			if (isAnswered(socket)) {
+				throw new IOException("A solver daemon is already running on "
+						+ socket);
+			}
+			Files.delete(socket);
+		}
+
+		ServerSocketChannel server = ServerSocketChannel
+				.open(StandardProtocolFamily.UNIX);
+		server.bind(UnixDomainSocketAddress.of(socket));
+
+		Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+
+			@Override
+			public void run() {
+
+				try {
+					Files.deleteIfExists(socket);
+				} catch (IOException e) {
+					// Nothing left to do with it
+				}
+			}
+		}));
+
+		System.out.println("Solver daemon listening on " + socket);
+
+		ExecutorService connections = JobServer.newRequestExecutor();
+		while (true) {
+			final SocketChannel channel = server.accept();
+			connections.execute(new Runnable() {
+
+				@Override
+				public void run() {
+
+					try {
+						handle(channel);
+					} catch (IOException e) {
+						// The client went away
+					} finally {
+						try {
+							channel.close();
+						} catch (IOException e) {
+							// Nothing left to do with it
+						}
+					}
+				}
+			});
+		}
+	}
+
+
+	/**
+	 * Solve the problem a number of times, so that the JIT compiles the
+	 * Genetic Algorithm before the first real request arrives
+	 *
+	 * @param path
+	 *            the absolute path of the warm-up problem
+	 */
+	public void warmUp(String path) throws Exception {
+
+		long startTime = System.currentTimeMillis();
+
+		for (int i = 0; i < WARM_UP_SOLVES; i++) {
+			m_solver.solve(session(path), new SolverParameters()).get();
+		}
+
+		System.out.println("Warmed up in "
+				+ (System.currentTimeMillis() - startTime) + " ms");
+	}
+
+
+	/**
+	 * Read the requests of a connection, and stream back the results as they
+	 * finish
+	 */
+	private void handle(SocketChannel channel) throws IOException {
+
+		BufferedReader in = new BufferedReader(new InputStreamReader(
+				Channels.newInputStream(channel), UTF8));
+		final Writer out = new BufferedWriter(new OutputStreamWriter(
+				Channels.newOutputStream(channel), UTF8));
+
+		List<CompletableFuture<Void>> pending = new ArrayList<CompletableFuture<Void>>();
+
+		String line;
+		int request = 0;
+		while ((line = in.readLine()) != null) {
+			line = line.trim();
+			if (line.length() == 0) {
+				continue;
+			}
+
+			final int number = ++request;
+			try {
+				pending.add(submit(line).handle(
+						new BiFunction<SolverResult, Throwable, Void>() {
+
+							@Override
+							public Void apply(SolverResult result,
+									Throwable failure) {
+
+								reply(out, number, result, failure);
+								return null;
+							}
+						}));
+			} catch (Exception ex) {
+				reply(out, number, null, ex);
+			}
+		}
+
+		// The client has sent everything, finish its solves before closing
+		for (CompletableFuture<Void> solve : pending) {
+			solve.join();
+		}
+	}
+
+
+	/**
+	 * @return the session of the problem at the path, read and preprocessed
+	 *         again only if the file has changed since it was last read, or
+	 *         it has been dropped to make room for others
+	 */
+	private SolveSession session(String path) throws IOException {
+
+		File file = new File(path);
+		CachedInstance cached;
+		synchronized (m_instances) {
+			cached = m_instances.get(path);
+		}
+
+		// Read outside the lock, so that other problems aren't held up
+		if (cached == null || cached.lastModified != file.lastModified()
+				|| cached.length != file.length()) {
+			TSPInstance instance = TSPLIBParser.read(file);
+			Solver.checkSolvable(instance);
+			cached = new CachedInstance(new SolveSession(instance), file
+					.lastModified(), file.length());
+			synchronized (m_instances) {
+				m_instances.put(path, cached);
+			}
+		}
+
+		return cached.session;
+	}
+
+
+	/**
+	 * Write the result of a request back to the client
+	 */
+	private static void reply(Writer out, int number, SolverResult result,
+			Throwable failure) {
+
+		StringBuilder line = new StringBuilder();
+		line.append(number);
+
+		if (failure != null) {
+			Throwable cause = (failure instanceof CompletionException) ? failure
+					.getCause() : failure;
+			line.append(" ERROR ").append(
+					String.valueOf(cause.getMessage()).replace('\n', ' '));
+		} else {
+			line.append(" OK ").append((int) result.getCost()).append(' ')
+					.append(result.getRunningTime());
+			for (int city : result.getTour()) {
+				line.append(' ').append(city);
+			}
+		}
+
+		synchronized (out) {
+			try {
+				out.write(line.append('\n').toString());
+				out.flush();
+			} catch (IOException e) {
+				// The client went away, its solves finish unseen
+			}
+		}
+	}
+
+
+	/**
+	 * Parse a request line and start its solve
+	 */
+	private CompletableFuture<SolverResult> submit(String line)
+			throws IOException {
+
+		List<String> words = split(line);
+		if (words.size() < 2 || !words.get(0).equals("SOLVE")) {
+			throw new IllegalArgumentException("Expected SOLVE \"<path>\" "
+					+ "[parameter=value ...], got: " + line);
+		}
+
+		SolverParameters parameters = new SolverParameters();
+		for (String word : words.subList(2, words.size())) {
+			int equals = word.indexOf('=');
+			if (equals < 0) {
+				throw new IllegalArgumentException("Expected parameter=value,"
+						+ " got: " + word);
+			}
+			parameters.set(word.substring(0, equals),
+					word.substring(equals + 1));
+		}
+
+		return m_solver.solve(session(words.get(1)), parameters);
+	}
+
+
+	/**
+	 * Split a request line into its words at whitespace, taking a quoted word
+	 * as a whole, without its quotes and backslashes
+	 *
+	 * @return the words of the line
+	 * @throws IllegalArgumentException
+	 *             if a quote is left open
+	 */
+	static List<String> split(String line) {
+
+		List<String> words = new ArrayList<String>();
+		int i = 0;
+		while (i < line.length()) {
+			char c = line.charAt(i);
+			if (Character.isWhitespace(c)) {
+				i++;
+				continue;
+			}
+
+			StringBuilder word = new StringBuilder();
+			if (c == '"') {
+				i++;
+				while (i < line.length() && line.charAt(i) != '"') {
+					if (line.charAt(i) == '\\' && i + 1 < line.length()) {
+						i++;
+					}
+					word.append(line.charAt(i++));
+				}
+				if (i == line.length()) {
+					throw new IllegalArgumentException("Unterminated quote in: "
+							+ line);
+				}
+				i++;
+			} else {
+				while (i < line.length()
+						&& !Character.isWhitespace(line.charAt(i))) {
+					word.append(line.charAt(i++));
+				}
+			}
+			words.add(word.toString());
+		}
+		return words;
+	}
+}
@@ -0,0 +1,224 @@
+package TravelingSalesman;
+
+/**
+ * The parameters of a single solve made through the Solver. Anything left at
+ * its default keeps the default of TravelingSalesman, so an untouched
+ * SolverParameters solves exactly like TravelingSalesman.main does.
+ *
+ * @author Aaron Foltz
+ */
+public class SolverParameters {
+
+	// The culling percentage, the part of the population kept for the next
+	// generation
+	private double	cullingPercentage	= .75;
+
+	// The number of evolutions, 0 to estimate it from the number of cities
+	private int		maxEvolution		= 0;
+
+	// Mutation rate = 1/X
+	private int		mutationRate		= 3;
+
+	// The population size, 0 to estimate it from the number of cities
+	private int		populationSize		= 0;
+
+	// Seed of the random generator, null to seed it randomly
+	private Long	seed				= null;
+
+	// A tour from the SolutionCache at least this short is returned without
+	// solving, 0 to always solve
+	private double	targetCost			= 0;
+
+	// Wall clock time budget in milliseconds, 0 for none
+	private long	timeBudget			= 0;
+
+
+	/**
+	 * Apply these parameters to a new solve
+	 *
+	 * @param salesman
+	 *            the solve to set up
+	 */
+	void applyTo(TravelingSalesman salesman) {
+
+		salesman.setCullingPercentage(cullingPercentage);
+		salesman.setMutationRate(mutationRate);
+		salesman.setTimeBudget(timeBudget);
+
+		if (maxEvolution > 0) {
+			salesman.setMaxEvolution(maxEvolution);
+		}
+		if (populationSize > 0) {
+			salesman.setPopulationSize(populationSize);
+		}
+		if (seed != null) {
+			salesman.setSeed(seed);
+		}
+	}
+
+
+	public double getCullingPercentage() {
+
+		return cullingPercentage;
+	}
+
+
+	public int getMaxEvolution() {
+
+		return maxEvolution;
+	}
+
+
+	public int getMutationRate() {
+
+		return mutationRate;
+	}
+
+
+	public int getPopulationSize() {
+
+		return populationSize;
+	}
+
+
+	public Long getSeed() {
+
+		return seed;
+	}
+
+
+	public double getTargetCost() {
+
+		return targetCost;
+	}
+
+
+	public long getTimeBudget() {
+
+		return timeBudget;
+	}
+
+
+	/**
+	 * Set a parameter by its name, as it is given on the command line or in a
+	 * request: cullingPercentage, maxEvolution, mutationRate, populationSize,
+	 * seed, targetCost or timeBudget
+	 *
+	 * @param name
+	 *            the name of the parameter
+	 * @param value
+	 *            the value of the parameter, as text
+	 * @throws IllegalArgumentException
+	 *             for an unknown parameter or a bad value
+	 */
+	public void set(String name, String value) {
+
+		if (name.equals("cullingPercentage")) {
+			setCullingPercentage(Double.parseDouble(value));
+		} else if (name.equals("maxEvolution")) {
+			setMaxEvolution(Integer.parseInt(value));
+		} else if (name.equals("mutationRate")) {
+			setMutationRate(Integer.parseInt(value));
+		} else if (name.equals("populationSize")) {
+			setPopulationSize(Integer.parseInt(value));
+		} else if (name.equals("seed")) {
+			setSeed(Long.valueOf(value));
+		} else if (name.equals("targetCost")) {
+			setTargetCost(Double.parseDouble(value));
+		} else if (name.equals("timeBudget")) {
+			setTimeBudget(Long.parseLong(value));
+		} else {
+			throw new IllegalArgumentException("Unknown parameter " + name);
+		}
+	}
+
+
+	/**
+	 * @param cullingPercentage
+	 *            the part of the population kept for the next generation,
+	 *            between 0 and 1 (default .75)
+	 */
+	public void setCullingPercentage(double cullingPercentage) {
+
+		if (cullingPercentage <= 0 || cullingPercentage > 1) {
+			throw new IllegalArgumentException(
+					"Culling percentage must be in (0, 1]: "
+							+ cullingPercentage);
+		}
+		this.cullingPercentage = cullingPercentage;
+	}
+
+
+	/**
+	 * @param maxEvolution
+	 *            the number of evolutions, 0 to estimate it from the number of
+	 *            cities (default 0)
+	 */
+	public void setMaxEvolution(int maxEvolution) {
+
+		this.maxEvolution = maxEvolution;
+	}
+
+
+	/**
+	 * @param mutationRate
+	 *            mutation rate as the denominator of 1 / X (default 3)
+	 */
+	public void setMutationRate(int mutationRate) {
+
+		if (mutationRate < 1) {
+			throw new IllegalArgumentException("Mutation rate must be >= 1: "
+					+ mutationRate);
+		}
+		this.mutationRate = mutationRate;
+	}
+
+
+	/**
+	 * @param populationSize
+	 *            the population size, 0 to estimate it from the number of
+	 *            cities (default 0)
+	 */
+	public void setPopulationSize(int populationSize) {
+
+		this.populationSize = populationSize;
+	}
+
+
+	/**
+	 * @param seed
+	 *            seed of the random generator, null to seed it randomly
+	 *            (default null)
+	 */
+	public void setSeed(Long seed) {
+
+		this.seed = seed;
+	}
+
+
+	/**
+	 * @param targetCost
+	 *            a tour from the SolutionCache of the Solver at least this
+	 *            short is returned straight away, without solving; 0 to always
+	 *            solve (default 0)
+	 */
+	public void setTargetCost(double targetCost) {
+
+		if (targetCost < 0) {
+			throw new IllegalArgumentException("Target cost must be >= 0: "
+					+ targetCost);
+		}
+		this.targetCost = targetCost;
+	}
+
+
+	/**
+	 * @param timeBudget
+	 *            wall clock time budget in milliseconds, 0 for none (default
+	 *            0)
+	 */
+	public void setTimeBudget(long timeBudget) {
+
+		this.timeBudget = timeBudget;
+	}
+}
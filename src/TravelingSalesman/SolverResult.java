@@ -0,0 +1,94 @@
+package TravelingSalesman;
+
+/**
+ * The outcome of a solve made through the Solver: the best tour that was
+ * found, its cost, how long the solve took, and whether the tour came straight
+ * from the SolutionCache.
+ *
+ * @author Aaron Foltz
+ */
+public final class SolverResult {
+
+	private final boolean	cached;
+	private final double	cost;
+	private final long		runningTime;
+	private final int[]		tour;
+
+
+	/**
+	 * @param tour
+	 *            the city numbers in the order that they are visited
+	 * @param cost
+	 *            the length of the tour
+	 * @param runningTime
+	 *            running time of the solve in milliseconds
+	 */
+	public SolverResult(int[] tour, double cost, long runningTime) {
+
+		this(tour, cost, runningTime, false);
+	}
+
+
+	/**
+	 * @param tour
+	 *            the city numbers in the order that they are visited
+	 * @param cost
+	 *            the length of the tour
+	 * @param runningTime
+	 *            running time of the solve in milliseconds
+	 * @param cached
+	 *            true if the tour came from the SolutionCache without solving
+	 */
+	public SolverResult(int[] tour, double cost, long runningTime,
+			boolean cached) {
+
+		this.tour = tour.clone();
+		this.cost = cost;
+		this.runningTime = runningTime;
+		this.cached = cached;
+	}
+
+
+	/**
+	 * @return the length of the tour
+	 */
+	public double getCost() {
+
+		return cost;
+	}
+
+
+	/**
+	 * @return running time of the solve in milliseconds
+	 */
+	public long getRunningTime() {
+
+		return runningTime;
+	}
+
+
+	/**
+	 * @return a copy of the tour, the city numbers in the order that they are
+	 *         visited
+	 */
+	public int[] getTour() {
+
+		return tour.clone();
+	}
+
+
+	/**
+	 * @return true if the tour came from the SolutionCache without solving
+	 */
+	public boolean isCached() {
+
+		return cached;
+	}
+
+
+	@Override
+	public String toString() {
+
+		return "Cost " + (int) cost + " in " + runningTime + " ms";
+	}
+}
@@ -0,0 +1,284 @@
+package TravelingSalesman;
+
+import org.jgap.Configuration;
+import org.jgap.FitnessEvaluator;
+import org.jgap.FitnessFunction;
+import org.jgap.Genotype;
+import org.jgap.IChromosome;
+import org.jgap.Population;
+import org.jgap.RandomGenerator;
+
+/**
+ * A steady-state alternative to Genotype.evolve. Instead of building a whole
+ * new candidate list every generation and culling it down with the
+ * BestChromosomesSelector, two parents are picked by tournament, their two
+ * children are made with the same crossover and mutation operators, and each
+ * child takes the place of a tournament-selected loser - right there in the
+ * population - if it is fitter than that loser.
+ *
+ * The population never grows and is never sorted, so the working set stays the
+ * size of the population no matter how many children are produced.
+ *
+ * With adaptive operators turned on, each step applies one of three operator
+ * combinations (crossover with mutation, crossover alone, or mutation alone),
+ * chosen by probability matching: every combination keeps a running average
+ * of how much it improved the population per nanosecond it took, and gets
+ * picked in proportion to it, with a small minimum chance so that none of them
+ * is written off for good.
+ *
+ * @author Aaron Foltz
+ */
+public class SteadyStateEvolution {
+
+	// The operator combinations that the adaptive mode chooses between
+	private static final int							CROSSOVER_MUTATION	= 0;
+	private static final int							CROSSOVER			= 1;
+	private static final int							MUTATION			= 2;
+
+	// Weight of the newest reward in the running average of an operator
+	private static final double							ADAPTATION_RATE		= .1;
+
+	// The smallest chance an operator has of being picked
+	private static final double							MIN_PROBABILITY		= .1;
+
+	private boolean										m_adaptive			= false;
+
+	// Running average of improvement per nanosecond, by operator
+	private final double[]								m_quality			= new double[3];
+
+	private final TravelingSalesmanHeuristicCrossover	m_crossover;
+	private final FitnessEvaluator						m_evaluator;
+	private final RandomGenerator						m_generator;
+	private final SegmentSwappingMutation				m_mutation;
+	private final Population							m_population;
+	private final TravelingSalesman						m_salesman;
+	private final int									m_tournamentSize;
+
+
+	/**
+	 * @param salesman
+	 *            the TSP instance whose operators are used
+	 * @param genotype
+	 *            the genotype whose population is evolved in place
+	 * @param tournamentSize
+	 *            number of chromosomes competing in every tournament
+	 */
+	public SteadyStateEvolution(TravelingSalesman salesman, Genotype genotype,
+			int tournamentSize) {
+
+		Configuration config = genotype.getConfiguration();
+
+		m_salesman = salesman;
+		m_crossover = salesman.getCrossover();
+		m_mutation = salesman.getMutation();
+		m_evaluator = config.getFitnessEvaluator();
+		m_generator = config.getRandomGenerator();
+		m_population = genotype.getPopulation();
+		m_tournamentSize = tournamentSize;
+	}
+
+
+	/**
+	 * Produce the given number of children, replacing losers as we go. Stops
+	 * early once the time budget of the TSP instance is used up.
+	 *
+	 * @param a_offspring
+	 *            the number of children to produce
+	 */
+	public void evolve(int a_offspring) {
+
+		for (int produced = 0; produced < a_offspring; produced += 2) {
+			if (m_salesman.shouldStop()) {
+				return;
+			}
+			step();
+		}
+	}
+
+
+	/**
+	 * @return the running averages of the adaptive operators, for a
+	 *         checkpoint
+	 */
+	double[] getOperatorQuality() {
+
+		return m_quality.clone();
+	}
+
+
+	/**
+	 * Turn the adaptive choice of operators on or off (default off)
+	 *
+	 * @param a_adaptive
+	 *            sic
+	 */
+	public void setAdaptiveOperators(boolean a_adaptive) {
+
+		m_adaptive = a_adaptive;
+	}
+
+
+	/**
+	 * Put back the running averages of the adaptive operators of a checkpoint
+	 *
+	 * @param a_quality
+	 *            sic, ignored unless there is one for every operator
+	 */
+	void setOperatorQuality(double[] a_quality) {
+
+		if (a_quality.length == m_quality.length) {
+			System.arraycopy(a_quality, 0, m_quality, 0, m_quality.length);
+		}
+	}
+
+
+	/**
+	 * Produce two children from two tournament-selected parents and put them
+	 * into the population in place of two tournament-selected losers, if they
+	 * beat them.
+	 */
+	public void step() {
+
+		if (!m_adaptive) {
+			apply(CROSSOVER_MUTATION);
+			return;
+		}
+
+		int operator = chooseOperator();
+
+		long start = System.nanoTime();
+		double improvement = apply(operator);
+		long elapsed = Math.max(1, System.nanoTime() - start);
+
+		m_quality[operator] += ADAPTATION_RATE
+				* ((improvement / elapsed) - m_quality[operator]);
+	}
+
+
+	/**
+	 * Apply the operator combination to two tournament-selected parents
+	 *
+	 * @return how much the fitness of the replaced losers improved
+	 */
+	private double apply(int a_operator) {
+
+		// Work on copies, the parents stay in the population
+		IChromosome first = (IChromosome) m_population.getChromosome(
+				tournament(true)).clone();
+		IChromosome second = (IChromosome) m_population.getChromosome(
+				tournament(true)).clone();
+
+		if (a_operator != MUTATION) {
+			m_crossover.operate(first, second);
+		}
+
+		// Mutation alone always mutates, with crossover it uses the usual rate
+		int rate = (a_operator == MUTATION) ? 1 : m_mutation.getMutationRate();
+		if (a_operator == CROSSOVER) {
+			rate = 0;
+		}
+
+		return replace(mutate(first, rate)) + replace(mutate(second, rate));
+	}
+
+
+	/**
+	 * Pick an operator combination in proportion to its recent improvement
+	 * per nanosecond
+	 */
+	private int chooseOperator() {
+
+		double total = 0;
+		for (double quality : m_quality) {
+			total += quality;
+		}
+
+		double pick = m_generator.nextDouble();
+		double share = 1 - (m_quality.length * MIN_PROBABILITY);
+
+		for (int i = 0; i < m_quality.length - 1; i++) {
+			double probability = MIN_PROBABILITY
+					+ share
+					* ((total > 0) ? m_quality[i] / total
+							: 1.0 / m_quality.length);
+			if (pick < probability) {
+				return i;
+			}
+			pick -= probability;
+		}
+
+		return m_quality.length - 1;
+	}
+
+
+	/**
+	 * Mutate the child with the given rate
+	 *
+	 * @param a_rate
+	 *            mutation rate as the denominator of 1 / X, 0 for none
+	 * @return the child, mutated or not
+	 */
+	private IChromosome mutate(IChromosome a_child, int a_rate) {
+
+		IChromosome child = a_child;
+		if (a_rate > 0) {
+			IChromosome mutated = m_mutation.operate(a_child, a_rate,
+					m_generator);
+			if (mutated != null) {
+				child = mutated;
+			}
+		}
+
+		// The copied fitness value belongs to the parent
+		child.setFitnessValueDirectly(FitnessFunction.NO_FITNESS_VALUE);
+		return child;
+	}
+
+
+	/**
+	 * Replace the loser of a tournament with the child, if the child is
+	 * fitter than it
+	 *
+	 * @return how much better the child is than the loser, 0 if not replaced
+	 */
+	private double replace(IChromosome a_child) {
+
+		int loser = tournament(false);
+		IChromosome replaced = m_population.getChromosome(loser);
+
+		if (m_evaluator.isFitter(a_child, replaced)) {
+			m_population.setChromosome(loser, a_child);
+			return Math.abs(replaced.getFitnessValue()
+					- a_child.getFitnessValue());
+		}
+		return 0;
+	}
+
+
+	/**
+	 * Hold a tournament between random chromosomes of the population
+	 *
+	 * @param a_fittest
+	 *            true to return the winner, false to return the loser
+	 * @return the index of the winner or loser in the population
+	 */
+	private int tournament(boolean a_fittest) {
+
+		int size = m_population.size();
+		int chosen = m_generator.nextInt(size);
+
+		for (int i = 1; i < m_tournamentSize; i++) {
+			int other = m_generator.nextInt(size);
+
+			boolean otherFitter = m_evaluator.isFitter(
+					m_population.getChromosome(other),
+					m_population.getChromosome(chosen));
+
+			if (otherFitter == a_fittest) {
+				chosen = other;
+			}
+		}
+
+		return chosen;
+	}
+}
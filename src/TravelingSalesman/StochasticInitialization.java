@@ -2,9 +2,9 @@
 package TravelingSalesman;
 
 import java.util.LinkedList;
-import java.util.Random;
 
 import org.jgap.Gene;
+import org.jgap.RandomGenerator;
 import org.jgap.impl.IntegerGene;
 
 /**
@@ -77,14 +77,16 @@ public class StochasticInitialization {
 		genes[0] = sampleGenes[0].newGene();
 		genes[0].setAllele(sampleGenes[0].getAllele());
 
-		Random generator = new Random();
+		// Use the random generator of the TSP instance, so that seeded runs
+		// can be repeated
+		RandomGenerator generator = salesman.getConfiguration()
+				.getRandomGenerator();
 
 		// Iterate through each of the genes in the chromosome
 		for (int i = 1; i < genes.length; i++) {
 
 			int distance, average, location;
 			int counter = 0;
-			Random random = new Random();
 
 			// Grab a new location as long as the distance from its inclusion is
 			// greater than the average edge length in the "not picked" city
@@ -109,7 +111,7 @@ public class StochasticInitialization {
 				// can take the current edge, even if its bigger
 				counter++;
 				if (((distance > average) && (counter == (int) ((genes.length * .2))))
-						|| (random.nextInt((int) (genes.length * .3) / counter) == 0)) {
+						|| (generator.nextInt((int) (genes.length * .3) / counter) == 0)) {
 					counter = 0;
 					break;
 				}
@@ -0,0 +1,167 @@
+package TravelingSalesman;
+
+/**
+ * An immutable TSP problem instance: the coordinates of the cities and the
+ * edge weight type that decides how the distance between them is measured.
+ *
+ * An instance can be shared freely between threads, so any number of solves
+ * (each with its own TravelingSalesman) can work on the same instance at the
+ * same time.
+ *
+ * @author Aaron Foltz
+ */
+public final class TSPInstance {
+
+	// The weighting of the edges between each of the cities. Decides the
+	// distance function
+	private final String	edgeWeightType;
+
+	private final String	name;
+
+	// The edge weight type as the DistanceKernel knows it
+	private final int		type;
+
+	// The city coordinates, one array for X and one for Y
+	private final double[]	x;
+	private final double[]	y;
+
+
+	/**
+	 * @param name
+	 *            the name of the problem, e.g. "att48"
+	 * @param edgeWeightType
+	 *            the EDGE_WEIGHT_TYPE of the problem, "ATT" or "EUC_2D"
+	 * @param coordinates
+	 *            the X and Y coordinate of each city, copied
+	 * @throws IllegalArgumentException
+	 *             if the edge weight type is not ATT or EUC_2D
+	 */
+	public TSPInstance(String name, String edgeWeightType,
+			double[][] coordinates) {
+
+		this.name = name;
+		this.edgeWeightType = edgeWeightType;
+		type = typeOf(edgeWeightType);
+
+		x = new double[coordinates.length];
+		y = new double[coordinates.length];
+		for (int i = 0; i < coordinates.length; i++) {
+			x[i] = coordinates[i][0];
+			y[i] = coordinates[i][1];
+		}
+	}
+
+
+	/**
+	 * @param name
+	 *            the name of the problem, e.g. "att48"
+	 * @param edgeWeightType
+	 *            the EDGE_WEIGHT_TYPE of the problem, "ATT" or "EUC_2D"
+	 * @param x
+	 *            the X coordinate of each city, taken over without a copy
+	 * @param y
+	 *            the Y coordinate of each city, taken over without a copy
+	 * @throws IllegalArgumentException
+	 *             if the edge weight type is not ATT or EUC_2D, or there are
+	 *             not as many X coordinates as Y coordinates
+	 */
+	public TSPInstance(String name, String edgeWeightType, double[] x,
+			double[] y) {
+
+		if (x.length != y.length) {
+			throw new IllegalArgumentException("Got " + x.length
+					+ " X coordinates, but " + y.length + " Y coordinates");
+		}
+
+		this.name = name;
+		this.edgeWeightType = edgeWeightType;
+		type = typeOf(edgeWeightType);
+		this.x = x;
+		this.y = y;
+	}
+
+
+	/**
+	 * Return the distance between two cities, represented as numbers, given by
+	 * the Edge weight type provided by the TSP instance
+	 *
+	 * @param a
+	 *            first city
+	 * @param b
+	 *            second city
+	 * @return the distance between the two cities
+	 */
+	public double distance(int a, int b) {
+
+		return DistanceKernel.distance(type, x[a], y[a], x[b], y[b]);
+	}
+
+
+	/**
+	 * @return a copy of the coordinate matrix, one row of X and Y per city
+	 */
+	public double[][] getCoordinates() {
+
+		double[][] coordinates = new double[x.length][2];
+		for (int i = 0; i < x.length; i++) {
+			coordinates[i][0] = x[i];
+			coordinates[i][1] = y[i];
+		}
+		return coordinates;
+	}
+
+
+	/**
+	 * @return the number of cities
+	 */
+	public int getDimension() {
+
+		return x.length;
+	}
+
+
+	public String getEdgeWeightType() {
+
+		return edgeWeightType;
+	}
+
+
+	public String getName() {
+
+		return name;
+	}
+
+
+	/**
+	 * @return the X coordinate of the city
+	 */
+	public double getX(int city) {
+
+		return x[city];
+	}
+
+
+	/**
+	 * @return the Y coordinate of the city
+	 */
+	public double getY(int city) {
+
+		return y[city];
+	}
+
+
+	/**
+	 * @return the edge weight type as the DistanceKernel knows it
+	 * @throws IllegalArgumentException
+	 *             if it has no distance function
+	 */
+	private static int typeOf(String edgeWeightType) {
+
+		int type = DistanceKernel.typeOf(edgeWeightType);
+		if (type == DistanceKernel.UNKNOWN) {
+			throw new IllegalArgumentException("Unsupported EDGE_WEIGHT_TYPE "
+					+ edgeWeightType);
+		}
+		return type;
+	}
+}
@@ -0,0 +1,567 @@
+package TravelingSalesman;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * A fast reader of TSP problems in the TSPLIB format. Unlike Reader, it reads
+ * the header and the NODE_COORD_SECTION in a single pass over the bytes of the
+ * file, turns the numbers into doubles straight from those bytes - without a
+ * String, split or regular expression per line - and fills the coordinate
+ * arrays of the TSPInstance directly. It prints nothing unless it is told to.
+ *
+ * The DIMENSION is checked before any coordinate array is made: it may be no
+ * more than MAX_DIMENSION cities, or than the maximum set on the parser, so a
+ * malformed or hostile header can't run the heap out.
+ *
+ * A parser keeps its buffer between problems, so it is not thread-safe; use
+ * one parser per thread, or the static read.
+ *
+ * @author Aaron Foltz
+ */
+public class TSPLIBParser {
+
+	// The most cities a problem may have
+	public static final int			MAX_DIMENSION		= 1 << 24;
+
+	private static final int		BUFFER_SIZE			= 1 << 16;
+
+	// The compressed bytes read at a time from a gzip file
+	private static final int		GZIP_BUFFER_SIZE	= 1 << 16;
+
+	// The longest number that is kept for the slow path of readDouble
+	static final int				MAX_NUMBER			= 64;
+
+	// Powers of ten that a double holds exactly
+	private static final double[]	POWERS				= { 1e0, 1e1, 1e2, 1e3, 1e4,
+			1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16,
+			1e17, 1e18, 1e19, 1e20, 1e21, 1e22	};
+
+	private final byte[]			buffer				= new byte[BUFFER_SIZE];
+	private InputStream				in;
+	private int						limit;
+	private int						maxDimension		= MAX_DIMENSION;
+	private final char[]			number				= new char[MAX_NUMBER];
+	private int						position;
+	private final ByteSource		source				= new BufferSource();
+	private boolean					verbose				= false;
+
+	/**
+	 * The bytes that readDouble reads a number from, one at a time
+	 */
+	interface ByteSource {
+
+		/**
+		 * @return the byte at the position, -1 at the end
+		 */
+		int peek() throws IOException;
+
+
+		/**
+		 * Move past the byte at the position
+		 */
+		void skip();
+	}
+
+
+	/**
+	 * The buffer of the stream, as readDouble reads it
+	 */
+	private class BufferSource implements ByteSource {
+
+		@Override
+		public int peek() throws IOException {
+
+			return TSPLIBParser.this.peek();
+		}
+
+
+		@Override
+		public void skip() {
+
+			position++;
+		}
+	}
+
+
+	/**
+	 * The header of a problem, read a line at a time up to the
+	 * NODE_COORD_SECTION
+	 */
+	static class Header {
+
+		int						dimension		= -1;
+		String					edgeWeightType	= null;
+		private final String	name;
+		private boolean			section			= false;
+
+
+		Header(String name) {
+
+			this.name = name;
+		}
+
+
+		/**
+		 * Make sure the header has everything needed to read the coordinates
+		 *
+		 * @param maxDimension
+		 *            the most cities the problem may have
+		 * @throws IOException
+		 *             if it hasn't, the problem has too many cities, or the
+		 *             edge weight type is not supported
+		 */
+		void check(int maxDimension) throws IOException {
+
+			if (!section || dimension < 0 || edgeWeightType == null) {
+				throw new IOException("Incomplete TSP problem " + name
+						+ ", it needs a DIMENSION, an EDGE_WEIGHT_TYPE and a "
+						+ "NODE_COORD_SECTION");
+			}
+			if (dimension > maxDimension) {
+				throw new IOException("TSP problem " + name + " has "
+						+ dimension + " cities, more than the " + maxDimension
+						+ " allowed");
+			}
+			if (!edgeWeightType.equals("ATT")
+					&& !edgeWeightType.equals("EUC_2D")) {
+				throw new IOException("Unsupported EDGE_WEIGHT_TYPE "
+						+ edgeWeightType);
+			}
+		}
+
+
+		/**
+		 * @param line
+		 *            the next line of the header
+		 * @return true if the line starts the NODE_COORD_SECTION
+		 * @throws IOException
+		 *             if the line is malformed, or starts some other section
+		 */
+		boolean read(String line) throws IOException {
+
+			line = line.trim();
+
+			if (line.startsWith("NODE_COORD_SECTION")) {
+				section = true;
+				return true;
+			}
+			if (line.equals("EOF") || line.endsWith("_SECTION")) {
+				throw new IOException("Expected a NODE_COORD_SECTION in "
+						+ name + ", got: " + line);
+			}
+
+			int colon = line.indexOf(':');
+			if (colon < 0) {
+				return false;
+			}
+			String key = line.substring(0, colon).trim();
+			String value = line.substring(colon + 1).trim();
+
+			if (key.equals("DIMENSION")) {
+				try {
+					dimension = Integer.parseInt(value);
+				} catch (NumberFormatException ex) {
+					dimension = 0;
+				}
+				if (dimension < 1) {
+					throw new IOException("Malformed DIMENSION in " + name
+							+ ": " + value);
+				}
+			} else if (key.equals("EDGE_WEIGHT_TYPE")) {
+				edgeWeightType = value;
+			}
+			return false;
+		}
+	}
+
+
+	/**
+	 * Open a TSPLIB file for reading. A gzip file (".gz") is decompressed as
+	 * it is read, on a thread of its own, so the decompression overlaps with
+	 * the parsing.
+	 *
+	 * @param file
+	 *            the TSPLIB file, possibly gzipped
+	 * @return the TSPLIB text
+	 * @throws IOException
+	 *             if the file can't be opened
+	 */
+	public static InputStream open(File file) throws IOException {
+
+		InputStream in = new FileInputStream(file);
+		if (!file.getName().endsWith(".gz")) {
+			return in;
+		}
+
+		try {
+			return new ReadAheadInputStream(new GZIPInputStream(in,
+					GZIP_BUFFER_SIZE));
+		} catch (IOException ex) {
+			in.close();
+			throw ex;
+		}
+	}
+
+
+	/**
+	 * Problems may be kept gzipped, and are read without unpacking them
+	 *
+	 * @param problem
+	 *            the TSPLIB file, e.g. data/att48.tsp
+	 * @return the file, or the gzipped file (data/att48.tsp.gz) if only that
+	 *         exists
+	 */
+	public static File locate(File problem) {
+
+		File compressed = new File(problem.getPath() + ".gz");
+		if (!problem.exists() && compressed.exists()) {
+			return compressed;
+		}
+		return problem;
+	}
+
+
+	/**
+	 * @return the name of the problem in the file, e.g. "att48" for
+	 *         "att48.tsp" or "att48.tsp.gz"
+	 */
+	public static String problemName(File file) {
+
+		return file.getName().replaceAll("\\.gz$", "").replaceAll("\\.tsp$",
+				"");
+	}
+
+
+	/**
+	 * Read the problem in the file, quietly. Gzip files are decompressed as
+	 * they are read. Other files of MappedTSPLIBReader.MIN_MAPPED_BYTES and
+	 * more are handed to the MappedTSPLIBReader.
+	 *
+	 * @param file
+	 *            the TSPLIB file
+	 * @return the TSP problem instance, named after the file
+	 * @throws IOException
+	 *             if the file can't be read, or is not a complete TSPLIB
+	 *             problem
+	 */
+	public static TSPInstance read(File file) throws IOException {
+
+		if (!file.getName().endsWith(".gz")
+				&& file.length() >= MappedTSPLIBReader.MIN_MAPPED_BYTES
+				&& file.length() <= MappedTSPLIBReader.MAX_MAPPED_BYTES) {
+			return MappedTSPLIBReader.read(file);
+		}
+
+		InputStream in = open(file);
+		try {
+			return new TSPLIBParser().parse(problemName(file), in);
+		} finally {
+			in.close();
+		}
+	}
+
+
+	/**
+	 * Read a whole problem from the stream
+	 *
+	 * @param name
+	 *            the name of the problem
+	 * @param stream
+	 *            the TSPLIB text of the problem, read up to the end of the
+	 *            coordinates; it is not closed
+	 * @return the TSP problem instance
+	 * @throws IOException
+	 *             if the problem can't be read, or is not a complete TSPLIB
+	 *             problem
+	 */
+	public TSPInstance parse(String name, InputStream stream)
+			throws IOException {
+
+		in = stream;
+		position = 0;
+		limit = 0;
+
+		// --------------------------------------------- //
+		// Header - only a handful of lines, so Strings are fine here
+		Header header = new Header(name);
+
+		String line;
+		while ((line = readLine()) != null) {
+			if (header.read(line)) {
+				break;
+			}
+		}
+		header.check(maxDimension);
+
+		int dimension = header.dimension;
+		String edgeWeightType = header.edgeWeightType;
+		// --------------------------------------------- //
+
+		// --------------------------------------------- //
+		// Coordinates - number, X and Y of each city, in order
+		double[] x = new double[dimension];
+		double[] y = new double[dimension];
+
+		for (int i = 0; i < dimension; i++) {
+			if (!skipWhitespace() || !isNumberStart(peek())) {
+				throw new IOException("Incomplete TSP problem " + name
+						+ ", expected " + dimension + " cities, got " + i);
+			}
+
+			// The number of the city is not needed, the cities are in order
+			readDouble(name);
+			x[i] = readDouble(name);
+			y[i] = readDouble(name);
+
+			if (verbose) {
+				System.out.println(x[i] + "\t" + y[i]);
+			}
+		}
+		// --------------------------------------------- //
+
+		in = null;
+		return new TSPInstance(name, edgeWeightType, x, y);
+	}
+
+
+	/**
+	 * Turn away problems of more cities than this, before their coordinates
+	 * are read (default MAX_DIMENSION, which it can't be raised above)
+	 *
+	 * @param maxDimension
+	 *            the most cities a problem may have
+	 */
+	public void setMaxDimension(int maxDimension) {
+
+		this.maxDimension = Math.min(maxDimension, MAX_DIMENSION);
+	}
+
+
+	/**
+	 * Print each of the coordinates as it is read, like Reader does (default
+	 * false)
+	 *
+	 * @param verbose
+	 *            sic
+	 */
+	public void setVerbose(boolean verbose) {
+
+		this.verbose = verbose;
+	}
+
+
+	/**
+	 * Work out mantissa * 10^exponent exactly, which a double can do for a
+	 * mantissa below 2^53 and a power of ten of at most 22
+	 *
+	 * @return the number, NaN if it can't be worked out exactly
+	 */
+	static double exact(long mantissa, int exponent) {
+
+		if (mantissa >= (1L << 53) || exponent < -22 || exponent > 22) {
+			return Double.NaN;
+		}
+		return (exponent >= 0) ? mantissa * POWERS[exponent] : mantissa
+				/ POWERS[-exponent];
+	}
+
+
+	static boolean isNumberStart(int c) {
+
+		return (c >= '0' && c <= '9') || c == '-' || c == '+' || c == '.';
+	}
+
+
+	/**
+	 * Make sure there is at least one byte in the buffer
+	 *
+	 * @return false at the end of the stream
+	 */
+	private boolean fill() throws IOException {
+
+		if (position < limit) {
+			return true;
+		}
+
+		int read;
+		do {
+			read = in.read(buffer, 0, buffer.length);
+		} while (read == 0);
+
+		position = 0;
+		limit = Math.max(0, read);
+		return read > 0;
+	}
+
+
+	/**
+	 * @return the next byte without consuming it, -1 at the end of the stream
+	 */
+	private int peek() throws IOException {
+
+		return fill() ? buffer[position] : -1;
+	}
+
+
+	/**
+	 * Read a number of a city, after the whitespace before it
+	 */
+	private double readDouble(String name) throws IOException {
+
+		skipWhitespace();
+		return readDouble(source, number, name);
+	}
+
+
+	/**
+	 * Read a number straight from the bytes of the source, which the
+	 * TSPLIBParser and the MappedTSPLIBReader both read their coordinates
+	 * with. Numbers with up to 18 digits and a power of ten of at most 22 -
+	 * every coordinate in TSPLIB - are worked out exactly from a long and a
+	 * power of ten, anything else is handed to Double.parseDouble.
+	 *
+	 * @param in
+	 *            the bytes, at the first one of the number
+	 * @param number
+	 *            where the characters of the number are kept for the slow
+	 *            path, of MAX_NUMBER characters
+	 * @param name
+	 *            the name of the problem, for the errors
+	 */
+	static double readDouble(ByteSource in, char[] number, String name)
+			throws IOException {
+
+		int length = 0;
+		boolean negative = false;
+		long mantissa = 0;
+		int digits = 0;
+		int exponent = 0;
+		boolean exact = true;
+
+		int c = in.peek();
+		if (c == '-' || c == '+') {
+			negative = (c == '-');
+			number[length++] = (char) c;
+			in.skip();
+			c = in.peek();
+		}
+
+		// Integer and fraction digits
+		boolean point = false;
+		boolean any = false;
+		while ((c >= '0' && c <= '9') || (c == '.' && !point)) {
+			if (length < MAX_NUMBER) {
+				number[length++] = (char) c;
+			} else {
+				exact = false;
+			}
+			in.skip();
+
+			if (c == '.') {
+				point = true;
+			} else {
+				any = true;
+				if (digits < 18) {
+					if (mantissa != 0 || c != '0') {
+						digits++;
+					}
+					mantissa = mantissa * 10 + (c - '0');
+					if (point) {
+						exponent--;
+					}
+				} else {
+					// Digits past what a long holds
+					exact = false;
+				}
+			}
+			c = in.peek();
+		}
+
+		if (!any) {
+			throw new IOException("Malformed coordinate in " + name);
+		}
+
+		// Exponent
+		if (c == 'e' || c == 'E') {
+			number[Math.min(length++, MAX_NUMBER - 1)] = (char) c;
+			in.skip();
+			c = in.peek();
+
+			boolean negativeExponent = false;
+			if (c == '-' || c == '+') {
+				negativeExponent = (c == '-');
+				number[Math.min(length++, MAX_NUMBER - 1)] = (char) c;
+				in.skip();
+				c = in.peek();
+			}
+
+			int value = 0;
+			boolean exponentDigits = false;
+			while (c >= '0' && c <= '9') {
+				number[Math.min(length++, MAX_NUMBER - 1)] = (char) c;
+				value = Math.min(value * 10 + (c - '0'), 100000);
+				exponentDigits = true;
+				in.skip();
+				c = in.peek();
+			}
+			if (!exponentDigits) {
+				throw new IOException("Malformed coordinate in " + name);
+			}
+			exponent += negativeExponent ? -value : value;
+		}
+
+		if (exact && length < MAX_NUMBER) {
+			double value = exact(mantissa, exponent);
+			if (!Double.isNaN(value)) {
+				return negative ? -value : value;
+			}
+		}
+
+		if (length >= MAX_NUMBER) {
+			throw new IOException("Coordinate too long in " + name);
+		}
+		return Double.parseDouble(new String(number, 0, length));
+	}
+
+
+	/**
+	 * @return the next line, without its line break, null at the end of the
+	 *         stream
+	 */
+	private String readLine() throws IOException {
+
+		StringBuilder line = new StringBuilder();
+		while (fill()) {
+			int c = buffer[position++];
+			if (c == '\n') {
+				return line.toString();
+			}
+			if (c != '\r') {
+				line.append((char) (c & 0xff));
+			}
+		}
+		return (line.length() > 0) ? line.toString() : null;
+	}
+
+
+	/**
+	 * Skip spaces, tabs and line breaks
+	 *
+	 * @return false at the end of the stream
+	 */
+	private boolean skipWhitespace() throws IOException {
+
+		while (fill()) {
+			int c = buffer[position];
+			if (c != ' ' && c != '\t' && c != '\n' && c != '\r') {
+				return true;
+			}
+			position++;
+		}
+		return false;
+	}
+}
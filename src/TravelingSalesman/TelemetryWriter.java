@@ -0,0 +1,472 @@
+package TravelingSalesman;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes structured records of the runs, and optionally of every generation,
+ * for analysis jobs to read instead of scraping the data file. Each kind of
+ * record goes to a writer of its own, as CSV with a header line or as JSON
+ * lines - one object per line.
+ *
+ * Records are only queued by the threads that make them; they are formatted
+ * and written in batches on a thread of its own. A batch is written and
+ * flushed once it holds the batch size of records, or once the flush interval
+ * has passed since the last one, whichever comes first. The queue is bounded:
+ * a generation record that doesn't fit is dropped and counted, like in the
+ * GenerationEventStream, while a run record waits for room, so telemetry never
+ * shows up in the timing of the Genetic Algorithm and no run is ever lost.
+ *
+ * Add it to a GenerationEventStream to get the generation records, start it,
+ * and close it once the runs are done to write the remaining records.
+ *
+ * @author Aaron Foltz
+ */
+public class TelemetryWriter implements GenerationListener {
+
+	public static final String					CSV					= "csv";
+	public static final String					JSON				= "json";
+
+	public static final int						DEFAULT_BATCH_SIZE	= 256;
+	public static final long					DEFAULT_FLUSH_MILLIS	= 1000;
+
+	private static final String					GENERATION_HEADER	= "problem,run,generation,bestCost,meanCost,diversity,generationMicros,elapsedMillis";
+	private static final String					RUN_HEADER			= "problem,run,cities,bestCost,finalCost,percentFromOptimal,runningMillis";
+
+	// Put on the queue by close, so the writer thread knows to stop
+	private static final Object					END					= new Object();
+
+	private final int							batchSize;
+	private final AtomicLong					dropped				= new AtomicLong();
+
+	// The first error of the writer thread, thrown by close
+	private volatile IOException				error				= null;
+
+	private final long							flushMillis;
+
+	// Run of the generation records, only used by the thread of the stream
+	private int									generationRun		= -1;
+	private int									lastGeneration		= Integer.MAX_VALUE;
+
+	private final Writer						generations;
+	private final boolean						json;
+	private final String						problem;
+	private final BlockingQueue<Object>			queue;
+	private final Writer						runs;
+	private Thread								thread				= null;
+
+
+	/**
+	 * A record of a single run, made on the thread of the run
+	 */
+	private static final class RunRecord {
+
+		final double	bestCost;
+		final int		cities;
+		final double	finalCost;
+		final double	percentFromOptimal;
+		final int		run;
+		final long		runningMillis;
+
+
+		RunRecord(int run, int cities, double bestCost, double finalCost,
+				double percentFromOptimal, long runningMillis) {
+
+			this.run = run;
+			this.cities = cities;
+			this.bestCost = bestCost;
+			this.finalCost = finalCost;
+			this.percentFromOptimal = percentFromOptimal;
+			this.runningMillis = runningMillis;
+		}
+	}
+
+
+	/**
+	 * A generation event and the run it belongs to
+	 */
+	private static final class GenerationRecord {
+
+		final GenerationEvent	event;
+		final int				run;
+
+
+		GenerationRecord(int run, GenerationEvent event) {
+
+			this.run = run;
+			this.event = event;
+		}
+	}
+
+
+	/**
+	 * @param problem
+	 *            the name of the problem, written into every record
+	 * @param format
+	 *            CSV or JSON
+	 * @param runs
+	 *            where the run records are written, not closed
+	 * @param generations
+	 *            where the generation records are written, not closed; null
+	 *            to leave them out
+	 */
+	public TelemetryWriter(String problem, String format, Writer runs,
+			Writer generations) {
+
+		this(problem, format, runs, generations, DEFAULT_BATCH_SIZE,
+				DEFAULT_FLUSH_MILLIS);
+	}
+
+
+	/**
+	 * @param problem
+	 *            the name of the problem, written into every record
+	 * @param format
+	 *            CSV or JSON
+	 * @param runs
+	 *            where the run records are written, not closed
+	 * @param generations
+	 *            where the generation records are written, not closed; null
+	 *            to leave them out
+	 * @param batchSize
+	 *            the number of records that are written at once
+	 * @param flushMillis
+	 *            the longest a record waits to be written, in milliseconds
+	 */
+	public TelemetryWriter(String problem, String format, Writer runs,
+			Writer generations, int batchSize, long flushMillis) {
+
+		if (!format.equals(CSV) && !format.equals(JSON)) {
+			throw new IllegalArgumentException("Unknown telemetry format: "
+					+ format);
+		}
+
+		this.problem = problem;
+		this.json = format.equals(JSON);
+		this.runs = runs;
+		this.generations = generations;
+		this.batchSize = Math.max(1, batchSize);
+		this.flushMillis = Math.max(1, flushMillis);
+
+		// Room for a few batches, so the writer thread can fall behind a
+		// little without anything being dropped
+		queue = new ArrayBlockingQueue<Object>(this.batchSize * 4);
+	}
+
+
+	/**
+	 * Write the records that are still queued, wait for the writer thread to
+	 * finish, and flush the writers
+	 *
+	 * @throws IOException
+	 *             if any record couldn't be written
+	 * @throws InterruptedException
+	 */
+	public void close() throws IOException, InterruptedException {
+
+		if (thread != null) {
+			queue.put(END);
+			thread.join();
+			thread = null;
+		}
+
+		if (error != null) {
+			throw error;
+		}
+	}
+
+
+	/**
+	 * @param format
+	 *            CSV or JSON
+	 * @return the file extension of the format, "csv" or "jsonl"
+	 */
+	public static String extension(String format) {
+
+		return format.equals(JSON) ? "jsonl" : CSV;
+	}
+
+
+	/**
+	 * Queue a record of the generation, or drop it if the queue is full. Runs
+	 * on the thread of the GenerationEventStream.
+	 */
+	@Override
+	public void generationCompleted(GenerationEvent event) {
+
+		if (generations == null) {
+			return;
+		}
+
+		// The events of a run are in order, so a generation that isn't after
+		// the last one starts the next run
+		if (event.getGeneration() <= lastGeneration) {
+			generationRun++;
+		}
+		lastGeneration = event.getGeneration();
+
+		if (!queue.offer(new GenerationRecord(generationRun, event))) {
+			dropped.incrementAndGet();
+		}
+	}
+
+
+	/**
+	 * @return the number of generation records dropped because the queue was
+	 *         full
+	 */
+	public long getDropped() {
+
+		return dropped.get();
+	}
+
+
+
+
+	/**
+	 * Start the writer thread, writing the CSV headers first
+	 */
+	public synchronized void start() {
+
+		if (thread != null) {
+			return;
+		}
+
+		thread = new Thread(new Runnable() {
+
+			@Override
+			public void run() {
+
+				consume();
+			}
+		}, "telemetry-writer");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+
+	/**
+	 * Queue a record of a finished run, waiting for room if the queue is full
+	 *
+	 * @param run
+	 *            the number of the run, starting at 0
+	 * @param cities
+	 *            the number of cities of the problem
+	 * @param bestCost
+	 *            length of the best tour found during the run
+	 * @param finalCost
+	 *            length of the tour returned by the run
+	 * @param percentFromOptimal
+	 *            how far the returned tour is from the optimal one, in percent
+	 * @param runningMillis
+	 *            running time of the run in milliseconds
+	 * @throws InterruptedException
+	 */
+	public void writeRun(int run, int cities, double bestCost,
+			double finalCost, double percentFromOptimal, long runningMillis)
+			throws InterruptedException {
+
+		queue.put(new RunRecord(run, cities, bestCost, finalCost,
+				percentFromOptimal, runningMillis));
+	}
+
+
+	/**
+	 * The loop of the writer thread
+	 */
+	private void consume() {
+
+		List<Object> batch = new ArrayList<Object>(batchSize);
+		StringBuilder runText = new StringBuilder();
+		StringBuilder generationText = new StringBuilder();
+
+		if (!json) {
+			runText.append(RUN_HEADER).append('\n');
+			if (generations != null) {
+				generationText.append(GENERATION_HEADER).append('\n');
+			}
+		}
+
+		long lastFlush = System.currentTimeMillis();
+		boolean closed = false;
+
+		while (!closed) {
+			long wait = lastFlush + flushMillis - System.currentTimeMillis();
+			Object record;
+			try {
+				record = queue.poll(Math.max(0, wait), TimeUnit.MILLISECONDS);
+			} catch (InterruptedException ex) {
+				record = END;
+			}
+
+			if (record != null) {
+				batch.add(record);
+				queue.drainTo(batch, batchSize - batch.size());
+			}
+
+			// Everything up to END is written, nothing after it
+			int end = batch.indexOf(END);
+			if (end >= 0) {
+				batch.subList(end, batch.size()).clear();
+				closed = true;
+			}
+
+			long now = System.currentTimeMillis();
+			if (!closed && batch.size() < batchSize
+					&& now < lastFlush + flushMillis) {
+				continue;
+			}
+
+			for (Object queued : batch) {
+				if (queued instanceof RunRecord) {
+					format((RunRecord) queued, runText);
+				} else {
+					format((GenerationRecord) queued, generationText);
+				}
+			}
+			batch.clear();
+
+			write(runs, runText);
+			if (generations != null) {
+				write(generations, generationText);
+			}
+			lastFlush = now;
+		}
+	}
+
+
+	/**
+	 * Append a generation record to the text, as a CSV or JSON line
+	 */
+	private void format(GenerationRecord record, StringBuilder text) {
+
+		GenerationEvent event = record.event;
+
+		if (json) {
+			text.append("{\"problem\":").append(quote(problem))
+					.append(",\"run\":").append(record.run)
+					.append(",\"generation\":").append(event.getGeneration())
+					.append(",\"bestCost\":").append(number(event.getBestCost()))
+					.append(",\"meanCost\":").append(number(event.getMeanCost()))
+					.append(",\"diversity\":")
+					.append(number(event.getDiversity()))
+					.append(",\"generationMicros\":")
+					.append(event.getGenerationNanos() / 1000)
+					.append(",\"elapsedMillis\":")
+					.append(event.getElapsedNanos() / 1000000).append("}\n");
+			return;
+		}
+
+		text.append(csv(problem)).append(',').append(record.run).append(',')
+				.append(event.getGeneration()).append(',')
+				.append(number(event.getBestCost())).append(',')
+				.append(number(event.getMeanCost())).append(',')
+				.append(number(event.getDiversity())).append(',')
+				.append(event.getGenerationNanos() / 1000).append(',')
+				.append(event.getElapsedNanos() / 1000000).append('\n');
+	}
+
+
+	/**
+	 * Append a run record to the text, as a CSV or JSON line
+	 */
+	private void format(RunRecord record, StringBuilder text) {
+
+		if (json) {
+			text.append("{\"problem\":").append(quote(problem))
+					.append(",\"run\":").append(record.run)
+					.append(",\"cities\":").append(record.cities)
+					.append(",\"bestCost\":").append(number(record.bestCost))
+					.append(",\"finalCost\":").append(number(record.finalCost))
+					.append(",\"percentFromOptimal\":")
+					.append(number(record.percentFromOptimal))
+					.append(",\"runningMillis\":").append(record.runningMillis)
+					.append("}\n");
+			return;
+		}
+
+		text.append(csv(problem)).append(',').append(record.run).append(',')
+				.append(record.cities).append(',')
+				.append(number(record.bestCost)).append(',')
+				.append(number(record.finalCost)).append(',')
+				.append(number(record.percentFromOptimal)).append(',')
+				.append(record.runningMillis).append('\n');
+	}
+
+
+	/**
+	 * Write the text out and flush the writer, keeping the first error for
+	 * close
+	 */
+	private void write(Writer writer, StringBuilder text) {
+
+		try {
+			if (text.length() > 0) {
+				writer.write(text.toString());
+			}
+			writer.flush();
+		} catch (IOException ex) {
+			if (error == null) {
+				error = ex;
+			}
+		}
+		text.setLength(0);
+	}
+
+
+	/**
+	 * @return the value as a CSV field, quoted if it needs to be
+	 */
+	private static String csv(String value) {
+
+		if (value.indexOf(',') < 0 && value.indexOf('"') < 0
+				&& value.indexOf('\n') < 0) {
+			return value;
+		}
+		return "\"" + value.replace("\"", "\"\"") + "\"";
+	}
+
+
+	/**
+	 * @return the number without a fraction if it is whole, the way both CSV
+	 *         and JSON readers expect it; NaN and infinity as an empty field or
+	 *         null
+	 */
+	private String number(double value) {
+
+		if (Double.isNaN(value) || Double.isInfinite(value)) {
+			return json ? "null" : "";
+		}
+		if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+			return String.valueOf((long) value);
+		}
+		return String.valueOf(value);
+	}
+
+
+	/**
+	 * @return the value as a JSON string
+	 */
+	private static String quote(String value) {
+
+		StringBuilder quoted = new StringBuilder(value.length() + 2);
+		quoted.append('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == '"' || c == '\\') {
+				quoted.append('\\').append(c);
+			} else if (c < ' ') {
+				quoted.append(String.format("\\u%04x", (int) c));
+			} else {
+				quoted.append(c);
+			}
+		}
+		return quoted.append('"').toString();
+	}
+}
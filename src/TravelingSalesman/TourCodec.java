@@ -0,0 +1,150 @@
+package TravelingSalesman;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Compact binary encoding of a tour. A tour is written as its length followed
+ * by the first city and then the difference between each pair of consecutive
+ * cities. The differences are zig-zag encoded and written as variable length
+ * integers, so neighbouring city numbers only take up a single byte.
+ *
+ * @author Aaron Foltz
+ */
+public class TourCodec {
+
+	/**
+	 * @return true if the tour visits every one of the cities exactly once
+	 */
+	public static boolean isTour(int[] tour, int cities) {
+
+		if (tour == null || tour.length != cities || cities == 0) {
+			return false;
+		}
+
+		boolean[] seen = new boolean[cities];
+		for (int city : tour) {
+			if (city < 0 || city >= cities || seen[city]) {
+				return false;
+			}
+			seen[city] = true;
+		}
+		return true;
+	}
+
+
+	/**
+	 * Read a tour that was written with writeTour
+	 *
+	 * @param in
+	 *            the input to read from
+	 * @param maxLength
+	 *            the most cities the tour may have, e.g. the number of cities
+	 *            of the problem, or the bytes left in the input (every city
+	 *            takes at least one)
+	 * @return the tour as an array of city numbers
+	 * @throws IOException
+	 *             if the tour can't be read, or its length is negative or
+	 *             more than maxLength
+	 */
+	public static int[] readTour(DataInput in, int maxLength)
+			throws IOException {
+
+		int length = readVarInt(in);
+		if (length < 0 || length > maxLength) {
+			throw new IOException("Malformed tour of " + length
+					+ " cities, expected at most " + maxLength);
+		}
+		int[] tour = new int[length];
+
+		int previous = 0;
+		for (int i = 0; i < length; i++) {
+			previous += unzigzag(readVarInt(in));
+			tour[i] = previous;
+		}
+
+		return tour;
+	}
+
+
+	/**
+	 * Read an unsigned variable length integer
+	 *
+	 * @param in
+	 *            the input to read from
+	 * @return the decoded integer
+	 * @throws IOException
+	 */
+	public static int readVarInt(DataInput in) throws IOException {
+
+		int value = 0;
+		int shift = 0;
+		int b;
+
+		// Seven bits per byte, the high bit says that more bytes follow
+		do {
+			if (shift > 28) {
+				throw new IOException("Malformed variable length integer");
+			}
+			b = in.readByte();
+			value |= (b & 0x7F) << shift;
+			shift += 7;
+		} while ((b & 0x80) != 0);
+
+		return value;
+	}
+
+
+	/**
+	 * Write the given tour in the delta encoded format
+	 *
+	 * @param out
+	 *            the output to write to
+	 * @param tour
+	 *            the tour as an array of city numbers
+	 * @throws IOException
+	 */
+	public static void writeTour(DataOutput out, int[] tour) throws IOException {
+
+		writeVarInt(out, tour.length);
+
+		int previous = 0;
+		for (int i = 0; i < tour.length; i++) {
+			writeVarInt(out, zigzag(tour[i] - previous));
+			previous = tour[i];
+		}
+	}
+
+
+	/**
+	 * Write an unsigned variable length integer
+	 *
+	 * @param out
+	 *            the output to write to
+	 * @param value
+	 *            the value to write, treated as unsigned
+	 * @throws IOException
+	 */
+	public static void writeVarInt(DataOutput out, int value)
+			throws IOException {
+
+		while ((value & ~0x7F) != 0) {
+			out.writeByte((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.writeByte(value);
+	}
+
+
+	private static int unzigzag(int value) {
+
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+
+	private static int zigzag(int value) {
+
+		return (value << 1) ^ (value >> 31);
+	}
+}
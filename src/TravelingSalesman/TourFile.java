@@ -0,0 +1,249 @@
+package TravelingSalesman;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+/**
+ * A tour in the TSPLIB tour format, as in the ".opt.tour" files in /data: a
+ * header of "KEY : value" lines, then a TOUR_SECTION with the number of each
+ * city of the tour (counting from 1), ended by -1 or EOF.
+ *
+ * The tour is kept with the cities counted from 0, the way the rest of the
+ * program counts them. Tours are written back in the same format, which
+ * OptimalPath and the TourVerifier can read.
+ *
+ * @author Aaron Foltz
+ */
+public class TourFile {
+
+	// The number of cities from the header, -1 if it has none
+	private final int		dimension;
+
+	private final String	name;
+
+	private final int[]		tour;
+
+
+	/**
+	 * @param name
+	 *            the NAME of the tour, e.g. "att48.opt.tour"
+	 * @param dimension
+	 *            the DIMENSION of the tour, -1 for none
+	 * @param tour
+	 *            the cities of the tour, counted from 0, not copied
+	 */
+	public TourFile(String name, int dimension, int[] tour) {
+
+		this.name = name;
+		this.dimension = dimension;
+		this.tour = tour;
+	}
+
+
+	/**
+	 * Read a tour file. The whole file is read at once and the numbers are
+	 * taken straight from its bytes; gzip files (".gz") are decompressed as
+	 * they are read.
+	 *
+	 * @param file
+	 *            the tour file
+	 * @return the tour
+	 * @throws IOException
+	 *             if the file can't be read, or is not a tour
+	 */
+	public static TourFile read(File file) throws IOException {
+
+		byte[] text;
+		InputStream in = TSPLIBParser.open(file);
+		try {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream(
+					(int) Math.min(file.length() + 1, Integer.MAX_VALUE));
+			byte[] buffer = new byte[1 << 16];
+			int read;
+			while ((read = in.read(buffer)) >= 0) {
+				bytes.write(buffer, 0, read);
+			}
+			text = bytes.toByteArray();
+		} finally {
+			in.close();
+		}
+
+		// --------------------------------------------- //
+		// Header
+		String name = file.getName();
+		int dimension = -1;
+		int position = 0;
+		boolean section = false;
+
+		while (position < text.length && !section) {
+			int end = position;
+			while (end < text.length && text[end] != '\n') {
+				end++;
+			}
+			String line = new String(text, position, end - position, "US-ASCII")
+					.trim();
+			position = end + 1;
+
+			int colon = line.indexOf(':');
+			if (line.startsWith("TOUR_SECTION")) {
+				section = true;
+			} else if (line.equals("EOF")) {
+				break;
+			} else if (colon >= 0) {
+				String key = line.substring(0, colon).trim();
+				String value = line.substring(colon + 1).trim();
+
+				if (key.equals("NAME")) {
+					name = value;
+				} else if (key.equals("TYPE") && !value.equals("TOUR")) {
+					throw new IOException(file + " is of TYPE " + value
+							+ ", not a TOUR");
+				} else if (key.equals("DIMENSION")) {
+					try {
+						dimension = Integer.parseInt(value);
+					} catch (NumberFormatException ex) {
+						throw new IOException("Malformed DIMENSION in " + file
+								+ ": " + value);
+					}
+				}
+			}
+		}
+
+		if (!section) {
+			throw new IOException(file + " has no TOUR_SECTION");
+		}
+		// --------------------------------------------- //
+
+		// --------------------------------------------- //
+		// Cities, up to -1 or EOF
+		int[] tour = new int[Math.max(16, dimension)];
+		int cities = 0;
+
+		while (true) {
+			while (position < text.length && text[position] <= ' ') {
+				position++;
+			}
+			if (position == text.length || text[position] == 'E') {
+				break;
+			}
+
+			boolean negative = (text[position] == '-');
+			if (negative) {
+				position++;
+			}
+
+			long city = 0;
+			int start = position;
+			while (position < text.length && text[position] >= '0'
+					&& text[position] <= '9') {
+				city = Math.min(city * 10 + (text[position++] - '0'),
+						Integer.MAX_VALUE);
+			}
+			if (position == start
+					|| (position < text.length && text[position] > ' ')) {
+				throw new IOException("Malformed city in the TOUR_SECTION of "
+						+ file);
+			}
+
+			if (negative) {
+				if (city == 1) {
+					break;
+				}
+				throw new IOException("Malformed city in the TOUR_SECTION of "
+						+ file + ": -" + city);
+			}
+
+			if (cities == tour.length) {
+				tour = Arrays.copyOf(tour, tour.length * 2);
+			}
+			// Counted from 0; 0 in the file stays out of range as -1
+			tour[cities++] = (int) city - 1;
+		}
+		// --------------------------------------------- //
+
+		return new TourFile(name, dimension,
+				(cities == tour.length) ? tour : Arrays.copyOf(tour, cities));
+	}
+
+
+	/**
+	 * @return the DIMENSION of the tour, -1 if it has none
+	 */
+	public int getDimension() {
+
+		return dimension;
+	}
+
+
+	/**
+	 * @return the NAME of the tour, the file name if it has none
+	 */
+	public String getName() {
+
+		return name;
+	}
+
+
+	/**
+	 * @return the cities of the tour, counted from 0; not copied
+	 */
+	public int[] getTour() {
+
+		return tour;
+	}
+
+
+	/**
+	 * Write the tour in the TSPLIB tour format. It is written to a temporary
+	 * file next to the file first, which is then renamed over it, so anyone
+	 * reading the file sees either the old tour or the new one - never half of
+	 * one.
+	 *
+	 * @param file
+	 *            the tour file
+	 * @param comment
+	 *            the COMMENT of the tour, e.g. its length; null for none
+	 * @throws IOException
+	 */
+	public void write(File file, String comment) throws IOException {
+
+		File directory = file.getAbsoluteFile().getParentFile();
+		File temporary = File.createTempFile(file.getName(), ".tmp", directory);
+
+		try {
+			Writer out = new BufferedWriter(new OutputStreamWriter(
+					new FileOutputStream(temporary), "US-ASCII"), 1 << 16);
+			try {
+				out.write("NAME : " + name + "\n");
+				if (comment != null) {
+					out.write("COMMENT : " + comment + "\n");
+				}
+				out.write("TYPE : TOUR\n");
+				out.write("DIMENSION : " + tour.length + "\n");
+				out.write("TOUR_SECTION\n");
+				for (int city : tour) {
+					out.write(Integer.toString(city + 1));
+					out.write('\n');
+				}
+				out.write("-1\nEOF\n");
+			} finally {
+				out.close();
+			}
+
+			Files.move(temporary.toPath(), file.toPath(),
+					StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			temporary.delete();
+		}
+	}
+}
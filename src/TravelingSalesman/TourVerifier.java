@@ -0,0 +1,405 @@
+package TravelingSalesman;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Verifies many tour files against their problems at once. Each tour is
+ * checked to visit every city of its problem exactly once - a bit per city
+ * tells which have been seen - and its cost is worked out straight from the
+ * coordinates, one distance per edge of the tour, without a distance matrix.
+ *
+ * The problem of a tour is found next to it, named after it: data/att48.tsp
+ * for data/att48.opt.tour or data/att48.tour. Each problem is read only once,
+ * however many tours there are of it.
+ *
+ * One tab separated record is written per tour, in the order they were given:
+ * the tour file, the problem file, the status (VALID, INVALID or ERROR), the
+ * number of cities of the tour, its cost, and why it is not valid.
+ *
+ * This program can be run as a standalone entity: java TourVerifier [-problem
+ * <problem file>] [-threads <threads>] [-report <report file>] <tour file or
+ * directory> ...
+ *
+ * java TourVerifier data
+ *
+ * @author Aaron Foltz
+ */
+public class TourVerifier {
+
+	public static final String								ERROR		= "ERROR";
+	public static final String								INVALID		= "INVALID";
+	public static final String								VALID		= "VALID";
+
+	// Each problem is read once, by the first tour that needs it
+	private final ConcurrentMap<File, FutureTask<TSPInstance>>	instances;
+
+	// The problem of every tour, null to find it next to each tour
+	private final File										problem;
+
+
+	/**
+	 * The verdict on a single tour
+	 */
+	public static class Verdict {
+
+		private final int		cities;
+		private final double	cost;
+		private final String	message;
+		private final File		problem;
+		private final String	status;
+		private final File		tour;
+
+
+		Verdict(File tour, File problem, String status, int cities,
+				double cost, String message) {
+
+			this.tour = tour;
+			this.problem = problem;
+			this.status = status;
+			this.cities = cities;
+			this.cost = cost;
+			this.message = message;
+		}
+
+
+		public int getCities() {
+
+			return cities;
+		}
+
+
+		/**
+		 * @return the cost of the tour, -1 if it is not valid
+		 */
+		public double getCost() {
+
+			return cost;
+		}
+
+
+		/**
+		 * @return why the tour is not valid, empty if it is
+		 */
+		public String getMessage() {
+
+			return message;
+		}
+
+
+		public File getProblem() {
+
+			return problem;
+		}
+
+
+		/**
+		 * @return VALID, INVALID or ERROR
+		 */
+		public String getStatus() {
+
+			return status;
+		}
+
+
+		public File getTour() {
+
+			return tour;
+		}
+
+
+		/**
+		 * @return the tab separated record of the verdict
+		 */
+		@Override
+		public String toString() {
+
+			return tour.getPath() + "\t"
+					+ ((problem != null) ? problem.getPath() : "") + "\t"
+					+ status + "\t" + cities + "\t"
+					+ ((cost >= 0) ? String.valueOf((long) cost) : "") + "\t"
+					+ message.replace('\t', ' ').replace('\n', ' ');
+		}
+	}
+
+
+	/**
+	 * @param problem
+	 *            the problem of every tour, null to find the problem of each
+	 *            tour next to it
+	 */
+	public TourVerifier(File problem) {
+
+		this.problem = problem;
+		instances = new ConcurrentHashMap<File, FutureTask<TSPInstance>>();
+	}
+
+
+	public static void main(String[] args) throws Exception {
+
+		File problem = null;
+		int threads = Runtime.getRuntime().availableProcessors();
+		String report = null;
+		List<File> tours = new ArrayList<File>();
+
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("-problem") && i + 1 < args.length) {
+				problem = new File(args[++i]);
+			} else if (args[i].equals("-threads") && i + 1 < args.length) {
+				threads = Integer.parseInt(args[++i]);
+			} else if (args[i].equals("-report") && i + 1 < args.length) {
+				report = args[++i];
+			} else {
+				addTours(new File(args[i]), tours);
+			}
+		}
+
+		if (tours.isEmpty()) {
+			System.out.println("Usage: java TourVerifier [-problem <problem "
+					+ "file>] [-threads <threads>] [-report <report file>] "
+					+ "<tour file or directory> ...");
+			System.exit(1);
+		}
+
+		Writer writer = new BufferedWriter((report != null) ? new FileWriter(
+				report) : new OutputStreamWriter(System.out));
+
+		long start = System.currentTimeMillis();
+		int[] counts = new TourVerifier(problem).verify(tours, threads, writer);
+		writer.flush();
+		if (report != null) {
+			writer.close();
+		}
+
+		// The summary goes next to the report, not into it
+		System.err.println("Verified " + tours.size() + " tours in "
+				+ (System.currentTimeMillis() - start) + " ms: " + counts[0]
+				+ " valid, " + counts[1] + " invalid, " + counts[2]
+				+ " errors");
+
+		System.exit((counts[0] == tours.size()) ? 0 : 1);
+	}
+
+
+	/**
+	 * Verify a single tour
+	 *
+	 * @param tour
+	 *            the tour file
+	 * @return the verdict on the tour, with status ERROR if the tour or its
+	 *         problem can't be read
+	 */
+	public Verdict verify(File tour) {
+
+		File problemFile = (problem != null) ? problem : problemOf(tour);
+
+		TourFile tourFile;
+		TSPInstance instance;
+		try {
+			tourFile = TourFile.read(tour);
+			instance = instance(problemFile);
+		} catch (IOException ex) {
+			return new Verdict(tour, problemFile, ERROR, 0, -1,
+					String.valueOf(ex.getMessage()));
+		}
+
+		int cities = instance.getDimension();
+		int[] cityTour = tourFile.getTour();
+
+		// --------------------------------------------- //
+		// Every city exactly once
+		if (tourFile.getDimension() >= 0 && tourFile.getDimension() != cities) {
+			return invalid(tour, problemFile, cityTour, "DIMENSION "
+					+ tourFile.getDimension() + ", the problem has " + cities
+					+ " cities");
+		}
+		if (cityTour.length != cities) {
+			return invalid(tour, problemFile, cityTour, "The tour has "
+					+ cityTour.length + " cities, the problem has " + cities);
+		}
+
+		BitSet seen = new BitSet(cities);
+		for (int city : cityTour) {
+			if (city < 0 || city >= cities) {
+				return invalid(tour, problemFile, cityTour, "City "
+						+ (city + 1) + " is not in the problem");
+			}
+			if (seen.get(city)) {
+				return invalid(tour, problemFile, cityTour, "City "
+						+ (city + 1) + " is visited more than once");
+			}
+			seen.set(city);
+		}
+		// --------------------------------------------- //
+
+		// --------------------------------------------- //
+		// Cost, straight from the coordinates
+		double cost = 0;
+		for (int i = 0; i < cities - 1; i++) {
+			cost += instance.distance(cityTour[i], cityTour[i + 1]);
+		}
+		if (cities > 1) {
+			cost += instance.distance(cityTour[cities - 1], cityTour[0]);
+		}
+		// --------------------------------------------- //
+
+		return new Verdict(tour, problemFile, VALID, cities, cost, "");
+	}
+
+
+	/**
+	 * Verify the tours on a pool of threads, writing the verdicts in the order
+	 * of the tours
+	 *
+	 * @param tours
+	 *            the tour files
+	 * @param threads
+	 *            the number of threads to verify them on
+	 * @param writer
+	 *            where the records of the verdicts are written
+	 * @return the number of valid, invalid and failed tours
+	 * @throws IOException
+	 *             if a record can't be written
+	 * @throws InterruptedException
+	 */
+	public int[] verify(List<File> tours, int threads, Writer writer)
+			throws IOException, InterruptedException {
+
+		ExecutorService pool = Executors.newFixedThreadPool(Math.max(1,
+				threads));
+		int[] counts = new int[3];
+
+		try {
+			List<Future<Verdict>> verdicts = new ArrayList<Future<Verdict>>();
+			for (final File tour : tours) {
+				verdicts.add(pool.submit(new Callable<Verdict>() {
+
+					@Override
+					public Verdict call() {
+
+						return verify(tour);
+					}
+				}));
+			}
+
+			writer.write("tour\tproblem\tstatus\tcities\tcost\tmessage\n");
+			for (Future<Verdict> future : verdicts) {
+				Verdict verdict;
+				try {
+					verdict = future.get();
+				} catch (ExecutionException ex) {
+					throw new IllegalStateException(ex.getCause());
+				}
+
+				if (verdict.getStatus().equals(VALID)) {
+					counts[0]++;
+				} else if (verdict.getStatus().equals(INVALID)) {
+					counts[1]++;
+				} else {
+					counts[2]++;
+				}
+				writer.write(verdict.toString());
+				writer.write('\n');
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+
+		return counts;
+	}
+
+
+	/**
+	 * @return the problem next to the tour, named after it
+	 */
+	public static File problemOf(File tour) {
+
+		String name = tour.getName().replaceAll("\\.gz$", "")
+				.replaceAll("\\.tour$", "").replaceAll("\\.opt$", "");
+		return TSPLIBParser.locate(new File(tour.getParentFile(), name
+				+ ".tsp"));
+	}
+
+
+	/**
+	 * Add the file, or the tour files in the directory, sorted by name
+	 */
+	private static void addTours(File file, List<File> tours) {
+
+		if (!file.isDirectory()) {
+			tours.add(file);
+			return;
+		}
+
+		File[] files = file.listFiles();
+		if (files == null) {
+			return;
+		}
+		Arrays.sort(files);
+		for (File child : files) {
+			if (child.getName().endsWith(".tour")
+					|| child.getName().endsWith(".tour.gz")) {
+				tours.add(child);
+			}
+		}
+	}
+
+
+	/**
+	 * @return the problem in the file, read by the first tour that needs it
+	 */
+	private TSPInstance instance(final File file) throws IOException {
+
+		FutureTask<TSPInstance> task = new FutureTask<TSPInstance>(
+				new Callable<TSPInstance>() {
+
+					@Override
+					public TSPInstance call() throws IOException {
+
+						return TSPLIBParser.read(file);
+					}
+				});
+
+		FutureTask<TSPInstance> existing = instances.putIfAbsent(file, task);
+		if (existing == null) {
+			existing = task;
+			task.run();
+		}
+
+		try {
+			return existing.get();
+		} catch (ExecutionException ex) {
+			if (ex.getCause() instanceof IOException) {
+				throw (IOException) ex.getCause();
+			}
+			throw new IOException(ex.getCause());
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while reading " + file);
+		}
+	}
+
+
+	private static Verdict invalid(File tour, File problem, int[] cityTour,
+			String message) {
+
+		return new Verdict(tour, problem, INVALID, cityTour.length, -1,
+				message);
+	}
+}
@@ -2,11 +2,16 @@
 package TravelingSalesman;
 
 import java.io.BufferedWriter;
+import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Scanner;
 
 import org.jgap.Chromosome;
@@ -21,7 +26,6 @@ import org.jgap.event.EventManager;
 import org.jgap.impl.BestChromosomesSelector;
 import org.jgap.impl.ChromosomePool;
 import org.jgap.impl.IntegerGene;
-import org.jgap.impl.StockRandomGenerator;
 
 // --------------------------------------------- //
 // OPTIMAL TOURS:
@@ -32,51 +36,113 @@ import org.jgap.impl.StockRandomGenerator;
 // --------------------------------------------- //
 
 /**
+ * A single solve of a TSP instance. Everything that belongs to the solve - the
+ * configuration, the population, the operators' random generator and the best
+ * chromosome - lives in this object, and it is handed to every operator,
+ * fitness function and initializer. The problem itself is an immutable
+ * TSPInstance, which can be shared by any number of solves, so many solves can
+ * run in one JVM at the same time as long as each has its own
+ * TravelingSalesman.
+ * 
  * @author Aaron Foltz
  */
 public class TravelingSalesman implements Serializable {
 
-	// The number of cities to visit
-	public static int				CITIES;
+	// The TSP problem being solved
+	private final TSPInstance		m_instance;
 
-	// The array that actually holds the city coordinates
-	public static double[][]		CITYARRAY;
-
-	// The weighting of the edges between each of the cities. Decides the
-	// distance function
-	public static String			EdgeWeightType		= null;
+	// What is worked out from the problem once, shared with the other runs
+	// on it; built when it is first needed if it wasn't handed in
+	private SolveSession			m_session;
 
 	// The best chromosome over an entire TSP
-	private static IChromosome		bestChromosome;
+	private IChromosome				bestChromosome;
 
 	// Set to true if you want to see more textual output as well as writing
 	// data to a file
 	private static boolean			debugOutput			= true;
 
-	private static Configuration	m_config;
+	// Set to true to log the progress of every generation to
+	// data/<file>.generations.data
+	private static boolean			generationLog		= false;
+
+	// Format of the telemetry files written by main, TelemetryWriter.CSV or
+	// TelemetryWriter.JSON, null to write none
+	private static String			telemetryFormat		= null;
+
+	// Set to true to add a telemetry record for every generation, not just
+	// for every run
+	private static boolean			generationTelemetry	= false;
+
+	// Time between two checkpoints of a run of main in milliseconds, 0 for
+	// none. A run that is stopped before it finishes is resumed from its
+	// checkpoint the next time main is started on the same problem
+	private static long				checkpointInterval	= 0;
 
-	// Set up writing data to a file
-	private static BufferedWriter	writer				= null;
+	private Configuration			m_config;
 
 	// The population for the GA
-	static Genotype					population			= null;
+	private Genotype				population			= null;
+
+	// The random generator of this TSP instance, used by every operator
+	private ResumableRandomGenerator	m_generator;
+
+	// Seed of the random generator, null to seed it randomly
+	private Long					m_seed				= null;
+
+	// Hooks that are called after every generation of the evolution
+	private final List<GenerationHook>	m_generationHooks	= new ArrayList<GenerationHook>();
+
+	// The genetic operators used by this TSP instance
+	private TravelingSalesmanHeuristicCrossover	m_crossover;
+	private SegmentSwappingMutation		m_mutation;
+
+	// The number of worker threads of the asynchronous engine, 0 to not use
+	// the asynchronous engine at all
+	private int						m_asyncThreads		= 0;
+
+	// Set to true to let the steady-state engine spend more of its time on
+	// the operators that are improving the population the fastest
+	private boolean					m_adaptiveOperators	= false;
+
+	// Tours put into the initial population in place of stochastically
+	// initialized ones, null for none
+	private int[][]					m_initialTours		= null;
+
+	// File that the run is checkpointed to and resumed from, null for none
+	private File					m_checkpointFile	= null;
+
+	// Time between two checkpoints in milliseconds
+	private long					m_checkpointInterval	= 0;
+
+	// Set by cancel, checked by the evolution loops between generations
+	private volatile boolean		m_cancelled			= false;
+
+	// System.nanoTime at which the time budget runs out
+	private long					m_deadline			= Long.MAX_VALUE;
+
+	// System.nanoTime at which the current run of findOptimalPath started
+	private long					m_startNanos		= 0;
+
+	// Wall clock time budget for a single run in milliseconds, 0 for none
+	private long					m_timeBudget		= 0;
+
+	// Set to true to evolve with the steady-state engine instead of the
+	// generational Genotype.evolve
+	private boolean					m_steadyState		= false;
+
+	// The number of chromosomes competing in a steady-state tournament
+	private int						m_tournamentSize	= 3;
 
 	// The culling percentage for the GA, the percentage of the current
 	// population that you want to keep for the next generation
-	private final double			cullingPercentage	= .75;
+	private double					cullingPercentage	= .75;
 
 	// The number of evolutons for the GA
-	private int						m_maxEvolution		= (1 * (int) ((Math.log(1 - Math.pow(
-																.99,
-																(1.0 / CITIES)))) / (Math
-																.log(((float) (CITIES - 3) / (float) (CITIES - 1))))));
+	private int						m_maxEvolution;
+
 	// Population size estimation for the GA
-	// from Tommi Rintala located at:
-	// http://lipas.uwasa.fi/cs/publications/2NWGA/node11.html#SECTION04120000000000000000
-	private int						m_populationSize	= (1 * (int) ((Math.log(1 - Math.pow(
-																.99,
-																(1.0 / CITIES)))) / (Math
-																.log(((float) (CITIES - 3) / (float) (CITIES - 1))))));
+	private int						m_populationSize;
 
 	// Offset for the TSP. This allows you to make the cities before the offset
 	// stay in place, not being changed by mutation/crossover
@@ -85,10 +151,66 @@ public class TravelingSalesman implements Serializable {
 	// Mutation rate = 1/X
 	// The entire GA seems to work better with a high mutationRate (about 1 in
 	// every 3 are mutated)
-	private final int				mutationRate		= 3;
+	private int						mutationRate		= 3;
 
 
-	public static Configuration getConfiguration() {
+	/**
+	 * Create a new solve of the given TSP instance, in a session of its own.
+	 * The population size and number of evolutions are estimated from the
+	 * number of cities. The session, with its distance matrix, is only built
+	 * when the solve first needs it, so that a solve can be set up and
+	 * admitted cheaply.
+	 * 
+	 * @param a_instance
+	 *            the TSP problem to solve
+	 * 
+	 * @author Aaron Foltz
+	 */
+	public TravelingSalesman(TSPInstance a_instance) {
+
+		m_session = null;
+		m_instance = a_instance;
+		m_maxEvolution = estimateSize(m_instance.getDimension());
+		m_populationSize = estimateSize(m_instance.getDimension());
+	}
+
+
+	/**
+	 * Create a new solve of the problem of a session, sharing its distance
+	 * matrix and the rest of its preprocessing with the other solves of the
+	 * session
+	 * 
+	 * @param a_session
+	 *            the session of the TSP problem to solve
+	 * 
+	 * @author Aaron Foltz
+	 */
+	public TravelingSalesman(SolveSession a_session) {
+
+		m_session = a_session;
+		m_instance = a_session.getInstance();
+		m_maxEvolution = estimateSize(m_instance.getDimension());
+		m_populationSize = estimateSize(m_instance.getDimension());
+	}
+
+
+	/**
+	 * Population size estimation for the GA from Tommi Rintala located at:
+	 * http://lipas.uwasa.fi/cs/publications/2NWGA/node11.html#SECTION04120000000000000000
+	 * The same estimate is used for the number of evolutions.
+	 * 
+	 * @param cities
+	 *            the number of cities to visit
+	 * @return the estimated population size
+	 */
+	public static int estimateSize(int cities) {
+
+		return (1 * (int) ((Math.log(1 - Math.pow(.99, (1.0 / cities)))) / (Math
+				.log(((float) (cities - 3) / (float) (cities - 1))))));
+	}
+
+
+	public Configuration getConfiguration() {
 
 		return m_config;
 	}
@@ -101,8 +223,10 @@ public class TravelingSalesman implements Serializable {
 	 * 
 	 * @author Aaron Foltz
 	 * @throws IOException
+	 * @throws InterruptedException
 	 */
-	public static void main(String[] args) throws IOException {
+	public static void main(String[] args) throws IOException,
+			InterruptedException {
 
 		// --------------------------------------------- //
 		// Gather input from the user
@@ -123,26 +247,66 @@ public class TravelingSalesman implements Serializable {
 		// --------------------------------------------- //
 
 		// Create the file to output the results of the experiment
+		BufferedWriter writer = null;
+
+		// Progress of every generation, written on a thread of its own
+		GenerationEventStream generations = null;
+		BufferedWriter generationWriter = null;
+		if (generationLog || (telemetryFormat != null && generationTelemetry)) {
+			generations = new GenerationEventStream(1024);
+		}
 		if (debugOutput) {
 			// Write data to a file
 			writer = new BufferedWriter(new FileWriter("data/"
 					+ file.concat(".data")));
 		}
+		if (generationLog) {
+			generationWriter = new BufferedWriter(new FileWriter("data/"
+					+ file.concat(".generations.data")));
+			generations.addListener(new GenerationLogWriter(generationWriter));
+		}
 
-		// Get the coordinates of the cities from the file.
-		CITYARRAY = Reader.getCoordinates(file);
-
-		// Set the length of the CITIES array to the length of cities
-		CITIES = CITYARRAY.length;
+		// Structured records of the runs and generations for analysis jobs,
+		// written in batches on a thread of their own
+		TelemetryWriter telemetry = null;
+		BufferedWriter runTelemetryWriter = null;
+		BufferedWriter generationTelemetryWriter = null;
+		if (telemetryFormat != null) {
+			String extension = TelemetryWriter.extension(telemetryFormat);
+			runTelemetryWriter = new BufferedWriter(new FileWriter("data/"
+					+ file + ".runs." + extension));
+			if (generationTelemetry) {
+				generationTelemetryWriter = new BufferedWriter(new FileWriter(
+						"data/" + file + ".generations." + extension));
+			}
+			telemetry = new TelemetryWriter(file, telemetryFormat,
+					runTelemetryWriter, generationTelemetryWriter);
+			if (generationTelemetryWriter != null) {
+				generations.addListener(telemetry);
+			}
+			telemetry.start();
+		}
+		if (generations != null) {
+			generations.start();
+		}
 
-		// Get the EdgeWeightType from the problem file. This will determine the
-		// type of approach to take when calculating distance
-		EdgeWeightType = Reader.getEdgeWeightType(file);
+		// Get the coordinates and edge weight type of the cities, from the
+		// preprocessed binary file next to the problem once there is one. The
+		// distance matrix and the rest of the preprocessing are shared by all
+		// of the runs
+		SolveSession session = new SolveSession(BinaryInstance.load(new File(
+				"data", file)));
+		TSPInstance instance = session.getInstance();
+		Reader.printCoordinates(instance);
+
+		// The best tour of all the runs, kept up to date in the TSPLIB tour
+		// format while they are running
+		File tourFile = new File("data", file.substring(0, file.length()
+				- ".tsp".length()).concat(".tour"));
+		BestTourWriter tours = new BestTourWriter(tourFile, tourFile.getName());
 
 		// Collect average and best information for the TSP instances
-		int average = 0;
-		double averagePercent = 0, averageRunningTime = 0;
-		int bestOverall = Integer.MAX_VALUE;
+		RunStatistics statistics = new RunStatistics(iterations, optimalTour);
 
 		// Run this TSP the desired amount of times
 		for (int i = 0; i < iterations; i++) {
@@ -153,8 +317,17 @@ public class TravelingSalesman implements Serializable {
 			try {
 
 				// Create new Traveling Salesman problem and start evolving
-				TravelingSalesman t = new TravelingSalesman();
+				TravelingSalesman t = session.createSalesman();
+				if (generations != null) {
+					t.addGenerationHook(generations);
+				}
+				t.addGenerationHook(tours);
+				if (checkpointInterval > 0) {
+					t.setCheckpoint(new File("data", file + ".checkpoint"),
+							checkpointInterval);
+				}
 				IChromosome optimal = t.findOptimalPath(null);
+				IChromosome bestChromosome = t.getBestChromosome();
 
 				// Gather the ending time of the program
 				long endTime = System.currentTimeMillis();
@@ -171,33 +344,28 @@ public class TravelingSalesman implements Serializable {
 						/ 1000F + " seconds");
 				// --------------------------------------------- //
 
-				// Save the best overall chromosome - over ALL of the TSP
-				// instances
-				if (bestOverall > bestChromosome.getFitnessValue()) {
-					bestOverall = (int) bestChromosome.getFitnessValue();
-				}
+				tours.offer(bestChromosome);
 
-				// --------------------------------------------- //
 				// Keep an average fitness value, percentage, and running time
-				average += bestChromosome.getFitnessValue();
-				averagePercent += (100 * ((optimal.getFitnessValue() - optimalTour) / optimal
-						.getFitnessValue()));
-				averageRunningTime += (endTime - startTime) / 1000F;
-				// --------------------------------------------- /
+				statistics.add(bestChromosome.getFitnessValue(),
+						optimal.getFitnessValue(), (endTime - startTime) / 1000F);
 
 				// Add the fitness value and running time for each iteration
 				if (debugOutput) {
-
-					writer.write((int) optimal.getFitnessValue() + "\t"
-							+ (endTime - startTime) / 1000F + " seconds" + "\t");
-					writer.write((100 * ((optimal.getFitnessValue() - optimalTour) / optimal
-							.getFitnessValue()))
-							+ "\n\n");
+					statistics.writeRun(writer, optimal.getFitnessValue(),
+							(endTime - startTime) / 1000F);
+				}
+				if (telemetry != null) {
+					telemetry.writeRun(i, instance.getDimension(),
+							bestChromosome.getFitnessValue(),
+							optimal.getFitnessValue(),
+							statistics.percentFromOptimal(optimal
+									.getFitnessValue()), endTime - startTime);
 				}
 
 				// Reset the configuration so that we can run another TSP
 				// instance on the same data
-				getConfiguration().reset();
+				t.getConfiguration().reset();
 
 			} catch (Exception ex) {
 				ex.printStackTrace();
@@ -207,34 +375,88 @@ public class TravelingSalesman implements Serializable {
 		// --------------------------------------------- //
 		// At the end of the TSP iterations on this data, print out the results,
 		// and write them to a file if debug output is true
+		tours.close();
+		System.out.println("Best tour written to " + tourFile);
+
+		if (generations != null) {
+			generations.close();
+		}
 		if (debugOutput) {
-			// Write out the average and best run
-			writer.write("\n--------------------------------------------------\n");
-			writer.write("AVERAGE: " + (average / iterations) + "\n");
-			writer.write("AVERAGE PERCENT: " + (averagePercent / iterations)
-					+ "\n");
-			writer.write("AVERAGE RUNNINGTIME: "
-					+ (averageRunningTime / iterations) + "\n");
-			writer.write("BEST: " + bestOverall + "\n\n");
-			writer.write("PERCENTAGE: "
-					+ ((float) (100 * (bestOverall - optimalTour) / bestOverall)));
+			statistics.write(writer);
 			writer.close();
 		}
+		if (generationWriter != null) {
+			generationWriter.close();
+		}
+		if (telemetry != null) {
+			telemetry.close();
+			runTelemetryWriter.close();
+			if (generationTelemetryWriter != null) {
+				generationTelemetryWriter.close();
+			}
+			if (telemetry.getDropped() > 0) {
+				System.out.println("Telemetry dropped "
+						+ telemetry.getDropped() + " generation records");
+			}
+		}
 
-		System.out
-				.println("\n\n----------------------------------------------\nAVERAGE: "
-						+ (average / iterations));
-		System.out.println("AVERAGE PERCENT: " + (averagePercent / iterations));
-		System.out.println("AVERAGE RUNNINGTIME: "
-				+ (averageRunningTime / iterations));
-		System.out.println("BEST: " + bestOverall);
-		System.out.println("PERCENTAGE: "
-				+ ((float) (100 * (bestOverall - optimalTour) / bestOverall)));
+		statistics.print();
 		// --------------------------------------------- //
 
 	}
 
 
+	/**
+	 * Convert a chromosome into a tour, represented as the city numbers in
+	 * the order that they are visited
+	 * 
+	 * @param a_chromosome
+	 *            the chromosome to convert
+	 * @return the tour represented by the chromosome
+	 * 
+	 * @author Aaron Foltz
+	 */
+	public static int[] toTour(IChromosome a_chromosome) {
+
+		Gene[] genes = a_chromosome.getGenes();
+		int[] tour = new int[genes.length];
+
+		for (int i = 0; i < genes.length; i++) {
+			tour[i] = ((IntegerGene) genes[i]).intValue();
+		}
+
+		return tour;
+	}
+
+
+	/**
+	 * Add a hook that will be called after every generation of the evolution
+	 * 
+	 * @param a_hook
+	 *            the hook to add
+	 * 
+	 * @author Aaron Foltz
+	 */
+	public void addGenerationHook(GenerationHook a_hook) {
+
+		m_generationHooks.add(a_hook);
+	}
+
+
+	/**
+	 * Ask the current (or next) run of findOptimalPath to stop. The evolution
+	 * loops notice it between generations, or between children for the
+	 * steady-state and asynchronous engines, and return the best tour found
+	 * so far. Can be called from any thread.
+	 * 
+	 * @author Aaron Foltz
+	 */
+	public void cancel() {
+
+		m_cancelled = true;
+	}
+
+
 	/**
 	 * Create a configuration for this TSP instance. Include the culling
 	 * percentage (BestChromosomeSelector), RandomGenerator, Minimum Population
@@ -269,7 +491,11 @@ public class TravelingSalesman implements Serializable {
 		config.addNaturalSelector(bestChromsSelector, true);
 
 		// Creates random numbers used throughout the process
-		config.setRandomGenerator(new StockRandomGenerator());
+		m_generator = new ResumableRandomGenerator();
+		if (m_seed != null) {
+			m_generator.setSeed(m_seed);
+		}
+		config.setRandomGenerator(m_generator);
 
 		// We do not want the population size to vary whatsoever, so we want the
 		// minimum to be 100% of the original at all times
@@ -285,12 +511,12 @@ public class TravelingSalesman implements Serializable {
 
 		// Genetic operator for crossover - Grefenstettes Heuristic (greedy)
 		// Crossover
-		config.addGeneticOperator(new TravelingSalesmanHeuristicCrossover(
-				config, this));
+		m_crossover = new TravelingSalesmanHeuristicCrossover(config, this);
+		config.addGeneticOperator(m_crossover);
 
 		// Genetic operator for mutation - 2-Opt Segment Mutation Operator
-		config.addGeneticOperator(new SegmentSwappingMutation(config,
-				mutationRate, this));
+		m_mutation = new SegmentSwappingMutation(config, mutationRate, this);
+		config.addGeneticOperator(m_mutation);
 		return config;
 	}
 
@@ -325,11 +551,12 @@ public class TravelingSalesman implements Serializable {
 	public IChromosome createSampleChromosome(Object a_initial_data) {
 
 		try {
-			Gene[] genes = new Gene[CITIES];
+			Gene[] genes = new Gene[m_instance.getDimension()];
 
 			// Create a sample chromosome from consecutive gene numbers
 			for (int i = 0; i < genes.length; i++) {
-				genes[i] = new IntegerGene(getConfiguration(), 0, CITIES - 1);
+				genes[i] = new IntegerGene(getConfiguration(), 0,
+						m_instance.getDimension() - 1);
 				genes[i].setAllele(new Integer(i));
 			}
 			IChromosome sample = new Chromosome(getConfiguration(), genes);
@@ -341,6 +568,34 @@ public class TravelingSalesman implements Serializable {
 	}
 
 
+	/**
+	 * Create a chromosome from a tour, represented as the city numbers in the
+	 * order that they are visited. This is the opposite of toTour
+	 * 
+	 * @param a_tour
+	 *            the tour to convert
+	 * @return Chromosome
+	 * 
+	 * @author Aaron Foltz
+	 */
+	public IChromosome createChromosome(int[] a_tour) {
+
+		try {
+			Gene[] genes = new Gene[a_tour.length];
+
+			for (int i = 0; i < genes.length; i++) {
+				genes[i] = new IntegerGene(getConfiguration(), 0,
+						m_instance.getDimension() - 1);
+				genes[i].setAllele(Integer.valueOf(a_tour[i]));
+			}
+			return new Chromosome(getConfiguration(), genes);
+
+		} catch (InvalidConfigurationException iex) {
+			throw new IllegalStateException(iex.getMessage());
+		}
+	}
+
+
 	/**
 	 * Return the distance between two genes (cities), given by the Edge weight
 	 * type provided by the TSP instance
@@ -355,75 +610,11 @@ public class TravelingSalesman implements Serializable {
 	 */
 	public double distance(Gene a_from, Gene a_to) {
 
-		// ATT Distance Function
-		if (EdgeWeightType.equals("ATT")) {
-
-			// Get the city value represented by the gene
-			IntegerGene geneA = (IntegerGene) a_from;
-			IntegerGene geneB = (IntegerGene) a_to;
-			int a = geneA.intValue();
-			int b = geneB.intValue();
-
-			// If the same city, the distance is 0
-			if (a == b) {
-				return 0;
-			}
-
-			// Calculate the distance
-
-			// Gather the X and Y coordinate for each city from the city array -
-			// provided by the TSP data
-			double x1 = CITYARRAY[a][0];
-			double y1 = CITYARRAY[a][1];
-			double x2 = CITYARRAY[b][0];
-			double y2 = CITYARRAY[b][1];
-
-			double xd = x1 - x2;
-			double yd = y2 - y1;
-
-			double rij = Math.sqrt(((xd * xd) + (yd * yd)) / 10.0);
-			double tij = Math.round(rij);
-
-			if (tij < rij) {
-				return tij + 1;
-			} else {
-				return tij;
-			}
-
-			// EUC_2D Distance Function
-		} else if (EdgeWeightType.equals("EUC_2D")) {
-
-			// Get the city (integer) representation
-			IntegerGene geneA = (IntegerGene) a_from;
-			IntegerGene geneB = (IntegerGene) a_to;
-			int a = geneA.intValue();
-			int b = geneB.intValue();
-
-			// If the same city, the distance is 0
-			if (a == b) {
-				return 0;
-
-				// Calculate and return the basic Euclidean distance
-			} else {
-
-				// Gather the X and Y coordinate for each city from the city
-				// array -
-				// provided by the TSP data
-				double x1 = CITYARRAY[a][0];
-				double y1 = CITYARRAY[a][1];
-				double x2 = CITYARRAY[b][0];
-				double y2 = CITYARRAY[b][1];
-
-				double xd = x1 - x2;
-				double yd = y1 - y2;
-
-				return Math.round(Math.sqrt((xd * xd) + (yd * yd)));
-
-			}
-		}
-
-		return -1;
+		// Get the city value represented by the gene
+		IntegerGene geneA = (IntegerGene) a_from;
+		IntegerGene geneB = (IntegerGene) a_to;
 
+		return getSession().distance(geneA.intValue(), geneB.intValue());
 	}
 
 
@@ -441,90 +632,137 @@ public class TravelingSalesman implements Serializable {
 	 */
 	public double distance(int a_from, int a_to) {
 
-		// ATT Distance Function
-		if (EdgeWeightType.equals("ATT")) {
+		return getSession().distance(a_from, a_to);
+	}
 
-			int a = a_from;
-			int b = a_to;
 
-			// If the same city, the distance is 0
-			if (a == b) {
-				return 0;
-			}
+	/**
+	 * Create the configuration for this TSP instance, and the initial
+	 * population of chromosomes using Stochastic Initialization.
+	 * 
+	 * @param a_initial_data
+	 *            passed to createFitnessFunction, createSampleChromosome and
+	 *            createConfiguration
+	 * 
+	 * @throws Exception
+	 * @return the genotype holding the initial population
+	 * 
+	 * @author Aaron Foltz
+	 */
+	public Genotype createInitialPopulation(final Object a_initial_data)
+			throws Exception {
 
-			// Calculate/return the distance between the two cities
+		IChromosome sampleChromosome = configure(a_initial_data);
 
-			// Gather the X and Y coordinate for each city from the city array -
-			// provided by the TSP data
-			double x1 = CITYARRAY[a][0];
-			double y1 = CITYARRAY[a][1];
-			double x2 = CITYARRAY[b][0];
-			double y2 = CITYARRAY[b][1];
+		// --------------------------------------------- //
+		// Genetic Algorithm Initialization
+		// --------------------------------------------- //
 
-			double xd = x1 - x2;
-			double yd = y2 - y1;
+		// Create the array representing the population
+		IChromosome[] chromosomes = new IChromosome[m_config
+				.getPopulationSize()];
 
-			double rij = Math.sqrt(((xd * xd) + (yd * yd)) / 10.0);
-			double tij = Math.round(rij);
+		// Get the sample chromosomes - these will be used in initialization
+		Gene[] samplegenes = sampleChromosome.getGenes();
 
-			if (tij < rij) {
-				return tij + 1;
-			} else {
-				return tij;
+		// Create a linked list with each of the city integers. This is used
+		// in initialization to satisfy set characteristics (a city can only be
+		// visited once except for the start/end city)
+		LinkedList<Integer> cityList = new LinkedList<Integer>(
+				getSession().getCityList());
+
+		// Warm start from the initial tours, if there are any
+		int given = 0;
+		if (m_initialTours != null) {
+			given = Math.min(m_initialTours.length, chromosomes.length);
+			for (int i = 0; i < given; i++) {
+				chromosomes[i] = createChromosome(m_initialTours[i]);
 			}
+		}
 
-			// EUC_2D Distance Function
-		} else if (EdgeWeightType.equals("EUC_2D")) {
-
-			int a = a_from;
-			int b = a_to;
-
-			// If the same city, the distance is 0
-			if (a == b) {
-				return 0;
-
-				// Calculate and return the basic Euclidean distance
-			} else {
+		// Initialize the rest of the population with the Stochastic Method
+		for (int i = given; i < chromosomes.length; i++) {
 
-				// Gather the X and Y coordinate for each city from the city
-				// array -
-				// provided by the TSP data
-				double x1 = CITYARRAY[a][0];
-				double y1 = CITYARRAY[a][1];
-				double x2 = CITYARRAY[b][0];
-				double y2 = CITYARRAY[b][1];
+			// Create the array of genes that will comprise this chromosome
+			Gene[] genes = new Gene[samplegenes.length];
 
-				double xd = x1 - x2;
-				double yd = y1 - y2;
+			// Shuffle the collection to mix things up
+			Collections.shuffle(cityList, m_generator);
 
-				return Math.round(Math.sqrt((xd * xd) + (yd * yd)));
+			// Stochastically build up the chromosome. Take the average of the
+			// edges left in the "not picked" pile, then choose a random edge
+			// for inclusion in the "picked" pile. If the inclusion of that edge
+			// is less than the average, then take it.
+			genes = StochasticInitialization.operate(genes, samplegenes, this,
+					(LinkedList<Integer>) cityList.clone());
 
-			}
+			// We now have this individual in the population
+			chromosomes[i] = new Chromosome(m_config, genes);
 		}
+		// --------------------------------------------- //
 
-		return -1;
-
+		// Create the Genotype. We cannot use Genotype.randomInitialGenotype,
+		// Because we need unique gene values (representing the indices of the
+		// cities of our problem).
+		// -------------------------------------------------------------------
+		return new Genotype(m_config, new Population(m_config, chromosomes));
 	}
 
 
 	/**
-	 * Executes the Genetic Algorithm to calculate the suboptimal tour between
-	 * each of the cities.
+	 * Create the configuration for this TSP instance, and put the population
+	 * of a checkpoint back in place of the initial population. Stochastic
+	 * Initialization isn't run at all, and the fitness values of the
+	 * checkpoint are used as they are.
 	 * 
 	 * @param a_initial_data
-	 *            can be a record with fields, specifying the task more
-	 *            precisely if the class is used to solve multiple tasks. It is
 	 *            passed to createFitnessFunction, createSampleChromosome and
 	 *            createConfiguration
+	 * @param a_checkpoint
+	 *            the checkpoint to resume from
 	 * 
 	 * @throws Exception
-	 * @return chromosome representing the optimal path between cities
+	 * @return the genotype holding the population of the checkpoint
 	 * 
 	 * @author Aaron Foltz
 	 */
-	public IChromosome findOptimalPath(final Object a_initial_data)
+	public Genotype createResumedPopulation(final Object a_initial_data,
+			final Checkpoint a_checkpoint) throws Exception {
+
+		if (a_checkpoint.getCities() != m_instance.getDimension()) {
+			throw new IllegalArgumentException("The checkpoint is of a problem "
+					+ "with " + a_checkpoint.getCities() + " cities, not "
+					+ m_instance.getDimension());
+		}
+
+		configure(a_initial_data);
+
+		int[][] tours = a_checkpoint.getTours();
+		IChromosome[] chromosomes = new IChromosome[tours.length];
+		for (int i = 0; i < tours.length; i++) {
+			chromosomes[i] = createChromosome(tours[i]);
+			chromosomes[i].setFitnessValueDirectly(a_checkpoint.getFitness()[i]);
+		}
+
+		// Carry on with the numbers the run would have drawn next
+		m_generator.setState(a_checkpoint.getRandomState());
+
+		return new Genotype(m_config, new Population(m_config, chromosomes));
+	}
+
+
+	/**
+	 * Create the configuration for this TSP instance, with its fitness
+	 * function, sample chromosome and population size
+	 * 
+	 * @return the sample chromosome
+	 */
+	private IChromosome configure(final Object a_initial_data)
 			throws Exception {
 
+		// Build the session now, before any evolution thread can ask for it
+		getSession();
+
 		// Get the configuration for this TSP instance
 		m_config = createConfiguration(a_initial_data);
 
@@ -543,58 +781,88 @@ public class TravelingSalesman implements Serializable {
 			System.out.println("MAX EVOLUTIONS: " + m_maxEvolution);
 			System.out.println("MUTATION RATE: " + mutationRate);
 			System.out.println("CULLING PERCENTAGE: " + cullingPercentage);
+			if (m_timeBudget > 0) {
+				System.out.println("TIME BUDGET: " + m_timeBudget + " ms");
+			}
+			System.out.println("ENGINE: "
+					+ (m_asyncThreads > 0 ? "ASYNCHRONOUS (" + m_asyncThreads
+							+ " THREADS)" : m_adaptiveOperators ? "ADAPTIVE STEADY-STATE"
+							: m_steadyState ? "STEADY-STATE" : "GENERATIONAL"));
 		}
 
 		// Set the number of chromosomes/individuals that we want in our
 		// population
 		m_config.setPopulationSize(getPopulationSize());
 
-		// --------------------------------------------- //
-		// Genetic Algorithm Initialization
-		// --------------------------------------------- //
+		return sampleChromosome;
+	}
 
-		// Create the array representing the population
-		IChromosome[] chromosomes = new IChromosome[m_config
-				.getPopulationSize()];
 
-		// Get the sample chromosomes - these will be used in initialization
-		Gene[] samplegenes = sampleChromosome.getGenes();
+	/**
+	 * Executes the Genetic Algorithm to calculate the suboptimal tour between
+	 * each of the cities.
+	 * 
+	 * @param a_initial_data
+	 *            can be a record with fields, specifying the task more
+	 *            precisely if the class is used to solve multiple tasks. It is
+	 *            passed to createFitnessFunction, createSampleChromosome and
+	 *            createConfiguration
+	 * 
+	 * @throws Exception
+	 * @return chromosome representing the optimal path between cities
+	 * 
+	 * @author Aaron Foltz
+	 */
+	public IChromosome findOptimalPath(final Object a_initial_data)
+			throws Exception {
 
-		// Create a linked list with each of the city integers. This is used
-		// in initialization to satisfy set characteristics (a city can only be
-		// visited once except for the start/end city)
-		LinkedList<Integer> cityList = new LinkedList<Integer>();
-		for (int j = 1; j < samplegenes.length; j++) {
-			cityList.add(j);
+		// Resume from the checkpoint file if it is there, which it only is if
+		// the last run checkpointed to it didn't finish
+		Checkpoint resume = null;
+		if (m_checkpointFile != null && m_asyncThreads == 0
+				&& m_checkpointFile.exists()) {
+			resume = Checkpoint.read(m_checkpointFile);
 		}
 
-		// Initialize the population with the Stochastic Method
-		for (int i = 0; i < chromosomes.length; i++) {
-
-			// Create the array of genes that will comprise this chromosome
-			Gene[] genes = new Gene[samplegenes.length];
-
-			// Shuffle the collection to mix things up
-			Collections.shuffle(cityList);
-
-			// Stochastically build up the chromosome. Take the average of the
-			// edges left in the "not picked" pile, then choose a random edge
-			// for inclusion in the "picked" pile. If the inclusion of that edge
-			// is less than the average, then take it.
-			genes = StochasticInitialization.operate(genes, samplegenes, this,
-					(LinkedList<Integer>) cityList.clone());
-
-			// We now have this individual in the population
-			chromosomes[i] = new Chromosome(m_config, genes);
+		// Work out when the time budget runs out. Initialization counts
+		// against the budget as well, and so does the time a resumed run had
+		// already taken
+		m_startNanos = System.nanoTime()
+				- ((resume != null) ? resume.getElapsedNanos() : 0);
+		m_deadline = (m_timeBudget > 0) ? m_startNanos + m_timeBudget
+				* 1000000L : Long.MAX_VALUE;
+
+		// Create the configuration and the initial population
+		population = (resume != null) ? createResumedPopulation(
+				a_initial_data, resume) : createInitialPopulation(a_initial_data);
+
+		// The asynchronous engine has no generations at all, its workers keep
+		// producing children until a population's worth of children has been
+		// produced for each of the max evolutions
+		if (m_asyncThreads > 0) {
+			AsynchronousEvolution async = new AsynchronousEvolution(this,
+					population, m_asyncThreads, m_tournamentSize);
+			bestChromosome = async.evolve((long) getMaxEvolution()
+					* getPopulationSize(), m_deadline);
+
+			if (debugOutput) {
+				System.out.println("OFFSPRING PER SECOND: "
+						+ (int) async.getOffspringPerSecond());
+			}
+			return bestChromosome;
 		}
-		// --------------------------------------------- //
 
-		// Create the Genotype. We cannot use Genotype.randomInitialGenotype,
-		// Because we need unique gene values (representing the indices of the
-		// cities of our problem).
-		// -------------------------------------------------------------------
-		population = new Genotype(m_config, new Population(m_config,
-				chromosomes));
+		// The steady-state engine replaces chromosomes in place, producing a
+		// population's worth of children for each of our "generations"
+		SteadyStateEvolution steadyState = null;
+		if (m_steadyState || m_adaptiveOperators) {
+			steadyState = new SteadyStateEvolution(this, population,
+					m_tournamentSize);
+			steadyState.setAdaptiveOperators(m_adaptiveOperators);
+			if (resume != null) {
+				steadyState.setOperatorQuality(resume.getOperatorQuality());
+			}
+		}
 
 		// Keep track of the best chromosome in the population during each
 		// evolutionary stage
@@ -606,76 +874,293 @@ public class TravelingSalesman implements Serializable {
 		// Track the last best chromosome
 		int previousBest = Integer.MAX_VALUE;
 
-		// Evolve the population. Since we don't know what the best answer
-		// is going to be, we just evolve the max number of times.
-		// ---------------------------------------------------------------
-		Evolution: for (int i = 0; i < getMaxEvolution(); i++) {
-
-			// --------------------------------------------- //
-			// Debugging Code - used to get best-so-far graphs of the evolution
-			// if (debugOutput) {
-			// System.out.println("\n----------------------------");
-			// System.out.println("STARTING: " + best.getFitnessValue());
-			//
-			// for (Gene gene : best.getGenes()) {
-			// System.out.print(gene.getAllele() + " ");
-			// }
-			// System.out.println();
-			// }
-			// --------------------------------------------- //
-
-			population.evolve();
-			best = population.getFittestChromosome();
-
-			// --------------------------------------------- //
-			// Debugging Code - used to get best-so-far graphs of the evolution
-
-			// Write evolutionary progress to the file
-			// if (debugOutput) {
-			// writer.write(i + "\t" + best.getFitnessValue() + "\n");
-			// }
-			// if (debugOutput) {
-			// System.out.println("\nAFTER EVOLUTION: " +
-			// best.getFitnessValue());
-			// for (Gene gene : best.getGenes()) {
-			// System.out.print(gene.getAllele() + " ");
-			// }
-			// System.out.println("\n----------------------------");
-			// }
-			// Save the best fitness value for comparison in the next iteration
-			// previousBest = (int) best.getFitnessValue();
-			// --------------------------------------------- //
-
-			// If the current best value is equal to the last best value
-			if (best.getFitnessValue() == previousBest) {
-
-				// If it has been stuck here 30% of the total iterations in a
-				// row, just exit. This allows us to exit out of a convergence
-				// that is not changing
-				if (counter++ == (m_maxEvolution * .3)) {
-					System.out.println("Exiting Early");
-					return best;
+		// A resumed run carries on with the generation after its checkpoint
+		int first = 0;
+		if (resume != null) {
+			first = resume.getGeneration();
+			counter = resume.getStagnation();
+			previousBest = resume.getPreviousBest();
+			if (resume.getBestTour() != null) {
+				bestChromosome = createChromosome(resume.getBestTour());
+				bestChromosome.setFitnessValueDirectly(resume.getBestCost());
+			}
+		}
+
+		// Checkpoints are taken here, between generations, and written on a
+		// thread of their own
+		CheckpointWriter checkpoints = null;
+		if (m_checkpointFile != null) {
+			checkpoints = new CheckpointWriter(m_checkpointFile,
+					m_checkpointInterval);
+		}
+		boolean finished = false;
+
+		try {
+
+			// Evolve the population. Since we don't know what the best answer
+			// is going to be, we just evolve the max number of times.
+			// ---------------------------------------------------------------
+			Evolution: for (int i = first; i < getMaxEvolution(); i++) {
+
+				// --------------------------------------------- //
+				// Debugging Code - used to get best-so-far graphs of the evolution
+				// if (debugOutput) {
+				// System.out.println("\n----------------------------");
+				// System.out.println("STARTING: " + best.getFitnessValue());
+				//
+				// for (Gene gene : best.getGenes()) {
+				// System.out.print(gene.getAllele() + " ");
+				// }
+				// System.out.println();
+				// }
+				// --------------------------------------------- //
+
+				if (steadyState != null) {
+					steadyState.evolve(getPopulationSize());
+				} else {
+					population.evolve();
+				}
+				best = population.getFittestChromosome();
+
+				// Let the hooks look at (or change) the evolved population
+				for (GenerationHook hook : m_generationHooks) {
+					hook.generationCompleted(this, population, i);
+				}
+
+				// --------------------------------------------- //
+				// Debugging Code - used to get best-so-far graphs of the evolution
+
+				// Write evolutionary progress to the file
+				// if (debugOutput) {
+				// writer.write(i + "\t" + best.getFitnessValue() + "\n");
+				// }
+				// if (debugOutput) {
+				// System.out.println("\nAFTER EVOLUTION: " +
+				// best.getFitnessValue());
+				// for (Gene gene : best.getGenes()) {
+				// System.out.print(gene.getAllele() + " ");
+				// }
+				// System.out.println("\n----------------------------");
+				// }
+				// Save the best fitness value for comparison in the next iteration
+				// previousBest = (int) best.getFitnessValue();
+				// --------------------------------------------- //
+
+				// If the current best value is equal to the last best value
+				if (best.getFitnessValue() == previousBest) {
+
+					// If it has been stuck here 30% of the total iterations in a
+					// row, just exit. This allows us to exit out of a convergence
+					// that is not changing
+					if (counter++ == (m_maxEvolution * .3)) {
+						System.out.println("Exiting Early");
+						finished = true;
+						return fittest(best, bestChromosome);
+					}
+
+					// If it is the best so far, then keep it
+				} else if (best.getFitnessValue() < previousBest) {
+					previousBest = (int) best.getFitnessValue();
+					bestChromosome = best;
+					counter = 0;
+
+					// If worse, reset counter only
+				} else if (best.getFitnessValue() > previousBest) {
+
+					counter = 0;
+
 				}
 
-				// If it is the best so far, then keep it
-			} else if (best.getFitnessValue() < previousBest) {
 				previousBest = (int) best.getFitnessValue();
-				bestChromosome = best;
-				counter = 0;
 
-				// If worse, reset counter only
-			} else if (best.getFitnessValue() > previousBest) {
+				// Once the time budget is used up, or the run is cancelled, hand
+				// back the best tour that we have found so far
+				if (shouldStop()) {
+					System.out.println(m_cancelled ? "Cancelled" : "Out of time");
+
+					// A cancelled run can be resumed, one out of time is done
+					if (checkpoints != null && m_cancelled) {
+						checkpoints.write(checkpoint(i + 1, counter, previousBest,
+								steadyState));
+					}
+					finished = !m_cancelled;
+					return fittest(best, bestChromosome);
+				}
+
+				if (checkpoints != null && checkpoints.isDue()) {
+					checkpoints.write(checkpoint(i + 1, counter, previousBest,
+							steadyState));
+				}
+			}
 
-				counter = 0;
+			finished = true;
 
+		} finally {
+			// The checkpoint of a finished run would only make the next run
+			// repeat the end of this one
+			if (checkpoints != null) {
+				checkpoints.close();
+				if (finished) {
+					m_checkpointFile.delete();
+				}
 			}
+		}
+
+		// Return the best solution found during evolution. A run resumed
+		// after its last generation has only the best tour of its checkpoint
+		return (best != null) ? best : bestChromosome;
+	}
+
+
+	/**
+	 * Take a checkpoint of the run, between two generations. Only the tours
+	 * are copied here; they are encoded and written by the CheckpointWriter.
+	 * 
+	 * @param a_generation
+	 *            the number of the next generation
+	 * @param a_stagnation
+	 *            the stagnation counter
+	 * @param a_previousBest
+	 *            the best fitness of the last generation
+	 * @param a_steadyState
+	 *            the steady-state engine, null for Genotype.evolve
+	 * @return the checkpoint
+	 */
+	private Checkpoint checkpoint(int a_generation, int a_stagnation,
+			int a_previousBest, SteadyStateEvolution a_steadyState) {
 
-			previousBest = (int) best.getFitnessValue();
+		Population chromosomes = population.getPopulation();
+		int[][] tours = new int[chromosomes.size()][];
+		double[] fitness = new double[tours.length];
 
+		for (int i = 0; i < tours.length; i++) {
+			IChromosome chromosome = chromosomes.getChromosome(i);
+			tours[i] = toTour(chromosome);
+			fitness[i] = chromosome.getFitnessValue();
 		}
 
-		// Return the best solution found during evolution.
-		return best;
+		return new Checkpoint(m_instance.getDimension(), a_generation,
+				a_stagnation, a_previousBest, System.nanoTime() - m_startNanos,
+				m_generator.getState(), tours, fitness,
+				(bestChromosome != null) ? toTour(bestChromosome) : null,
+				(bestChromosome != null) ? bestChromosome.getFitnessValue()
+						: Double.MAX_VALUE,
+				(a_steadyState != null) ? a_steadyState.getOperatorQuality()
+						: new double[0]);
+	}
+
+
+	/**
+	 * @return the fitter of the two chromosomes, either may be null
+	 */
+	private IChromosome fittest(IChromosome a_first, IChromosome a_second) {
+
+		if (a_first == null) {
+			return a_second;
+		} else if ((a_second != null)
+				&& (a_second.getFitnessValue() < a_first.getFitnessValue())) {
+			return a_second;
+		}
+		return a_first;
+	}
+
+
+	/**
+	 * @return the best chromosome found by the last run of findOptimalPath
+	 * 
+	 * @author Aaron Foltz
+	 */
+	public IChromosome getBestChromosome() {
+
+		return bestChromosome;
+	}
+
+
+	/**
+	 * @param a_count
+	 *            the most tours to return
+	 * @return the best distinct tours of the last run of findOptimalPath, best
+	 *         first, including the best one found during the run
+	 * 
+	 * @author Aaron Foltz
+	 */
+	public int[][] getBestTours(final int a_count) {
+
+		List<IChromosome> chromosomes = new ArrayList<IChromosome>();
+		if (bestChromosome != null) {
+			chromosomes.add(bestChromosome);
+		}
+		if (population != null) {
+			Population last = population.getPopulation();
+			for (int i = 0; i < last.size(); i++) {
+				chromosomes.add(last.getChromosome(i));
+			}
+		}
+
+		Collections.sort(chromosomes, new Comparator<IChromosome>() {
+
+			@Override
+			public int compare(IChromosome a, IChromosome b) {
+
+				return Double.compare(a.getFitnessValue(), b.getFitnessValue());
+			}
+		});
+
+		List<int[]> tours = new ArrayList<int[]>();
+		for (int i = 0; i < chromosomes.size() && tours.size() < a_count; i++) {
+			int[] tour = toTour(chromosomes.get(i));
+			boolean duplicate = false;
+			for (int j = 0; j < tours.size() && !duplicate; j++) {
+				duplicate = Arrays.equals(tours.get(j), tour);
+			}
+			if (!duplicate) {
+				tours.add(tour);
+			}
+		}
+		return tours.toArray(new int[tours.size()][]);
+	}
+
+
+	/**
+	 * @return the crossover operator of the current configuration
+	 */
+	TravelingSalesmanHeuristicCrossover getCrossover() {
+
+		return m_crossover;
+	}
+
+
+	/**
+	 * @return the TSP problem being solved
+	 * 
+	 * @author Aaron Foltz
+	 */
+	public TSPInstance getInstance() {
+
+		return m_instance;
+	}
+
+
+	/**
+	 * @return the session whose preprocessing this solve shares, built now if
+	 *         this solve has a session of its own and it isn't built yet
+	 */
+	public SolveSession getSession() {
+
+		if (m_session == null) {
+			m_session = new SolveSession(m_instance);
+		}
+		return m_session;
+	}
+
+
+	/**
+	 * @return the culling percentage, the part of the population kept for the
+	 *         next generation
+	 */
+	public double getCullingPercentage() {
+
+		return cullingPercentage;
 	}
 
 
@@ -690,6 +1175,33 @@ public class TravelingSalesman implements Serializable {
 	}
 
 
+	/**
+	 * @return the mutation operator of the current configuration
+	 */
+	SegmentSwappingMutation getMutation() {
+
+		return m_mutation;
+	}
+
+
+	/**
+	 * @return mutation rate as the denominator of 1 / X
+	 */
+	public int getMutationRate() {
+
+		return mutationRate;
+	}
+
+
+	/**
+	 * @return true once cancel has been called
+	 */
+	public boolean isCancelled() {
+
+		return m_cancelled;
+	}
+
+
 	/**
 	 * @return population size for this solution
 	 */
@@ -699,6 +1211,16 @@ public class TravelingSalesman implements Serializable {
 	}
 
 
+	/**
+	 * @return System.nanoTime at which the current (or last) run of
+	 *         findOptimalPath started
+	 */
+	public long getStartNanos() {
+
+		return m_startNanos;
+	}
+
+
 	/**
 	 * Gets a number of genes at the start of chromosome, that are excluded from
 	 * the swapping. In the Salesman task, the first city in the list should
@@ -714,6 +1236,91 @@ public class TravelingSalesman implements Serializable {
 	}
 
 
+	/**
+	 * Let the steady-state engine pick its operators by how fast they have
+	 * been improving the population, instead of always applying crossover
+	 * followed by mutation. Turns on the steady-state engine (default false)
+	 * 
+	 * @param a_adaptiveOperators
+	 *            sic
+	 * 
+	 * @author Aaron Foltz
+	 */
+	public void setAdaptiveOperators(final boolean a_adaptiveOperators) {
+
+		m_adaptiveOperators = a_adaptiveOperators;
+	}
+
+
+	/**
+	 * Evolve with the asynchronous engine (see AsynchronousEvolution), using
+	 * the given number of worker threads. 0 turns the asynchronous engine off
+	 * (default 0)
+	 * 
+	 * @param a_threads
+	 *            sic
+	 * 
+	 * @author Aaron Foltz
+	 */
+	public void setAsynchronousThreads(final int a_threads) {
+
+		m_asyncThreads = a_threads;
+	}
+
+
+	/**
+	 * Checkpoint every run to the given file, so that a run that is stopped -
+	 * cancelled, or its JVM killed - can be resumed where it was. When the file
+	 * is there at the start of a run, the run is resumed from it instead of
+	 * being initialized; once a run finishes, the file is deleted. Only the
+	 * generational and steady-state engines are checkpointed (default none)
+	 * 
+	 * @param a_file
+	 *            the checkpoint file, null for none
+	 * @param a_intervalMillis
+	 *            the time between two checkpoints in milliseconds
+	 * 
+	 * @author Aaron Foltz
+	 */
+	public void setCheckpoint(final File a_file, final long a_intervalMillis) {
+
+		m_checkpointFile = a_file;
+		m_checkpointInterval = a_intervalMillis;
+	}
+
+
+	/**
+	 * Set the percentage of the population that is kept for the next
+	 * generation by the BestChromosomesSelector (default .75)
+	 * 
+	 * @param a_cullingPercentage
+	 *            sic
+	 * 
+	 * @author Aaron Foltz
+	 */
+	public void setCullingPercentage(final double a_cullingPercentage) {
+
+		cullingPercentage = a_cullingPercentage;
+	}
+
+
+	/**
+	 * Start the population of the next run of findOptimalPath from the given
+	 * tours, e.g. the best tours of an earlier solve of the same problem. The
+	 * rest of the population is made with Stochastic Initialization as usual
+	 * (default none)
+	 * 
+	 * @param a_tours
+	 *            the tours, each starting at city 0; null for none
+	 * 
+	 * @author Aaron Foltz
+	 */
+	public void setInitialTours(final int[][] a_tours) {
+
+		m_initialTours = a_tours;
+	}
+
+
 	/**
 	 * Set the maximal number of iterations for population to evolve (default
 	 * 512).
@@ -729,6 +1336,20 @@ public class TravelingSalesman implements Serializable {
 	}
 
 
+	/**
+	 * Set the mutation rate as the denominator of 1 / X (default 3)
+	 * 
+	 * @param a_mutationRate
+	 *            sic
+	 * 
+	 * @author Aaron Foltz
+	 */
+	public void setMutationRate(final int a_mutationRate) {
+
+		mutationRate = a_mutationRate;
+	}
+
+
 	/**
 	 * Set an population size for this solution (default 512)
 	 * 
@@ -755,4 +1376,92 @@ public class TravelingSalesman implements Serializable {
 		m_startOffset = a_offset;
 	}
 
+
+	/**
+	 * Seed the random generator that every operator of this TSP instance
+	 * draws from, so that runs can be repeated. By default it is seeded
+	 * randomly
+	 * 
+	 * @param a_seed
+	 *            sic
+	 * 
+	 * @author Aaron Foltz
+	 */
+	public void setSeed(final long a_seed) {
+
+		m_seed = a_seed;
+	}
+
+
+	/**
+	 * Evolve with the steady-state engine (see SteadyStateEvolution) instead
+	 * of the generational Genotype.evolve (default false)
+	 * 
+	 * @param a_steadyState
+	 *            sic
+	 * 
+	 * @author Aaron Foltz
+	 */
+	public void setSteadyState(final boolean a_steadyState) {
+
+		m_steadyState = a_steadyState;
+	}
+
+
+	/**
+	 * Set a wall clock time budget for each run of findOptimalPath. The
+	 * budget is checked between generations, and when it runs out the best
+	 * tour found so far is returned. 0 means no budget (default 0)
+	 * 
+	 * @param a_millis
+	 *            the time budget in milliseconds
+	 * 
+	 * @author Aaron Foltz
+	 */
+	public void setTimeBudget(final long a_millis) {
+
+		m_timeBudget = a_millis;
+	}
+
+
+	/**
+	 * Set the number of chromosomes competing in each steady-state tournament
+	 * (default 3)
+	 * 
+	 * @param a_tournamentSize
+	 *            sic
+	 * 
+	 * @author Aaron Foltz
+	 */
+	public void setTournamentSize(final int a_tournamentSize) {
+
+		m_tournamentSize = a_tournamentSize;
+	}
+
+
+	/**
+	 * Cheap enough to be called between every batch of operators
+	 * 
+	 * @return true once the time budget of the current run is used up, or
+	 *         the run has been cancelled
+	 * 
+	 * @author Aaron Foltz
+	 */
+	public boolean shouldStop() {
+
+		return m_cancelled
+				|| ((m_deadline != Long.MAX_VALUE) && (System.nanoTime()
+						- m_deadline > 0));
+	}
+
+
+	/**
+	 * @return true if the engine keeps a single population, the
+	 *         steady-state and asynchronous engines
+	 */
+	boolean usesSinglePopulation() {
+
+		return m_steadyState || m_adaptiveOperators || (m_asyncThreads > 0);
+	}
+
 }